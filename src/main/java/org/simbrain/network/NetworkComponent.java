@@ -21,15 +21,21 @@ import com.thoughtworks.xstream.XStream;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.events.NetworkEvents;
 import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.util.io_utilities.BinaryNetworkSerializer;
+import org.simbrain.network.util.io_utilities.GroupSerializer.Precision;
 import org.simbrain.util.Utils;
 import org.simbrain.util.nd4j.Nd4jConverter;
 import org.simbrain.workspace.Attribute;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.WorkspaceComponent;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -37,6 +43,16 @@ import java.util.List;
  */
 public final class NetworkComponent extends WorkspaceComponent {
 
+    /**
+     * Format (and file extension) of the compact binary network format. See {@link BinaryNetworkSerializer}.
+     */
+    public static final String BINARY_FORMAT = "simbin";
+
+    /**
+     * Precision of weights and activations when saving in {@link #BINARY_FORMAT}.
+     */
+    private Precision binaryPrecision = Precision.FLOAT_32;
+
     /**
      * Reference to root network, the main model network.
      */
@@ -125,18 +141,52 @@ public final class NetworkComponent extends WorkspaceComponent {
         return retList;
     }
 
+    /**
+     * Open a network saved as xml or in the binary format. The format is detected from the contents of the stream.
+     */
     public static NetworkComponent open(final InputStream input, final String name, final String format) {
-        Network newNetwork = (Network) getNetworkXStream().fromXML(input);
+        BufferedInputStream in = new BufferedInputStream(input);
+        Network newNetwork;
+        try {
+            if (BinaryNetworkSerializer.isBinaryNetwork(in)) {
+                newNetwork = BinaryNetworkSerializer.read(in);
+            } else {
+                newNetwork = (Network) getNetworkXStream().fromXML(in);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         return new NetworkComponent(name, newNetwork);
     }
 
     @Override
     public void save(final OutputStream output, final String format) {
+        if (format != null && format.endsWith(BINARY_FORMAT)) {
+            try {
+                BinaryNetworkSerializer.write(network, output, binaryPrecision);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
         network.preSaveInit();
         getNetworkXStream().toXML(network, output);
         network.postSaveReInit();
     }
 
+    @Override
+    public List<? extends String> getFormats() {
+        return Arrays.asList(getDefaultFormat(), BINARY_FORMAT);
+    }
+
+    public Precision getBinaryPrecision() {
+        return binaryPrecision;
+    }
+
+    public void setBinaryPrecision(Precision binaryPrecision) {
+        this.binaryPrecision = binaryPrecision;
+    }
+
     /**
      * Get Xstream with custom converters
      */
@@ -179,6 +229,7 @@ public final class NetworkComponent extends WorkspaceComponent {
 
     @Override
     public void closing() {
+        network.getUpdateManager().shutdown();
     }
 
     @Override
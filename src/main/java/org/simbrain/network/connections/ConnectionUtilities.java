@@ -24,6 +24,7 @@ import org.simbrain.network.core.SynapseUpdateRule;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -384,7 +385,7 @@ public class ConnectionUtilities {
                     excitatory = true;
                 }
             } else {
-                double exciteOrInhib = Math.random();
+                double exciteOrInhib = RandomSource.uniform();
                 if (exciteOrInhib < excitatoryRatio) {
                     excitatory = true;
                 } else {
@@ -24,6 +24,7 @@ import org.simbrain.network.groups.SynapseGroup;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.EditableObject;
 
 import java.util.*;
@@ -157,7 +158,7 @@ public class RadialGaussian extends ConnectionStrategy implements EditableObject
         List<Synapse> synapses = new ArrayList<Synapse>(source.size() * target.size() / 4);
         for (Neuron src : source) {
             for (Neuron tar : target) {
-                double randVal = Math.random();
+                double randVal = RandomSource.uniform();
                 double probability;
                 if (src.getPolarity() == Polarity.EXCITATORY) {
                     if (tar.getPolarity() == Polarity.EXCITATORY) {
@@ -211,7 +212,7 @@ public class RadialGaussian extends ConnectionStrategy implements EditableObject
         List<Synapse> synapses = new ArrayList<Synapse>(source.size() * target.size() / 4);
         for (Neuron src : source) {
             for (Neuron tar : target) {
-                double randVal = Math.random();
+                double randVal = RandomSource.uniform();
                 double probability = calcConnectProb(src, tar, distConst, lambda);
                 if (randVal < probability) {
                     Synapse s = new Synapse(src, tar);
@@ -527,7 +528,7 @@ public class RadialGaussian extends ConnectionStrategy implements EditableObject
             int count = 0;
             for (Neuron src : synapseGroup.getSourceNeurons()) {
                 for (Neuron tar : synapseGroup.getTargetNeurons()) {
-                    double randVal = Math.random();
+                    double randVal = RandomSource.uniform();
                     double probability;
                     if (src.getPolarity() == Polarity.EXCITATORY) {
                         if (tar.getPolarity() == Polarity.EXCITATORY) {
@@ -26,11 +26,13 @@ import org.simbrain.network.util.SimnetUtils;
 import org.simbrain.util.SimbrainConstants;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.EditableObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 /**
@@ -193,6 +195,11 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
      */
     private List<Neuron> nonPolarNeurons;
 
+    /**
+     * Stream of random numbers for choosing which neurons to connect in the deterministic style.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     /**
      * Default constructor.
      */
@@ -246,7 +253,7 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
         List<Neuron> neusInRadius = SimnetUtils.getNeuronsInRadius(neuron, inhNeurons, inhibitoryRadius);
         neusInRadius.addAll(SimnetUtils.getNeuronsInRadius(neuron, nonPolarNeurons, inhibitoryRadius));
         if (conMethod == ConnectStyle.DETERMINISTIC) {
-            Collections.shuffle(neusInRadius);
+            Collections.shuffle(neusInRadius, getRandom().newRandom());
         }
         for (Neuron otherNeu : neusInRadius) {
             // Don't add a connection if there is already one present
@@ -259,11 +266,11 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
                 }
             }
             if (conMethod == ConnectStyle.PROBABILISTIC) {
-                if (Math.random() < inhibitoryProbability) {
+                if (RandomSource.uniform() < inhibitoryProbability) {
                     Synapse synapse;
                     if (selectMethod == SelectionStyle.IN) {
                         synapse = new Synapse(otherNeu, neuron);
-                        synapse.setStrength(Math.random());
+                        synapse.setStrength(RandomSource.uniform());
                     } else {
                         synapse = new Synapse(neuron, otherNeu);
                     }
@@ -282,7 +289,7 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
                 else {
                     synapse = new Synapse(neuron, otherNeu);
                 }
-                synapse.setStrength(-Math.random());
+                synapse.setStrength(-RandomSource.uniform());
                 if (looseSynapses) {
                     network.addLooseSynapse(synapse);
                 } else {
@@ -312,7 +319,7 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
         List<Neuron> neusInRadius = SimnetUtils.getNeuronsInRadius(neuron, excNeurons, excitatoryRadius);
         neusInRadius.addAll(SimnetUtils.getNeuronsInRadius(neuron, nonPolarNeurons, excitatoryRadius));
         if (conMethod == ConnectStyle.DETERMINISTIC) {
-            Collections.shuffle(neusInRadius);
+            Collections.shuffle(neusInRadius, getRandom().newRandom());
         }
         for (Neuron otherNeu : neusInRadius) {
             // Don't add a connection if there is already one present
@@ -325,14 +332,14 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
                 }
             }
             if (conMethod == ConnectStyle.PROBABILISTIC) {
-                if (Math.random() < excitatoryProbability) {
+                if (RandomSource.uniform() < excitatoryProbability) {
                     Synapse synapse;
                     if (selectMethod == SelectionStyle.IN)
                         synapse = new Synapse(otherNeu, neuron);
                     else {
                         synapse = new Synapse(neuron, otherNeu);
                     }
-                    synapse.setStrength(Math.random());
+                    synapse.setStrength(RandomSource.uniform());
                     if (looseSynapses) {
                         network.addLooseSynapse(synapse);
                     } else {
@@ -347,7 +354,7 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
                 else {
                     synapse = new Synapse(neuron, otherNeu);
                 }
-                synapse.setStrength(Math.random());
+                synapse.setStrength(RandomSource.uniform());
                 if (looseSynapses) {
                     network.addLooseSynapse(synapse);
                 } else {
@@ -409,7 +416,7 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
         } else {
             int noCons = neu.getPolarity() != Polarity.INHIBITORY ?
                     excCons : inhCons;
-            return connectDet(neu, others, retList, selectMethod, noCons);
+            return connectDet(neu, others, retList, selectMethod, noCons, getRandom().newRandom());
         }
 
     }
@@ -429,11 +436,11 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
                                      List<Synapse> retList,
                                      SelectionStyle selectionStyle, double p) {
         for(Neuron o : others) {
-            if(Math.random() < p) {
+            if(RandomSource.uniform() < p) {
                 if(selectionStyle == SelectionStyle.IN) {
-                    retList.add(new Synapse(o, n, o.getPolarity().value(Math.random())));
+                    retList.add(new Synapse(o, n, o.getPolarity().value(RandomSource.uniform())));
                 } else {
-                    retList.add(new Synapse(n, o, n.getPolarity().value(Math.random())));
+                    retList.add(new Synapse(n, o, n.getPolarity().value(RandomSource.uniform())));
                 }
             }
         }
@@ -450,22 +457,23 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
      * @param retList
      * @param selectionStyle
      * @param N
+     * @param random used to choose the neurons
      * @return
      */
     private static List<Synapse> connectDet(Neuron n, List<Neuron> others,
                                      List<Synapse> retList,
-                                     SelectionStyle selectionStyle, int N) {
+                                     SelectionStyle selectionStyle, int N, Random random) {
         if(N > others.size()) {
             N = others.size();
         } else {
-            Collections.shuffle(others);
+            Collections.shuffle(others, random);
         }
         for(int ii=0; ii<N; ++ii) {
             Neuron o = others.get(ii);
             if (selectionStyle == SelectionStyle.IN) {
-                retList.add(new Synapse(o, n, o.getPolarity().value(Math.random())));
+                retList.add(new Synapse(o, n, o.getPolarity().value(RandomSource.uniform())));
             } else {
-                retList.add(new Synapse(n, o, n.getPolarity().value(Math.random())));
+                retList.add(new Synapse(n, o, n.getPolarity().value(RandomSource.uniform())));
             }
         }
         return retList;
@@ -502,6 +510,13 @@ public class RadialSimple extends ConnectionStrategy implements EditableObject {
         return allowSelfConnections;
     }
 
+    private RandomSource getRandom() {
+        if (random == null) {
+            random = RandomSource.newStream();
+        }
+        return random;
+    }
+
     public void setAllowSelfConnections(final boolean allowSelfConnections) {
         this.allowSelfConnections = allowSelfConnections;
     }
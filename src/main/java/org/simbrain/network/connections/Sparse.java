@@ -21,6 +21,7 @@ import org.simbrain.network.core.Network;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.math.SimbrainMath;
 import org.simbrain.util.propertyeditor.EditableObject;
 import umontreal.ssj.randvar.BinomialGen;
@@ -176,7 +177,7 @@ public class Sparse extends ConnectionStrategy implements EditableObject {
         Neuron target;
         Synapse synapse;
         ArrayList<Synapse> syns = new ArrayList<Synapse>();
-        Random rand = new Random(System.nanoTime());
+        Random rand = new Random(RandomSource.newStream().nextLong());
         if (equalizeEfferents) {
             ArrayList<Integer> targetList = new ArrayList<Integer>();
             ArrayList<Integer> tListCopy;
@@ -229,7 +230,7 @@ public class Sparse extends ConnectionStrategy implements EditableObject {
                     if (!selfConnectionAllowed && recurrent && i == j) {
                         continue;
                     } else {
-                        if (Math.random() < sparsity) {
+                        if (RandomSource.uniform() < sparsity) {
                             source = sourceNeurons.get(i);
                             target = targetNeurons.get(j);
                             synapse = new Synapse(source, target);
@@ -337,8 +338,9 @@ public class Sparse extends ConnectionStrategy implements EditableObject {
         int numTars = synapseGroup.isRecurrent() && !selfConnectionAllowed ? (sourceNeurons.length - 1) : targetNeurons.length;
         synapseGroup.clear(); // TODO: Zoe? Make
         synapseGroup.preAllocateSynapses((int) (sourceNeurons.length * numTars * connectionDensity));
+        RandomSource random = RandomSource.newStream();
         for (int i = 0, n = sourceNeurons.length; i < n; i++) {
-            currentOrderingIndices[i] = BinomialGen.nextInt(SimbrainMath.DEFAULT_RANDOM_STREAM, numTars, connectionDensity);
+            currentOrderingIndices[i] = BinomialGen.nextInt(random, numTars, connectionDensity);
             Neuron src = sourceNeurons[i];
             Neuron tar;
             int tarLen = targetNeurons.length - 1;
@@ -415,8 +417,9 @@ public class Sparse extends ConnectionStrategy implements EditableObject {
                 currentOrderingIndices[i] = finalNumConPerSource;
             }
         } else {
+            RandomSource random = RandomSource.newStream();
             for (int i = 0, n = sourceNeurons.length; i < n; i++) {
-                int numToRemove = BinomialGen.nextInt(SimbrainMath.DEFAULT_RANDOM_STREAM, synapseGroup.getTargetNeuronGroup().size(), newSparsity);
+                int numToRemove = BinomialGen.nextInt(random, synapseGroup.getTargetNeuronGroup().size(), newSparsity);
                 if (numToRemove < currentOrderingIndices[i]) {
                     List<Synapse> remove = decreaseDensity(i, numToRemove);
                     for (Synapse s : remove) {
@@ -458,8 +461,9 @@ public class Sparse extends ConnectionStrategy implements EditableObject {
                 currentOrderingIndices[i] = finalNumConPerSource;
             }
         } else {
+            RandomSource random = RandomSource.newStream();
             for (int i = 0, n = sourceNeurons.length; i < n; i++) {
-                int numToAdd = BinomialGen.nextInt(SimbrainMath.DEFAULT_RANDOM_STREAM, synapseGroup.getTargetNeuronGroup().size(), newSparsity);
+                int numToAdd = BinomialGen.nextInt(random, synapseGroup.getTargetNeuronGroup().size(), newSparsity);
                 int finalNumConPerSource = numToAdd >= currentOrderingIndices[i] ? numToAdd : currentOrderingIndices[i];
                 if (finalNumConPerSource > sparseOrdering[i].length) {
                     finalNumConPerSource = sparseOrdering[i].length;
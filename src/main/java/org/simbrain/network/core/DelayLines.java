@@ -0,0 +1,229 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.core;
+
+import java.util.Arrays;
+
+/**
+ * Axonal delay lines for the neurons of a network that have delayed efferent synapses. The recent activations and
+ * spikes of each such neuron are recorded once, in a circular buffer, and each delayed synapse reads its source's
+ * buffer at the offset given by its delay. Memory therefore grows with the number of delayed neurons times the
+ * longest delay, rather than with the number of delayed synapses times their delays, and a neuron's history is
+ * written once per update however many synapses read it.
+ * <p>
+ * All lines have the same length (one more than the longest delay registered) and are stored one after another in
+ * flat arrays, and they share a single write position, so recording an update is one pass over those arrays.
+ * {@link Network#update()} records the state of every delayed neuron before the update actions are invoked, so a
+ * synapse with delay d reads the state its source had d updates before the one in progress; that is, what it would
+ * have read d updates earlier without a delay.
+ * <p>
+ * Lines are added as synapses are given delays or added to the network with a delay, and removed when a neuron no
+ * longer has delayed efferent synapses; reading a line never adds one. Lines should not be added or removed while the
+ * network is being updated. Reading is safe from any number of threads during an update.
+ */
+public final class DelayLines {
+
+    /**
+     * Neurons with a delay line, indexed by line.
+     */
+    private Neuron[] neurons = new Neuron[0];
+
+    /**
+     * Number of lines in use.
+     */
+    private int numLines;
+
+    /**
+     * Length of each line; always at least one more than the longest delay.
+     */
+    private int length = 1;
+
+    /**
+     * Recorded activations. Line i occupies indices [i * length, (i + 1) * length).
+     */
+    private double[] activations = new double[0];
+
+    /**
+     * Recorded spikes, laid out as {@link #activations}.
+     */
+    private boolean[] spikes = new boolean[0];
+
+    /**
+     * Position in each line of the most recent record.
+     */
+    private int head;
+
+    /**
+     * Make sure a neuron has a delay line long enough for a synapse with the given delay, adding or lengthening
+     * lines as needed. The new line is empty: until the neuron has been recorded delay times its synapses see zero
+     * activation and no spikes.
+     *
+     * @param neuron the source neuron of a delayed synapse
+     * @param delay  the delay of the synapse, in updates
+     * @return the index of the neuron's line
+     */
+    public synchronized int add(Neuron neuron, int delay) {
+        if (delay + 1 > length) {
+            setLength(delay + 1);
+        }
+        int line = indexOf(neuron);
+        if (line >= 0) {
+            return line;
+        }
+        if (numLines == neurons.length) {
+            int capacity = Math.max(8, numLines * 2);
+            neurons = Arrays.copyOf(neurons, capacity);
+            activations = Arrays.copyOf(activations, capacity * length);
+            spikes = Arrays.copyOf(spikes, capacity * length);
+        }
+        line = numLines++;
+        neurons[line] = neuron;
+        neuron.setDelayLine(line);
+        return line;
+    }
+
+    /**
+     * Remove a neuron's delay line, e.g. when the neuron is deleted. The last line takes its place.
+     *
+     * @param neuron the neuron
+     */
+    public synchronized void remove(Neuron neuron) {
+        int line = indexOf(neuron);
+        if (line < 0) {
+            return;
+        }
+        int last = --numLines;
+        if (line != last) {
+            neurons[line] = neurons[last];
+            neurons[line].setDelayLine(line);
+            System.arraycopy(activations, last * length, activations, line * length, length);
+            System.arraycopy(spikes, last * length, spikes, line * length, length);
+        }
+        neurons[last] = null;
+        Arrays.fill(activations, last * length, (last + 1) * length, 0);
+        Arrays.fill(spikes, last * length, (last + 1) * length, false);
+        neuron.setDelayLine(-1);
+    }
+
+    /**
+     * Returns the index of a neuron's line, or -1 if it has none.
+     */
+    private int indexOf(Neuron neuron) {
+        int line = neuron.getDelayLine();
+        return line >= 0 && line < numLines && neurons[line] == neuron ? line : -1;
+    }
+
+    /**
+     * Lengthen every line, keeping the recorded history.
+     */
+    private void setLength(int newLength) {
+        int capacity = neurons.length;
+        double[] newActivations = new double[capacity * newLength];
+        boolean[] newSpikes = new boolean[capacity * newLength];
+        for (int line = 0; line < numLines; line++) {
+            // Copy each line oldest first so that the most recent record ends up at position length - 1
+            for (int age = length - 1, j = newLength - length; age >= 0; age--, j++) {
+                int from = line * length + Math.floorMod(head - age, length);
+                newActivations[line * newLength + j] = activations[from];
+                newSpikes[line * newLength + j] = spikes[from];
+            }
+        }
+        activations = newActivations;
+        spikes = newSpikes;
+        head = newLength - 1;
+        length = newLength;
+    }
+
+    /**
+     * Record the current activation and spike of every neuron with a delay line. Called once per network update.
+     */
+    public void record() {
+        int h = head + 1 == length ? 0 : head + 1;
+        for (int line = 0, i = h; line < numLines; line++, i += length) {
+            Neuron neuron = neurons[line];
+            activations[i] = neuron.getActivation();
+            spikes[i] = neuron.isSpike();
+        }
+        head = h;
+    }
+
+    /**
+     * Returns a neuron's activation as recorded the given number of updates before the most recent record.
+     *
+     * @param line  the neuron's line, see {@link #add(Neuron, int)}
+     * @param delay the delay, at most the length of the lines minus one
+     * @return the delayed activation
+     */
+    public double getActivation(int line, int delay) {
+        return activations[line * length + position(delay)];
+    }
+
+    /**
+     * Returns whether a neuron spiked as recorded the given number of updates before the most recent record.
+     *
+     * @param line  the neuron's line, see {@link #add(Neuron, int)}
+     * @param delay the delay, at most the length of the lines minus one
+     * @return the delayed spike
+     */
+    public boolean isSpike(int line, int delay) {
+        return spikes[line * length + position(delay)];
+    }
+
+    private int position(int delay) {
+        int p = head - delay;
+        return p < 0 ? p + length : p;
+    }
+
+    /**
+     * Returns the index of a neuron's line, or -1 if it has none.
+     *
+     * @param neuron the neuron
+     * @return the line
+     */
+    public synchronized int getLine(Neuron neuron) {
+        return indexOf(neuron);
+    }
+
+    /**
+     * Forget a neuron's recorded history, so its delayed synapses carry nothing until it is recorded again.
+     *
+     * @param neuron the neuron
+     */
+    public synchronized void clear(Neuron neuron) {
+        int line = indexOf(neuron);
+        if (line >= 0) {
+            Arrays.fill(activations, line * length, (line + 1) * length, 0);
+            Arrays.fill(spikes, line * length, (line + 1) * length, false);
+        }
+    }
+
+    /**
+     * Returns the number of neurons with delay lines.
+     */
+    public int getNumLines() {
+        return numLines;
+    }
+
+    /**
+     * Returns the length of each line, one more than the longest delay.
+     */
+    public int getLength() {
+        return length;
+    }
+}
@@ -180,6 +180,11 @@ public class Network {
      */
     private int iterCount = 0;
 
+    /**
+     * Activation histories of neurons with delayed efferent synapses.
+     */
+    private transient DelayLines delayLines = new DelayLines();
+
     /**
      * How frequently this network should fire events.
      */
@@ -207,6 +212,9 @@ public class Network {
      */
     public void update() {
 
+        // Record the state delayed synapses will read, from this update on
+        delayLines.record();
+
         // Main update
         updateManager.invokeAllUpdates();
 
@@ -216,6 +224,7 @@ public class Network {
         iterCount++;
         setUpdateCompleted(true);
 
+        events.fireModelsChanged();
         events.fireUpdateCompleted();
 
     }
@@ -478,6 +487,7 @@ public class Network {
 
         // Remove Connected Synapses
         toDelete.deleteConnectedSynapses();
+        delayLines.remove(toDelete);
 
         // Remove the neuron itself. Either from a parent group that holds it,
         // or from the root network.
@@ -586,6 +596,15 @@ public class Network {
         events.fireModelAdded(nc);
     }
 
+    /**
+     * Returns the delay lines of neurons in this network with delayed efferent synapses.
+     *
+     * @return the delay lines
+     */
+    public DelayLines getDelayLines() {
+        return delayLines;
+    }
+
     /**
      * Set the activation level of all neurons to zero.
      */
@@ -872,6 +891,7 @@ public class Network {
 
         events = new NetworkEvents(this);
         updateCompleted = new AtomicBoolean(false);
+        delayLines = new DelayLines();
 
         // Initialize update manager
         updateManager.postUnmarshallingInit();
@@ -1215,8 +1235,11 @@ public class Network {
      * @param target target neuron collection or nd4j array
      */
     public WeightMatrix createWeightMatrix(ArrayConnectable source, ArrayConnectable target) {
-        if (target.getIncomingWeightMatrix() != null) {
-            delete(target.getIncomingWeightMatrix());
+        // Neuron arrays sum several incoming matrices, but only one per source
+        for (WeightMatrix wm : new ArrayList<>(target.getIncomingWeightMatrices())) {
+            if (!(target instanceof NeuronArray) || wm.getSource() == source) {
+                wm.delete();
+            }
         }
 
         WeightMatrix newMatrix = new WeightMatrix(this, source, target);
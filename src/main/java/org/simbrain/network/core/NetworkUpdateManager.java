@@ -19,6 +19,7 @@
 package org.simbrain.network.core;
 
 import org.simbrain.network.NetworkModel;
+import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.network.update_actions.*;
 
 import java.util.*;
@@ -98,6 +99,8 @@ public class NetworkUpdateManager {
         availableActionList.add(new BufferedUpdate(network));
         availableActionList.add(new PriorityUpdate(network));
         availableActionList.add(ConcurrentBufferedUpdate.createConcurrentBufferedUpdate(network));
+        availableActionList.add(new ForkJoinBufferedUpdate(network));
+        availableActionList.add(new EventDrivenSpikeUpdate(network));
 
         // TODO: If added, these should be removed when any corresponding object is removed
 
@@ -115,6 +118,10 @@ public class NetworkUpdateManager {
             availableActionList.add(new UpdateNetworkModel(nm));
         }
 
+        for (NeuronGroup ng : network.getNeuronGroups()) {
+            availableActionList.add(new CompiledGroupUpdate(network, ng));
+        }
+
         return availableActionList;
     }
     /**
@@ -147,7 +154,9 @@ public class NetworkUpdateManager {
      * Remove the specified action from the update manager.
      */
     public void removeAction(NetworkUpdateAction action) {
-        actionList.remove(action);
+        if (actionList.remove(action)) {
+            shutdown(action);
+        }
         network.getEvents().fireUpdateActionsChanged();
     }
 
@@ -155,8 +164,26 @@ public class NetworkUpdateManager {
      * Remove all actions completely.
      */
     public void clear() {
+        shutdown();
         actionList.clear();
         network.getEvents().fireUpdateActionsChanged();
     }
 
+    /**
+     * Stop any threads started by the update actions, e.g. when the network is closed. Actions that are invoked
+     * again restart their threads.
+     */
+    public void shutdown() {
+        actionList.forEach(NetworkUpdateManager::shutdown);
+    }
+
+    /**
+     * Stop any threads started by an update action.
+     */
+    private static void shutdown(NetworkUpdateAction action) {
+        if (action instanceof ForkJoinBufferedUpdate) {
+            ((ForkJoinBufferedUpdate) action).shutdown();
+        }
+    }
+
 }
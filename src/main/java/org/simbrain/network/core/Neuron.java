@@ -29,6 +29,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.ClippableUpdateRule;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Consumable;
@@ -129,6 +130,17 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
      */
     private double inputValue;
 
+    /**
+     * Synaptic input computed ahead of time by an update action (see {@link org.simbrain.network.update_actions.EventDrivenSpikeUpdate}).
+     * Only used when {@link #useSynapticInput} is true, in which case {@link #getInput()} does not walk the fan-in.
+     */
+    private transient double synapticInput;
+
+    /**
+     * If true, {@link #getInput()} uses {@link #synapticInput} instead of the fan-in.
+     */
+    private transient boolean useSynapticInput;
+
     /**
      * Reference to network this neuron is part of.
      */
@@ -222,6 +234,11 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
      */
     private transient NeuronEvents events = new NeuronEvents(this);
 
+    /**
+     * Index of this neuron's line in the network's {@link DelayLines}, or -1 if it has no delayed efferents.
+     */
+    private transient int delayLine = -1;
+
     /**
      * Construct a specific type of neuron.
      *
@@ -302,6 +319,7 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
         events = new NeuronEvents(this);
         fanOut = new HashMap<>();
         fanIn = new ArrayList<>();
+        delayLine = -1;
         if (polarity == null) {
             polarity = Polarity.BOTH;
         }
@@ -522,7 +540,25 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
     public void removeEfferent(final Synapse synapse) {
         if (fanOut != null) {
             fanOut.remove(synapse.getTarget());
+            if (synapse.getDelay() > 0) {
+                removeUnusedDelayLine();
+            }
+        }
+    }
+
+    /**
+     * Remove this neuron's delay line if none of its efferent synapses is delayed.
+     */
+    void removeUnusedDelayLine() {
+        if (delayLine < 0 || getNetwork() == null) {
+            return;
         }
+        for (Synapse synapse : fanOut.values()) {
+            if (synapse.getDelay() > 0) {
+                return;
+            }
+        }
+        getNetwork().getDelayLines().remove(this);
     }
 
     /**
@@ -577,6 +613,9 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
      * @return total input to this neuron from other neurons
      */
     public double getInput() {
+        if (useSynapticInput) {
+            return inputValue + synapticInput;
+        }
         double wtdSum = inputValue;
         for (int i = 0, n = fanIn.size(); i < n; i++) {
             wtdSum += fanIn.get(i).calcPSR();
@@ -584,6 +623,26 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
         return wtdSum;
     }
 
+    /**
+     * Set the synaptic input to this neuron for the next update, computed by an update action which propagates
+     * input itself rather than having each neuron pull it from its fan-in. Until {@link #clearSynapticInput()} is
+     * called, {@link #getInput()} returns the input value plus this value.
+     *
+     * @param synapticInput summed post-synaptic responses to this neuron
+     */
+    public void setSynapticInput(double synapticInput) {
+        this.synapticInput = synapticInput;
+        useSynapticInput = true;
+    }
+
+    /**
+     * Go back to computing input from the fan-in.
+     */
+    public void clearSynapticInput() {
+        synapticInput = 0;
+        useSynapticInput = false;
+    }
+
     /**
      * A helper method which iterates over each afferent synapse to this neuron
      * and calls their update functions.
@@ -981,7 +1040,7 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
      */
     public void randomizeBias(double lower, double upper) {
         if (this.getUpdateRule() instanceof BiasedUpdateRule) {
-            ((BiasedUpdateRule) this.getUpdateRule()).setBias((upper - lower) * Math.random() + lower);
+            ((BiasedUpdateRule) this.getUpdateRule()).setBias((upper - lower) * RandomSource.uniform() + lower);
         }
     }
 
@@ -1133,6 +1192,14 @@ public class Neuron implements EditableObject, AttributeContainer, LocatableMode
         return spike;
     }
 
+    int getDelayLine() {
+        return delayLine;
+    }
+
+    void setDelayLine(int delayLine) {
+        this.delayLine = delayLine;
+    }
+
     public void setSpike(boolean spike) {
         var oldSpike = this.spike;
         this.spike = spike;
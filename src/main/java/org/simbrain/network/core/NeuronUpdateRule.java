@@ -26,6 +26,7 @@ import org.simbrain.network.neuron_update_rules.UpdateRuleEnum;
 import org.simbrain.network.neuron_update_rules.interfaces.BoundedUpdateRule;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.CopyableObject;
 
 import java.util.Arrays;
@@ -136,9 +137,9 @@ public abstract class NeuronUpdateRule implements CopyableObject {
      */
     public double getRandomValue() {
         if (this instanceof BoundedUpdateRule) {
-            return (((BoundedUpdateRule) this).getUpperBound() - ((BoundedUpdateRule) this).getLowerBound()) * Math.random() + ((BoundedUpdateRule) this).getLowerBound();
+            return (((BoundedUpdateRule) this).getUpperBound() - ((BoundedUpdateRule) this).getLowerBound()) * RandomSource.uniform() + ((BoundedUpdateRule) this).getLowerBound();
         } else {
-            return 2 * Math.random() - 1;
+            return 2 * RandomSource.uniform() - 1;
         }
 
     }
@@ -27,6 +27,7 @@ import org.simbrain.network.synapse_update_rules.spikeresponders.NonResponder;
 import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.math.SimbrainMath;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
@@ -106,7 +107,7 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
     /**
      * Only used of source neuron is a spiking neuron.
      */
-    @UserParameter(label = "Spike Responder", isObjectType = true,
+    @UserParameter(label = "Spike Responder", useSetter = true, isObjectType = true,
             showDetails = false, order = 200)
     private SpikeResponder spikeResponder = DEFAULT_SPIKE_RESPONDER;
 
@@ -171,21 +172,6 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
     @UserParameter(label = "Frozen", description = "Synapse is frozen (no learning) or not", order = 6)
     private boolean frozen;
 
-    /**
-     * Manages synaptic delay
-     */
-    private double[] delayManager;
-
-    /**
-     * Points to the location in the delay manager that corresponds to the current time.
-     */
-    private int dlyPtr = 0;
-
-    /**
-     * The value {@link #dlyPtr} points to in the delay manager.
-     */
-    private double dlyVal = 0;
-
     /**
      * This special tag denotes that the synapse is a template to other synapses. That is, it exists solely to store
      * parameter values for a large group of synapses. Normally synapses must have a source and target neuron. Template
@@ -395,13 +381,7 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
             return 0;
         } else {
             spikeResponder.update(this);
-            if (delay == 0) {
-                return psr;
-            } else {
-                dlyVal = dequeu();
-                enqueu(psr);
-                return dlyVal;
-            }
+            return psr;
         }
     }
 
@@ -415,17 +395,41 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
         if (!enabled) {
             return 0;
         } else {
-            psr = source.getActivation() * strength;
-            if (delay != 0) {
-                dlyVal = dequeu();
-                enqueu(psr);
-                return dlyVal;
-            } else {
-                return psr;
-            }
+            psr = getSourceActivation() * strength;
+            return psr;
         }
     }
 
+    /**
+     * Returns the activation of the source neuron as it reaches this synapse, i.e. as it was {@link #getDelay()}
+     * updates ago. Delayed values are read from the network's {@link DelayLines}. The source neuron's line is added
+     * when the delay is set, so this never changes the delay lines; if the source has no line, e.g. because it was not
+     * in a network when the delay was set, the current activation is returned.
+     *
+     * @return the delayed source activation
+     */
+    public double getSourceActivation() {
+        int line = source.getDelayLine();
+        if (delay <= 0 || line < 0) {
+            return source.getActivation();
+        }
+        return source.getNetwork().getDelayLines().getActivation(line, delay);
+    }
+
+    /**
+     * Returns whether the source neuron spiked, as seen by this synapse after its delay. Spike responders should use
+     * this rather than {@link Neuron#isSpike()} so that spikes arrive late on delayed synapses.
+     *
+     * @return true if a spike reaches this synapse on this update
+     */
+    public boolean isSourceSpike() {
+        int line = source.getDelayLine();
+        if (delay <= 0 || line < 0) {
+            return source.isSpike();
+        }
+        return source.getNetwork().getDelayLines().isSpike(line, delay);
+    }
+
     /**
      * The name of the learning rule of the synapse; it's "type". Used via reflection for consistency checking in the
      * gui. (Open multiple synapses and if they are of the different types the dialog is different).
@@ -464,6 +468,7 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
             this.target = newTarget;
             newSource.addEfferent(this);
             newTarget.addAfferent(this);
+            addDelayLine();
         }
     }
 
@@ -636,7 +641,7 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
      * Randomize this weight to a value between its upper and lower bounds.
      */
     public void randomize() {
-        double newStrength = (getUpperBound() - getLowerBound()) * Math.random() + getLowerBound();
+        double newStrength = (getUpperBound() - getLowerBound()) * RandomSource.uniform() + getLowerBound();
         forceSetStrength(newStrength);
     }
 
@@ -692,10 +697,16 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
 
         // Note that a copy of the spike responder is set. Impacts of this not known yet
         this.spikeResponder = sr.deepCopy();
+        if (events == null) {
+            events = new SynapseEvents(this);
+        }
+        events.fireSpikeResponderUpdate();
     }
 
     /**
-     * Delay manager.
+     * Set the number of updates it takes for activation or spikes to travel from the source neuron to this synapse.
+     * The source neuron's history is kept in the network's {@link DelayLines}, which are shared by all the synapses
+     * from that neuron. The line is removed when no synapse from the neuron is delayed any more.
      *
      * @param dly Amount of delay
      */
@@ -703,20 +714,22 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
         if (dly < 0 && source != null) {
             return;
         }
+        int oldDelay = delay;
         delay = dly;
-
-        if (delay <= 0) {
-            delayManager = null;
-
-            return;
+        if (delay > 0) {
+            addDelayLine();
+        } else if (oldDelay > 0 && source != null) {
+            source.removeUnusedDelayLine();
         }
+    }
 
-        delayManager = new double[delay];
-
-        for (int i = 0; i < delay; i++) {
-            delayManager[i] = 0;
+    /**
+     * Make sure the source neuron records enough history for this synapse's delay.
+     */
+    private void addDelayLine() {
+        if (delay > 0 && source != null && source.getNetwork() != null) {
+            source.getNetwork().getDelayLines().add(source, delay);
         }
-        dlyPtr = 0;
     }
 
     //
@@ -751,29 +764,6 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
         return delay;
     }
 
-    /**
-     * @return the deque.
-     */
-    private double dequeu() {
-        if (dlyPtr == delay) {
-            dlyPtr = 0;
-        }
-        return delayManager[dlyPtr++];
-    }
-
-    /**
-     * Enqueeu.
-     *
-     * @param val Value to enqueu
-     */
-    private void enqueu(final double val) {
-        if (dlyPtr == 0) {
-            delayManager[delay - 1] = val;
-        } else {
-            delayManager[dlyPtr - 1] = val;
-        }
-    }
-
     @Override
     public String toString() {
         String ret = new String();
@@ -992,12 +982,12 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
         bBuf.putInt(delay);
         bBuf.putDouble(strength);
         bBuf.putDouble(psr);
+        // Delayed values are now kept by the source neuron's delay line. Space for them is left empty so the
+        // format is unchanged.
         if (delay > 0) {
-            for (double d : delayManager) {
-                bBuf.putDouble(d);
-            }
+            bBuf.position(bBuf.position() + 8 * delay);
         }
-        bBuf.putInt(dlyPtr);
+        bBuf.putInt(0);
         byte enFr = 0x0;
         byte en = (byte) (enabled ? 2 : 0);
         byte fr = (byte) (frozen ? 1 : 0);
@@ -1010,12 +1000,8 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
         setDelay(byteValues.getInt());
         setStrength(byteValues.getDouble());
         setPsr(byteValues.getDouble());
-        if (delay > 0) {
-            for (int i = 0; i < delay; i++) {
-                delayManager[i] = byteValues.getDouble();
-            }
-        }
-        dlyPtr = byteValues.getInt();
+        // Skip the delayed values and pointer, which are no longer stored per synapse
+        byteValues.position(byteValues.position() + 8 * Math.max(delay, 0) + 4);
         byte enFr = byteValues.get();
         setEnabled(enFr >= 2);
         setFrozen(enFr == 1 || enFr == 3);
@@ -1046,17 +1032,19 @@ public class Synapse implements EditableObject, AttributeContainer, NetworkModel
                 // removeSynapse(synapse);
             }
         }
+        addDelayLine();
 
     }
 
     /**
-     * "Clear" the synapse in the sense of setting post synaptic result to 0 and removing all queued activations from
-     * the delay manager.
+     * "Clear" the synapse in the sense of setting post synaptic result to 0 and removing all queued activations. Since
+     * queued activations are shared by all the synapses from the source neuron, they are cleared for those synapses
+     * too.
      */
     public void clear() {
         setPsr(0);
-        if (delayManager != null) {
-            Arrays.fill(delayManager, 0);
+        if (delay > 0 && source != null && source.getNetwork() != null) {
+            source.getNetwork().getDelayLines().clear(source);
         }
     }
 
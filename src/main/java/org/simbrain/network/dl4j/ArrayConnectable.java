@@ -8,6 +8,7 @@ import org.simbrain.network.events.LocationEvents;
 import org.simbrain.network.events.NetworkModelEvents;
 
 import java.awt.geom.Rectangle2D;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -51,6 +52,23 @@ public interface ArrayConnectable extends LocatableModel {
      */
     void setIncomingWeightMatrix(WeightMatrix weightMatrix);
 
+    /**
+     * All connections from other ArrayConnectables to this one. By default there is at most one.
+     */
+    default List<WeightMatrix> getIncomingWeightMatrices() {
+        WeightMatrix wm = getIncomingWeightMatrix();
+        return wm == null ? Collections.emptyList() : Collections.singletonList(wm);
+    }
+
+    /**
+     * Remove a connection from another ArrayConnectable to this one.
+     */
+    default void removeIncomingWeightMatrix(WeightMatrix weightMatrix) {
+        if (getIncomingWeightMatrix() == weightMatrix) {
+            setIncomingWeightMatrix(null);
+        }
+    }
+
     /**
      * Connection from this ArrayConncetable to another one
      */
@@ -7,8 +7,10 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.simbrain.network.LocatableModel;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.events.NeuronArrayEvents;
+import org.simbrain.network.neuron_update_rules.TransferFunction;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.SquashingFunctionEnum;
 import org.simbrain.util.propertyeditor.EditableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Consumable;
@@ -23,7 +25,8 @@ import java.util.List;
 /**
  * High performance immutable array backed by ND4J Array.
  */
-public class NeuronArray implements EditableObject, AttributeContainer, ArrayConnectable, LocatableModel {
+public class NeuronArray implements EditableObject, AttributeContainer, ArrayConnectable, LocatableModel,
+        TransferFunction {
 
     //TODO: Rename ideas: Array, Layer, ND4J Array, Double Array
     //TODO: See if data can be stored as an array. If not maybe used column instead of row.
@@ -54,15 +57,62 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
     @UserParameter(label = "Increment amount", increment = .1, order = 20)
     private double increment = .1;
 
+    /**
+     * If true the weighted input of the array is passed through the activation function, otherwise the array is
+     * linear.
+     */
+    @UserParameter(label = "Use activation function", order = 10)
+    private boolean useActivationFunction = false;
+
+    /**
+     * Element-wise activation function.
+     */
+    @UserParameter(label = "Activation function", order = 11)
+    private SquashingFunctionEnum activationFunction = SquashingFunctionEnum.TANH;
+
+    /**
+     * Upper bound of the activation function.
+     */
+    @UserParameter(label = "Upper bound", increment = .1, order = 12)
+    private double upperBound = 1;
+
+    /**
+     * Lower bound of the activation function.
+     */
+    @UserParameter(label = "Lower bound", increment = .1, order = 13)
+    private double lowerBound = -1;
+
+    /**
+     * Slope of the activation function at 0.
+     */
+    @UserParameter(label = "Slope", increment = .1, order = 14)
+    private double slope = 1;
+
     /**
      * ND4J Array backing this object
      */
     private INDArray neuronArray;
 
     /**
-     * For buffered update.
+     * Bias added to the weighted input of each node. Row vector the same size as the array.
      */
-    private INDArray arrayBuffer;
+    private INDArray biases;
+
+    /**
+     * For buffered update. The next activations are computed here and then swapped with {@link #neuronArray}, so
+     * that no arrays are allocated on each update.
+     */
+    private transient INDArray arrayBuffer;
+
+    /**
+     * True if {@link #arrayBuffer} holds values which have not yet been applied.
+     */
+    private transient boolean bufferReady;
+
+    /**
+     * Weighted input plus biases, reused across updates.
+     */
+    private transient INDArray netInput;
 
     /**
      * Center of the neuron array.
@@ -75,9 +125,15 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
     private double y;
 
     /**
-     * Reference to incoming weight matrix. TODO: Consider making this a list, prior to implementing serialization. But
-     * note that there is no support currently for many-to-one connections.
+     * Incoming weight matrices. Their products are summed to form the input to this array.
      */
+    private List<WeightMatrix> incomingWeightMatrices = new ArrayList<>();
+
+    /**
+     * The single incoming weight matrix of arrays saved before they could have several. Only read when opening such
+     * networks; moved to {@link #incomingWeightMatrices} in {@link #postUnmarshallingInit()}.
+     */
+    @Deprecated
     private WeightMatrix incomingWeightMatrix;
 
     /**
@@ -122,16 +178,27 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
         copy.x = orig.x;
         copy.y = orig.y;
         copy.setValues(orig.getValues());
+        copy.setBiases(orig.getBiases());
+        copy.useActivationFunction = orig.useActivationFunction;
+        copy.activationFunction = orig.activationFunction;
+        copy.upperBound = orig.upperBound;
+        copy.lowerBound = orig.lowerBound;
+        copy.slope = orig.slope;
         return copy;
     }
 
+    /**
+     * Set the activations. Values are written into the existing array when the sizes match, so couplings don't
+     * allocate a new array on every update.
+     */
     @Consumable()
     public void setValues(double[] values) {
-        float[] floatValues = Utils.castToFloat(values);
-        // TODO: Deal with the float issue, and make this set values in place of a float array, rather than
-        //  re-creating it every time! However there may be an nd4j optimization such that under the hood
-        //  not much object creation is happening
-        neuronArray = Nd4j.create(floatValues).reshape(neuronArray.rows(), neuronArray.columns());
+        if (values.length == neuronArray.length()) {
+            neuronArray.data().setData(values);
+        } else {
+            neuronArray = Nd4j.create(Utils.castToFloat(values)).reshape(1, values.length);
+            numNodes = values.length;
+        }
     }
 
     @Producible()
@@ -158,12 +225,163 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
         events.fireUpdated();
     }
 
+    /**
+     * Compute the next activations of the array. If there are incoming weight matrices, their products with the
+     * source activations are accumulated into one buffer, the biases are added, and the activation function (if used)
+     * is applied. The result is held in a buffer until {@link #applyBufferValues()} is called, so that arrays which
+     * feed each other all read the activations from before the update. Arrays with no incoming matrices (e.g. input
+     * layers) keep their current values.
+     */
     public void update() {
+        if (!incomingWeightMatrices.isEmpty()) {
+            computeNetInput();
+            ensureBuffer();
+            applyFunction(netInput, arrayBuffer);
+            bufferReady = true;
+        }
+    }
 
-        // TODO: This is just a place holder. Do something useful.
-        // neuronArray = Nd4j.rand(10,10).subi(0.5).mul(2);
+    /**
+     * Compute biases plus the sum of the products of all incoming weight matrices with their sources' activations.
+     * Each product is written into the same buffer by a matrix multiply with beta = 1, so there are no intermediate
+     * arrays.
+     */
+    private void computeNetInput() {
+        if (netInput == null || netInput.length() != neuronArray.length()) {
+            netInput = Nd4j.create(neuronArray.dataType(), 1, neuronArray.length());
+        }
+        netInput.assign(getBiasArray());
+        for (int i = 0, n = incomingWeightMatrices.size(); i < n; i++) {
+            WeightMatrix wm = incomingWeightMatrices.get(i);
+            INDArray input = wm.getSource().getOutputArray();
+            INDArray weights = wm.getWeightMatrix();
+            if (input.dataType() != netInput.dataType()) {
+                input = input.castTo(netInput.dataType());
+            }
+            if (weights.dataType() != netInput.dataType()) {
+                weights = weights.castTo(netInput.dataType());
+            }
+            Nd4j.gemm(input.reshape(1, input.length()), weights, netInput, false, false, 1.0, 1.0);
+        }
+    }
 
-        events.fireUpdated();
+    /**
+     * Make sure the buffer exists and has the same size as the array.
+     */
+    private void ensureBuffer() {
+        if (arrayBuffer == null || arrayBuffer.length() != neuronArray.length()) {
+            arrayBuffer = Nd4j.create(neuronArray.dataType(), 1, neuronArray.length());
+        }
+    }
+
+    /**
+     * Make the buffer the current array and reuse the old array as the next buffer.
+     */
+    private void swapBuffer() {
+        if (bufferReady) {
+            INDArray temp = neuronArray;
+            neuronArray = arrayBuffer;
+            arrayBuffer = temp;
+            bufferReady = false;
+        }
+    }
+
+    /**
+     * Return the biases, creating them (as zeros) if needed.
+     */
+    private INDArray getBiasArray() {
+        if (biases == null || biases.length() != neuronArray.length()) {
+            biases = Nd4j.create(neuronArray.dataType(), 1, neuronArray.length());
+        }
+        return biases;
+    }
+
+    @Producible()
+    public double[] getBiases() {
+        return getBiasArray().toDoubleVector();
+    }
+
+    @Consumable()
+    public void setBiases(double[] values) {
+        if (values.length == neuronArray.length()) {
+            getBiasArray().data().setData(values);
+        } else {
+            throw new IllegalArgumentException("Bias vector has " + values.length + " entries but array has "
+                    + neuronArray.length() + " nodes");
+        }
+    }
+
+    @Override
+    public void applyFunctionInPlace(INDArray input) {
+        applyFunction(input, input);
+    }
+
+    @Override
+    public void applyFunction(INDArray input, INDArray output) {
+        if (useActivationFunction) {
+            activationFunction.valueOf(input, output, upperBound, lowerBound, slope);
+        } else if (input != output) {
+            output.assign(input);
+        }
+    }
+
+    @Override
+    public void getDerivative(INDArray input, INDArray output) {
+        if (useActivationFunction) {
+            activationFunction.derivVal(input, output, upperBound, lowerBound, slope);
+        } else {
+            output.assign(1);
+        }
+    }
+
+    @Override
+    public void applyFunctionAndDerivative(INDArray input, INDArray output, INDArray derivative) {
+        if (useActivationFunction) {
+            activationFunction.valueAndDeriv(input, output, derivative, upperBound, lowerBound, slope);
+        } else {
+            output.assign(input);
+            derivative.assign(1);
+        }
+    }
+
+    public boolean isUseActivationFunction() {
+        return useActivationFunction;
+    }
+
+    public void setUseActivationFunction(boolean useActivationFunction) {
+        this.useActivationFunction = useActivationFunction;
+    }
+
+    public SquashingFunctionEnum getActivationFunction() {
+        return activationFunction;
+    }
+
+    public void setActivationFunction(SquashingFunctionEnum activationFunction) {
+        this.activationFunction = activationFunction;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public double getSlope() {
+        return slope;
+    }
+
+    public void setSlope(double slope) {
+        this.slope = slope;
     }
 
     public int getNumNodes() {
@@ -200,13 +418,35 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
         this.renderActivations = renderActivations;
     }
 
+    /**
+     * Returns the first incoming weight matrix. Use {@link #getIncomingWeightMatrices()} to get all of them.
+     */
     @Override
     public WeightMatrix getIncomingWeightMatrix() {
-        return incomingWeightMatrix;
+        return incomingWeightMatrices.isEmpty() ? null : incomingWeightMatrices.get(0);
     }
 
+    /**
+     * Neuron arrays can have several incoming weight matrices, so this adds the matrix to them. Null removes all
+     * incoming matrices.
+     */
+    @Override
     public void setIncomingWeightMatrix(WeightMatrix incomingWeightMatrix) {
-        this.incomingWeightMatrix = incomingWeightMatrix;
+        if (incomingWeightMatrix == null) {
+            incomingWeightMatrices.clear();
+        } else if (!incomingWeightMatrices.contains(incomingWeightMatrix)) {
+            incomingWeightMatrices.add(incomingWeightMatrix);
+        }
+    }
+
+    @Override
+    public List<WeightMatrix> getIncomingWeightMatrices() {
+        return incomingWeightMatrices;
+    }
+
+    @Override
+    public void removeIncomingWeightMatrix(WeightMatrix weightMatrix) {
+        incomingWeightMatrices.remove(weightMatrix);
     }
 
     @Override
@@ -339,27 +579,39 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
         return neuronArray.length();
     }
 
+    /**
+     * Set the activations, copying into the existing array when the sizes match.
+     */
     @Override
     public void setInputArray(INDArray activations) {
-        neuronArray = activations;
-        numNodes = activations.columns();
+        if (activations.length() == neuronArray.length()) {
+            neuronArray.assign(activations.reshape(neuronArray.shape()));
+        } else {
+            neuronArray = activations.dup();
+            numNodes = activations.columns();
+        }
     }
 
     @Override
     public void setInputBuffer(INDArray activations) {
-        arrayBuffer = activations;
+        if (activations.length() == neuronArray.length()) {
+            ensureBuffer();
+            arrayBuffer.assign(activations.reshape(arrayBuffer.shape()));
+        } else {
+            arrayBuffer = activations.dup();
+        }
+        bufferReady = true;
     }
 
     @Override
     public void setBufferValues() {
-        // Not needed; Weight matrix does this.
+        // Not needed; update computes the buffer.
     }
 
     @Override
     public void applyBufferValues() {
-        if (arrayBuffer != null) {
-            setInputArray(arrayBuffer.dup());
-        }
+        swapBuffer();
+        events.fireUpdated();
     }
 
 
@@ -403,6 +655,19 @@ public class NeuronArray implements EditableObject, AttributeContainer, ArrayCon
         if (events == null) {
             events = new NeuronArrayEvents(this);
         }
+        if (incomingWeightMatrices == null) {
+            incomingWeightMatrices = new ArrayList<>();
+        }
+        if (incomingWeightMatrix != null) {
+            setIncomingWeightMatrix(incomingWeightMatrix);
+            incomingWeightMatrix = null;
+        }
+        if (activationFunction == null) {
+            activationFunction = SquashingFunctionEnum.TANH;
+            upperBound = 1;
+            lowerBound = -1;
+            slope = 1;
+        }
     }
 
 }
@@ -131,9 +131,14 @@ public class WeightMatrix implements EditableObject, AttributeContainer, Network
 
     /**
      * Default update simply matrix multiplies source times matrix and sets
-     * result to target.
+     * result to target. Neuron arrays pull their input from all their incoming
+     * matrices when they update (see {@link NeuronArray#update()}), so nothing
+     * is pushed to them here.
      */
     public void update() {
+        if (target instanceof NeuronArray) {
+            return;
+        }
         target.setInputArray(source.getOutputArray().mmul(weightMatrix));
     }
 
@@ -168,6 +173,13 @@ public class WeightMatrix implements EditableObject, AttributeContainer, Network
         return ret;
     }
 
+    /**
+     * Returns the network this weight matrix belongs to.
+     */
+    public Network getNetwork() {
+        return parent;
+    }
+
     public ArrayConnectable getSource() {
         return source;
     }
@@ -218,7 +230,7 @@ public class WeightMatrix implements EditableObject, AttributeContainer, Network
      */
     public void delete() {
         source.removeOutgoingWeightMatrix(this);
-        target.setIncomingWeightMatrix(null);
+        target.removeIncomingWeightMatrix(this);
         target.getOutgoingWeightMatrices().stream()
                 .filter(m -> m.getTarget() == source)
                 .forEach(m -> { // Even though this is for each but should happen only once.
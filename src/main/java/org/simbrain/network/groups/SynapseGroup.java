@@ -33,6 +33,7 @@ import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.CopyableObject;
 import org.simbrain.workspace.AttributeContainer;
 import org.simbrain.workspace.Consumable;
@@ -272,6 +273,14 @@ public class SynapseGroup implements NetworkModel, CopyableObject, AttributeCont
      */
     private boolean useFullRepOnSave = false;
 
+    /**
+     * True if the synapses of this group were saved outside of the xml, e.g. in
+     * a binary network file (see {@link #preSaveInitExternal()}). After opening,
+     * the group is empty until the synapses are added back and {@link
+     * #postExternalLoadInit()} is called.
+     */
+    private boolean synapsesSavedExternally = false;
+
     /**
      * Completely creates a synapse group between the two neuron groups with all
      * default parameters. This method creates the individual connections.
@@ -690,7 +699,7 @@ public class SynapseGroup implements NetworkModel, CopyableObject, AttributeCont
                 addNewInhibitorySynapse(synapse);
             }
         } else {
-            double rand = Math.random();
+            double rand = RandomSource.uniform();
             double correctionTerm = size() == 0 ? 0 : excitatoryRatio - (exSynapseSet.size() / (double) size());
             if (rand < (excitatoryRatio + correctionTerm)) {
                 addNewExcitatorySynapse(synapse);
@@ -1726,18 +1735,52 @@ public class SynapseGroup implements NetworkModel, CopyableObject, AttributeCont
         exSynapseSet = null;
     }
 
+    /**
+     * The pre-save init to be used when the synapses are written separately
+     * from the rest of the group, as in {@link org.simbrain.network.util.io_utilities.BinaryNetworkSerializer}.
+     * No representation of the synapses is built; they are simply not saved.
+     */
+    public void preSaveInitExternal() {
+        compressedMatrixRep = null;
+        fullSynapseRep = null;
+        synapsesSavedExternally = true;
+        inTemp = inSynapseSet;
+        exTemp = exSynapseSet;
+        inSynapseSet = null;
+        exSynapseSet = null;
+    }
+
     /**
      * A post initialization which must be done if the user wants to save the
      * network, but continue using the network after saving (since the saving
      * process sets the synapse sets to null.
      */
     public void postSaveReInit() {
-        if (isUseGroupLevelSettings()) {
+        if (inTemp != null && exTemp != null) {
             inSynapseSet = inTemp;
             exSynapseSet = exTemp;
             inTemp = null;
             exTemp = null;
         }
+        synapsesSavedExternally = false;
+    }
+
+    /**
+     * Called once the synapses of a group saved with {@link
+     * #preSaveInitExternal()} have been added back. Makes them conform to the
+     * prototype synapses, as when opening a compressed representation.
+     */
+    public void postExternalLoadInit() {
+        synapsesSavedExternally = false;
+        setAndConformToTemplate(excitatoryPrototype, Polarity.EXCITATORY);
+        setAndConformToTemplate(inhibitoryPrototype, Polarity.INHIBITORY);
+    }
+
+    /**
+     * See {@link #synapsesSavedExternally}
+     */
+    public boolean isSynapsesSavedExternally() {
+        return synapsesSavedExternally;
     }
 
     /**
@@ -1750,7 +1793,11 @@ public class SynapseGroup implements NetworkModel, CopyableObject, AttributeCont
         }
 
         // Rebuild weight matrix if needed.
-        if (this.isUseGroupLevelSettings() && compressedMatrixRep != null) {
+        if (synapsesSavedExternally) {
+            // Filled in by whoever saved the synapses
+            exSynapseSet = new HashSet<Synapse>();
+            inSynapseSet = new HashSet<Synapse>();
+        } else if (this.isUseGroupLevelSettings() && compressedMatrixRep != null) {
             exSynapseSet = new HashSet<Synapse>();
             inSynapseSet = new HashSet<Synapse>();
             GroupDeserializer.reconstructCompressedSynapseStrengths(this.compressedMatrixRep, this);
@@ -179,6 +179,8 @@ public final class SynapseDialog extends StandardDialog {
         // Call twice, since the display of the synapse relies on multiple field values
         // which fire separate events. Ugly solution but works.
         synapseEditingPanel.commitChanges();
+        // Spike responder parameters are edited in place, without going through the synapse
+        synapseList.forEach(s -> s.getEvents().fireSpikeResponderUpdate());
     }
 
     /**
@@ -115,10 +115,6 @@ public class NeuronArrayNode extends ScreenElement {
 
         NeuronArrayEvents events = neuronArray.getEvents();
         events.onDeleted(n -> removeFromParent());
-        events.onUpdated(() -> {
-            renderArrayToActivationsImage();
-            updateInfoText();
-        });
         events.onLocationChange(this::pullViewPositionFromModel);
         events.onLabelChange((o, n) -> {
             //interactionBox.setText((String) evt.getNewValue());
@@ -146,6 +142,13 @@ public class NeuronArrayNode extends ScreenElement {
         // Image array
         renderArrayToActivationsImage();
 
+        np.getRenderer().register(this);
+    }
+
+    @Override
+    public void updateFromModel() {
+        renderArrayToActivationsImage();
+        updateInfoText();
     }
 
     public void pullViewPositionFromModel() {
@@ -328,7 +331,7 @@ public class NeuronArrayNode extends ScreenElement {
                         SimbrainJTable.createTable(arrayData)));
                 dialog.addClosingTask(() -> {
                     neuronArray.getNeuronArray().data().setData(arrayData.getVectorCurrentRow());
-                    neuronArray.update();
+                    neuronArray.getEvents().fireUpdated();
                 });
                 dialog.pack();
                 dialog.setLocationRelativeTo(null);
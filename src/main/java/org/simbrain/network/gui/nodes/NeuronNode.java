@@ -89,6 +89,11 @@ public class NeuronNode extends ScreenElement implements PropertyChangeListener
      */
     private HashSet<SynapseNode> connectedSynapses = new HashSet<SynapseNode>();
 
+    /**
+     * Whether the neuron was spiking when last drawn.
+     */
+    private boolean drawnSpike;
+
     /**
      * Number text inside neuron.
      */
@@ -200,13 +205,6 @@ public class NeuronNode extends ScreenElement implements PropertyChangeListener
         // Handle events
         NeuronEvents events = neuron.getEvents();
         events.onDeleted(n -> removeFromParent());
-        events.onActivationChange((o, n) -> {
-            updateColor();
-            updateText();
-        });
-        events.onSpiked((o, n) -> {
-            updateSpikeColor();
-        });
         events.onColorChange(this::updateColor);
         events.onLabelChange(this::updateTextLabel);
         events.onClampedChange((o, n) -> updateClampStatus());
@@ -215,6 +213,23 @@ public class NeuronNode extends ScreenElement implements PropertyChangeListener
         events.onSelected(s -> {
             getNetworkPanel().getSelectionManager().add(this);
         });
+        net.getRenderer().register(this);
+    }
+
+    @Override
+    public void updateFromModel() {
+        updateColor();
+        updateText();
+        boolean spike = neuron.isSpike();
+        if (spike != drawnSpike) {
+            drawnSpike = spike;
+            updateSpikeColor();
+            for (SynapseNode synapseNode : connectedSynapses) {
+                if (synapseNode.getSource() == this) {
+                    synapseNode.updateSpikeColor();
+                }
+            }
+        }
     }
 
     /**
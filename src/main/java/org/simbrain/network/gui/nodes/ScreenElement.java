@@ -104,6 +104,14 @@ public abstract class ScreenElement extends PPath.Float {
      */
     public void resetToDefault() {};
 
+    /**
+     * Redraw this node to show the current state of its model. Called on the Swing thread by the panel's {@link
+     * org.simbrain.network.gui.NetworkRenderer} when the model has changed since the last frame. Nodes register
+     * with the renderer to receive these calls.
+     */
+    public void updateFromModel() {
+    }
+
     public final NetworkPanel getNetworkPanel() {
         return networkPanel;
     }
@@ -151,17 +151,16 @@ public final class SynapseNode extends ScreenElement {
         SynapseEvents events = synapse.getEvents();
 
         events.onDeleted(s -> removeFromParent());
-        events.onStrengthUpdate(() -> {
-            updateColor();
-            updateDiameter();
-        });
         events.onSelected(s -> {
             getNetworkPanel().getSelectionManager().add(this);
         });
+        net.getRenderer().register(this);
+    }
 
-        // Respond to spiking events
-        source.neuron.getEvents().onSpiked((o, n) -> updateSpikeColor());
-
+    @Override
+    public void updateFromModel() {
+        updateColor();
+        updateDiameter();
     }
 
     /**
@@ -264,8 +263,7 @@ public final class SynapseNode extends ScreenElement {
     /**
      * When spiking change the color of the line.
      */
-    private void updateSpikeColor() {
-        System.out.println("SynapseNode.updateSpikeColor");
+    void updateSpikeColor() {
         if (source.getNeuron().isSpike()) {
             line.setStrokePaint(NeuronNode.getSpikingColor());
         } else {
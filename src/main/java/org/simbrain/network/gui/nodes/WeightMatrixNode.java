@@ -83,12 +83,17 @@ public class WeightMatrixNode extends ScreenElement implements PropertyChangeLis
 
         WeightMatrixEvents events = weightMatrix.getEvents();
         events.onDeleted(w -> removeFromParent());
-        events.onUpdated(this::renderMatrixToImage);
         wm.getSource().getEvents().onLocationChange(arrow::invalidateFullBounds);
         wm.getTarget().getEvents().onLocationChange(arrow::invalidateFullBounds);
         events.onSelected(s -> {
             getNetworkPanel().getSelectionManager().add(this);
         });
+        np.getRenderer().register(this);
+    }
+
+    @Override
+    public void updateFromModel() {
+        renderMatrixToImage();
     }
 
     @Override
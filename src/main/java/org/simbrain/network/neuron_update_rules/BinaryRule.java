@@ -22,8 +22,7 @@ import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.util.UserParameter;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
-
-import java.util.Random;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * <b>BinaryNeuron</b> takes one of two values.
@@ -96,7 +95,7 @@ public class BinaryRule extends NeuronUpdateRule {
 
     @Override
     public double getRandomValue() {
-        Random rand = new Random();
+        RandomSource rand = RandomSource.newStream();
         return rand.nextBoolean() ? getUpperBound() : getLowerBound();
     }
 
@@ -24,6 +24,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
 
 
 public class FitzhughNagumo extends SpikingNeuronUpdateRule implements NoisyUpdateRule {
@@ -146,7 +147,7 @@ public class FitzhughNagumo extends SpikingNeuronUpdateRule implements NoisyUpda
     public double getRandomValue() {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - c) * Math.random() + c;
+        return 2 * (threshold - c) * RandomSource.uniform() + c;
     }
 
     public double getW() {
@@ -24,8 +24,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
-
-import java.util.concurrent.ThreadLocalRandom;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * Linear <b>IntegrateAndFireNeuron</b> implements an integrate and fire neuron.
@@ -135,6 +134,11 @@ public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements Noi
 
     private double randSpkChance = 0;
 
+    /**
+     * Stream of random numbers for random spikes, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     public IntegrateAndFireRule() {
         super();
     }
@@ -144,6 +148,14 @@ public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements Noi
         this.randSpkChance = randSpkChance;
     }
 
+    /**
+     * Create the random stream when the rule is loaded.
+     */
+    protected Object readResolve() {
+        random = RandomSource.newStream();
+        return this;
+    }
+
     @Override
     public IntegrateAndFireRule deepCopy() {
         IntegrateAndFireRule ifn = new IntegrateAndFireRule();
@@ -189,7 +201,7 @@ public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements Noi
 
         memPotential += dVm;
 
-        if(ThreadLocalRandom.current().nextDouble() < randSpkChance*neuron.getNetwork().getTimeStep()) {
+        if(random.nextDouble() < randSpkChance*neuron.getNetwork().getTimeStep()) {
             memPotential = threshold+1;
         }
 
@@ -209,7 +221,7 @@ public class IntegrateAndFireRule extends SpikingNeuronUpdateRule implements Noi
     public double getRandomValue() {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - restingPotential) * Math.random() + restingPotential;
+        return 2 * (threshold - restingPotential) * RandomSource.uniform() + restingPotential;
     }
 
     public double getRestingPotential() {
@@ -24,6 +24,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * <b>IzhikevichNeuron</b>. Default values correspond to "tonic spiking". TODO:
@@ -130,6 +131,7 @@ public class IzhikevichRule extends SpikingNeuronUpdateRule implements NoisyUpda
         in.setD(getD());
         in.setiBg(getiBg());
         in.setAddNoise(getAddNoise());
+        in.setRefractoryPeriod(getRefractoryPeriod());
         in.noiseGenerator = noiseGenerator.deepCopy();
         return in;
     }
@@ -138,22 +140,32 @@ public class IzhikevichRule extends SpikingNeuronUpdateRule implements NoisyUpda
     public void update(final Neuron neuron) {
         timeStep = neuron.getNetwork().getTimeStep();
         final double activation = neuron.getActivation();
-        double inputs = 0;
-        inputs = neuron.getInput();
-        if (addNoise) {
-            inputs += noiseGenerator.getRandom();
+        // Incoming current is 0 during the refractory period, and the neuron can't spike. The input is still read
+        // so that post-synaptic responses keep evolving.
+        final boolean refractory = refractoryPeriod > 0
+                && neuron.getNetwork().getTime() < (getLastSpikeTime() + refractoryPeriod);
+        double inputs = neuron.getInput();
+        if (refractory) {
+            inputs = 0;
+        } else {
+            if (addNoise) {
+                inputs += noiseGenerator.getRandom();
+            }
+            inputs += iBg;
         }
-        inputs += iBg;
         recovery += (timeStep * (a * ((b * activation) - recovery)));
 
         val = activation + (timeStep * (((.04 * (activation * activation)) + (5 * activation) + 140) - recovery + inputs));
 
-        if (val >= threshold) {
+        if (val >= threshold && !refractory) {
             val = c;
             recovery += d;
             neuron.setSpkBuffer(true);
             setHasSpiked(true, neuron);
         } else {
+            if (val > threshold) {
+                val = threshold;
+            }
             neuron.setSpkBuffer(false);
             setHasSpiked(false, neuron);
         }
@@ -165,7 +177,7 @@ public class IzhikevichRule extends SpikingNeuronUpdateRule implements NoisyUpda
     public double getRandomValue() {
         // Equal chance of spiking or not spiking, taking on any value between
         // the resting potential and the threshold if not.
-        return 2 * (threshold - c) * Math.random() + c;
+        return 2 * (threshold - c) * RandomSource.uniform() + c;
     }
 
     public double getA() {
@@ -239,6 +251,17 @@ public class IzhikevichRule extends SpikingNeuronUpdateRule implements NoisyUpda
         this.threshold = threshold;
     }
 
+    /**
+     * @return the current value of the recovery variable u
+     */
+    public double getRecovery() {
+        return recovery;
+    }
+
+    public void setRecovery(double recovery) {
+        this.recovery = recovery;
+    }
+
     public double getRefractoryPeriod() {
         return refractoryPeriod;
     }
@@ -19,6 +19,7 @@
 package org.simbrain.network.neuron_update_rules;
 
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.ops.transforms.Transforms;
 import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
@@ -250,21 +251,29 @@ public class LinearRule extends NeuronUpdateRule implements BiasedUpdateRule, Di
 
     @Override
     public void applyFunctionInPlace(INDArray input) {
-
+        applyFunction(input, input);
     }
 
     @Override
     public void applyFunction(INDArray input, INDArray output) {
-
+        input.muli(slope, output);
+        if (clipping) {
+            Transforms.min(output, upperBound, false);
+            Transforms.max(output, lowerBound, false);
+        }
     }
 
+    /**
+     * The derivative is the slope everywhere (clipping is ignored).
+     */
     @Override
     public void getDerivative(INDArray input, INDArray output) {
-
+        output.assign(slope);
     }
 
     @Override
     public void applyFunctionAndDerivative(INDArray input, INDArray output, INDArray derivative) {
-
+        applyFunction(input, output);
+        getDerivative(input, derivative);
     }
 }
@@ -24,10 +24,10 @@ import org.simbrain.network.core.NeuronUpdateRule;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.network.core.SynapseUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.BiasedUpdateRule;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.math.SimbrainMath;
 
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * <b>PointNeuron</b> from O'Reilley and Munakata, Computational Explorations in
@@ -351,7 +351,7 @@ public class PointNeuronRule extends NeuronUpdateRule implements BiasedUpdateRul
 
     @Override
     public double getRandomValue() {
-        Random rand = new Random();
+        RandomSource rand = RandomSource.newStream();
         if (outputFunction == OutputFunction.DISCRETE_SPIKING) {
             return rand.nextBoolean() ? 1.0 : 0.0;
         } else if (outputFunction == OutputFunction.RATE_CODE) {
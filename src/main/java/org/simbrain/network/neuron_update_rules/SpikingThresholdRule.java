@@ -24,8 +24,7 @@ import org.simbrain.network.neuron_update_rules.interfaces.NoisyUpdateRule;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
-
-import java.util.Random;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * A simple spiking neuron that fires when weighted inputs exceed a threshold.
@@ -77,7 +76,7 @@ public class SpikingThresholdRule extends SpikingNeuronUpdateRule implements Noi
 
     @Override
     public double getRandomValue() {
-        Random rand = new Random();
+        RandomSource rand = RandomSource.newStream();
         return rand.nextBoolean() ? 1 : 0;
     }
 
@@ -22,8 +22,7 @@ import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.util.UserParameter;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.NeuronUpdateRule;
-
-import java.util.Random;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * <b>ThreeValuedNeuron</b> is a natural extension of a binary neuron, which
@@ -126,7 +125,7 @@ public class ThreeValueRule extends NeuronUpdateRule {
 
     @Override
     public double getRandomValue() {
-        Random rand = new Random();
+        RandomSource rand = RandomSource.newStream();
         int d = rand.nextInt(3);
         if (d == 0) {
             return lowerValue;
@@ -4,8 +4,7 @@ import org.simbrain.network.core.Network.TimeType;
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.Synapse;
 import org.simbrain.util.UserParameter;
-
-import java.util.concurrent.ThreadLocalRandom;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * A stochastic spiking neuron often used in cortical branching simulations. The timed accumulator normalizes its inputs
@@ -93,6 +92,11 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
      */
     private int currentState;
 
+    /**
+     * Stream of random numbers for deciding when to fire, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     @Override
     public TimeType getTimeType() {
         return TimeType.DISCRETE;
@@ -110,7 +114,7 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
             setHasSpiked(false, neuron);
             return;
         }
-        if (ThreadLocalRandom.current().nextDouble() < baseProb) {
+        if (random.nextDouble() < baseProb) {
             currentState++;
             neuron.setBuffer(1);
             neuron.setSpkBuffer(true);
@@ -128,7 +132,7 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
                 // Using the exp weight value stored in the PSR from before
                 // divide that by the exp sum to get the softmax value
                 // then set this to a 1 state from a 0 with that probability.
-                if (ThreadLocalRandom.current().nextDouble() < kappa * neuron.getFanInUnsafe().get(ii).getPsr() / expSum) {
+                if (random.nextDouble() < kappa * neuron.getFanInUnsafe().get(ii).getPsr() / expSum) {
                     currentState++;
                     neuron.setBuffer(1);
                     neuron.setSpkBuffer(true);
@@ -152,6 +156,14 @@ public class TimedAccumulatorRule extends SpikingThresholdRule {
 //        }
 //    }
 
+    /**
+     * Create the random stream when the rule is loaded.
+     */
+    private Object readResolve() {
+        random = RandomSource.newStream();
+        return this;
+    }
+
     @Override
     public TimedAccumulatorRule deepCopy() {
         TimedAccumulatorRule tar = new TimedAccumulatorRule();
@@ -23,6 +23,7 @@ import org.simbrain.network.core.Neuron;
 import org.simbrain.network.core.SpikingNeuronUpdateRule;
 import org.simbrain.network.neuron_update_rules.interfaces.ActivityGenerator;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * <b>StochasticNeuron</b> is a simple type of random neuron which takes the
@@ -48,11 +49,24 @@ public class StochasticRule extends SpikingNeuronUpdateRule implements ActivityG
             order = 1)
     private double firingProbability = DEFAULT_FIRING_PROBABILITY;
 
+    /**
+     * Stream of random numbers for deciding when to fire, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     @Override
     public TimeType getTimeType() {
         return TimeType.DISCRETE;
     }
 
+    /**
+     * Create the random stream when the rule is loaded.
+     */
+    private Object readResolve() {
+        random = RandomSource.newStream();
+        return this;
+    }
+
     @Override
     public StochasticRule deepCopy() {
         StochasticRule sn = new StochasticRule();
@@ -62,7 +76,7 @@ public class StochasticRule extends SpikingNeuronUpdateRule implements ActivityG
 
     @Override
     public void update(Neuron neuron) {
-        double rand = Math.random();
+        double rand = random.nextDouble();
         if (rand > 1 - firingProbability) {
             neuron.setSpkBuffer(true);
             setHasSpiked(true, neuron);
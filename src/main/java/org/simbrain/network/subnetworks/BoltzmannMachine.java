@@ -28,11 +28,11 @@ import org.simbrain.network.groups.Subnetwork;
 import org.simbrain.network.trainers.Trainable;
 import org.simbrain.network.trainers.TrainingSet;
 import org.simbrain.network.util.Direction;
+import org.simbrain.util.math.RandomSource;
 
 import java.awt.geom.Point2D;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 import static org.simbrain.network.util.NetworkLayoutManagerKt.offsetNeuronGroup;
 
@@ -57,6 +57,11 @@ public class BoltzmannMachine extends Subnetwork implements Trainable {
      */
     private double temperature = DEFAULT_INIT_SIZE;
 
+    /**
+     * Stream of random numbers for choosing and flipping units, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     /**
      * The input layer.
      */
@@ -118,6 +123,12 @@ public class BoltzmannMachine extends Subnetwork implements Trainable {
         //TODO: Proper weight initialization
     }
 
+    @Override
+    public void postUnmarshallingInit() {
+        super.postUnmarshallingInit();
+        random = RandomSource.newStream();
+    }
+
     @Override
     public void update() {
 
@@ -128,7 +139,7 @@ public class BoltzmannMachine extends Subnetwork implements Trainable {
         //hiddenUnits.clearActivations();
 
         // Choose randomly
-        Neuron chosenNode = hiddenUnits.getNeuronList().get(ThreadLocalRandom.current().nextInt(0, hiddenUnits.getNeuronList().size()));
+        Neuron chosenNode = hiddenUnits.getNeuronList().get(random.nextInt(hiddenUnits.getNeuronList().size()));
 
         int summedFanIn = 0;
 
@@ -139,7 +150,7 @@ public class BoltzmannMachine extends Subnetwork implements Trainable {
         double delta_c = 1 - 2 * chosenNode.getActivation() + summedFanIn;
         double acceptChangeProb = 1 / (1 + Math.exp(-delta_c / temperature));
 
-        if (Math.random() < acceptChangeProb) {
+        if (random.nextDouble() < acceptChangeProb) {
             chosenNode.setActivation(1 - chosenNode.getActivation());
             this.temperature = .95 * temperature;
         }
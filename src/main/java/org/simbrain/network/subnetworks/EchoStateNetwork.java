@@ -29,10 +29,12 @@ import org.simbrain.network.groups.Subnetwork;
 import org.simbrain.network.groups.SynapseGroup;
 import org.simbrain.network.neuron_update_rules.SigmoidalRule;
 import org.simbrain.network.trainers.LMSOffline;
+import org.simbrain.network.trainers.RidgeReadout;
 import org.simbrain.network.trainers.Trainable;
 import org.simbrain.network.trainers.Trainer;
 import org.simbrain.network.trainers.TrainingSet;
 import org.simbrain.network.util.Direction;
+import org.simbrain.network.util.SimnetUtils;
 import org.simbrain.util.math.NumericMatrix;
 import org.simbrain.util.math.ProbDistributions.UniformDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
@@ -41,6 +43,7 @@ import org.simbrain.util.math.SquashingFunctionEnum;
 
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.simbrain.network.util.NetworkLayoutManagerKt.offsetNeuronGroup;
@@ -164,6 +167,11 @@ public class EchoStateNetwork extends Subnetwork {
      */
     private double[][] targetData;
 
+    /**
+     * Ridge parameter used when training the readout with {@link #train()}.
+     */
+    private double regularization = 1e-8;
+
     /**
      * Constructor with size of layers specified.
      *
@@ -352,36 +360,14 @@ public class EchoStateNetwork extends Subnetwork {
         }
 
         // Build the network to be used in state harvesting
-        final ArrayList<Neuron> full = new ArrayList<Neuron>();
-        if (directInOutWeights) {
-            for (Neuron node : getInputLayer().getNeuronList()) {
-                full.add(node);
-            }
-        }
-        for (Neuron node : reservoirLayer.getNeuronList()) {
-            full.add(node);
-        }
-        if (recurrentOutWeights) {
-            for (Neuron node : this.getOutputLayer().getNeuronList()) {
-                full.add(node);
-            }
-        }
+        final List<Neuron> full = getReadoutSources();
 
-        // Handle non-linearities in the outputs.
-        // If output layer neurons are sigmoidal, transform the desired
-        // output to the inverse of the sigmoidal, so that when it's put
-        // in to the sigmoidal it will produce the desired output.
-        for (Neuron n : outputLayer.getNeuronList()) {
-            if (n.getUpdateRule() instanceof SigmoidalRule) {
-                for (int i = 0; i < targetData.length; i++) {
-                    int col = outputLayer.getNeuronList().indexOf(n);
-                    targetData[i][col] = ((SigmoidalRule) n.getUpdateRule()).getInverse(targetData[i][col]);
-                }
-            }
-        }
+        invertOutputNonlinearities(targetData);
 
         // Make the training set by harvesting reservoir states
-        final double[][] harvestedData = harvestData();
+        final double[][] harvestedData = ReservoirEngine.supports(this)
+                ? new ReservoirEngine(this).harvest(inputData, targetData)
+                : harvestData();
         if (harvestedData[0].length != full.size()) {
             throw new IllegalArgumentException("Input data length does not " + "match training node set");
         }
@@ -425,6 +411,83 @@ public class EchoStateNetwork extends Subnetwork {
 
     }
 
+    /**
+     * Train the readout weights on the current input and target data by ridge
+     * regression, without building a state matrix. See {@link
+     * #train(List, List)}.
+     */
+    public void train() {
+        train(Collections.singletonList(inputData), Collections.singletonList(targetData));
+    }
+
+    /**
+     * Train the readout weights by ridge regression, with {@link
+     * #getRegularization()} as the ridge parameter, on several independent
+     * sequences. Reservoir states are harvested by a {@link ReservoirEngine},
+     * with the sequences harvested in parallel, and streamed into a {@link
+     * RidgeReadout}. Target data are not modified.
+     *
+     * @param inputSequences  the input rows of each sequence
+     * @param targetSequences the target rows of each sequence
+     * @throws IllegalArgumentException if the reservoir is not supported by
+     *                                  {@link ReservoirEngine} or the data do
+     *                                  not match the layers
+     */
+    public void train(List<double[][]> inputSequences, List<double[][]> targetSequences) {
+        List<double[][]> targets = new ArrayList<>();
+        for (double[][] sequence : targetSequences) {
+            if (sequence.length > 0 && sequence[0].length != outputLayer.size()) {
+                throw new IllegalArgumentException("Output data length does not " + "match the number of output nodes");
+            }
+            double[][] copy = new double[sequence.length][];
+            for (int i = 0; i < sequence.length; i++) {
+                copy[i] = sequence[i].clone();
+            }
+            invertOutputNonlinearities(copy);
+            targets.add(copy);
+        }
+        RidgeReadout readout = new ReservoirEngine(this).harvest(inputSequences, targets);
+        double[][] weights = readout.solve(regularization);
+        SimnetUtils.setWeights(getReadoutSources(), outputLayer.getNeuronList(), weights);
+    }
+
+    /**
+     * The neurons whose states are used by the readout: the inputs if there
+     * are direct input to output weights, the reservoir, and the outputs if
+     * there are recurrent output weights.
+     */
+    private List<Neuron> getReadoutSources() {
+        List<Neuron> sources = new ArrayList<>();
+        if (directInOutWeights) {
+            sources.addAll(inputLayer.getNeuronList());
+        }
+        sources.addAll(reservoirLayer.getNeuronList());
+        if (recurrentOutWeights) {
+            sources.addAll(outputLayer.getNeuronList());
+        }
+        return sources;
+    }
+
+    /**
+     * Handle non-linearities in the outputs. If output layer neurons are
+     * sigmoidal, transform the desired output to the inverse of the sigmoidal,
+     * so that when it's put in to the sigmoidal it will produce the desired
+     * output.
+     *
+     * @param targets target rows, transformed in place
+     */
+    private void invertOutputNonlinearities(double[][] targets) {
+        List<Neuron> outputs = outputLayer.getNeuronList();
+        for (int col = 0; col < outputs.size(); col++) {
+            Neuron n = outputs.get(col);
+            if (n.getUpdateRule() instanceof SigmoidalRule) {
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i][col] = ((SigmoidalRule) n.getUpdateRule()).getInverse(targets[i][col]);
+                }
+            }
+        }
+    }
+
     /**
      * A general method for harvesting state data for an arbitrary Echo-State
      * Network. This method iterates through each row of input and teacher data
@@ -432,6 +495,7 @@ public class EchoStateNetwork extends Subnetwork {
      * and updates the reservoir. Depending on the ESN's un-frozen connectivity
      * the resulting return matrix will have rows consisting of concatenated
      * input, reservoir, and (teacher-forced) output states in that order.
+     * Only used for reservoirs that {@link ReservoirEngine} does not support.
      *
      * @return a matrix of data to be used for training
      */
@@ -560,6 +624,10 @@ public class EchoStateNetwork extends Subnetwork {
         this.backWeights = backWeights;
     }
 
+    public boolean getBackWeights() {
+        return backWeights;
+    }
+
     /**
      * Set to true for the output to receive input from itself from the previous
      * time-step.
@@ -570,6 +638,10 @@ public class EchoStateNetwork extends Subnetwork {
         this.recurrentOutWeights = recurrentWeights;
     }
 
+    public boolean getRecurrentOutWeights() {
+        return recurrentOutWeights;
+    }
+
     /**
      * Set to true for weights directly from input to output.
      *
@@ -579,6 +651,24 @@ public class EchoStateNetwork extends Subnetwork {
         this.directInOutWeights = directInOutWeights;
     }
 
+    public boolean getDirectInOutWeights() {
+        return directInOutWeights;
+    }
+
+    public double getRegularization() {
+        return regularization;
+    }
+
+    /**
+     * Set the ridge parameter used by {@link #train()}.
+     *
+     * @param regularization the value added to the diagonal of the state
+     *                       correlation matrix
+     */
+    public void setRegularization(double regularization) {
+        this.regularization = regularization;
+    }
+
     /**
      * @return the inputLayer
      */
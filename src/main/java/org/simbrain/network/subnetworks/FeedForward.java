@@ -233,6 +233,7 @@ public class FeedForward extends Subnetwork {
         if (isUseNeuronArrays()) {
             for (int i = 0; i < getNAList().size() ; i++) {
                 getNAList().get(i).update();
+                getNAList().get(i).applyBufferValues();
                 if(getWeightMatrixList().size() > i) {
                     getWeightMatrixList().get(i).update();
                 }
@@ -35,6 +35,7 @@ import org.simbrain.network.trainers.Trainable;
 import org.simbrain.network.trainers.TrainingSet;
 import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.propertyeditor.EditableObject;
 
 import java.util.Collections;
@@ -90,6 +91,11 @@ public class Hopfield extends Subnetwork implements Trainable {
      */
     private final TrainingSet trainingSet = new TrainingSet();
 
+    /**
+     * Stream of random numbers for ordering random updates, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     /**
      * Default layout for Hopfield nets.
      */
@@ -137,7 +143,14 @@ public class Hopfield extends Subnetwork implements Trainable {
      * sequential.
      */
     public void randomizeSequence() {
-        Collections.shuffle(this.getModifiableNeuronList());
+        Collections.shuffle(this.getModifiableNeuronList(), getRandom().newRandom());
+    }
+
+    private RandomSource getRandom() {
+        if (random == null) {
+            random = RandomSource.newStream();
+        }
+        return random;
     }
 
     /**
@@ -242,7 +255,7 @@ public class Hopfield extends Subnetwork implements Trainable {
             public void update(Hopfield hop) {
                 List<Neuron> neurons = hop.getModifiableNeuronList();
                 Neuron neuron = null;
-                Collections.shuffle(neurons);
+                Collections.shuffle(neurons, hop.getRandom().newRandom());
                 for (int i = 0, n = neurons.size(); i < n; i++) {
                     neuron = neurons.get(i);
                     neuron.update();
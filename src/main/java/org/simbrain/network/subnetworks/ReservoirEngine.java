@@ -0,0 +1,404 @@
+/*
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.subnetworks;
+
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.neuron_update_rules.SigmoidalRule;
+import org.simbrain.network.trainers.RidgeReadout;
+import org.simbrain.util.SimbrainConstants.Polarity;
+import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
+import org.simbrain.util.math.SquashingFunctionEnum;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Harvests the states of an {@link EchoStateNetwork}'s reservoir using arrays
+ * rather than neuron objects. The weights onto the reservoir, from the input
+ * layer, the reservoir itself and the output layer, are copied into a single
+ * sparse matrix in compressed row form whose columns index the concatenated
+ * activations of the three layers, so that each time step is one sparse
+ * matrix-vector product followed by the reservoir neurons' squashing function.
+ * <p>
+ * States are streamed into a {@link RidgeReadout} in chunks, so the full state
+ * matrix need never be held in memory, and independent input sequences are
+ * harvested in parallel, each into its own readout, which are then merged.
+ * <p>
+ * The engine is a snapshot: changes to the network after it is created are
+ * not seen by it, and harvesting does not change the network. Synapses are
+ * treated as simple weights, i.e. spike responders and delays are ignored,
+ * which is exact for the discrete sigmoidal reservoirs echo state networks are
+ * built with. Other reservoir update rules are not supported; see {@link
+ * #supports(EchoStateNetwork)}.
+ */
+public class ReservoirEngine {
+
+    /**
+     * Number of state rows passed to the readout at a time.
+     */
+    public static final int CHUNK_SIZE = 256;
+
+    /**
+     * Maximum number of readouts that sequences harvested in parallel are
+     * split between. The split depends only on the number of sequences, not
+     * on the number of threads, so the merged readout is the same on any
+     * machine.
+     */
+    private static final int MAX_PARTIALS = 32;
+
+    private final int numInputs;
+
+    private final int numRes;
+
+    private final int numOutputs;
+
+    /**
+     * See {@link EchoStateNetwork#setBackWeights(boolean)}.
+     */
+    private final boolean backWeights;
+
+    /**
+     * See {@link EchoStateNetwork#setRecurrentOutWeights(boolean)}.
+     */
+    private final boolean recurrentOutWeights;
+
+    /**
+     * See {@link EchoStateNetwork#setDirectInOutWeights(boolean)}.
+     */
+    private final boolean directInOutWeights;
+
+    /**
+     * Reservoir noise generator, or null if the reservoir is not noisy.
+     */
+    private final ProbabilityDistribution noiseGenerator;
+
+    /**
+     * Seed for the noise of each sequence. Sequence k draws its noise from a
+     * copy of {@link #noiseGenerator} with its own stream keyed by k, so
+     * sequences harvested in parallel don't share a generator, and the noise
+     * does not depend on how many threads harvest them.
+     */
+    private final long noiseSeed;
+
+    /**
+     * Number of sequences harvested so far, used as the key of the next
+     * sequence's noise stream.
+     */
+    private final AtomicLong numSequences = new AtomicLong();
+
+    /**
+     * Start of each reservoir neuron's row in {@link #columns} and {@link
+     * #weights}, plus the end of the last row.
+     */
+    private final int[] rowStarts;
+
+    /**
+     * Source of each weight, as an index into the concatenated input,
+     * reservoir and output activations.
+     */
+    private final int[] columns;
+
+    private final double[] weights;
+
+    /**
+     * Squashing function parameters of each reservoir neuron.
+     */
+    private final SquashingFunctionEnum[] functions;
+
+    private final double[] biases;
+
+    private final double[] upperBounds;
+
+    private final double[] lowerBounds;
+
+    private final double[] slopes;
+
+    /**
+     * Activations of the input, reservoir and output layers when the engine
+     * was created. Each harvested sequence starts from these.
+     */
+    private final double[] initialActivations;
+
+    /**
+     * Create an engine from the current weights and activations of an echo
+     * state network.
+     *
+     * @param esn the network
+     * @throws IllegalArgumentException if the network is not supported
+     */
+    public ReservoirEngine(EchoStateNetwork esn) {
+        if (!supports(esn)) {
+            throw new IllegalArgumentException("Reservoir neurons must be sigmoidal, without noise, and not clamped");
+        }
+        List<Neuron> inputs = esn.getInputLayer().getNeuronList();
+        List<Neuron> reservoir = esn.getReservoirLayer().getNeuronList();
+        List<Neuron> outputs = esn.getOutputLayer().getNeuronList();
+        numInputs = inputs.size();
+        numRes = reservoir.size();
+        numOutputs = outputs.size();
+        backWeights = esn.getBackWeights();
+        recurrentOutWeights = esn.getRecurrentOutWeights();
+        directInOutWeights = esn.getDirectInOutWeights();
+        noiseGenerator = esn.getUseNoise() ? esn.getNoiseGenerator() : null;
+        noiseSeed = noiseGenerator == null ? 0 : noiseGenerator.getRandomStream().nextLong();
+
+        Map<Neuron, Integer> index = new IdentityHashMap<>();
+        initialActivations = new double[numInputs + numRes + numOutputs];
+        int col = 0;
+        for (List<Neuron> layer : List.of(inputs, reservoir, outputs)) {
+            for (Neuron n : layer) {
+                initialActivations[col] = n.getActivation();
+                index.put(n, col++);
+            }
+        }
+
+        rowStarts = new int[numRes + 1];
+        int nnz = 0;
+        for (int i = 0; i < numRes; i++) {
+            rowStarts[i] = nnz;
+            for (Synapse s : reservoir.get(i).getFanIn()) {
+                if (s.isEnabled() && index.containsKey(s.getSource())) {
+                    nnz++;
+                }
+            }
+        }
+        rowStarts[numRes] = nnz;
+        columns = new int[nnz];
+        weights = new double[nnz];
+        functions = new SquashingFunctionEnum[numRes];
+        biases = new double[numRes];
+        upperBounds = new double[numRes];
+        lowerBounds = new double[numRes];
+        slopes = new double[numRes];
+        for (int i = 0; i < numRes; i++) {
+            int k = rowStarts[i];
+            Neuron n = reservoir.get(i);
+            for (Synapse s : n.getFanIn()) {
+                Integer source = index.get(s.getSource());
+                if (s.isEnabled() && source != null) {
+                    columns[k] = source;
+                    weights[k] = s.getStrength();
+                    k++;
+                }
+            }
+            SigmoidalRule rule = (SigmoidalRule) n.getUpdateRule();
+            functions[i] = rule.getSquashFunctionType();
+            biases[i] = rule.getBias() + n.getInputValue();
+            upperBounds[i] = rule.getUpperBound();
+            lowerBounds[i] = rule.getLowerBound();
+            slopes[i] = rule.getSlope();
+        }
+    }
+
+    /**
+     * Whether an engine can be created for a network: all of its reservoir
+     * neurons must use a {@link SigmoidalRule} without noise.
+     *
+     * @param esn the network
+     * @return true if the network's reservoir can be run by an engine
+     */
+    public static boolean supports(EchoStateNetwork esn) {
+        if (esn.getInputLayer() == null || esn.getReservoirLayer() == null || esn.getOutputLayer() == null) {
+            return false;
+        }
+        for (Neuron n : esn.getReservoirLayer().getNeuronList()) {
+            if (!(n.getUpdateRule() instanceof SigmoidalRule) || ((SigmoidalRule) n.getUpdateRule()).getAddNoise()
+                    || n.isClamped()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of columns of a harvested state row: the inputs if there are
+     * direct input to output weights, the reservoir, and the outputs if there
+     * are recurrent output weights.
+     *
+     * @return the state size
+     */
+    public int getNumStates() {
+        return numRes + (directInOutWeights ? numInputs : 0) + (recurrentOutWeights ? numOutputs : 0);
+    }
+
+    /**
+     * Harvest the states for a sequence into a matrix, with the same semantics
+     * as {@link EchoStateNetwork#getTrainer()}.
+     *
+     * @param inputs  input rows
+     * @param targets target rows, used for teacher forcing
+     * @return one state row per input row
+     */
+    public double[][] harvest(double[][] inputs, double[][] targets) {
+        double[][] states = new double[inputs.length][];
+        run(inputs, targets, numSequences.getAndIncrement(), (chunk, firstRow, rows) -> {
+            for (int r = 0; r < rows; r++) {
+                states[firstRow + r] = chunk[r].clone();
+            }
+        });
+        return states;
+    }
+
+    /**
+     * Harvest the states for a sequence and accumulate them with their targets
+     * into a readout.
+     *
+     * @param inputs  input rows
+     * @param targets target rows
+     * @param readout the readout to accumulate into
+     */
+    public void harvest(double[][] inputs, double[][] targets, RidgeReadout readout) {
+        harvest(inputs, targets, readout, numSequences.getAndIncrement());
+    }
+
+    private void harvest(double[][] inputs, double[][] targets, RidgeReadout readout, long sequence) {
+        double[][] targetChunk = new double[CHUNK_SIZE][];
+        run(inputs, targets, sequence, (chunk, firstRow, rows) -> {
+            System.arraycopy(targets, firstRow, targetChunk, 0, rows);
+            readout.accumulate(chunk, targetChunk, rows);
+        });
+    }
+
+    /**
+     * Harvest independent sequences in parallel, each starting from the
+     * network's activations when this engine was created. The sequences are
+     * split into consecutive runs, each accumulated in order into its own
+     * partial readout, and the partials are merged in order.
+     *
+     * @param inputs  input rows of each sequence
+     * @param targets target rows of each sequence
+     * @return a readout accumulated over all the sequences
+     */
+    public RidgeReadout harvest(List<double[][]> inputs, List<double[][]> targets) {
+        if (inputs.size() != targets.size()) {
+            throw new IllegalArgumentException("Each input sequence must have a target sequence");
+        }
+        long firstSequence = numSequences.getAndAdd(inputs.size());
+        int total = inputs.size();
+        int numPartials = Math.min(total, MAX_PARTIALS);
+        RidgeReadout[] partials = new RidgeReadout[numPartials];
+        IntStream.range(0, numPartials).parallel().forEach(p -> {
+            RidgeReadout readout = new RidgeReadout(getNumStates(), numOutputs);
+            int end = (int) ((long) (p + 1) * total / numPartials);
+            for (int i = (int) ((long) p * total / numPartials); i < end; i++) {
+                harvest(inputs.get(i), targets.get(i), readout, firstSequence + i);
+            }
+            partials[p] = readout;
+        });
+        RidgeReadout readout = new RidgeReadout(getNumStates(), numOutputs);
+        for (RidgeReadout partial : partials) {
+            readout.merge(partial);
+        }
+        return readout;
+    }
+
+    /**
+     * Receives harvested state rows a chunk at a time.
+     */
+    private interface ChunkConsumer {
+        /**
+         * @param chunk    state rows; the arrays are reused for the next chunk
+         * @param firstRow index in the sequence of the first row in the chunk
+         * @param rows     number of valid rows in the chunk
+         */
+        void accept(double[][] chunk, int firstRow, int rows);
+    }
+
+    /**
+     * Run the reservoir through a sequence twice, once to let its dynamics
+     * settle and once to harvest its states.
+     */
+    private void run(double[][] inputs, double[][] targets, long sequence, ChunkConsumer consumer) {
+        if (inputs.length != targets.length) {
+            throw new IllegalArgumentException("Input and target data must have the same number of rows");
+        }
+        double[] activations = initialActivations.clone();
+        double[] next = new double[numRes];
+        double[] noise = null;
+        ProbabilityDistribution sequenceNoise = null;
+        if (noiseGenerator != null) {
+            noise = new double[numRes];
+            sequenceNoise = noiseGenerator.deepCopy();
+            sequenceNoise.setRandomStream(RandomSource.forKey(noiseSeed, sequence));
+        }
+        double[][] chunk = new double[CHUNK_SIZE][getNumStates()];
+        int resStart = numInputs;
+        int outStart = numInputs + numRes;
+
+        for (int pass = 0; pass < 2; pass++) {
+            boolean harvest = pass == 1;
+            int rowInChunk = 0;
+            for (int row = 0; row < inputs.length; row++) {
+
+                // Clamp inputs and teacher-forced outputs
+                System.arraycopy(inputs[row], 0, activations, 0, numInputs);
+                if (backWeights) {
+                    if (row > 0) {
+                        System.arraycopy(targets[row - 1], 0, activations, outStart, numOutputs);
+                    } else {
+                        Arrays.fill(activations, outStart, outStart + numOutputs, 0.5);
+                    }
+                }
+
+                // Synchronous reservoir update
+                for (int i = 0; i < numRes; i++) {
+                    double net = biases[i];
+                    for (int k = rowStarts[i], end = rowStarts[i + 1]; k < end; k++) {
+                        net += weights[k] * activations[columns[k]];
+                    }
+                    next[i] = functions[i].valueOf(net, upperBounds[i], lowerBounds[i], slopes[i]);
+                }
+                if (noise != null) {
+                    sequenceNoise.fill(noise);
+                    Polarity polarity = noiseGenerator.getPolarity();
+                    for (int i = 0; i < numRes; i++) {
+                        next[i] += polarity.value(noise[i]);
+                    }
+                }
+                System.arraycopy(next, 0, activations, resStart, numRes);
+
+                if (harvest) {
+                    double[] state = chunk[rowInChunk];
+                    int col = 0;
+                    if (directInOutWeights) {
+                        System.arraycopy(activations, 0, state, 0, numInputs);
+                        col += numInputs;
+                    }
+                    System.arraycopy(next, 0, state, col, numRes);
+                    col += numRes;
+                    if (recurrentOutWeights) {
+                        System.arraycopy(targets[row], 0, state, col, numOutputs);
+                    }
+                    if (++rowInChunk == CHUNK_SIZE) {
+                        consumer.accept(chunk, row + 1 - rowInChunk, rowInChunk);
+                        rowInChunk = 0;
+                    }
+                }
+            }
+            if (harvest && rowInChunk > 0) {
+                consumer.accept(chunk, inputs.length - rowInChunk, rowInChunk);
+            }
+        }
+    }
+}
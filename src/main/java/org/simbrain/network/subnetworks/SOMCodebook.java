@@ -0,0 +1,252 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.subnetworks;
+
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The weights of a {@link SOMGroup} copied into one contiguous array, one row
+ * per SOM neuron, so that a whole training set can be run against them without
+ * touching synapses. Best-matching units for blocks of input rows are found in
+ * parallel, each block comparing its rows against one codebook row at a time
+ * while that row is in cache. Weights are written back to the synapses by
+ * {@link #writeWeights()}.
+ * <p>
+ * Neighborhoods are circles around the winner in the plane of the neurons'
+ * locations, as in {@link SOMGroup#update()}, so they follow whatever layout
+ * the group has, e.g. a hexagonal grid.
+ */
+class SOMCodebook {
+
+    /**
+     * Number of input rows per block in a parallel winner search.
+     */
+    private static final int BLOCK_SIZE = 64;
+
+    private final int numUnits;
+
+    private final int dim;
+
+    /**
+     * Weight j of unit i is at i * dim + j.
+     */
+    private final double[] weights;
+
+    /**
+     * The synapse each weight came from.
+     */
+    private final Synapse[] synapses;
+
+    private final double[] x;
+
+    private final double[] y;
+
+    /**
+     * Copy the weights from a set of input neurons to a set of SOM neurons.
+     *
+     * @param inputs the input neurons, in the order of the columns of the data
+     * @param units  the SOM neurons
+     * @throws IllegalArgumentException if a SOM neuron does not have a synapse
+     *                                  from each input
+     */
+    SOMCodebook(List<Neuron> inputs, List<Neuron> units) {
+        numUnits = units.size();
+        dim = inputs.size();
+        weights = new double[numUnits * dim];
+        synapses = new Synapse[numUnits * dim];
+        x = new double[numUnits];
+        y = new double[numUnits];
+        Map<Neuron, Integer> index = new IdentityHashMap<>();
+        for (int j = 0; j < dim; j++) {
+            index.put(inputs.get(j), j);
+        }
+        for (int i = 0; i < numUnits; i++) {
+            Neuron unit = units.get(i);
+            for (Synapse s : unit.getFanIn()) {
+                Integer j = index.get(s.getSource());
+                if (j != null) {
+                    synapses[i * dim + j] = s;
+                    weights[i * dim + j] = s.getStrength();
+                }
+            }
+            Point2D location = unit.getLocation();
+            x[i] = location.getX();
+            y[i] = location.getY();
+        }
+        for (Synapse s : synapses) {
+            if (s == null) {
+                throw new IllegalArgumentException("SOM neurons must be connected to every input");
+            }
+        }
+    }
+
+    /**
+     * Find the unit whose weights are closest to an input vector. Ties go to
+     * the first unit.
+     *
+     * @param input the input vector
+     * @return index of the winning unit
+     */
+    int findWinner(double[] input) {
+        int winner = 0;
+        double winDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < numUnits; i++) {
+            double d = distance(i, input, winDistance);
+            if (d < winDistance) {
+                winDistance = d;
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * Find the winning unit for each row of a data set, in parallel.
+     *
+     * @param data input rows
+     * @return index of the winning unit for each row
+     */
+    int[] findWinners(double[][] data) {
+        int[] winners = new int[data.length];
+        int numBlocks = (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream.range(0, numBlocks).parallel().forEach(b -> {
+            int start = b * BLOCK_SIZE;
+            int end = Math.min(start + BLOCK_SIZE, data.length);
+            double[] winDistances = new double[end - start];
+            Arrays.fill(winDistances, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < numUnits; i++) {
+                for (int r = start; r < end; r++) {
+                    double d = distance(i, data[r], winDistances[r - start]);
+                    if (d < winDistances[r - start]) {
+                        winDistances[r - start] = d;
+                        winners[r] = i;
+                    }
+                }
+            }
+        });
+        return winners;
+    }
+
+    /**
+     * Squared distance between the weights of a unit and an input vector. Stops
+     * early, returning a value at least as large as the bound, once the
+     * distance exceeds the bound.
+     */
+    private double distance(int unit, double[] input, double bound) {
+        int offset = unit * dim;
+        double sum = 0;
+        for (int j = 0; j < dim; j++) {
+            double diff = weights[offset + j] - input[j];
+            sum += diff * diff;
+            if (sum >= bound) {
+                return sum;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Whether unit i is in the neighborhood of unit j.
+     */
+    private boolean inNeighborhood(int i, int j, double neighborhoodSize) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        return Math.sqrt(dx * dx + dy * dy) <= neighborhoodSize;
+    }
+
+    /**
+     * One step of online training, as in {@link SOMGroup#update()}: move the
+     * weights of the winner and each unit in its neighborhood towards the input.
+     *
+     * @param input            the input vector
+     * @param alpha            the learning rate
+     * @param neighborhoodSize the neighborhood radius
+     * @return index of the winning unit
+     */
+    int train(double[] input, double alpha, double neighborhoodSize) {
+        int winner = findWinner(input);
+        for (int i = 0; i < numUnits; i++) {
+            if (inNeighborhood(i, winner, neighborhoodSize)) {
+                int offset = i * dim;
+                for (int j = 0; j < dim; j++) {
+                    weights[offset + j] += alpha * (input[j] - weights[offset + j]);
+                }
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * One epoch of batch training: each unit's weights are replaced by the mean
+     * of the inputs won by the units in its neighborhood. Units with no inputs
+     * won in their neighborhood are unchanged.
+     *
+     * @param data             input rows
+     * @param neighborhoodSize the neighborhood radius
+     * @return index of the winning unit for each row, before the update
+     */
+    int[] trainBatch(double[][] data, double neighborhoodSize) {
+        int[] winners = findWinners(data);
+        double[] sums = new double[numUnits * dim];
+        int[] counts = new int[numUnits];
+        for (int r = 0; r < data.length; r++) {
+            int offset = winners[r] * dim;
+            for (int j = 0; j < dim; j++) {
+                sums[offset + j] += data[r][j];
+            }
+            counts[winners[r]]++;
+        }
+        IntStream.range(0, numUnits).parallel().forEach(i -> {
+            double[] mean = new double[dim];
+            int count = 0;
+            for (int k = 0; k < numUnits; k++) {
+                if (counts[k] > 0 && inNeighborhood(i, k, neighborhoodSize)) {
+                    int offset = k * dim;
+                    for (int j = 0; j < dim; j++) {
+                        mean[j] += sums[offset + j];
+                    }
+                    count += counts[k];
+                }
+            }
+            if (count > 0) {
+                for (int j = 0; j < dim; j++) {
+                    weights[i * dim + j] = mean[j] / count;
+                }
+            }
+        });
+        return winners;
+    }
+
+    /**
+     * Copy the weights back to the synapses they came from.
+     */
+    void writeWeights() {
+        for (int k = 0; k < synapses.length; k++) {
+            synapses[k].setStrength(weights[k]);
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.simbrain.network.neuron_update_rules.LinearRule;
 import org.simbrain.network.util.SimnetUtils;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -179,7 +180,7 @@ public class SOMGroup extends NeuronGroup {
         for (Neuron n : getNeuronList()) {
             for (Synapse s : n.getFanIn()) {
                 s.setLowerBound(0);
-                s.setStrength(s.getUpperBound() * Math.random());
+                s.setStrength(s.getUpperBound() * RandomSource.uniform());
             }
         }
     }
@@ -261,14 +262,73 @@ public class SOMGroup extends NeuronGroup {
             }
         }
 
-        // Update alpha and neighborhood size
-        alpha -= alpha * alphaDecayRate;
-        if (neighborhoodSize - neighborhoodDecayAmount > 0) {
-            neighborhoodSize -= neighborhoodDecayAmount;
+        decay(1);
+        updateStateInfo();
+    }
+
+    /**
+     * Train the SOM on a data set. Weights are copied out of the synapses into a
+     * {@link SOMCodebook}, trained there and copied back once, at the end.
+     * <p>
+     * Online training presents the rows in order, with the same result as
+     * forcing each row on to the inputs and calling {@link #update()}. Batch
+     * training instead finds the winner of every row against the same weights
+     * and then sets each neuron's weights to the mean of the rows won in its
+     * neighborhood. In both cases the learning rate and neighborhood size decay
+     * once per row, and afterwards the inputs hold the last row and the
+     * activations show its winner.
+     *
+     * @param inputs the input neurons, in the order of the columns of the
+     *               data. Each SOM neuron must have a synapse from each.
+     * @param data   input rows
+     * @param batch  true for batch training, false for online training
+     */
+    public void train(List<Neuron> inputs, double[][] data, boolean batch) {
+        if (data.length == 0) {
+            return;
+        }
+        SOMCodebook codebook = new SOMCodebook(inputs, getNeuronList());
+        int lastWinner;
+        if (batch) {
+            codebook.trainBatch(data, neighborhoodSize);
+            decay(data.length);
+            lastWinner = codebook.findWinner(data[data.length - 1]);
         } else {
-            neighborhoodSize = 0;
+            lastWinner = 0;
+            for (double[] row : data) {
+                lastWinner = codebook.train(row, alpha, neighborhoodSize);
+                decay(1);
+            }
+        }
+        codebook.writeWeights();
+        double[] lastRow = data[data.length - 1];
+        for (int j = 0; j < inputs.size(); j++) {
+            inputs.get(j).forceSetActivation(lastRow[j]);
+        }
+        winner = getNeuronList().get(lastWinner);
+        for (Neuron n : getNeuronList()) {
+            n.setActivation(n == winner ? 1 : 0);
         }
+        updateStateInfo();
+    }
+
+    /**
+     * Decay the learning rate and neighborhood size.
+     *
+     * @param steps number of times to decay them
+     */
+    private void decay(int steps) {
+        for (int i = 0; i < steps; i++) {
+            alpha -= alpha * alphaDecayRate;
+            if (neighborhoodSize - neighborhoodDecayAmount > 0) {
+                neighborhoodSize -= neighborhoodDecayAmount;
+            } else {
+                neighborhoodSize = 0;
+            }
+        }
+    }
 
+    private void updateStateInfo() {
         // For box
         String stateInfo = "Learning rate (" + Utils.round(getAlpha(), 2) +
                 ") N-size (" + Utils.round(getNeighborhoodSize(), 2) + ")";
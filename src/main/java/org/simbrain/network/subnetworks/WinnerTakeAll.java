@@ -23,10 +23,10 @@ import org.simbrain.network.core.Neuron;
 import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.network.neuron_update_rules.LinearRule;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * <b>WinnerTakeAll</b>.The neuron with the highest weighted input in a
@@ -72,9 +72,9 @@ public class WinnerTakeAll extends NeuronGroup {
     // todo; conditonal on userandom
 
     /**
-     * Random number generator.
+     * Stream of random numbers for choosing random winners, see {@link RandomSource}.
      */
-    private static Random rand = new Random();
+    private transient RandomSource random = RandomSource.newStream();
 
     /**
      * Copy constructor.
@@ -106,6 +106,12 @@ public class WinnerTakeAll extends NeuronGroup {
         setLabel("Winner take all network");
     }
 
+    @Override
+    public void postUnmarshallingInit() {
+        super.postUnmarshallingInit();
+        random = RandomSource.newStream();
+    }
+
     @Override
     public WinnerTakeAll deepCopy(Network newNetwork) {
         return new WinnerTakeAll(newNetwork, this);
@@ -120,8 +126,8 @@ public class WinnerTakeAll extends NeuronGroup {
     public void update() {
         Neuron winner = getWinner();
         if (useRandom) {
-            if (Math.random() < randomProb) {
-                winner = getNeuronList().get(rand.nextInt(getNeuronList().size()));
+            if (random.nextDouble() < randomProb) {
+                winner = getNeuronList().get(random.nextInt(getNeuronList().size()));
             }
         }
         for (Neuron neuron : getNeuronList()) {
@@ -139,7 +145,7 @@ public class WinnerTakeAll extends NeuronGroup {
      * @return winning neuron
      */
     public Neuron getWinner() {
-        return getWinner(getNeuronList());
+        return getWinner(getNeuronList(), false, random);
     }
 
     /**
@@ -163,6 +169,14 @@ public class WinnerTakeAll extends NeuronGroup {
      * @return the neuron with the highest net input
      */
     public static Neuron getWinner(List<Neuron> neuronList, boolean useActivations) {
+        return getWinner(neuronList, useActivations, null);
+    }
+
+    /**
+     * Returns the winner, breaking ties with the provided stream, or with
+     * {@link RandomSource#uniform()} if it is null.
+     */
+    private static Neuron getWinner(List<Neuron> neuronList, boolean useActivations, RandomSource random) {
 
         if (neuronList.isEmpty()) {
             return null;
@@ -185,7 +199,9 @@ public class WinnerTakeAll extends NeuronGroup {
         if (winners.size() == 1) {
             return winner;
         } else {
-            return winners.get(rand.nextInt(winners.size()));
+            int index = random != null ? random.nextInt(winners.size())
+                    : (int) (RandomSource.uniform() * winners.size());
+            return winners.get(index);
         }
 
     }
@@ -6,7 +6,7 @@ import org.simbrain.util.UserParameter;
 /**
  * @author Zoë Tosi
  */
-public class ConvolvedJumpAndDecay extends SpikeResponder {
+public class ConvolvedJumpAndDecay extends SpikeResponder implements DecayingSpikeResponder {
 
     /**
      * Jump height value.
@@ -54,7 +54,7 @@ public class ConvolvedJumpAndDecay extends SpikeResponder {
     @Override
     public void update(final Synapse s) {
         value = s.getPsr();
-        if (s.getSource().isSpike()) {
+        if (s.isSourceSpike()) {
             value += jumpHeight * s.getStrength();
         } else {
             double timeStep = s.getParentNetwork().getTimeStep();
@@ -65,7 +65,7 @@ public class ConvolvedJumpAndDecay extends SpikeResponder {
 
     public void update(final Synapse s, double jump) {
         value = s.getPsr();
-        if (s.getSource().isSpike()) {
+        if (s.isSourceSpike()) {
             value += jump;
         } else {
             double timeStep = s.getParentNetwork().getTimeStep();
@@ -74,6 +74,16 @@ public class ConvolvedJumpAndDecay extends SpikeResponder {
         s.setPsr(value);
     }
 
+    @Override
+    public double getSpikeJump(Synapse s) {
+        return jumpHeight * s.getStrength();
+    }
+
+    @Override
+    public boolean isResetOnSpike() {
+        return false;
+    }
+
     @Override
     public String getDescription() {
         return "Convolved Jump and Decay";
@@ -0,0 +1,55 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.synapse_update_rules.spikeresponders;
+
+import org.simbrain.network.core.Synapse;
+
+/**
+ * A spike responder whose post-synaptic response jumps when the source neuron spikes and otherwise decays
+ * exponentially to a base line. The responses of all such synapses with the same time constant and base line onto a
+ * neuron can be summed and decayed together, so that spikes only need to be propagated when they occur (see {@link
+ * org.simbrain.network.update_actions.EventDrivenSpikeUpdate}).
+ */
+public interface DecayingSpikeResponder {
+
+    /**
+     * Returns the jump in the post-synaptic response of a synapse when its source spikes. Called once per spike, so
+     * responders with state that changes on spikes (e.g. short term plasticity) can update it here.
+     *
+     * @param s the synapse whose source spiked
+     * @return the jump in post-synaptic response
+     */
+    double getSpikeJump(Synapse s);
+
+    /**
+     * @return the value the post-synaptic response decays to
+     */
+    double getBaseLine();
+
+    /**
+     * @return the time constant of the decay (ms)
+     */
+    double getTimeConstant();
+
+    /**
+     * @return true if a spike sets the response to the jump, false if the jump is added to the current response
+     */
+    boolean isResetOnSpike();
+
+}
@@ -24,7 +24,7 @@ import org.simbrain.util.UserParameter;
 /**
  * <b>JumpAndDecay</b>.
  */
-public class JumpAndDecay extends SpikeResponder {
+public class JumpAndDecay extends SpikeResponder implements DecayingSpikeResponder {
 
     /**
      * Jump height value.
@@ -64,7 +64,7 @@ public class JumpAndDecay extends SpikeResponder {
     @Override
     public void update(final Synapse s) {
         value = s.getPsr();
-        if (s.getSource().isSpike()) {
+        if (s.isSourceSpike()) {
             value = jumpHeight * s.getStrength();
         } else {
             double timeStep = s.getParentNetwork().getTimeStep();
@@ -73,6 +73,16 @@ public class JumpAndDecay extends SpikeResponder {
         s.setPsr(value);
     }
 
+    @Override
+    public double getSpikeJump(Synapse s) {
+        return jumpHeight * s.getStrength();
+    }
+
+    @Override
+    public boolean isResetOnSpike() {
+        return true;
+    }
+
     @Override
     public String getDescription() {
         return "Jump and Decay";
@@ -29,7 +29,7 @@ public class NonResponder extends SpikeResponder {
 
     @Override
     public void update(Synapse s) {
-        s.setPsr(s.getSource().getActivation() * s.getStrength());
+        s.setPsr(s.getSourceActivation() * s.getStrength());
     }
 
     @Override
@@ -20,6 +20,7 @@ package org.simbrain.network.synapse_update_rules.spikeresponders;
 
 import org.simbrain.network.core.Synapse;
 import org.simbrain.util.UserParameter;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * <b>Probabilistic</b> spike responders produces a response with some
@@ -47,6 +48,19 @@ public class ProbabilisticResponder extends SpikeResponder {
             increment = .1, order = 1)
     private double responseValue = 1;
 
+    /**
+     * Stream of random numbers for deciding when to respond, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
+    /**
+     * Create the random stream when the responder is loaded.
+     */
+    private Object readResolve() {
+        random = RandomSource.newStream();
+        return this;
+    }
+
     @Override
     public ProbabilisticResponder deepCopy() {
         ProbabilisticResponder pr = new ProbabilisticResponder();
@@ -57,8 +71,8 @@ public class ProbabilisticResponder extends SpikeResponder {
 
     @Override
     public void update(Synapse s) {
-        if (s.getSource().isSpike()) {
-            if (Math.random() > (1 - activationProbability)) {
+        if (s.isSourceSpike()) {
+            if (random.nextDouble() > (1 - activationProbability)) {
                 value = responseValue * s.getStrength();
             } else {
                 value = 0;
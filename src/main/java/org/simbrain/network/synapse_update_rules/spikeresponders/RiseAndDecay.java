@@ -45,6 +45,11 @@ public class RiseAndDecay extends SpikeResponder {
      */
     private double recovery;
 
+    /**
+     * Recovery and response below this are treated as at rest.
+     */
+    private static final double REST_THRESHOLD = 1E-9;
+
     @Override
     public RiseAndDecay deepCopy() {
         RiseAndDecay rad = new RiseAndDecay();
@@ -56,7 +61,7 @@ public class RiseAndDecay extends SpikeResponder {
     @Override
     public void update(Synapse s) {
         double timeStep = s.getParentNetwork().getTimeStep();
-        if (s.getSource().isSpike()) {
+        if (s.isSourceSpike()) {
             recovery = 1;
         }
 
@@ -67,6 +72,11 @@ public class RiseAndDecay extends SpikeResponder {
 
     }
 
+    @Override
+    public boolean isAtRest(Synapse s) {
+        return recovery < REST_THRESHOLD && Math.abs(value) < REST_THRESHOLD;
+    }
+
     @Override
     public String getDescription() {
         return "Rise and Decay";
@@ -99,6 +99,18 @@ public abstract class SpikeResponder implements CopyableObject {
         return srList;
     }
 
+    /**
+     * Returns true if the response of a synapse has settled and won't change again until its source spikes. Used by
+     * {@link org.simbrain.network.update_actions.EventDrivenSpikeUpdate} to stop updating synapses which are not
+     * doing anything. Override for responders which settle; the default (false) means the synapse is always updated.
+     *
+     * @param s the synapse this responder belongs to
+     * @return true if the response is at rest
+     */
+    public boolean isAtRest(Synapse s) {
+        return false;
+    }
+
     public double getValue() {
         return value;
     }
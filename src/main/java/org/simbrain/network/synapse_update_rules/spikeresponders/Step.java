@@ -49,7 +49,7 @@ public class Step extends SpikeResponder {
 
     @Override
     public void update(Synapse s) {
-        if (s.getSource().isSpike()) {
+        if (s.isSourceSpike()) {
             timer = responseDuration;
             value = responseHeight * s.getStrength();
         } else {
@@ -91,6 +91,11 @@ public class Step extends SpikeResponder {
         this.responseDuration = responseDuration;
     }
 
+    @Override
+    public boolean isAtRest(Synapse s) {
+        return timer <= 0;
+    }
+
     @Override
     public String getDescription() {
         return "Step";
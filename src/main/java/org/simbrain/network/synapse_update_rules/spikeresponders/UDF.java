@@ -32,7 +32,7 @@ import org.simbrain.util.math.ProbDistributions.NormalDistribution;
  *
  * @author Zoë Tosi
  */
-public class UDF extends SpikeResponder {
+public class UDF extends SpikeResponder implements DecayingSpikeResponder {
     //TODO: Make this like a real thing... where you can set parameters instead of it doing it automatically, but giving the illusion of control
     /**
      * Use constant.
@@ -107,22 +107,49 @@ public class UDF extends SpikeResponder {
 
     @Override
     public void update(Synapse s) {
+        if (s.isSourceSpike()) {
+            spikeDecay.update(s, getSpikeJump(s));
+        } else {
+            initIfNeeded(s);
+            spikeDecay.update(s);
+        }
+    }
+
+    /**
+     * Updates the use and depression variables based on the time since the last spike, and returns the resulting
+     * jump in post-synaptic response.
+     */
+    @Override
+    public double getSpikeJump(Synapse s) {
+        initIfNeeded(s);
+        final double ISI = lastSpikeTime - s.getNetwork().getTime();
+        u = U + (u * (1 - U) * Math.exp(ISI / F));
+        R = 1 + ((R - (u * R) - 1) * Math.exp(ISI / D));
+        lastSpikeTime = s.getNetwork().getTime();
+        return R * s.getStrength() * u;
+    }
+
+    @Override
+    public double getBaseLine() {
+        return spikeDecay.getBaseLine();
+    }
+
+    @Override
+    public double getTimeConstant() {
+        return spikeDecay.getTimeConstant();
+    }
+
+    @Override
+    public boolean isResetOnSpike() {
+        return false;
+    }
+
+    private void initIfNeeded(Synapse s) {
         if (firstTime) {
             init(s);
             spikeDecay.setTimeConstant(tau);
             firstTime = false;
         }
-        final double A;
-        if (s.getSource().isSpike()) {
-            final double ISI = lastSpikeTime - s.getNetwork().getTime();
-            u = U + (u * (1 - U) * Math.exp(ISI / F));
-            R = 1 + ((R - (u * R) - 1) * Math.exp(ISI / D));
-            A = R * s.getStrength() * u;
-            lastSpikeTime = s.getNetwork().getTime();
-            spikeDecay.update(s, A);
-        } else {
-            spikeDecay.update(s);
-        }
     }
 
     @Override
@@ -21,6 +21,7 @@ package org.simbrain.network.trainers;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.simbrain.network.core.Neuron;
+import org.simbrain.network.dl4j.NeuronArray;
 import org.simbrain.network.dl4j.WeightMatrix;
 import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.network.neuron_update_rules.TransferFunction;
@@ -28,16 +29,23 @@ import org.simbrain.network.neuron_update_rules.interfaces.BiasedUpdateRule;
 import org.simbrain.network.subnetworks.BackpropNetwork;
 import org.simbrain.util.UserParameter;
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.nd4j.linalg.indexing.NDArrayIndex.all;
+import static org.nd4j.linalg.indexing.NDArrayIndex.interval;
 
 /**
  * Array-backed backprop. To be supplanted by new nd4j objects, but still allows backprop with "loose" neurons and old
- * style neuron groups, which has some pedagogical purpose.
+ * style neuron groups, which has some pedagogical purpose. Networks built from neuron arrays are also supported, in
+ * which case the arrays' activation functions are used.
  * <p>
+ * Each training step pushes a batch of rows through the network as one matrix (rows x inputs), so the forward and
+ * backward passes are matrix-matrix products. The gradients of the batch are averaged before the weights are updated.
+ * A batch can be split across several threads, each of which computes the gradients for its share of the rows.
  *
  * @author Zoë Tosi
  * @author Jeff Yoshimi
@@ -70,55 +78,45 @@ public class BackpropTrainer extends IterableTrainer {
     private List<INDArray> lastBiasUpdates = new ArrayList<>();
 
     /**
-     * Activation vectors.
+     * Activations of each layer (after the input layer) for the last row trained on.
      */
     private List<INDArray> activations = new ArrayList<>();
 
     /**
-     * Reference to neuron groups.
+     * Reference to neuron groups, if the network is made of neuron groups.
      */
     private List<NeuronGroup> neuronGroups = new ArrayList<NeuronGroup>();
 
     /**
-     * Net inputs.
+     * Reference to neuron arrays, if the network is made of neuron arrays.
      */
-    private List<INDArray> netInputs = new ArrayList<>();
-
-    /**
-     * Biases.
-     */
-    private List<INDArray> biases = new ArrayList<>();
+    private List<NeuronArray> neuronArrays = new ArrayList<>();
 
     /**
-     * Errors for a single input row.
+     * Net inputs of each layer for the last row trained on.
      */
-    private INDArray errors;
+    private List<INDArray> netInputs = new ArrayList<>();
 
     /**
-     * Aggregate errors for a batch of input rows.
+     * Biases.
      */
-    private INDArray batchErrors;
+    private List<INDArray> biases = new ArrayList<>();
 
     /**
-     * Deltas on on the neurons of the network (error times derivative).
+     * Deltas on on the neurons of the network (error times derivative) for the last row trained on.
      */
     private List<INDArray> deltas = new ArrayList<INDArray>();
 
     /**
-     * Holder for derivatives.
+     * Derivatives for the last row trained on.
      */
     private List<INDArray> derivs = new ArrayList<INDArray>();
 
     /**
-     * Input layer. Holds current input vector from input dataset. Separate for simpler indexing on other lists.
+     * Input layer. Holds the last input vector trained on. Separate for simpler indexing on other lists.
      */
     private INDArray inputLayer;
 
-    /**
-     * Current target vector.
-     */
-    private INDArray targetVector;
-
     /**
      * Inputs.
      */
@@ -152,6 +150,10 @@ public class BackpropTrainer extends IterableTrainer {
             public String toString() {
                 return "Epoch (whole dataset per iteration)";
             }
+        }, MINI_BATCH {
+            public String toString() {
+                return "Mini-batch (batch of rows per iteration)";
+            }
         }, STOCHASTIC {
             public String toString() {
                 return "Stochastic (random row per iteration)";
@@ -162,7 +164,42 @@ public class BackpropTrainer extends IterableTrainer {
             }
         }
     }
-    // TODO: Mini-batch
+
+    /**
+     * Number of rows per iteration when using mini-batches.
+     */
+    @UserParameter(label = "Batch Size", description = "Number of rows per iteration in mini-batch mode",
+            minimumValue = 1, order = 20)
+    private int batchSize = 32;
+
+    /**
+     * If true the rows are visited in a new random order each epoch in mini-batch mode.
+     */
+    @UserParameter(label = "Shuffle", description = "Visit the rows in a random order each epoch (mini-batch mode)",
+            order = 30)
+    private boolean shuffle = true;
+
+    /**
+     * Number of threads a batch is split across.
+     */
+    @UserParameter(label = "Threads", description = "Number of threads a batch is split across", minimumValue = 1,
+            order = 40)
+    private int numThreads = 1;
+
+    /**
+     * Order in which rows are visited in mini-batch mode.
+     */
+    private transient int[] rowOrder;
+
+    /**
+     * Position in {@link #rowOrder} of the next mini-batch.
+     */
+    private transient int batchStart;
+
+    /**
+     * Stream of random numbers for choosing and shuffling rows, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
 
     /**
      * Momentum. Must be between 0 and 1.
@@ -198,192 +235,247 @@ public class BackpropTrainer extends IterableTrainer {
         }
 
         // Initialize layers
-        int ii = 0;
-        for (NeuronGroup neuronGroup : net.getNeuronGroupList()) {
-            if (ii > 0) {
-                activations.add(Nd4j.zeros(1,neuronGroup.size()));
-                netInputs.add(Nd4j.zeros(1,neuronGroup.size()));
-                deltas.add(Nd4j.zeros(1,neuronGroup.size()));
-                INDArray bs = Nd4j
-                        .create(Utils.castToFloat(neuronGroup.getBiases()))
-                        .reshape(1, neuronGroup.getBiases().length);
-                biases.add(bs);
-                lastBiasUpdates.add(Nd4j.zeros(bs.rows(), bs.columns()));
-                updateRules.add((TransferFunction) neuronGroup.getNeuronList().get(0).getUpdateRule());
-                neuronGroups.add(neuronGroup);
-                derivs.add(Nd4j.zeros(1,neuronGroup.size()));
-            } else {
-                inputLayer = Nd4j.zeros(1,neuronGroup.size());
+        if (net.isUseNeuronArrays()) {
+            for (int ii = 0; ii < net.getNAList().size(); ii++) {
+                NeuronArray na = net.getNAList().get(ii);
+                if (ii > 0) {
+                    initLayer(na.getNumNodes(), na.getBiases(), na);
+                    neuronArrays.add(na);
+                } else {
+                    inputLayer = Nd4j.zeros(1, na.getNumNodes());
+                }
+            }
+        } else {
+            int ii = 0;
+            for (NeuronGroup neuronGroup : net.getNeuronGroupList()) {
+                if (ii > 0) {
+                    initLayer(neuronGroup.size(), neuronGroup.getBiases(),
+                            (TransferFunction) neuronGroup.getNeuronList().get(0).getUpdateRule());
+                    neuronGroups.add(neuronGroup);
+                } else {
+                    inputLayer = Nd4j.zeros(1, neuronGroup.size());
+                }
+                ii++;
             }
-            ii++;
         }
-        errors = Nd4j.zeros(1, getOutputLayer().length());
-        batchErrors = Nd4j.zeros(1, getOutputLayer().length());
         setLearningRate(DEFAULT_LEARNING_RATE);
         setMomentum(DEFAULT_MOMENTUM);
     }
 
+    /**
+     * Set up the arrays for one layer after the input layer.
+     */
+    private void initLayer(int size, double[] layerBiases, TransferFunction rule) {
+        activations.add(Nd4j.zeros(1, size));
+        netInputs.add(Nd4j.zeros(1, size));
+        deltas.add(Nd4j.zeros(1, size));
+        derivs.add(Nd4j.zeros(1, size));
+        INDArray bs = Nd4j.create(Utils.castToFloat(layerBiases)).reshape(1, size);
+        biases.add(bs);
+        lastBiasUpdates.add(Nd4j.zeros(bs.rows(), bs.columns()));
+        updateRules.add(rule);
+    }
+
     @Override
     public void apply() {
+        if (inputData == null || targetData == null) {
+            initData();
+        }
         // Apply one training step according to the currently selected update method
         mse = 0;
         int numTrainingExamples = getMinimumNumRows();
         if (updateMethod == UpdateMethod.EPOCH) {
-            mse = trainRows(0, numTrainingExamples);
+            mse = trainRows(IntStream.range(0, numTrainingExamples).toArray());
+        } else if (updateMethod == UpdateMethod.MINI_BATCH) {
+            mse = trainRows(nextBatch(numTrainingExamples));
         } else if (updateMethod == UpdateMethod.STOCHASTIC) {
-            int rowNum = ThreadLocalRandom.current().nextInt(numTrainingExamples);
-            mse = trainRow(rowNum);
+            int rowNum = getRandom().nextInt(numTrainingExamples);
+            mse = trainRows(new int[]{rowNum});
         } else if (updateMethod == UpdateMethod.SINGLE) {
-            mse = trainRow(getIteration() % numTrainingExamples);
+            mse = trainRows(new int[]{getIteration() % numTrainingExamples});
         }
         incrementIteration();
         getEvents().fireErrorUpdated();
     }
 
     /**
-     * Backpropagate error on a single row of the dataset.
-     *
-     * @param row Which row of the dataset to use for this update.
-     * @return mean squared error of the row
-     */
-    private double trainRow(int row) {
-        batchErrors.muli(0);
-        // Get the inputs and feed them forward
-        inputLayer = inputData.getRow(row, true);
-        updateNetwork();
-        // Backpropagate error
-        targetVector = targetData.getRow(row, true);
-        targetVector.subi(getOutputLayer(), errors);
-        batchErrors.addi(errors);
-        backpropagateError();
-        // Update weights and biases
-        updateParameters();
-        // Return the MSE for the row
-        return (double) batchErrors.mul(batchErrors).sumNumber() /net.getOutputNeurons().size();
-    }
-
-    /**
-     * Backpropagate errors for all rows in the dataset.
-     *
-     * @return mean squared error
-     */
-    private double trainRows(int firstRow, int lastRow) {
-        // Get inputs and feed them forward row-by-row
-        batchErrors.muli(0);
-        for (int row = firstRow; row < lastRow; row++) {
-
-            // Get the inputs and feed them forward
-            inputLayer = inputData.getRow(row, true);
-            updateNetwork();
-            targetVector = targetData.getRow(row, true);
-            targetVector.subi(getOutputLayer(), errors);
-
-            // Calculate batch errors
-            batchErrors.addi(errors);
-            System.out.println(batchErrors);
+     * Returns the stream rows are chosen and shuffled with.
+     */
+    private RandomSource getRandom() {
+        if (random == null) {
+            random = RandomSource.newStream();
         }
-        batchErrors.divi(lastRow - firstRow);
-        // Back propagate batch errors
-        backpropagateError();
-        // Update weights and biases
-        updateParameters();
-        // Return the MSE for the batch
-        return (double) batchErrors.mul(batchErrors).sumNumber() / net.getOutputNeurons().size();
+        return random;
     }
 
     /**
-     * Update the array-based "shadow" network.
+     * Returns the rows of the next mini-batch. A new (possibly shuffled) order is started at the beginning of each
+     * epoch, and the last batch of an epoch may be smaller than the batch size.
      */
-    private void updateNetwork() {
-
-        for (int i = 0; i < net.getWeightMatrixList().size(); i++) {
-
-            // Set up variables for easy reading
-            INDArray netInput = netInputs.get(i);
-            INDArray biasVec = biases.get(i);
-            INDArray weights = net.getWeightMatrixList().get(i).getWeightMatrix();
-
-            // Set inputs
-            INDArray inputs;
-            if (i == 0) {
-                inputs = inputLayer;
-            } else {
-                inputs = activations.get(i - 1);
+    private int[] nextBatch(int numRows) {
+        if (rowOrder == null || rowOrder.length != numRows || batchStart >= numRows) {
+            if (rowOrder == null || rowOrder.length != numRows) {
+                rowOrder = IntStream.range(0, numRows).toArray();
+            }
+            if (shuffle) {
+                RandomSource random = getRandom();
+                for (int i = numRows - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int temp = rowOrder[i];
+                    rowOrder[i] = rowOrder[j];
+                    rowOrder[j] = temp;
+                }
             }
+            batchStart = 0;
+        }
+        int end = Math.min(numRows, batchStart + batchSize);
+        int[] rows = new int[end - batchStart];
+        System.arraycopy(rowOrder, batchStart, rows, 0, rows.length);
+        batchStart = end;
+        return rows;
+    }
 
-            // Multiply weight matrix times inputs and store in next layer netInput
-            inputs.mmuli(weights, netInput);
+    /**
+     * Backpropagate error on a batch of rows of the dataset and update the weights and biases using the averaged
+     * gradient.
+     *
+     * @param rows which rows of the dataset to use for this update
+     * @return mean squared error of the rows
+     */
+    private double trainRows(int[] rows) {
+        INDArray inputs = inputData.getRows(rows);
+        INDArray targets = targetData.getRows(rows);
+
+        List<INDArray> weightGradients = new ArrayList<>();
+        List<INDArray> biasGradients = new ArrayList<>();
+        initGradients(weightGradients, biasGradients);
+
+        double sumSquaredError;
+        int threads = Math.min(numThreads, rows.length);
+        if (threads <= 1) {
+            sumSquaredError = accumulateGradients(inputs, targets, weightGradients, biasGradients, true);
+        } else {
+            // Split the rows into one block per thread, each with its own gradients, then sum the gradients
+            double[] blockErrors = new double[threads];
+            List<List<INDArray>> blockWeightGradients = new ArrayList<>();
+            List<List<INDArray>> blockBiasGradients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                blockWeightGradients.add(new ArrayList<>());
+                blockBiasGradients.add(new ArrayList<>());
+                initGradients(blockWeightGradients.get(t), blockBiasGradients.get(t));
+            }
+            IntStream.range(0, threads).parallel().forEach(t -> {
+                long start = (long) rows.length * t / threads;
+                long end = (long) rows.length * (t + 1) / threads;
+                INDArray blockInputs = inputs.get(interval(start, end), all());
+                INDArray blockTargets = targets.get(interval(start, end), all());
+                blockErrors[t] = accumulateGradients(blockInputs, blockTargets, blockWeightGradients.get(t),
+                        blockBiasGradients.get(t), t == threads - 1);
+            });
+            sumSquaredError = 0;
+            for (int t = 0; t < threads; t++) {
+                sumSquaredError += blockErrors[t];
+                for (int i = 0; i < weightGradients.size(); i++) {
+                    weightGradients.get(i).addi(blockWeightGradients.get(t).get(i));
+                    biasGradients.get(i).addi(blockBiasGradients.get(t).get(i));
+                }
+            }
+        }
 
-            // Add biases to the net input
-            netInput.addi(biasVec);
+        updateParameters(weightGradients, biasGradients, rows.length);
+        return sumSquaredError / rows.length / getOutputLayer().length();
+    }
 
-            // Apply the transfer function to net input to get the activation values for the next layer and store
-            // that value in the activations vector, also calculate derivatives.
-            updateRules.get(i).applyFunctionAndDerivative(netInput, activations.get(i), derivs.get(i));
+    /**
+     * Add zeroed gradient arrays, one per weight matrix and bias vector.
+     */
+    private void initGradients(List<INDArray> weightGradients, List<INDArray> biasGradients) {
+        for (int i = 0; i < net.getWeightMatrixList().size(); i++) {
+            INDArray weights = net.getWeightMatrixList().get(i).getWeightMatrix();
+            weightGradients.add(Nd4j.zeros(weights.rows(), weights.columns()));
+            biasGradients.add(Nd4j.zeros(1, biases.get(i).length()));
         }
     }
 
     /**
-     * Set error values using backprop (roughly output errors times intervening weights, going "backwards" from output
-     * towards input).
-     */
-    private void backpropagateError() {
-        int maxLayerIndex = activations.size() - 1;
+     * Feed a block of rows forward through the network and backpropagate their errors, adding the summed gradients
+     * of the weights and biases to the provided arrays. Does not change the network, so blocks can be processed in
+     * parallel.
+     *
+     * @param inputs          input rows (rows x inputs)
+     * @param targets         target rows (rows x outputs)
+     * @param weightGradients summed weight gradients, one per weight matrix
+     * @param biasGradients   summed bias gradients, one per layer
+     * @param record          if true, save the values for the last row for display and commitChanges
+     * @return the sum of the squared errors of the rows
+     */
+    private double accumulateGradients(INDArray inputs, INDArray targets, List<INDArray> weightGradients,
+                                       List<INDArray> biasGradients, boolean record) {
+        int numLayers = net.getWeightMatrixList().size();
+        INDArray[] layerNetInputs = new INDArray[numLayers];
+        INDArray[] layerActivations = new INDArray[numLayers];
+        INDArray[] layerDerivs = new INDArray[numLayers];
+
+        // Forward pass: one matrix product per layer for all rows
+        INDArray layerInput = inputs;
+        for (int i = 0; i < numLayers; i++) {
+            INDArray weights = net.getWeightMatrixList().get(i).getWeightMatrix();
+            layerNetInputs[i] = layerInput.mmul(weights).addiRowVector(biases.get(i));
+            layerActivations[i] = Nd4j.createUninitialized(layerNetInputs[i].shape());
+            layerDerivs[i] = Nd4j.createUninitialized(layerNetInputs[i].shape());
+            updateRules.get(i).applyFunctionAndDerivative(layerNetInputs[i], layerActivations[i], layerDerivs[i]);
+            layerInput = layerActivations[i];
+        }
 
-        // Calculate output deltas from error and derivative
-        batchErrors.muli(derivs.get(maxLayerIndex), deltas.get(maxLayerIndex));
-        INDArray wts = net.getWeightMatrixList().get(maxLayerIndex).getWeightMatrix();
-        deltas.get(maxLayerIndex).mmuli(wts.transpose(),deltas.get(maxLayerIndex - 1));
+        INDArray errors = targets.sub(layerActivations[numLayers - 1]);
+        double sumSquaredError = errors.mul(errors).sumNumber().doubleValue();
+
+        // Backward pass
+        INDArray[] layerDeltas = new INDArray[numLayers];
+        layerDeltas[numLayers - 1] = errors.muli(layerDerivs[numLayers - 1]);
+        for (int i = numLayers - 1; i >= 0; i--) {
+            INDArray prevLayer = i == 0 ? inputs : layerActivations[i - 1];
+            weightGradients.get(i).addi(prevLayer.transpose().mmul(layerDeltas[i]));
+            biasGradients.get(i).addi(layerDeltas[i].sum(0).reshape(1, layerDeltas[i].columns()));
+            if (i > 0) {
+                INDArray weights = net.getWeightMatrixList().get(i).getWeightMatrix();
+                layerDeltas[i - 1] = layerDeltas[i].mmul(weights.transpose()).muli(layerDerivs[i - 1]);
+            }
+        }
 
-        // Deltas for 2nd to last layer
-        deltas.get(maxLayerIndex - 1).muli(derivs.get(maxLayerIndex - 1));
-        // For multiple hidden layers
-        for (int layerIndex = maxLayerIndex - 1; layerIndex > 0; layerIndex--) {
-            wts = net.getWeightMatrixList().get(layerIndex).getWeightMatrix();
-            deltas.get(layerIndex).mmuli(wts.transpose(),deltas.get(layerIndex - 1));
-            deltas.get(layerIndex - 1).muli(derivs.get(layerIndex - 1));
+        if (record) {
+            int last = inputs.rows() - 1;
+            inputLayer = inputs.getRow(last, true).dup();
+            for (int i = 0; i < numLayers; i++) {
+                netInputs.set(i, layerNetInputs[i].getRow(last, true).dup());
+                activations.set(i, layerActivations[i].getRow(last, true).dup());
+                derivs.set(i, layerDerivs[i].getRow(last, true).dup());
+                deltas.set(i, layerDeltas[i].getRow(last, true).dup());
+            }
         }
+        return sumSquaredError;
     }
 
     /**
-     * Apply weight and bias updates.
+     * Apply weight and bias updates from summed gradients.
+     *
+     * @param weightGradients summed weight gradients
+     * @param biasGradients   summed bias gradients
+     * @param numRows         number of rows the gradients were summed over
      */
-    private void updateParameters() {
-        int layerIndex = 0;
-        for (WeightMatrix weightMatrix : net.getWeightMatrixList()) {
-            INDArray wm = weightMatrix.getWeightMatrix();
-            INDArray prevLayer;
-            INDArray lastDeltas = lastWeightUpdates.get(layerIndex);
-            INDArray lastBiasDeltas = lastBiasUpdates.get(layerIndex);
+    private void updateParameters(List<INDArray> weightGradients, List<INDArray> biasGradients, int numRows) {
+        double rate = learningRate / numRows;
+        for (int i = 0; i < net.getWeightMatrixList().size(); i++) {
+            WeightMatrix weightMatrix = net.getWeightMatrixList().get(i);
+            INDArray lastDeltas = lastWeightUpdates.get(i);
+            lastDeltas.muli(momentum).addi(weightGradients.get(i).muli(rate));
+            weightMatrix.getWeightMatrix().addi(lastDeltas);
+
+            INDArray lastBiasDeltas = lastBiasUpdates.get(i);
+            lastBiasDeltas.muli(momentum).addi(biasGradients.get(i).muli(rate));
+            biases.get(i).addi(lastBiasDeltas);
 
-            if (layerIndex == 0) {
-                prevLayer = inputLayer;
-            } else {
-                prevLayer = activations.get(layerIndex - 1);
-            }
-            INDArray biasVector = biases.get(layerIndex);
-            INDArray currentLayer = activations.get(layerIndex);
-
-            // Update weights, traversing along weight matrix in column-major order
-            int kk = 0;
-            for (int ii = 0; ii < prevLayer.length(); ii++) {
-                for (int jj = 0; jj < currentLayer.length(); jj++) {
-                    float deltaVal =
-                            (float) (learningRate * deltas.get(layerIndex).getDouble(jj) * prevLayer.getDouble(ii) + (momentum * lastDeltas.getDouble(kk)));
-                    wm.putScalar(kk, wm.getDouble(kk) + deltaVal);
-                    lastDeltas.putScalar(kk, deltaVal);
-                    kk++;
-                }
-            }
-            // Update biases
-            for (int ii = 0; ii < biasVector.length(); ii++) {
-                float deltaVal =
-                        (float) (learningRate * deltas.get(layerIndex).getDouble(ii) + (momentum * lastBiasDeltas.getDouble(ii)));
-                biasVector.putScalar(ii, biasVector.getDouble(ii) + deltaVal);
-                lastBiasDeltas.putScalar(ii, deltaVal);
-            }
             weightMatrix.getEvents().fireUpdated();
-            layerIndex++;
         }
     }
 
@@ -407,15 +499,14 @@ public class BackpropTrainer extends IterableTrainer {
         // TODO: Move randomization of ndarrays to utility method
         for (int kk = 0; kk < biases.size(); ++kk) {
             for (int ii = 0; ii < biases.get(kk).length(); ii++) {
-                biases.get(kk).putScalar(ii, (Math.random() * 0.1) - 0.05);
+                biases.get(kk).putScalar(ii, (RandomSource.uniform() * 0.1) - 0.05);
             }
         }
     }
 
-    // TODO
     @Override
     protected TrainingSet getTrainingSet() {
-        return null;
+        return net.getTrainingSet();
     }
 
     /**
@@ -457,7 +548,11 @@ public class BackpropTrainer extends IterableTrainer {
 
     @Override
     public void commitChanges() {
-        for (int ii = 0; ii < activations.size(); ++ii) {
+        for (int ii = 0; ii < neuronArrays.size(); ++ii) {
+            neuronArrays.get(ii).setValues(activations.get(ii).toDoubleVector());
+            neuronArrays.get(ii).setBiases(biases.get(ii).toDoubleVector());
+        }
+        for (int ii = 0; ii < neuronGroups.size(); ++ii) {
             for (int jj = 0; jj < neuronGroups.get(ii).size(); ++jj) {
                 neuronGroups.get(ii).getNeuron(jj).forceSetActivation(activations.get(ii).getDouble(jj));
                 ((BiasedUpdateRule) neuronGroups.get(ii).getNeuron(jj).getUpdateRule()).setBias(biases.get(ii).getDouble(jj));
@@ -468,15 +563,23 @@ public class BackpropTrainer extends IterableTrainer {
     /**
      * Initialize input and target datasets ND4J matrices.
      */
+    @Override
     public void initData() {
-        // TODO
-        // // Store data as columns since that's what everything else deals with so there is no need to transpose later.
-        // if (network.getTrainingSet().getInputData() != null) {
-        //     inputData = Nd4j.create(Utils.castToFloat(network.getTrainingSet().getInputData()));
-        // }
-        // if (network.getTrainingSet().getTargetData() != null) {
-        //     targetData = Nd4j.create(Utils.castToFloat(network.getTrainingSet().getTargetData()));
-        // }
+        if (net.getTrainingSet().getInputData() != null) {
+            inputData = Nd4j.create(toFloatMatrix(net.getTrainingSet().getInputData()));
+        }
+        if (net.getTrainingSet().getTargetData() != null) {
+            targetData = Nd4j.create(toFloatMatrix(net.getTrainingSet().getTargetData()));
+        }
+        rowOrder = null;
+    }
+
+    private static float[][] toFloatMatrix(double[][] data) {
+        float[][] ret = new float[data.length][];
+        for (int i = 0; i < data.length; i++) {
+            ret[i] = Utils.castToFloat(data[i]);
+        }
+        return ret;
     }
 
     public double getLearningRate() {
@@ -499,6 +602,36 @@ public class BackpropTrainer extends IterableTrainer {
         this.updateMethod = updateMethod;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Set the number of threads each batch is split across. Each thread computes the gradients for its share of the
+     * rows and the gradients are summed before the weights are updated.
+     *
+     * @param numThreads number of threads
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
     public BackpropNetwork getNetwork() {
         return net;
     }
@@ -24,6 +24,7 @@ import org.simbrain.network.core.Synapse;
 import org.simbrain.network.dl4j.WeightMatrix;
 import org.simbrain.network.neuron_update_rules.interfaces.BiasedUpdateRule;
 import org.simbrain.network.subnetworks.LMSNetwork;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.List;
 
@@ -84,7 +85,7 @@ public class LMSIterative extends IterableTrainer {
         for (Neuron neuron : outputs) {
             neuron.clear(); // Cleared output nodes look nicer in the GUI
             if (neuron.getUpdateRule() instanceof BiasedUpdateRule) {
-                ((BiasedUpdateRule) neuron.getUpdateRule()).setBias(Math.random());
+                ((BiasedUpdateRule) neuron.getUpdateRule()).setBias(RandomSource.uniform());
             }
         }
         // network.getWeightMatrixList().forEach(WeightMatrix::randomize);
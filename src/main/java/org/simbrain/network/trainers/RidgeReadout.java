@@ -0,0 +1,177 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.trainers;
+
+import Jama.CholeskyDecomposition;
+import Jama.Matrix;
+
+/**
+ * Streaming ridge regression for linear readouts. Rather than holding the whole
+ * state matrix S in memory and inverting or pseudo-inverting it, as {@link
+ * LMSOffline} does, rows of states and targets are accumulated a chunk at a
+ * time into the correlation matrix S'S and the cross-correlation matrix S'D,
+ * whose sizes do not depend on the number of samples. The readout weights are
+ * then the solution of (S'S + &lambda;I) W = S'D, found by Cholesky
+ * decomposition.
+ * <p>
+ * Readouts accumulated separately, e.g. from independent sequences harvested
+ * on different threads, can be combined with {@link #merge(RidgeReadout)}.
+ */
+public class RidgeReadout {
+
+    /**
+     * Number of state variables, i.e. columns of the state matrix.
+     */
+    private final int numStates;
+
+    /**
+     * Number of outputs, i.e. columns of the target matrix.
+     */
+    private final int numOutputs;
+
+    /**
+     * Upper triangle of S'S. The lower triangle is filled in when solving.
+     */
+    private final double[][] stateCorrelation;
+
+    /**
+     * S'D.
+     */
+    private final double[][] crossCorrelation;
+
+    /**
+     * Number of rows accumulated so far.
+     */
+    private long numSamples;
+
+    /**
+     * Construct an empty readout.
+     *
+     * @param numStates  number of state variables
+     * @param numOutputs number of outputs
+     */
+    public RidgeReadout(int numStates, int numOutputs) {
+        this.numStates = numStates;
+        this.numOutputs = numOutputs;
+        stateCorrelation = new double[numStates][numStates];
+        crossCorrelation = new double[numStates][numOutputs];
+    }
+
+    /**
+     * Add rows of states and their targets to the correlation matrices.
+     *
+     * @param states  state rows, each of length {@link #getNumStates()}
+     * @param targets target rows, each of length {@link #getNumOutputs()}
+     * @param rows    number of rows of states and targets to use, starting at
+     *                the first row
+     */
+    public void accumulate(double[][] states, double[][] targets, int rows) {
+        for (int r = 0; r < rows; r++) {
+            double[] s = states[r];
+            double[] d = targets[r];
+            for (int i = 0; i < numStates; i++) {
+                double si = s[i];
+                if (si == 0) {
+                    continue;
+                }
+                double[] corrRow = stateCorrelation[i];
+                for (int j = i; j < numStates; j++) {
+                    corrRow[j] += si * s[j];
+                }
+                double[] crossRow = crossCorrelation[i];
+                for (int k = 0; k < numOutputs; k++) {
+                    crossRow[k] += si * d[k];
+                }
+            }
+        }
+        numSamples += rows;
+    }
+
+    /**
+     * Add all rows of states and their targets to the correlation matrices.
+     *
+     * @param states  state rows
+     * @param targets target rows
+     */
+    public void accumulate(double[][] states, double[][] targets) {
+        if (states.length != targets.length) {
+            throw new IllegalArgumentException("States and targets must have the same number of rows");
+        }
+        accumulate(states, targets, states.length);
+    }
+
+    /**
+     * Add the samples accumulated by another readout to this one.
+     *
+     * @param other a readout of the same dimensions
+     */
+    public void merge(RidgeReadout other) {
+        if (other.numStates != numStates || other.numOutputs != numOutputs) {
+            throw new IllegalArgumentException("Readout dimensions do not match");
+        }
+        for (int i = 0; i < numStates; i++) {
+            for (int j = i; j < numStates; j++) {
+                stateCorrelation[i][j] += other.stateCorrelation[i][j];
+            }
+            for (int k = 0; k < numOutputs; k++) {
+                crossCorrelation[i][k] += other.crossCorrelation[i][k];
+            }
+        }
+        numSamples += other.numSamples;
+    }
+
+    /**
+     * Solve for the readout weights.
+     *
+     * @param regularization the ridge parameter &lambda; added to the diagonal
+     *                       of S'S. Zero gives the ordinary least squares
+     *                       solution, which fails if S'S is singular.
+     * @return the weights, with one row per state variable and one column per
+     * output, as expected by {@link org.simbrain.network.util.SimnetUtils#setWeights}
+     * @throws IllegalStateException if the regularized correlation matrix is
+     *                               not positive definite
+     */
+    public double[][] solve(double regularization) {
+        Matrix a = new Matrix(numStates, numStates);
+        for (int i = 0; i < numStates; i++) {
+            for (int j = i; j < numStates; j++) {
+                a.set(i, j, stateCorrelation[i][j]);
+                a.set(j, i, stateCorrelation[i][j]);
+            }
+            a.set(i, i, stateCorrelation[i][i] + regularization);
+        }
+        CholeskyDecomposition chol = a.chol();
+        if (!chol.isSPD()) {
+            throw new IllegalStateException("State correlation matrix is singular. Increase the regularization.");
+        }
+        return chol.solve(new Matrix(crossCorrelation, numStates, numOutputs)).getArray();
+    }
+
+    public int getNumStates() {
+        return numStates;
+    }
+
+    public int getNumOutputs() {
+        return numOutputs;
+    }
+
+    public long getNumSamples() {
+        return numSamples;
+    }
+}
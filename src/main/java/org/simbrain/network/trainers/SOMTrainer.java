@@ -46,6 +46,11 @@ public class SOMTrainer extends Trainer {
      */
     private int iteration = 0;
 
+    /**
+     * If true, each epoch is one batch update rather than an update per row.
+     */
+    private boolean batch;
+
     /**
      * Construct the UnsupervisedNeuronGroupTrainer trainer.
      *
@@ -65,12 +70,7 @@ public class SOMTrainer extends Trainer {
             throw new DataNotInitializedException("Input data not initalized");
         }
 
-        int numRows = network.getTrainingSet().getInputData().length;
-        for (int row = 0; row < numRows; row++) {
-            double[] inputs = network.getTrainingSet().getInputData()[row];
-            network.getInputLayer().forceSetActivations(inputs);
-            network.getSom().update(); // Call a function here to be overriden in subclasses?
-        }
+        network.getSom().train(network.getInputLayer().getNeuronList(), network.getTrainingSet().getInputData(), batch);
         incrementIteration();
 
         // Make sure excitatory/inhibitory are in proper lists
@@ -94,6 +94,20 @@ public class SOMTrainer extends Trainer {
         this.updateCompleted = updateCompleted;
     }
 
+    public boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * Set whether to use the batch SOM algorithm, see {@link
+     * org.simbrain.network.subnetworks.SOMGroup#train}.
+     *
+     * @param batch true for batch training, false for online training
+     */
+    public void setBatch(boolean batch) {
+        this.batch = batch;
+    }
+
     /**
      * Increment the iteration number by 1.
      */
@@ -21,6 +21,7 @@ package org.simbrain.network.trainers;
 import org.simbrain.network.core.Network;
 import org.simbrain.util.Utils;
 import org.simbrain.util.math.NumericMatrix;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.math.SimbrainMath;
 
 import java.util.ArrayList;
@@ -52,6 +53,11 @@ public class TrainingSet {
      */
     private double percentValidation = .25;
 
+    /**
+     * Stream of random numbers for choosing the validation subset, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     /**
      * Construct training set object.
      */
@@ -92,7 +98,10 @@ public class TrainingSet {
         for (int i = 0; i < inputData.length; i++) {
             temp.add(new Integer(i));
         }
-        Collections.shuffle(temp);
+        if (random == null) {
+            random = RandomSource.newStream();
+        }
+        Collections.shuffle(temp, random.newRandom());
         validationIndices = new ArrayList<Integer>(temp.subList(0, numRows));
         mainIndices = new ArrayList<Integer>(temp.subList(numRows, temp.size()));
 
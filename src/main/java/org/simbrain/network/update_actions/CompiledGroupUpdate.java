@@ -0,0 +1,596 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.update_actions;
+
+import org.simbrain.network.NetworkModel;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.NetworkUpdateAction;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.NeuronUpdateRule;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.neuron_update_rules.IzhikevichRule;
+import org.simbrain.network.neuron_update_rules.LinearRule;
+import org.simbrain.network.synapse_update_rules.spikeresponders.ConvolvedJumpAndDecay;
+import org.simbrain.network.synapse_update_rules.spikeresponders.JumpAndDecay;
+import org.simbrain.network.synapse_update_rules.spikeresponders.NonResponder;
+import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder;
+import org.simbrain.util.math.ProbabilityDistribution;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffered update of a single {@link NeuronGroup} which "compiles" the group and its incoming synapses (which
+ * includes all of its incoming {@link SynapseGroup}s) into primitive arrays: activations, buffers, a compressed sparse
+ * row (CSR) representation of the fan-in of each neuron (row pointers, source indices, weights) and the
+ * post-synaptic response of each synapse. A tick is then a pair of tight loops over those arrays, rather than a walk
+ * over {@link Neuron#getFanIn()} calling {@link Synapse#calcPSR()} one object at a time.
+ * <p>
+ * Only a subset of the object model can be compiled: {@link LinearRule} and {@link IzhikevichRule} neurons, and
+ * undelayed synapses using {@link NonResponder}, {@link JumpAndDecay} or {@link ConvolvedJumpAndDecay}. When a group
+ * contains anything else, or is in input mode, this action falls back to {@link NeuronGroup#update()}, so it is
+ * always safe to use.
+ * <p>
+ * Synapse strengths and neuron parameters are read when the group is compiled. The group is recompiled when models
+ * are added to or removed from the network; call {@link #recompile()} after editing weights or update rules by other
+ * means (e.g. scripts or learning rules). Results are written back to the neurons every {@link #getSyncInterval()}
+ * ticks, or on demand via {@link #syncToNeurons()}. Note that neurons outside the group which read from this group
+ * (and couplings or GUI nodes) only see values that have been written back. Changes made to the neurons in between
+ * (clamping a neuron, or setting its activation or recovery, e.g. from the GUI) are read back in on the next tick, and
+ * clamped neurons are read every tick.
+ * <p>
+ * This action replaces the update of the group itself, so it should be used instead of (not in addition to) a
+ * network-wide update like {@link BufferedUpdate} that would also update the group.
+ */
+public class CompiledGroupUpdate implements NetworkUpdateAction {
+
+    /**
+     * Neuron kernels.
+     */
+    private static final byte LINEAR = 0;
+    private static final byte IZHIKEVICH = 1;
+
+    /**
+     * Synapse kernels.
+     */
+    private static final byte WEIGHTED_SUM = 0;
+    private static final byte JUMP_AND_DECAY = 1;
+    private static final byte CONVOLVED_JUMP_AND_DECAY = 2;
+
+    /**
+     * Reference to network to update.
+     */
+    private final Network network;
+
+    /**
+     * The group being compiled.
+     */
+    private final NeuronGroup group;
+
+    /**
+     * Write the compiled state back to the neurons every this many ticks. If 0, values are only written back when
+     * {@link #syncToNeurons()} is called.
+     */
+    private int syncInterval = 1;
+
+    /**
+     * True when the compiled arrays no longer reflect the network and must be rebuilt before the next tick.
+     */
+    private transient boolean stale = true;
+
+    /**
+     * True if the group could be compiled. If false the group is updated using the object model.
+     */
+    private transient boolean compiled;
+
+    /**
+     * True once listeners have been added to the network. Listeners are added lazily so that actions created for
+     * the "available actions" list do not register anything.
+     */
+    private transient boolean listening;
+
+    /**
+     * True if the neurons hold the same values as the arrays, in which case the state of every neuron is read back in
+     * before the next tick.
+     */
+    private transient boolean neuronsInSync = true;
+
+    /**
+     * Ticks since the last write back.
+     */
+    private transient int ticksSinceSync;
+
+    /**
+     * The neurons of the group, in the order used by all the target arrays.
+     */
+    private transient Neuron[] neurons;
+
+    /**
+     * Target state.
+     */
+    private transient double[] activations;
+    private transient double[] buffers;
+    private transient double[] inputs;
+    private transient boolean[] spikes;
+    private transient boolean[] spikeBuffers;
+    private transient boolean[] clamped;
+
+    /**
+     * The activation and recovery each neuron held when it was last read or written, so that neurons edited since
+     * then can be told apart from neurons that are just behind the arrays.
+     */
+    private transient double[] syncedActivations;
+    private transient double[] syncedRecovery;
+
+    /**
+     * Neuron kernel and parameters, one entry per neuron. For linear neurons p0..p3 are slope, bias, lower and upper
+     * bound. For Izhikevich neurons p0..p4 are a, b, c, d and background current, and p5 is the refractory period.
+     */
+    private transient byte[] neuronKernel;
+    private transient double[] p0;
+    private transient double[] p1;
+    private transient double[] p2;
+    private transient double[] p3;
+    private transient double[] p4;
+    private transient double[] p5;
+    private transient double[] thresholds;
+    private transient double[] recovery;
+    private transient double[] lastSpikeTimes;
+    private transient ProbabilityDistribution[] noise;
+
+    /**
+     * Source neurons that are not in the group, and their current values.
+     */
+    private transient Neuron[] externalSources;
+
+    /**
+     * Activations and spikes of every source, internal ones first (so a source index below {@link #neurons}.length is
+     * also a target index).
+     */
+    private transient double[] sourceActivations;
+    private transient boolean[] sourceSpikes;
+
+    /**
+     * CSR representation of the fan-in of each neuron. Synapses of neuron i are in [rowPointers[i],
+     * rowPointers[i+1]).
+     */
+    private transient int[] rowPointers;
+    private transient int[] sourceIndices;
+    private transient double[] weights;
+
+    /**
+     * Synapse kernels, responder parameters and post-synaptic responses, one entry per synapse.
+     */
+    private transient byte[] synapseKernel;
+    private transient double[] jumpHeights;
+    private transient double[] baseLines;
+    private transient double[] timeConstants;
+    private transient double[] psrs;
+
+    /**
+     * The synapses, in CSR order, so that post-synaptic responses can be written back.
+     */
+    private transient Synapse[] synapses;
+
+    /**
+     * Construct a compiled updater for a neuron group.
+     *
+     * @param network the parent network
+     * @param group   the group to compile
+     */
+    public CompiledGroupUpdate(Network network, NeuronGroup group) {
+        this.network = network;
+        this.group = group;
+    }
+
+    @Override
+    public void invoke() {
+        if (!listening) {
+            initListeners();
+        }
+        if (stale || neurons == null) {
+            compile();
+        }
+        if (!compiled || group.isInputMode()) {
+            group.update();
+            return;
+        }
+        // Generic group-level work (e.g. activation recording)
+        if (group.getActivationRecorder().isRecording()) {
+            syncToNeurons();
+            group.getActivationRecorder().writeActsToFile();
+        }
+        pullFromNeurons();
+        step(network.getTimeStep(), network.getTime());
+        neuronsInSync = false;
+        ticksSinceSync++;
+        if (syncInterval > 0 && ticksSinceSync >= syncInterval) {
+            syncToNeurons();
+        }
+    }
+
+    /**
+     * Mark the compiled representation as stale when the network changes structurally.
+     */
+    private void initListeners() {
+        listening = true;
+        network.getEvents().onModelAdded(this::onModelChanged);
+        network.getEvents().onModelRemoved(this::onModelChanged);
+    }
+
+    private void onModelChanged(NetworkModel model) {
+        if (model instanceof Neuron || model instanceof Synapse || model instanceof SynapseGroup
+                || model == group) {
+            recompile();
+        }
+    }
+
+    /**
+     * Force the group to be recompiled before the next tick, e.g. after weights or update rules have been changed.
+     * Any values not yet written back to the neurons are written back first.
+     */
+    public void recompile() {
+        syncToNeurons();
+        stale = true;
+    }
+
+    /**
+     * Build the primitive representation of the group. If any part of the group can't be compiled the group is
+     * marked as uncompiled and updated using the object model.
+     */
+    private void compile() {
+        stale = false;
+        compiled = false;
+        neuronsInSync = true;
+        ticksSinceSync = 0;
+
+        List<Neuron> neuronList = group.getNeuronList();
+        int n = neuronList.size();
+        neurons = neuronList.toArray(new Neuron[0]);
+        activations = new double[n];
+        buffers = new double[n];
+        inputs = new double[n];
+        spikes = new boolean[n];
+        spikeBuffers = new boolean[n];
+        clamped = new boolean[n];
+        syncedActivations = new double[n];
+        syncedRecovery = new double[n];
+        neuronKernel = new byte[n];
+        p0 = new double[n];
+        p1 = new double[n];
+        p2 = new double[n];
+        p3 = new double[n];
+        p4 = new double[n];
+        p5 = new double[n];
+        thresholds = new double[n];
+        recovery = new double[n];
+        lastSpikeTimes = new double[n];
+        noise = new ProbabilityDistribution[n];
+
+        Map<Neuron, Integer> sourceIndex = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            sourceIndex.put(neurons[i], i);
+            if (!compileNeuron(i, neurons[i].getUpdateRule())) {
+                return;
+            }
+        }
+
+        // First pass: count synapses and assign indices to external sources
+        int nnz = 0;
+        for (Neuron target : neurons) {
+            for (Synapse s : target.getFanInUnsafe()) {
+                if (!s.isEnabled()) {
+                    continue;
+                }
+                if (s.getDelay() != 0 || getSynapseKernel(s.getSpikeResponder()) < 0) {
+                    return;
+                }
+                sourceIndex.putIfAbsent(s.getSource(), sourceIndex.size());
+                nnz++;
+            }
+        }
+        externalSources = new Neuron[sourceIndex.size() - n];
+        for (Map.Entry<Neuron, Integer> entry : sourceIndex.entrySet()) {
+            if (entry.getValue() >= n) {
+                externalSources[entry.getValue() - n] = entry.getKey();
+            }
+        }
+        sourceActivations = new double[sourceIndex.size()];
+        sourceSpikes = new boolean[sourceIndex.size()];
+
+        // Second pass: fill the CSR arrays
+        rowPointers = new int[n + 1];
+        sourceIndices = new int[nnz];
+        weights = new double[nnz];
+        synapseKernel = new byte[nnz];
+        jumpHeights = new double[nnz];
+        baseLines = new double[nnz];
+        timeConstants = new double[nnz];
+        psrs = new double[nnz];
+        synapses = new Synapse[nnz];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            rowPointers[i] = k;
+            for (Synapse s : neurons[i].getFanInUnsafe()) {
+                if (!s.isEnabled()) {
+                    continue;
+                }
+                SpikeResponder sr = s.getSpikeResponder();
+                synapses[k] = s;
+                sourceIndices[k] = sourceIndex.get(s.getSource());
+                weights[k] = s.getStrength();
+                psrs[k] = s.getPsr();
+                synapseKernel[k] = getSynapseKernel(sr);
+                if (sr instanceof JumpAndDecay) {
+                    jumpHeights[k] = ((JumpAndDecay) sr).getJumpHeight();
+                    baseLines[k] = ((JumpAndDecay) sr).getBaseLine();
+                    timeConstants[k] = ((JumpAndDecay) sr).getTimeConstant();
+                } else if (sr instanceof ConvolvedJumpAndDecay) {
+                    jumpHeights[k] = ((ConvolvedJumpAndDecay) sr).getJumpHeight();
+                    baseLines[k] = ((ConvolvedJumpAndDecay) sr).getBaseLine();
+                    timeConstants[k] = ((ConvolvedJumpAndDecay) sr).getTimeConstant();
+                }
+                k++;
+            }
+        }
+        rowPointers[n] = k;
+        compiled = true;
+    }
+
+    /**
+     * Copy the parameters of a neuron's update rule into the parameter arrays.
+     *
+     * @return false if the rule has no compiled kernel
+     */
+    private boolean compileNeuron(int i, NeuronUpdateRule rule) {
+        if (rule instanceof LinearRule) {
+            LinearRule lr = (LinearRule) rule;
+            neuronKernel[i] = LINEAR;
+            p0[i] = lr.getSlope();
+            p1[i] = lr.getBias();
+            p2[i] = lr.getLowerBound();
+            p3[i] = lr.getUpperBound();
+            noise[i] = lr.getAddNoise() ? lr.getNoiseGenerator() : null;
+            return true;
+        } else if (rule instanceof IzhikevichRule) {
+            IzhikevichRule iz = (IzhikevichRule) rule;
+            neuronKernel[i] = IZHIKEVICH;
+            p0[i] = iz.getA();
+            p1[i] = iz.getB();
+            p2[i] = iz.getC();
+            p3[i] = iz.getD();
+            p4[i] = iz.getiBg();
+            p5[i] = iz.getRefractoryPeriod();
+            thresholds[i] = iz.getThreshold();
+            recovery[i] = iz.getRecovery();
+            lastSpikeTimes[i] = iz.getLastSpikeTime();
+            noise[i] = iz.getAddNoise() ? iz.getNoiseGenerator() : null;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the kernel used for a spike responder, or -1 if there is none
+     */
+    private static byte getSynapseKernel(SpikeResponder sr) {
+        if (sr instanceof NonResponder) {
+            return WEIGHTED_SUM;
+        } else if (sr instanceof JumpAndDecay) {
+            return JUMP_AND_DECAY;
+        } else if (sr instanceof ConvolvedJumpAndDecay) {
+            return CONVOLVED_JUMP_AND_DECAY;
+        }
+        return -1;
+    }
+
+    /**
+     * Read external inputs, external sources, and the state of those of the group's own neurons that are clamped or
+     * have been edited since they were last read or written (all of them, if the neurons are authoritative).
+     */
+    private void pullFromNeurons() {
+        int n = neurons.length;
+        for (int i = 0; i < n; i++) {
+            Neuron neuron = neurons[i];
+            inputs[i] = neuron.getInputValue();
+            neuron.setInputValue(0);
+            boolean wasClamped = clamped[i];
+            clamped[i] = neuron.isClamped();
+            boolean edited = neuron.getActivation() != syncedActivations[i];
+            if (clamped[i] && !wasClamped && !edited && !neuronsInSync) {
+                // Newly clamped: hold the neuron at its current value, which it has not been given yet
+                neuron.forceSetActivation(activations[i]);
+                neuron.setSpike(spikes[i]);
+                syncedActivations[i] = neuron.getActivation();
+            }
+            if (neuronsInSync || clamped[i] || edited) {
+                activations[i] = neuron.getActivation();
+                syncedActivations[i] = activations[i];
+            }
+            if (neuronsInSync) {
+                spikes[i] = neuron.isSpike();
+            }
+            if (neuronKernel[i] == IZHIKEVICH) {
+                IzhikevichRule rule = (IzhikevichRule) neuron.getUpdateRule();
+                if (neuronsInSync || rule.getRecovery() != syncedRecovery[i]) {
+                    recovery[i] = rule.getRecovery();
+                    syncedRecovery[i] = recovery[i];
+                }
+                if (neuronsInSync) {
+                    lastSpikeTimes[i] = rule.getLastSpikeTime();
+                }
+            }
+        }
+        System.arraycopy(activations, 0, sourceActivations, 0, n);
+        System.arraycopy(spikes, 0, sourceSpikes, 0, n);
+        for (int j = 0; j < externalSources.length; j++) {
+            sourceActivations[n + j] = externalSources[j].getActivation();
+            sourceSpikes[n + j] = externalSources[j].isSpike();
+        }
+    }
+
+    /**
+     * One buffered update over the arrays: compute the post-synaptic responses and summed input to each neuron, apply
+     * each neuron's kernel to its buffer, then copy buffers to activations.
+     *
+     * @param timeStep the network time step
+     * @param time     the network time
+     */
+    private void step(double timeStep, double time) {
+        int n = neurons.length;
+        for (int i = 0; i < n; i++) {
+            // Clamped neurons don't read their inputs, so their post-synaptic responses are left as they are
+            if (clamped[i]) {
+                buffers[i] = activations[i];
+                spikeBuffers[i] = spikes[i];
+                continue;
+            }
+            double input = inputs[i];
+            for (int k = rowPointers[i], end = rowPointers[i + 1]; k < end; k++) {
+                int src = sourceIndices[k];
+                switch (synapseKernel[k]) {
+                    case JUMP_AND_DECAY:
+                        if (sourceSpikes[src]) {
+                            psrs[k] = jumpHeights[k] * weights[k];
+                        } else {
+                            psrs[k] += timeStep * (baseLines[k] - psrs[k]) / timeConstants[k];
+                        }
+                        break;
+                    case CONVOLVED_JUMP_AND_DECAY:
+                        if (sourceSpikes[src]) {
+                            psrs[k] += jumpHeights[k] * weights[k];
+                        } else {
+                            psrs[k] += timeStep * (baseLines[k] - psrs[k]) / timeConstants[k];
+                        }
+                        break;
+                    default:
+                        psrs[k] = sourceActivations[src] * weights[k];
+                }
+                input += psrs[k];
+            }
+            if (neuronKernel[i] == IZHIKEVICH) {
+                // As in IzhikevichRule: no incoming current and no spikes during the refractory period
+                boolean refractory = p5[i] > 0 && time < lastSpikeTimes[i] + p5[i];
+                if (refractory) {
+                    input = 0;
+                } else {
+                    input += (noise[i] == null ? 0 : noise[i].getRandom()) + p4[i];
+                }
+                double act = activations[i];
+                recovery[i] += timeStep * (p0[i] * ((p1[i] * act) - recovery[i]));
+                double val = act + timeStep * (((.04 * (act * act)) + (5 * act) + 140) - recovery[i] + input);
+                if (val >= thresholds[i] && !refractory) {
+                    val = p2[i];
+                    recovery[i] += p3[i];
+                    spikeBuffers[i] = true;
+                    lastSpikeTimes[i] = time;
+                } else {
+                    if (val > thresholds[i]) {
+                        val = thresholds[i];
+                    }
+                    spikeBuffers[i] = false;
+                }
+                buffers[i] = val;
+            } else {
+                double noiseValue = noise[i] == null ? 0 : noise[i].getRandom();
+                // Linear neurons are always clipped when their activation is set
+                double val = (p0[i] * input) + p1[i] + noiseValue;
+                buffers[i] = val > p3[i] ? p3[i] : (val < p2[i] ? p2[i] : val);
+                spikeBuffers[i] = false;
+            }
+        }
+        System.arraycopy(buffers, 0, activations, 0, n);
+        System.arraycopy(spikeBuffers, 0, spikes, 0, n);
+    }
+
+    /**
+     * Write activations, spikes and other state held in the arrays back to the neurons and synapses of the group,
+     * firing the usual change events. Called automatically every {@link #getSyncInterval()} ticks.
+     */
+    public void syncToNeurons() {
+        if (!compiled || neuronsInSync) {
+            return;
+        }
+        for (int i = 0; i < neurons.length; i++) {
+            Neuron neuron = neurons[i];
+            if (!clamped[i]) {
+                neuron.setBuffer(activations[i]);
+                neuron.setSpkBuffer(spikes[i]);
+                neuron.setToBufferVals();
+                syncedActivations[i] = neuron.getActivation();
+            }
+            if (neuronKernel[i] == IZHIKEVICH) {
+                IzhikevichRule rule = (IzhikevichRule) neuron.getUpdateRule();
+                rule.setRecovery(recovery[i]);
+                rule.setLastSpikeTime(lastSpikeTimes[i]);
+                syncedRecovery[i] = recovery[i];
+            }
+        }
+        for (int k = 0; k < synapses.length; k++) {
+            synapses[k].setPsr(psrs[k]);
+        }
+        neuronsInSync = true;
+        ticksSinceSync = 0;
+    }
+
+    /**
+     * @return the number of ticks between writes back to the neurons; 0 if they are only written on demand
+     */
+    public int getSyncInterval() {
+        return syncInterval;
+    }
+
+    /**
+     * Set how often values are written back to the neurons. Use 1 (the default) when other parts of the
+     * simulation read the group every tick, and larger values (or 0 for "only on demand") for maximum throughput.
+     *
+     * @param syncInterval number of ticks between write backs
+     */
+    public void setSyncInterval(int syncInterval) {
+        this.syncInterval = Math.max(0, syncInterval);
+    }
+
+    /**
+     * @return true if the group is being updated through the compiled arrays rather than the object model
+     */
+    public boolean isCompiled() {
+        if (stale || neurons == null) {
+            compile();
+        }
+        return compiled;
+    }
+
+    public NeuronGroup getGroup() {
+        return group;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Compiled update: " + group.getLabel();
+    }
+
+    @Override
+    public String getLongDescription() {
+        return "Compiled (array based) buffered update of " + group.getLabel();
+    }
+
+}
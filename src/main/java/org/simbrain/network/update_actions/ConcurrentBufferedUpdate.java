@@ -35,6 +35,7 @@ import org.simbrain.util.SimbrainConstants.Polarity;
 import org.simbrain.util.math.ProbDistributions.LogNormalDistribution;
 import org.simbrain.util.math.ProbDistributions.NormalDistribution;
 import org.simbrain.util.math.ProbabilityDistribution;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.util.math.SimbrainMath;
 
 import java.io.File;
@@ -512,10 +513,10 @@ public class ConcurrentBufferedUpdate implements NetworkUpdateAction {
         ProbabilityDistribution rand = NormalDistribution.create();
         for (Neuron neuron : ng.getNeuronList()) {
             IzhikevichRule iz = new IzhikevichRule();
-            if (Math.random() < 0.2) {
+            if (RandomSource.uniform() < 0.2) {
                 neuron.setPolarity(Polarity.INHIBITORY);
                 iz.setRefractoryPeriod(1.0);
-                double rVal = Math.random();
+                double rVal = RandomSource.uniform();
                 iz.setA(0.02 + (0.08 * rVal));
                 iz.setB(0.25 - (0.05 * rVal));
                 iz.setC(-65);
@@ -526,7 +527,7 @@ public class ConcurrentBufferedUpdate implements NetworkUpdateAction {
                 iz.setRefractoryPeriod(2.0);
                 iz.setA(0.02);
                 iz.setB(0.2);
-                double rVal = Math.random();
+                double rVal = RandomSource.uniform();
                 rVal *= rVal;
                 iz.setC(-65.0 + (15.0 * rVal));
                 iz.setD(8.0 - (6 * rVal));
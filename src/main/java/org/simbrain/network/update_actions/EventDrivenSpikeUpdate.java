@@ -0,0 +1,565 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.update_actions;
+
+import org.simbrain.network.NetworkModel;
+import org.simbrain.network.core.DelayLines;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.NetworkUpdateAction;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.synapse_update_rules.spikeresponders.DecayingSpikeResponder;
+import org.simbrain.network.synapse_update_rules.spikeresponders.NonResponder;
+import org.simbrain.network.synapse_update_rules.spikeresponders.SpikeResponder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffered update of the whole network in which input from spiking neurons is propagated when spikes occur, rather
+ * than every neuron pulling input from every afferent synapse on every update. When few neurons spike per update,
+ * the cost of synaptic input scales with the number of spikes times their out-degree rather than with the total
+ * number of synapses.
+ * <p>
+ * Synapses are handled in one of three ways, depending on their source neuron and spike responder:
+ * <ul>
+ * <li>Synapses from spiking neurons with a {@link DecayingSpikeResponder} (jump and decay, convolved jump and decay,
+ * UDF). The responses of all such synapses onto a neuron with the same time constant and base line are summed in a
+ * single accumulator which is decayed once per update. When a source spikes, the jump is pushed along its fan-out
+ * into these accumulators, through a ring buffer for delayed synapses. Each synapse's own response is only computed
+ * (in closed form) when it receives a spike.</li>
+ * <li>Synapses from spiking neurons with other responders (e.g. rise and decay). These are woken up when their
+ * source spikes and updated normally until their response is at rest again (see {@link SpikeResponder#isAtRest}).</li>
+ * <li>Synapses from non-spiking neurons, which are updated every time as usual.</li>
+ * </ul>
+ * The result is the same as a buffered update, except that all synaptic input is computed before any neuron group
+ * is updated. The synapses are recompiled when the network structure or a spike responder changes; call
+ * {@link #recompile()} after changing update rules or delays, or after changing a spike responder's parameters other
+ * than through a synapse dialog. This action should replace (not be used in addition to) {@link BufferedUpdate}.
+ */
+public class EventDrivenSpikeUpdate implements NetworkUpdateAction {
+
+    /**
+     * Reference to network to update.
+     */
+    private final Network network;
+
+    /**
+     * True if the compiled synapses must be rebuilt before the next update.
+     */
+    private transient boolean stale = true;
+
+    /**
+     * True once listeners have been added to the network.
+     */
+    private transient boolean listening;
+
+    /**
+     * Number of updates performed since compiling.
+     */
+    private transient long tick;
+
+    /**
+     * Time step used for the last update. If it changes the responses of all synapses are brought up to date.
+     */
+    private transient double lastTimeStep;
+
+    /**
+     * Neurons which receive synaptic input. Target index i refers to targets[i].
+     */
+    private transient Neuron[] targets;
+
+    /**
+     * Accumulators for {@link DecayingSpikeResponder} synapses: the accumulators of target i are at indices
+     * [accumulatorStarts[i], accumulatorStarts[i + 1]). Each accumulator has a time constant and base line, the sum
+     * of the responses of its synapses, and the base line times the number of synapses.
+     */
+    private transient int[] accumulatorStarts;
+    private transient double[] accumulatorSums;
+    private transient double[] accumulatorRestSums;
+    private transient double[] accumulatorBaseLines;
+    private transient double[] accumulatorTimeConstants;
+
+    /**
+     * Synapses with decaying responders. Each has an accumulator, the value of its response at the end of update
+     * number lastEventTick, and a delay.
+     */
+    private transient Synapse[] eventSynapses;
+    private transient DecayingSpikeResponder[] eventResponders;
+    private transient int[] eventAccumulators;
+    private transient double[] eventValues;
+    private transient long[] eventTicks;
+    private transient int[] eventDelays;
+
+    /**
+     * Synapses from spiking neurons which are updated while their response is active, the target each one feeds,
+     * its last output, and the number of updates it has been at rest.
+     */
+    private transient Synapse[] wakeSynapses;
+    private transient int[] wakeTargets;
+    private transient double[] wakeOutputs;
+    private transient int[] wakeRestCounts;
+    private transient boolean[] awake;
+
+    /**
+     * Indices of synapses currently awake.
+     */
+    private transient IntList awakeList;
+
+    /**
+     * Sum of the outputs of all wake-on-spike synapses onto each target.
+     */
+    private transient double[] wakeSums;
+
+    /**
+     * Synapses which are updated every time (from non-spiking neurons), grouped by target as for the accumulators.
+     */
+    private transient int[] denseStarts;
+    private transient Synapse[] denseSynapses;
+
+    /**
+     * Spiking neurons with event or wake-on-spike synapses in their fan-out, and the indices of those synapses.
+     */
+    private transient Neuron[] sources;
+    private transient int[] sourceEventStarts;
+    private transient int[] sourceEvents;
+    private transient int[] sourceWakeStarts;
+    private transient int[] sourceWakes;
+
+    /**
+     * Ring buffer of spikes waiting to be delivered along delayed synapses, indexed by tick modulo its length.
+     */
+    private transient EventList[] delayRing;
+
+    /**
+     * Spikes to be delivered on the current update.
+     */
+    private transient EventList due;
+
+    /**
+     * Create the update action.
+     *
+     * @param network the network to update
+     */
+    public EventDrivenSpikeUpdate(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public void invoke() {
+        if (!listening) {
+            initListeners();
+        }
+        if (stale || targets == null) {
+            compile();
+        }
+        double timeStep = network.getTimeStep();
+        if (timeStep != lastTimeStep) {
+            bringEventValuesUpToDate();
+            lastTimeStep = timeStep;
+        }
+        tick++;
+
+        // Decay all accumulators, as if no spikes had arrived
+        for (int c = 0; c < accumulatorSums.length; c++) {
+            accumulatorSums[c] += timeStep * (accumulatorRestSums[c] - accumulatorSums[c])
+                    / accumulatorTimeConstants[c];
+        }
+
+        // Propagate spikes from the last update
+        int ringLength = delayRing.length;
+        for (int s = 0; s < sources.length; s++) {
+            if (!sources[s].isSpike()) {
+                continue;
+            }
+            for (int j = sourceEventStarts[s]; j < sourceEventStarts[s + 1]; j++) {
+                int k = sourceEvents[j];
+                double jump = eventResponders[k].getSpikeJump(eventSynapses[k]);
+                if (eventDelays[k] == 0) {
+                    due.add(k, jump);
+                } else {
+                    delayRing[(int) ((tick + eventDelays[k]) % ringLength)].add(k, jump);
+                }
+            }
+            for (int j = sourceWakeStarts[s]; j < sourceWakeStarts[s + 1]; j++) {
+                int w = sourceWakes[j];
+                wakeRestCounts[w] = 0;
+                if (!awake[w]) {
+                    awake[w] = true;
+                    awakeList.add(w);
+                }
+            }
+        }
+        EventList delayed = delayRing[(int) (tick % ringLength)];
+        deliver(delayed, timeStep);
+        delayed.clear();
+        deliver(due, timeStep);
+        due.clear();
+
+        // Update synapses that are awake
+        for (int i = 0; i < awakeList.size; ) {
+            int w = awakeList.values[i];
+            Synapse syn = wakeSynapses[w];
+            double out = syn.calcPSR();
+            wakeSums[wakeTargets[w]] += out - wakeOutputs[w];
+            wakeOutputs[w] = out;
+            if (syn.getSpikeResponder().isAtRest(syn) && ++wakeRestCounts[w] > syn.getDelay()) {
+                awake[w] = false;
+                awakeList.removeAt(i);
+            } else {
+                i++;
+            }
+        }
+
+        // Hand the summed input to each target, then do a normal buffered update
+        for (int i = 0; i < targets.length; i++) {
+            double input = wakeSums[i];
+            for (int c = accumulatorStarts[i]; c < accumulatorStarts[i + 1]; c++) {
+                input += accumulatorSums[c];
+            }
+            for (int d = denseStarts[i]; d < denseStarts[i + 1]; d++) {
+                input += denseSynapses[d].calcPSR();
+            }
+            targets[i].setSynapticInput(input);
+        }
+        network.bufferedUpdate();
+        network.clearInputs();
+    }
+
+    /**
+     * Apply spikes arriving at synapses on this update. Accumulators have already been decayed, so each spike
+     * corrects its accumulator by the difference between the synapse's response with and without the spike.
+     */
+    private void deliver(EventList events, double timeStep) {
+        for (int e = 0; e < events.size; e++) {
+            int k = events.indices[e];
+            int c = eventAccumulators[k];
+            double baseLine = accumulatorBaseLines[c];
+            double rate = timeStep / accumulatorTimeConstants[c];
+            double previous = valueAt(k, tick - 1, rate, baseLine);
+            double withoutSpike = previous + rate * (baseLine - previous);
+            double withSpike = eventResponders[k].isResetOnSpike() ? events.jumps[e] : previous + events.jumps[e];
+            accumulatorSums[c] += withSpike - withoutSpike;
+            eventValues[k] = withSpike;
+            eventTicks[k] = tick;
+        }
+    }
+
+    /**
+     * The response of an event synapse at the end of a given update, computed in closed form from its value at the
+     * last spike it received.
+     */
+    private double valueAt(int k, long atTick, double rate, double baseLine) {
+        long elapsed = atTick - eventTicks[k];
+        if (elapsed <= 0) {
+            return eventValues[k];
+        }
+        return baseLine + (eventValues[k] - baseLine) * Math.pow(1 - rate, elapsed);
+    }
+
+    /**
+     * Compute the current response of every event synapse, so that the closed form can be restarted from here
+     * (e.g. with a new time step).
+     */
+    private void bringEventValuesUpToDate() {
+        if (lastTimeStep == 0) {
+            return;
+        }
+        for (int k = 0; k < eventSynapses.length; k++) {
+            int c = eventAccumulators[k];
+            eventValues[k] = valueAt(k, tick, lastTimeStep / accumulatorTimeConstants[c], accumulatorBaseLines[c]);
+            eventTicks[k] = tick;
+        }
+    }
+
+    /**
+     * Recompile when the network structure or a spike responder changes, and stop handling input when this action
+     * is removed.
+     */
+    private void initListeners() {
+        listening = true;
+        network.getEvents().onModelAdded(this::onModelChanged);
+        network.getEvents().onModelRemoved(this::onModelChanged);
+        // Accumulators are grouped by the responders' time constants and base lines
+        network.getEvents().onSpikeResponderChanged(s -> recompile());
+        network.getEvents().onUpdateActionsChanged(() -> {
+            if (!network.getUpdateManager().getActionList().contains(this)) {
+                recompile();
+            }
+        });
+    }
+
+    private void onModelChanged(NetworkModel model) {
+        if (model instanceof Neuron || model instanceof Synapse || model instanceof NeuronGroup
+                || model instanceof SynapseGroup) {
+            recompile();
+        }
+    }
+
+    /**
+     * Write the current responses back to the synapses and return the neurons to pulling input from their fan-in.
+     * The synapses are compiled again on the next update.
+     */
+    public void recompile() {
+        if (targets != null) {
+            bringEventValuesUpToDate();
+            for (int k = 0; k < eventSynapses.length; k++) {
+                eventSynapses[k].setPsr(eventValues[k]);
+            }
+            for (Neuron n : targets) {
+                n.clearSynapticInput();
+            }
+            targets = null;
+        }
+        stale = true;
+    }
+
+    /**
+     * Sort the synapses of the network into accumulated, wake-on-spike and dense synapses.
+     */
+    private void compile() {
+        stale = false;
+        tick = 0;
+        lastTimeStep = network.getTimeStep();
+
+        List<Neuron> targetList = new ArrayList<>();
+        for (Neuron n : new LinkedHashSet<>(network.getFlatNeuronList())) {
+            if (!n.getFanInUnsafe().isEmpty()) {
+                targetList.add(n);
+            }
+        }
+        targets = targetList.toArray(new Neuron[0]);
+
+        List<Synapse> eventList = new ArrayList<>();
+        List<Integer> eventAccumulatorList = new ArrayList<>();
+        List<Synapse> wakeList = new ArrayList<>();
+        List<Integer> wakeTargetList = new ArrayList<>();
+        List<Synapse> denseList = new ArrayList<>();
+        List<double[]> accumulators = new ArrayList<>(); // {time constant, base line, number of synapses}
+        accumulatorStarts = new int[targets.length + 1];
+        denseStarts = new int[targets.length + 1];
+        int maxDelay = 0;
+
+        for (int i = 0; i < targets.length; i++) {
+            accumulatorStarts[i] = accumulators.size();
+            denseStarts[i] = denseList.size();
+            Map<List<Double>, Integer> targetAccumulators = new HashMap<>();
+            for (Synapse s : targets[i].getFanInUnsafe()) {
+                SpikeResponder sr = s.getSpikeResponder();
+                boolean spikingSource = s.getSource().getUpdateRule().isSpikingNeuron();
+                if (!s.isEnabled()) {
+                    continue;
+                }
+                if (!spikingSource || sr instanceof NonResponder) {
+                    denseList.add(s);
+                } else if (sr instanceof DecayingSpikeResponder) {
+                    DecayingSpikeResponder dsr = (DecayingSpikeResponder) sr;
+                    List<Double> key = Arrays.asList(dsr.getTimeConstant(), dsr.getBaseLine());
+                    Integer c = targetAccumulators.get(key);
+                    if (c == null) {
+                        c = accumulators.size();
+                        targetAccumulators.put(key, c);
+                        accumulators.add(new double[]{dsr.getTimeConstant(), dsr.getBaseLine(), 0});
+                    }
+                    accumulators.get(c)[2]++;
+                    eventList.add(s);
+                    eventAccumulatorList.add(c);
+                    maxDelay = Math.max(maxDelay, s.getDelay());
+                } else {
+                    wakeList.add(s);
+                    wakeTargetList.add(i);
+                }
+            }
+        }
+        accumulatorStarts[targets.length] = accumulators.size();
+        denseStarts[targets.length] = denseList.size();
+        denseSynapses = denseList.toArray(new Synapse[0]);
+
+        int numAccumulators = accumulators.size();
+        accumulatorSums = new double[numAccumulators];
+        accumulatorRestSums = new double[numAccumulators];
+        accumulatorBaseLines = new double[numAccumulators];
+        accumulatorTimeConstants = new double[numAccumulators];
+        for (int c = 0; c < numAccumulators; c++) {
+            double[] acc = accumulators.get(c);
+            accumulatorTimeConstants[c] = acc[0];
+            accumulatorBaseLines[c] = acc[1];
+            accumulatorRestSums[c] = acc[1] * acc[2];
+        }
+
+        int numEvents = eventList.size();
+        eventSynapses = eventList.toArray(new Synapse[0]);
+        eventResponders = new DecayingSpikeResponder[numEvents];
+        eventAccumulators = new int[numEvents];
+        eventValues = new double[numEvents];
+        eventTicks = new long[numEvents];
+        eventDelays = new int[numEvents];
+        for (int k = 0; k < numEvents; k++) {
+            Synapse s = eventSynapses[k];
+            eventResponders[k] = (DecayingSpikeResponder) s.getSpikeResponder();
+            eventAccumulators[k] = eventAccumulatorList.get(k);
+            eventValues[k] = s.getPsr();
+            eventDelays[k] = s.getDelay();
+            accumulatorSums[eventAccumulators[k]] += eventValues[k];
+        }
+
+        int numWake = wakeList.size();
+        wakeSynapses = wakeList.toArray(new Synapse[0]);
+        wakeTargets = new int[numWake];
+        wakeOutputs = new double[numWake];
+        wakeRestCounts = new int[numWake];
+        awake = new boolean[numWake];
+        awakeList = new IntList();
+        wakeSums = new double[targets.length];
+        for (int w = 0; w < numWake; w++) {
+            wakeTargets[w] = wakeTargetList.get(w);
+            // Everything starts awake, since the state of the responders isn't known
+            awake[w] = true;
+            awakeList.add(w);
+        }
+
+        // Index event and wake synapses by source
+        Map<Neuron, List<Integer>> eventsBySource = new HashMap<>();
+        Map<Neuron, List<Integer>> wakesBySource = new HashMap<>();
+        LinkedHashSet<Neuron> sourceSet = new LinkedHashSet<>();
+        for (int k = 0; k < numEvents; k++) {
+            Neuron src = eventSynapses[k].getSource();
+            sourceSet.add(src);
+            eventsBySource.computeIfAbsent(src, n -> new ArrayList<>()).add(k);
+        }
+        for (int w = 0; w < numWake; w++) {
+            Neuron src = wakeSynapses[w].getSource();
+            sourceSet.add(src);
+            wakesBySource.computeIfAbsent(src, n -> new ArrayList<>()).add(w);
+        }
+        sources = sourceSet.toArray(new Neuron[0]);
+        sourceEventStarts = new int[sources.length + 1];
+        sourceWakeStarts = new int[sources.length + 1];
+        sourceEvents = new int[numEvents];
+        sourceWakes = new int[numWake];
+        int e = 0;
+        int w = 0;
+        for (int s = 0; s < sources.length; s++) {
+            sourceEventStarts[s] = e;
+            sourceWakeStarts[s] = w;
+            for (int k : eventsBySource.getOrDefault(sources[s], List.of())) {
+                sourceEvents[e++] = k;
+            }
+            for (int k : wakesBySource.getOrDefault(sources[s], List.of())) {
+                sourceWakes[w++] = k;
+            }
+        }
+        sourceEventStarts[sources.length] = e;
+        sourceWakeStarts[sources.length] = w;
+
+        delayRing = new EventList[maxDelay + 1];
+        for (int i = 0; i < delayRing.length; i++) {
+            delayRing[i] = new EventList();
+        }
+        due = new EventList();
+
+        // Spikes which were already on their way along delayed synapses when the synapses were recompiled. A spike
+        // from m updates before the last one arrives d - m updates after the next one.
+        DelayLines delayLines = network.getDelayLines();
+        for (int k = 0; k < numEvents; k++) {
+            int line = delayLines.getLine(eventSynapses[k].getSource());
+            if (line < 0) {
+                continue;
+            }
+            for (int m = 1; m <= eventDelays[k]; m++) {
+                if (delayLines.isSpike(line, m)) {
+                    delayRing[1 + eventDelays[k] - m].add(k, eventResponders[k].getSpikeJump(eventSynapses[k]));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of synapses whose input is only propagated on spikes
+     */
+    public int getNumEventSynapses() {
+        if (stale || targets == null) {
+            compile();
+        }
+        return eventSynapses.length + wakeSynapses.length;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Event-driven spike propagation";
+    }
+
+    @Override
+    public String getLongDescription() {
+        return "Buffered update in which spikes are pushed along synapses when they occur";
+    }
+
+    /**
+     * Growable list of spikes to deliver: synapse indices and jump heights.
+     */
+    private static class EventList {
+
+        private int[] indices = new int[16];
+
+        private double[] jumps = new double[16];
+
+        private int size;
+
+        void add(int index, double jump) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+                jumps = Arrays.copyOf(jumps, size * 2);
+            }
+            indices[size] = index;
+            jumps[size] = jump;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Growable list of ints, with constant time (unordered) removal.
+     */
+    private static class IntList {
+
+        private int[] values = new int[16];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void removeAt(int i) {
+            values[i] = values[--size];
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.update_actions;
+
+import org.simbrain.network.NetworkModel;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.NetworkUpdateAction;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A parallel buffered update of an entire network, an alternative to {@link ConcurrentBufferedUpdate} designed to
+ * be stepped thousands of times per second.
+ * <p>
+ * The neurons of the network are partitioned into chunks whose size is based on the cost of updating them (one unit
+ * per neuron plus one per afferent synapse) rather than on the number of neurons, so that heavily connected neurons
+ * don't all end up on the same thread. The partition is only rebuilt when neurons or synapses are added or removed.
+ * <p>
+ * A fixed set of worker tasks is started once in a {@link ForkJoinPool} and then kept alive across ticks. Each tick
+ * has two phases, both run in parallel: (1) update each neuron and its fan-in, writing to buffers, and (2) apply the
+ * buffered values. The phases are separated by a single reusable {@link Phaser}, which the invoking thread also takes
+ * part in, so there is no per-tick task submission and no futures. Within a phase, chunks are claimed dynamically
+ * (most expensive first), so a thread that finishes early takes over the remaining work of slower ones.
+ * <p>
+ * Each set of workers has its own pool and phaser. When the workers are restarted, e.g. after the parallelism
+ * changes, the old workers are stopped and waited for before new ones are started, so they can never take part in the
+ * new workers' phases.
+ */
+public class ForkJoinBufferedUpdate implements NetworkUpdateAction {
+
+    /**
+     * Target number of chunks per thread. More chunks give better load balancing, fewer chunks lower overhead.
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    /**
+     * Chunks smaller than this cost are not worth dispatching separately.
+     */
+    private static final int MIN_CHUNK_COST = 256;
+
+    /**
+     * Reference to network to update.
+     */
+    private final Network network;
+
+    /**
+     * Number of threads used, including the invoking thread.
+     */
+    private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The running worker tasks, or null if they have not been started.
+     */
+    private transient Workers workers;
+
+    /**
+     * True if the partition must be rebuilt before the next tick.
+     */
+    private transient volatile boolean dirty = true;
+
+    /**
+     * True if the workers must be restarted before the next tick, e.g. because the parallelism changed.
+     */
+    private transient volatile boolean restart;
+
+    /**
+     * True once listeners have been added to the network.
+     */
+    private transient boolean listening;
+
+    /**
+     * All neurons being updated, grouped so that each chunk is a contiguous range.
+     */
+    private transient Neuron[] neurons;
+
+    /**
+     * Chunk i covers neurons[chunkStarts[i]] to neurons[chunkStarts[i + 1] - 1]. Chunks are sorted by decreasing cost.
+     */
+    private transient int[] chunkStarts;
+
+    /**
+     * Index of the next chunk to be claimed in the update and apply phases.
+     */
+    private transient AtomicInteger updateCursor;
+    private transient AtomicInteger applyCursor;
+
+    /**
+     * The first exception thrown by any thread during the current tick.
+     */
+    private transient AtomicReference<Throwable> failure;
+
+    /**
+     * Groups in input mode are updated by reading their input data on the invoking thread.
+     */
+    private transient List<NeuronGroup> inputGroups;
+
+    /**
+     * Groups recording their activations.
+     */
+    private transient List<NeuronGroup> recordingGroups;
+
+    /**
+     * Create the update action.
+     *
+     * @param network the network to update
+     */
+    public ForkJoinBufferedUpdate(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public synchronized void invoke() {
+        if (!listening) {
+            initListeners();
+        }
+        if (restart) {
+            restart = false;
+            stopWorkers();
+        }
+        if (dirty || neurons == null) {
+            partition();
+        }
+        if (workers == null) {
+            workers = new Workers(Math.max(0, parallelism - 1));
+        }
+        Phaser phaser = workers.phaser;
+        for (int i = 0, n = inputGroups.size(); i < n; i++) {
+            inputGroups.get(i).updateInputs();
+        }
+        for (int i = 0, n = recordingGroups.size(); i < n; i++) {
+            recordingGroups.get(i).getActivationRecorder().writeActsToFile();
+        }
+
+        updateCursor.set(0);
+        applyCursor.set(0);
+
+        // Release the workers, then take part in both phases
+        phaser.arriveAndAwaitAdvance();
+        runUpdatePhase();
+        phaser.arriveAndAwaitAdvance();
+        runApplyPhase();
+        phaser.arriveAndAwaitAdvance();
+
+        Throwable t = failure.getAndSet(null);
+        if (t != null) {
+            throw new RuntimeException("Exception during parallel update", t);
+        }
+    }
+
+    /**
+     * Repartition when the network structure changes.
+     */
+    private void initListeners() {
+        listening = true;
+        network.getEvents().onModelAdded(this::onModelChanged);
+        network.getEvents().onModelRemoved(this::onModelChanged);
+    }
+
+    private void onModelChanged(NetworkModel model) {
+        if (model instanceof Neuron || model instanceof Synapse || model instanceof NeuronGroup
+                || model instanceof SynapseGroup) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Force the neurons to be repartitioned before the next tick, e.g. after a group enters or leaves input mode.
+     */
+    public void repartition() {
+        dirty = true;
+    }
+
+    /**
+     * Collect the neurons to update and split them into chunks of roughly equal cost.
+     */
+    private void partition() {
+        dirty = false;
+        inputGroups = new ArrayList<>();
+        recordingGroups = new ArrayList<>();
+        Set<Neuron> inputNeurons = new LinkedHashSet<>();
+        for (NeuronGroup ng : network.getFlatNeuronGroupList()) {
+            if (ng.isInputMode()) {
+                inputGroups.add(ng);
+                inputNeurons.addAll(ng.getNeuronList());
+            }
+            if (ng.getActivationRecorder().isRecording()) {
+                recordingGroups.add(ng);
+            }
+        }
+        Set<Neuron> neuronSet = new LinkedHashSet<>(network.getFlatNeuronList());
+        neuronSet.removeAll(inputNeurons);
+        neurons = neuronSet.toArray(new Neuron[0]);
+
+        long totalCost = 0;
+        for (Neuron n : neurons) {
+            totalCost += cost(n);
+        }
+        long targetCost = Math.max(MIN_CHUNK_COST, totalCost / ((long) parallelism * CHUNKS_PER_THREAD));
+
+        List<int[]> chunks = new ArrayList<>(); // {start, end, cost}
+        int start = 0;
+        int chunkCost = 0;
+        for (int i = 0; i < neurons.length; i++) {
+            chunkCost += cost(neurons[i]);
+            if (chunkCost >= targetCost || i == neurons.length - 1) {
+                chunks.add(new int[]{start, i + 1, chunkCost});
+                start = i + 1;
+                chunkCost = 0;
+            }
+        }
+
+        // Lay the chunks out most expensive first, so that the long tasks are started first
+        chunks.sort((a, b) -> Integer.compare(b[2], a[2]));
+        Neuron[] sorted = new Neuron[neurons.length];
+        chunkStarts = new int[chunks.size() + 1];
+        int pos = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            int[] chunk = chunks.get(c);
+            chunkStarts[c] = pos;
+            System.arraycopy(neurons, chunk[0], sorted, pos, chunk[1] - chunk[0]);
+            pos += chunk[1] - chunk[0];
+        }
+        chunkStarts[chunks.size()] = pos;
+        neurons = sorted;
+    }
+
+    /**
+     * Cost of updating a neuron: one for the neuron itself and one per afferent synapse.
+     */
+    private static int cost(Neuron n) {
+        return 1 + n.getFanInUnsafe().size();
+    }
+
+    /**
+     * One set of persistent worker tasks, with the pool they run in and the phaser they share with the invoking
+     * thread. Workers only ever use the phaser and stop flag of the set they were started in.
+     */
+    private final class Workers {
+
+        /**
+         * The pool the worker tasks run in.
+         */
+        private final ForkJoinPool pool;
+
+        /**
+         * Barrier separating the start of a tick, the update phase, and the apply phase.
+         */
+        private final Phaser phaser;
+
+        /**
+         * Set to stop the worker tasks.
+         */
+        private volatile boolean stopped;
+
+        /**
+         * Start worker tasks; the invoking thread acts as one more worker.
+         *
+         * @param count number of worker tasks
+         */
+        Workers(int count) {
+            updateCursor = new AtomicInteger();
+            applyCursor = new AtomicInteger();
+            failure = new AtomicReference<>();
+            phaser = new Phaser(count + 1);
+            if (count == 0) {
+                // Only the invoking thread. A pool is still created so that the state is consistent.
+                pool = new ForkJoinPool(1);
+                return;
+            }
+            // The maximum pool size is fixed so that workers blocking on the phaser don't cause the pool to spawn
+            // compensation threads.
+            pool = new ForkJoinPool(count, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setDaemon(true);
+                t.setName("Network update worker " + t.getPoolIndex());
+                return t;
+            }, null, false, count, count, 1, p -> true, 60, TimeUnit.SECONDS);
+            for (int i = 0; i < count; i++) {
+                pool.execute(this::workerLoop);
+            }
+        }
+
+        /**
+         * Body of each persistent worker: wait for a tick to start, then take part in both phases.
+         */
+        private void workerLoop() {
+            while (true) {
+                phaser.arriveAndAwaitAdvance();
+                if (stopped) {
+                    phaser.arriveAndDeregister();
+                    return;
+                }
+                runUpdatePhase();
+                phaser.arriveAndAwaitAdvance();
+                runApplyPhase();
+                phaser.arriveAndAwaitAdvance();
+            }
+        }
+
+        /**
+         * Release the workers from the start of the next tick so they exit, and wait for them to finish.
+         */
+        private void stop() {
+            stopped = true;
+            phaser.arriveAndDeregister();
+            pool.shutdown();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Claim chunks and update each neuron and its fan-in, writing to buffers.
+     */
+    private void runUpdatePhase() {
+        int numChunks = chunkStarts.length - 1;
+        int c;
+        while ((c = updateCursor.getAndIncrement()) < numChunks) {
+            try {
+                for (int i = chunkStarts[c], end = chunkStarts[c + 1]; i < end; i++) {
+                    neurons[i].update();
+                    neurons[i].updateFanIn();
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    /**
+     * Claim chunks and move buffered values to activations.
+     */
+    private void runApplyPhase() {
+        int numChunks = chunkStarts.length - 1;
+        int c;
+        while ((c = applyCursor.getAndIncrement()) < numChunks) {
+            try {
+                for (int i = chunkStarts[c], end = chunkStarts[c + 1]; i < end; i++) {
+                    neurons[i].setToBufferVals();
+                    neurons[i].setInputValue(0);
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    /**
+     * Stop the worker tasks and wait for them to exit. If a tick is in progress on another thread it is finished
+     * first. The workers are restarted if the action is invoked again.
+     */
+    public synchronized void shutdown() {
+        stopWorkers();
+    }
+
+    private void stopWorkers() {
+        if (workers != null) {
+            workers.stop();
+            workers = null;
+        }
+    }
+
+    /**
+     * @return true if the worker tasks have been started and not shut down
+     */
+    public synchronized boolean isRunning() {
+        return workers != null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads used, including the invoking thread. Workers are restarted on the next tick, so this
+     * can safely be called while the network is being updated.
+     *
+     * @param parallelism number of threads
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        restart = true;
+        dirty = true;
+    }
+
+    /**
+     * @return the number of chunks the neurons are currently split into
+     */
+    public int getNumChunks() {
+        return chunkStarts == null ? 0 : chunkStarts.length - 1;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Fork/Join Parallel Buffered Update";
+    }
+
+    @Override
+    public String getLongDescription() {
+        return "Parallel Buffered Update (All Neurons) using persistent workers and cost-based chunks";
+    }
+
+}
@@ -2,24 +2,44 @@ package org.simbrain.network.util;
 
 import org.simbrain.network.core.Neuron;
 import org.simbrain.network.groups.AbstractNeuronCollection;
-import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.util.io_utilities.ActivationSink;
+import org.simbrain.network.util.io_utilities.BinaryActivationSink;
+import org.simbrain.network.util.io_utilities.CsvActivationSink;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manages recording activations or spike histories.
+ * <p>
+ * Recording is split between the network update thread, which copies the
+ * activations or spikes of each update into a buffer, and a writer thread,
+ * which passes the buffers to an {@link ActivationSink}. Buffers are reused,
+ * and there are at most {@link #NUM_BUFFERS} of them, so if the sink falls far
+ * behind the update waits for it rather than using more memory.
  */
 public class ActivationRecorder {
 
     /**
-     * The default for how often {@link #writeActsToFile()} should flush
-     * the output stream when writing to a file.
+     * The default for how often the writer thread should flush the sink, in
+     * recorded updates.
      */
     public static final int FLUSH_FREQUENCY = 1000;
 
+    /**
+     * The number of buffers recorded updates are copied into.
+     */
+    public static final int NUM_BUFFERS = 64;
+
+    /**
+     * How long to wait for a free buffer before checking that the writer
+     * thread is still running, in milliseconds.
+     */
+    private static final long FREE_BUFFER_POLL = 100;
+
     /**
      * Whether or not {@link #writeActsToFile()} will write activations as a
      * state matrix or a spike train.
@@ -27,27 +47,81 @@ public class ActivationRecorder {
     private boolean recordAsSpikes;
 
     /**
-     * The output stream which writes activation values to a file.
+     * Whether or not this group is in a state that allows recording.
      */
-    private PrintWriter valueWriter;
+    private boolean recording;
 
     /**
-     * Whether or not this group is in a state that allows recording.
+     * Only every decimation-th update is recorded.
      */
-    private boolean recording;
+    private int decimation = 1;
+
+    /**
+     * Whether binary recordings are gzip compressed.
+     */
+    private boolean compress;
 
     /**
-     * A counter to keep track of how many times {@link #writeActsToFile()} has
-     * been called so as to determine when to flush the output stream.
+     * The number of updates since recording started.
      */
-    private int writeCounter = 0;
+    private transient long updateCounter;
 
+    /**
+     * The decimation in effect for the current recording.
+     */
+    private transient int recordingDecimation;
+
+    /**
+     * The number of neurons being recorded.
+     */
+    private transient int numNeurons;
+
+    /**
+     * Where recorded updates are written.
+     */
+    private transient ActivationSink sink;
+
+    /**
+     * Buffers that are free to be filled.
+     */
+    private transient BlockingQueue<Buffer> free;
+
+    /**
+     * Buffers waiting to be written.
+     */
+    private transient BlockingQueue<Buffer> filled;
+
+    private transient Thread writer;
 
     /**
      * The collection to be subsampled from.
      */
     private final AbstractNeuronCollection nc;
 
+    /**
+     * One recorded update.
+     */
+    private static class Buffer {
+
+        double time;
+
+        final double[] activations;
+
+        final int[] spikes;
+
+        int numSpikes;
+
+        /**
+         * Marks the end of the recording.
+         */
+        boolean last;
+
+        Buffer(int numNeurons, boolean spikes) {
+            activations = spikes ? null : new double[numNeurons];
+            this.spikes = spikes ? new int[numNeurons] : null;
+        }
+    }
+
     /**
      * Construct activaiton recorder.
      */
@@ -56,19 +130,36 @@ public class ActivationRecorder {
     }
 
     /**
-     * Creates a file which activations will be written to and activates the
-     * necessary output streams. Uses the name of the the group for the name of
-     * the file, adding an incremented number to the name each time this method
-     * is called. Recording happens only if the appropriate neuron group
-     * recording action is a part of the network update. Also checks if this
-     * neuron group is populated entirely by spiking neurons and if so, sets
-     * {@link #recordAsSpikes} to true, since {@link #writeActsToFile()} writes
-     * activations differently if the neuron group contains only spiking
-     * neurons.
+     * Creates a file which activations will be written to and starts
+     * recording. Files ending in ".csv" or ".txt" are written as text,
+     * others with a {@link BinaryActivationSink}.
      *
      * @param outputFile the file to write the activations to
+     * @see #startRecording(ActivationSink)
      */
     public void startRecording(final File outputFile) {
+        String name = outputFile.getName().toLowerCase();
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            startRecording(new CsvActivationSink(outputFile));
+        } else {
+            startRecording(new BinaryActivationSink(outputFile, compress));
+        }
+    }
+
+    /**
+     * Starts recording to a sink. Recording happens only if the appropriate
+     * neuron group recording action is a part of the network update. Also
+     * checks if this neuron group is populated entirely by spiking neurons and
+     * if so, sets {@link #recordAsSpikes} to true, since
+     * {@link #writeActsToFile()} records spikes rather than activations if the
+     * neuron group contains only spiking neurons.
+     *
+     * @param activationSink where to write the activations
+     */
+    public void startRecording(ActivationSink activationSink) {
+        if (sink != null) {
+            closeSink();
+        }
         boolean spikeRecord = true;
         for (Neuron n : nc.getNeuronList()) {
             if (!n.getUpdateRule().isSpikingNeuron()) {
@@ -77,80 +168,163 @@ public class ActivationRecorder {
             }
         }
         recordAsSpikes = spikeRecord;
-        recording = true;
+        numNeurons = nc.size();
+        recordingDecimation = Math.max(decimation, 1);
         try {
-            if (valueWriter != null) {
-                valueWriter.close();
-            }
-            FileWriter fw = new FileWriter(outputFile);
-            valueWriter = new PrintWriter(fw);
+            activationSink.open(numNeurons, recordAsSpikes, recordingDecimation);
         } catch (IOException e) {
             e.printStackTrace();
+            return;
         }
+        sink = activationSink;
+        free = new ArrayBlockingQueue<>(NUM_BUFFERS);
+        filled = new ArrayBlockingQueue<>(NUM_BUFFERS);
+        for (int i = 0; i < NUM_BUFFERS; i++) {
+            free.add(new Buffer(numNeurons, recordAsSpikes));
+        }
+        updateCounter = 0;
+        writer = new Thread(this::writeBuffers, "Activation recorder");
+        writer.setDaemon(true);
+        writer.start();
+        recording = true;
 
         nc.getEvents().fireRecordingStarted();
     }
 
     /**
-     * Halts recording of activations. Closes all involved output streams.
+     * Halts recording of activations. Waits for recorded updates to be
+     * written and closes the sink.
      */
     public void stopRecording() {
-        if (valueWriter != null) {
-            valueWriter.close();
-            valueWriter = null;
-        }
+        closeSink();
         recording = false;
         nc.getEvents().fireRecordingStopped();
     }
 
     /**
-     * Writes the activations of the network to a file. When
-     * startRecording is called, the group checks whether or not the
-     * group is entirely populated by spiking neurons. If it is then this
-     * methods writes the activations to a file as spike trains in [neuron
-     * id][spk time] couplets. Otherwise it writes the neurons' activation
-     * values as a state matrix to the file. Flushes the output stream every
-     * {@link #FLUSH_FREQUENCY} invocations.
+     * Tell the writer thread to finish, wait for it, and close the sink.
      */
-    public void writeActsToFile() {
+    private void closeSink() {
+        if (sink == null) {
+            return;
+        }
         try {
-            if (writeCounter >= FLUSH_FREQUENCY) {
-                valueWriter.flush();
-                writeCounter = 0;
+            Buffer end = takeFree();
+            if (end != null) {
+                end.last = true;
+                filled.put(end);
             }
-            boolean write = false;
-            if (recordAsSpikes) {
-                int start = 0;
-                for (int i = 0, n = nc.size(); i < n; i++) {
-                    if (nc.getNeuron(i).isSpike()) {
-                        write = true;
-                        start = i;
-                        break;
-                    }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sink.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        sink = null;
+        writer = null;
+    }
+
+    /**
+     * Wait for a free buffer, as long as the writer thread is running.
+     *
+     * @return the buffer, or null if the writer thread has stopped
+     */
+    private Buffer takeFree() throws InterruptedException {
+        while (true) {
+            Buffer buffer = free.poll(FREE_BUFFER_POLL, TimeUnit.MILLISECONDS);
+            if (buffer != null) {
+                return buffer;
+            }
+            if (!writer.isAlive()) {
+                // Buffers may have been returned just before the writer stopped
+                return free.poll();
+            }
+        }
+    }
+
+    /**
+     * Body of the writer thread: passes filled buffers to the sink and returns
+     * them to the free queue. If the sink fails, whether with an IOException
+     * or an unchecked exception, later updates are dropped.
+     */
+    private void writeBuffers() {
+        boolean failed = false;
+        int writeCounter = 0;
+        try {
+            while (true) {
+                Buffer buffer = filled.take();
+                if (buffer.last) {
+                    return;
                 }
-                if (write) {
-                    valueWriter.print(nc.getParentNetwork().getTime());
-                    valueWriter.print(" ");
-                    for (int i = start, n = nc.size(); i < n; i++) {
-                        if (nc.getNeuron(i).isSpike()) {
-                            valueWriter.print(i);
-                            valueWriter.print(" ");
+                if (!failed) {
+                    try {
+                        if (buffer.activations != null) {
+                            sink.writeActivations(buffer.time, buffer.activations);
+                        } else {
+                            sink.writeSpikes(buffer.time, buffer.spikes, buffer.numSpikes);
+                        }
+                        if (++writeCounter >= FLUSH_FREQUENCY) {
+                            sink.flush();
+                            writeCounter = 0;
                         }
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                        failed = true;
                     }
-                    valueWriter.println();
-                    writeCounter++;
                 }
-            } else {
-                for (int i = 0, n = nc.size() - 1; i < n; i++) {
-                    valueWriter.print(nc.getNeuron(i).getActivation() + ", ");
+                free.put(buffer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the activations of the neurons for the current update, if it is
+     * one of every {@link #getDecimation()} updates. If recording spikes, the
+     * indices of the neurons which spiked are recorded, and updates without
+     * spikes are skipped; otherwise the neurons' activation values are
+     * recorded as a row of a state matrix. The values are written out by a
+     * separate thread.
+     */
+    public void writeActsToFile() {
+        if (sink == null || updateCounter++ % recordingDecimation != 0) {
+            return;
+        }
+        Buffer buffer;
+        try {
+            buffer = takeFree();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (buffer == null) {
+            // The writer thread has stopped, so there is nothing to record to
+            return;
+        }
+        buffer.time = nc.getParentNetwork().getTime();
+        int n = Math.min(numNeurons, nc.size());
+        if (recordAsSpikes) {
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (nc.getNeuron(i).isSpike()) {
+                    buffer.spikes[count++] = i;
                 }
-                valueWriter.print(nc.getNeuron(nc.size() - 1).getActivation());
-                valueWriter.println();
-                writeCounter++;
             }
-        } catch (NullPointerException e) {
-            e.printStackTrace();
+            buffer.numSpikes = count;
+            if (count == 0) {
+                free.add(buffer);
+                return;
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                buffer.activations[i] = nc.getNeuron(i).getActivation();
+            }
         }
+        filled.add(buffer);
     }
 
     public boolean isRecording() {
@@ -168,4 +342,33 @@ public class ActivationRecorder {
     public void setRecordAsSpikes(boolean recordAsSpikes) {
         this.recordAsSpikes = recordAsSpikes;
     }
+
+    public int getDecimation() {
+        return decimation;
+    }
+
+    /**
+     * Set how many updates there are between recorded updates. Takes effect
+     * the next time recording starts.
+     *
+     * @param decimation 1 to record every update, k to record every k-th
+     */
+    public void setDecimation(int decimation) {
+        if (decimation < 1) {
+            throw new IllegalArgumentException("Decimation must be at least 1");
+        }
+        this.decimation = decimation;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
+    /**
+     * Set whether binary recordings started with {@link #startRecording(File)}
+     * are gzip compressed.
+     */
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.util.io_utilities;
+
+import org.simbrain.util.math.NumericMatrix;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads recordings written by {@link BinaryActivationSink}, compressed or not.
+ */
+public class ActivationRecordingReader {
+
+    /**
+     * Read a recording into a matrix. Activations are read as one row per
+     * recorded update and one column per neuron. Spikes are read as one row
+     * per spike, with the index of the neuron in the first column and the
+     * time in the second.
+     *
+     * @param file the recording
+     * @return the recorded data
+     * @throws IOException if the file cannot be read or is not a recording
+     */
+    public static NumericMatrix read(File file) throws IOException {
+        try (DataInputStream in = open(file)) {
+            if (in.readInt() != BinaryActivationSink.MAGIC) {
+                throw new IOException(file + " is not an activation recording");
+            }
+            int version = in.readInt();
+            if (version != BinaryActivationSink.VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            boolean spikes = in.readByte() == 1;
+            int numNeurons = in.readInt();
+            in.readInt(); // decimation
+            List<double[]> rows = new ArrayList<>();
+            try {
+                while (true) {
+                    if (spikes) {
+                        int index = in.readInt();
+                        rows.add(new double[]{index, in.readDouble()});
+                    } else {
+                        double[] row = new double[numNeurons];
+                        for (int i = 0; i < numNeurons; i++) {
+                            row[i] = in.readFloat();
+                        }
+                        rows.add(row);
+                    }
+                }
+            } catch (EOFException e) {
+                // End of the recording. A partly written last row is dropped.
+            }
+            return new Matrix(rows.toArray(new double[0][]));
+        }
+    }
+
+    /**
+     * Open a file, decompressing it if it starts with the gzip magic number.
+     */
+    private static DataInputStream open(File file) throws IOException {
+        InputStream stream = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        stream.mark(2);
+        int magic = stream.read() | (stream.read() << 8);
+        stream.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            stream = new BufferedInputStream(new GZIPInputStream(stream, 1 << 16), 1 << 16);
+        }
+        return new DataInputStream(stream);
+    }
+
+    /**
+     * Recorded data.
+     */
+    private static class Matrix implements NumericMatrix {
+
+        private double[][] data;
+
+        Matrix(double[][] data) {
+            this.data = data;
+        }
+
+        @Override
+        public void setData(double[][] data) {
+            this.data = data;
+        }
+
+        @Override
+        public double[][] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.util.io_utilities;
+
+import java.io.IOException;
+
+/**
+ * Destination for the activations recorded by an
+ * {@link org.simbrain.network.util.ActivationRecorder}. Sinks are written to
+ * from the recorder's writer thread, not the network update thread, so they
+ * can take their time formatting or compressing.
+ */
+public interface ActivationSink {
+
+    /**
+     * Called once before anything is written.
+     *
+     * @param numNeurons the number of neurons recorded
+     * @param spikes     whether spikes rather than activations are recorded
+     * @param decimation how many updates there are between recorded ones
+     * @throws IOException if the sink cannot be written
+     */
+    void open(int numNeurons, boolean spikes, int decimation) throws IOException;
+
+    /**
+     * Write the activations of the neurons at one update.
+     *
+     * @param time        network time of the update
+     * @param activations the activations, which are only valid until this
+     *                    method returns
+     * @throws IOException if the sink cannot be written
+     */
+    void writeActivations(double time, double[] activations) throws IOException;
+
+    /**
+     * Write the neurons which spiked at one update. Not called for updates
+     * without spikes.
+     *
+     * @param time    network time of the update
+     * @param indices indices of the neurons which spiked, in increasing order,
+     *                which are only valid until this method returns
+     * @param count   the number of indices
+     * @throws IOException if the sink cannot be written
+     */
+    void writeSpikes(double time, int[] indices, int count) throws IOException;
+
+    /**
+     * Flush buffered output.
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    void flush() throws IOException;
+
+    /**
+     * Flush and release the sink.
+     *
+     * @throws IOException if the sink cannot be written
+     */
+    void close() throws IOException;
+}
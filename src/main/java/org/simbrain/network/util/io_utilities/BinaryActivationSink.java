@@ -0,0 +1,115 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.util.io_utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes recorded activations in a compact binary format, which can be read
+ * back with {@link ActivationRecordingReader}. All values are big-endian.
+ * <p>
+ * The file starts with a header: the int {@link #MAGIC}, an int version, a
+ * byte which is 1 for spikes and 0 for activations, the int number of neurons,
+ * and the int decimation. Activations follow as one row of float32 values per
+ * recorded update. Spikes follow as (int neuron index, float64 time) pairs.
+ * The whole file may be gzip compressed.
+ */
+public class BinaryActivationSink implements ActivationSink {
+
+    /**
+     * Marks the start of a recording ("SBAR").
+     */
+    public static final int MAGIC = 0x53424152;
+
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 1;
+
+    private final File file;
+
+    private final boolean compress;
+
+    private DataOutputStream out;
+
+    /**
+     * Bytes of one row of activations or one update's spikes.
+     */
+    private ByteBuffer row;
+
+    /**
+     * @param file     the file to write to
+     * @param compress whether to gzip the output
+     */
+    public BinaryActivationSink(File file, boolean compress) {
+        this.file = file;
+        this.compress = compress;
+    }
+
+    @Override
+    public void open(int numNeurons, boolean spikes, int decimation) throws IOException {
+        OutputStream stream = new FileOutputStream(file);
+        if (compress) {
+            stream = new GZIPOutputStream(stream, 1 << 16);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeByte(spikes ? 1 : 0);
+        out.writeInt(numNeurons);
+        out.writeInt(decimation);
+        row = ByteBuffer.allocate(numNeurons * (spikes ? 12 : 4));
+    }
+
+    @Override
+    public void writeActivations(double time, double[] activations) throws IOException {
+        row.clear();
+        for (double activation : activations) {
+            row.putFloat((float) activation);
+        }
+        out.write(row.array(), 0, row.position());
+    }
+
+    @Override
+    public void writeSpikes(double time, int[] indices, int count) throws IOException {
+        row.clear();
+        for (int i = 0; i < count; i++) {
+            row.putInt(indices[i]);
+            row.putDouble(time);
+        }
+        out.write(row.array(), 0, row.position());
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.util.io_utilities;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.cpu.nativecpu.NDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.util.io_utilities.GroupSerializer.Precision;
+import org.simbrain.util.Utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes networks in a compact binary format, an alternative to the xml produced by {@link
+ * org.simbrain.network.NetworkComponent} for large networks.
+ * <p>
+ * The structure of the network (neurons, groups, update rules, etc.) is still written by XStream, but all bulk
+ * numeric data is moved out of the xml and written as raw binary: every nd4j array (neuron array activations and
+ * biases, weight matrices), and the synapses of every synapse group that uses group level settings. Such synapses
+ * are stored as (source index, target index, strength) triples grouped by source, with strengths stored at the
+ * chosen {@link Precision}.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int version, byte precision
+ * int xml length, xml bytes (UTF-8)
+ * int number of arrays, then per array: byte data type, int rank, long[rank] shape, values in c order
+ * int number of synapse groups, then per group: UTF id, int number of synapses, int number of sources,
+ *     then per source: int source index, int fan out, then per synapse: int target index, strength
+ * </pre>
+ * Writing is streamed through a small buffer. Files are read through a memory mapped buffer, and arrays are only
+ * copied out of it when XStream reaches the object that refers to them.
+ */
+public class BinaryNetworkSerializer {
+
+    /**
+     * First four bytes of every binary network file ("SBNW").
+     */
+    public static final int MAGIC = 0x53424E57;
+
+    /**
+     * Current version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the buffer used when writing.
+     */
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private static final byte FLOAT_TYPE = 0;
+    private static final byte DOUBLE_TYPE = 1;
+
+    /**
+     * Write a network to a stream. The stream is not closed.
+     *
+     * @param network   the network to write
+     * @param out       the stream to write to
+     * @param precision precision of synapse strengths and array values
+     * @throws IOException if the stream can't be written to
+     */
+    public static void write(Network network, OutputStream out, Precision precision) throws IOException {
+
+        // The synapses of groups that use group level settings are written separately
+        List<SynapseGroup> externalGroups = new ArrayList<>();
+        for (SynapseGroup sg : network.getSynapseGroups()) {
+            if (sg.isUseGroupLevelSettings() && !sg.isUseFullRepOnSave()) {
+                sg.preSaveInitExternal();
+                externalGroups.add(sg);
+            } else {
+                sg.preSaveInit();
+            }
+        }
+        List<INDArray> arrays = new ArrayList<>();
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        try {
+            XStream xstream = Utils.getSimbrainXStream();
+            xstream.registerConverter(new ArrayReferenceConverter(arrays, null));
+            xstream.toXML(network, xml);
+        } finally {
+            network.postSaveReInit();
+        }
+
+        BlockWriter writer = new BlockWriter(out);
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+        writer.put(precision == Precision.FLOAT_64 ? DOUBLE_TYPE : FLOAT_TYPE);
+        writer.putInt(xml.size());
+        writer.flush();
+        xml.writeTo(out);
+
+        writer.putInt(arrays.size());
+        for (INDArray array : arrays) {
+            writeArray(writer, array, precision);
+        }
+
+        writer.putInt(externalGroups.size());
+        for (SynapseGroup sg : externalGroups) {
+            writeSynapses(writer, sg, precision);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Write a network to a file.
+     *
+     * @param network   the network to write
+     * @param path      the file to write to
+     * @param precision precision of synapse strengths and array values
+     * @throws IOException if the file can't be written to
+     */
+    public static void write(Network network, Path path, Precision precision) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            write(network, out, precision);
+        }
+    }
+
+    /**
+     * Read a network from a file, which is memory mapped rather than read into the heap.
+     *
+     * @param path the file to read
+     * @return the network
+     * @throws IOException if the file can't be read or is not a binary network
+     */
+    public static Network read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a network from a stream.
+     *
+     * @param in the stream
+     * @return the network
+     * @throws IOException if the stream can't be read or does not contain a binary network
+     */
+    public static Network read(InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /**
+     * Read a network from a buffer holding a binary network file.
+     *
+     * @param buffer the buffer, positioned at the start of the file
+     * @return the network
+     * @throws IOException if the buffer does not contain a binary network
+     */
+    public static Network read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary network file");
+        }
+        int version = buffer.getInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported binary network version " + version);
+        }
+        Precision precision = buffer.get() == DOUBLE_TYPE ? Precision.FLOAT_64 : Precision.FLOAT_32;
+        int xmlLength = buffer.getInt();
+        byte[] xml = new byte[xmlLength];
+        buffer.get(xml);
+
+        // Note where each array starts, but leave the values in the buffer until needed
+        int numArrays = buffer.getInt();
+        int[] arrayOffsets = new int[numArrays];
+        for (int i = 0; i < numArrays; i++) {
+            arrayOffsets[i] = buffer.position();
+            skipArray(buffer, precision);
+        }
+        ArrayTable table = new ArrayTable(buffer.duplicate(), arrayOffsets, precision);
+
+        XStream xstream = Utils.getSimbrainXStream();
+        xstream.registerConverter(new ArrayReferenceConverter(null, table));
+        Network network = (Network) xstream.fromXML(new ByteArrayInputStream(xml));
+
+        Map<String, SynapseGroup> groups = new HashMap<>();
+        for (SynapseGroup sg : network.getSynapseGroups()) {
+            if (sg.isSynapsesSavedExternally()) {
+                groups.put(sg.getId(), sg);
+            }
+        }
+        int numGroups = buffer.getInt();
+        for (int i = 0; i < numGroups; i++) {
+            String id = readUTF(buffer);
+            SynapseGroup sg = groups.get(id);
+            if (sg == null) {
+                throw new IOException("No synapse group " + id + " in binary network");
+            }
+            readSynapses(buffer, sg, precision);
+            sg.postExternalLoadInit();
+        }
+        return network;
+    }
+
+    /**
+     * Returns true if a stream starts with a binary network. The stream must support mark and reset, and is left at
+     * the position it started at.
+     *
+     * @param in the stream to check
+     * @return true if the first bytes are {@link #MAGIC}
+     * @throws IOException if the stream can't be read
+     */
+    public static boolean isBinaryNetwork(BufferedInputStream in) throws IOException {
+        in.mark(4);
+        byte[] header = in.readNBytes(4);
+        in.reset();
+        return header.length == 4 && ByteBuffer.wrap(header).getInt() == MAGIC;
+    }
+
+    private static void writeArray(BlockWriter writer, INDArray array, Precision precision) throws IOException {
+        writer.put(array.dataType() == DataType.DOUBLE ? DOUBLE_TYPE : FLOAT_TYPE);
+        long[] shape = array.shape();
+        writer.putInt(shape.length);
+        for (long l : shape) {
+            writer.putLong(l);
+        }
+        INDArray values = array.ordering() == 'c' && !array.isView() ? array : array.dup('c');
+        if (precision == Precision.FLOAT_64) {
+            for (double d : values.data().asDouble()) {
+                writer.putDouble(d);
+            }
+        } else {
+            for (float f : values.data().asFloat()) {
+                writer.putFloat(f);
+            }
+        }
+    }
+
+    private static void skipArray(ByteBuffer buffer, Precision precision) {
+        buffer.get();
+        int rank = buffer.getInt();
+        long length = 1;
+        for (int i = 0; i < rank; i++) {
+            length *= buffer.getLong();
+        }
+        buffer.position(buffer.position() + (int) (length * (precision == Precision.FLOAT_64 ? 8 : 4)));
+    }
+
+    private static INDArray readArray(ByteBuffer buffer, Precision precision) {
+        byte type = buffer.get();
+        int rank = buffer.getInt();
+        long[] shape = new long[rank];
+        long length = 1;
+        for (int i = 0; i < rank; i++) {
+            shape[i] = buffer.getLong();
+            length *= shape[i];
+        }
+        INDArray array;
+        if (precision == Precision.FLOAT_64) {
+            double[] values = new double[(int) length];
+            buffer.asDoubleBuffer().get(values);
+            array = Nd4j.create(values, shape, 'c');
+        } else {
+            float[] values = new float[(int) length];
+            buffer.asFloatBuffer().get(values);
+            array = Nd4j.create(values, shape, 'c');
+        }
+        DataType dataType = type == DOUBLE_TYPE ? DataType.DOUBLE : DataType.FLOAT;
+        return array.dataType() == dataType ? array : array.castTo(dataType);
+    }
+
+    /**
+     * Write the synapses of a group, grouped by source neuron.
+     */
+    private static void writeSynapses(BlockWriter writer, SynapseGroup sg, Precision precision) throws IOException {
+        // The synapse sets were moved aside by preSaveInitExternal and restored by postSaveReInit
+        List<Neuron> sources = sg.getSourceNeurons();
+        Map<Neuron, Integer> srcMap = new HashMap<>((int) (sources.size() / 0.75) + 1);
+        for (int i = 0; i < sources.size(); i++) {
+            srcMap.put(sources.get(i), i);
+        }
+        List<Neuron> targets = sg.getTargetNeurons();
+        Map<Neuron, Integer> tarMap = new HashMap<>((int) (targets.size() / 0.75) + 1);
+        for (int i = 0; i < targets.size(); i++) {
+            tarMap.put(targets.get(i), i);
+        }
+
+        // Counting sort of the synapses by source index
+        int[] starts = new int[sources.size() + 1];
+        for (Synapse s : sg.getAllSynapses()) {
+            starts[srcMap.get(s.getSource()) + 1]++;
+        }
+        int numSources = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            if (starts[i + 1] > 0) {
+                numSources++;
+            }
+            starts[i + 1] += starts[i];
+        }
+        Synapse[] sorted = new Synapse[starts[sources.size()]];
+        int[] next = starts.clone();
+        for (Synapse s : sg.getAllSynapses()) {
+            sorted[next[srcMap.get(s.getSource())]++] = s;
+        }
+
+        writer.putUTF(sg.getId());
+        writer.putInt(sorted.length);
+        writer.putInt(numSources);
+        for (int i = 0; i < sources.size(); i++) {
+            int fanOut = starts[i + 1] - starts[i];
+            if (fanOut == 0) {
+                continue;
+            }
+            writer.putInt(i);
+            writer.putInt(fanOut);
+            for (int k = starts[i]; k < starts[i + 1]; k++) {
+                writer.putInt(tarMap.get(sorted[k].getTarget()));
+                if (precision == Precision.FLOAT_64) {
+                    writer.putDouble(sorted[k].getStrength());
+                } else {
+                    writer.putFloat((float) sorted[k].getStrength());
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the synapses of a group directly from the buffer.
+     */
+    private static void readSynapses(ByteBuffer buffer, SynapseGroup sg, Precision precision) throws IOException {
+        List<Neuron> sources = sg.getSourceNeurons();
+        List<Neuron> targets = sg.getTargetNeurons();
+        int numSynapses = buffer.getInt();
+        int numSources = buffer.getInt();
+        int read = 0;
+        for (int i = 0; i < numSources; i++) {
+            Neuron src = sources.get(buffer.getInt());
+            int fanOut = buffer.getInt();
+            for (int k = 0; k < fanOut; k++) {
+                Synapse s = new Synapse(src, targets.get(buffer.getInt()));
+                s.forceSetStrength(precision == Precision.FLOAT_64 ? buffer.getDouble() : buffer.getFloat());
+                // Unlike addSynapseUnsafe, keep synapses with zero strength
+                if (s.getStrength() < 0) {
+                    sg.addInhibitorySynapseUnsafe(s);
+                } else {
+                    sg.addExcitatorySynapseUnsafe(s);
+                }
+            }
+            read += fanOut;
+        }
+        if (read != numSynapses) {
+            throw new IOException("Synapse group " + sg.getId() + " should have " + numSynapses + " synapses but "
+                    + read + " were read. Check file integrity.");
+        }
+    }
+
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Arrays stored after the xml, copied out of the buffer the first time they are needed.
+     */
+    private static class ArrayTable {
+
+        private final ByteBuffer buffer;
+        private final int[] offsets;
+        private final INDArray[] arrays;
+        private final Precision precision;
+
+        ArrayTable(ByteBuffer buffer, int[] offsets, Precision precision) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.arrays = new INDArray[offsets.length];
+            this.precision = precision;
+        }
+
+        INDArray get(int index) {
+            if (arrays[index] == null) {
+                buffer.position(offsets[index]);
+                arrays[index] = readArray(buffer, precision);
+            }
+            return arrays[index];
+        }
+    }
+
+    /**
+     * Replaces nd4j arrays in the xml with their index in the binary array table.
+     */
+    private static class ArrayReferenceConverter implements Converter {
+
+        /**
+         * Arrays found while writing, or null when reading.
+         */
+        private final List<INDArray> written;
+
+        /**
+         * Arrays to read from, or null when writing.
+         */
+        private final ArrayTable table;
+
+        ArrayReferenceConverter(List<INDArray> written, ArrayTable table) {
+            this.written = written;
+            this.table = table;
+        }
+
+        @Override
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            written.add((INDArray) source);
+            writer.setValue(Integer.toString(written.size() - 1));
+        }
+
+        @Override
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            return table.get(Integer.parseInt(reader.getValue()));
+        }
+
+        @Override
+        public boolean canConvert(Class type) {
+            return type != null && (type.equals(INDArray.class) || NDArray.class.isAssignableFrom(type));
+        }
+    }
+
+    /**
+     * Writes primitives to a stream through a fixed size buffer.
+     */
+    private static class BlockWriter {
+
+        private final OutputStream out;
+        private final ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+
+        BlockWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (block.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            block.put(b);
+        }
+
+        void putInt(int i) throws IOException {
+            ensure(4);
+            block.putInt(i);
+        }
+
+        void putLong(long l) throws IOException {
+            ensure(8);
+            block.putLong(l);
+        }
+
+        void putFloat(float f) throws IOException {
+            ensure(4);
+            block.putFloat(f);
+        }
+
+        void putDouble(double d) throws IOException {
+            ensure(8);
+            block.putDouble(d);
+        }
+
+        void putUTF(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            ensure(2 + bytes.length);
+            block.putShort((short) bytes.length);
+            block.put(bytes);
+        }
+
+        void flush() throws IOException {
+            out.write(block.array(), 0, block.position());
+            block.clear();
+        }
+    }
+}
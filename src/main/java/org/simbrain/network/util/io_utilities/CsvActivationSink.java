@@ -0,0 +1,85 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.network.util.io_utilities;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes recorded activations as text. Activations are written one update per
+ * line, separated by commas. Spikes are written one update per line as the
+ * time followed by the indices of the neurons which spiked, separated by
+ * spaces.
+ */
+public class CsvActivationSink implements ActivationSink {
+
+    private final File file;
+
+    private PrintWriter writer;
+
+    /**
+     * @param file the file to write to
+     */
+    public CsvActivationSink(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public void open(int numNeurons, boolean spikes, int decimation) throws IOException {
+        writer = new PrintWriter(new FileWriter(file));
+    }
+
+    @Override
+    public void writeActivations(double time, double[] activations) {
+        for (int i = 0; i < activations.length - 1; i++) {
+            writer.print(activations[i] + ", ");
+        }
+        if (activations.length > 0) {
+            writer.print(activations[activations.length - 1]);
+        }
+        writer.println();
+    }
+
+    @Override
+    public void writeSpikes(double time, int[] indices, int count) {
+        writer.print(time);
+        writer.print(" ");
+        for (int i = 0; i < count; i++) {
+            writer.print(indices[i]);
+            writer.print(" ");
+        }
+        writer.println();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Could not write to " + file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        writer.close();
+    }
+}
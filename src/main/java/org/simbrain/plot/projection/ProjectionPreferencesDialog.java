@@ -15,6 +15,7 @@ package org.simbrain.plot.projection;
 
 import org.simbrain.util.LabelledItemPanel;
 import org.simbrain.util.StandardDialog;
+import org.simbrain.util.projection.DistanceStorage;
 import org.simbrain.util.projection.ProjectCoordinate;
 import org.simbrain.util.projection.Projector;
 
@@ -43,6 +44,11 @@ public class ProjectionPreferencesDialog extends StandardDialog {
      */
     private JCheckBox autoFind = new JCheckBox();
 
+    /**
+     * Combo box to choose how high dimensional distances are stored.
+     */
+    private JComboBox<DistanceStorage.Type> distanceStorage = new JComboBox<>(DistanceStorage.Type.values());
+
     /**
      * Reference to projector being represented.
      */
@@ -60,6 +66,7 @@ public class ProjectionPreferencesDialog extends StandardDialog {
         tolerance.setToolTipText(toleranceToolTip);
         toleranceLabel.setToolTipText(toleranceToolTip);
         mainPanel.addItemLabel(toleranceLabel, tolerance);
+        mainPanel.addItem("Distance storage", distanceStorage);
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             mainPanel.addItem("Coordinate projection auto-find mode", autoFind);
         }
@@ -72,6 +79,7 @@ public class ProjectionPreferencesDialog extends StandardDialog {
      */
     private void fillFieldValues() {
         tolerance.setText("" + projector.getTolerance());
+        distanceStorage.setSelectedItem(projector.getDistanceStorageType());
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             autoFind.setSelected(((ProjectCoordinate) projector.getProjectionMethod()).isAutoFind());
         }
@@ -80,6 +88,7 @@ public class ProjectionPreferencesDialog extends StandardDialog {
     @Override
     protected void closeDialogOk() {
         projector.setTolerance(Double.parseDouble(tolerance.getText()));
+        projector.setDistanceStorageType((DistanceStorage.Type) distanceStorage.getSelectedItem());
         if (projector.getProjectionMethod() instanceof ProjectCoordinate) {
             ((ProjectCoordinate) projector.getProjectionMethod()).setAutoFind(autoFind.isSelected());
         }
@@ -56,7 +56,7 @@ public class ExponentialDistribution extends ProbabilityDistribution {
     @Override
     public double nextRand() {
         return clipping(this,
-                ExponentialGen.nextDouble(DEFAULT_RANDOM_STREAM, lambda),
+                ExponentialGen.nextDouble(getRandomStream(), lambda),
                 floor,
                 ceil
                 );
@@ -62,7 +62,7 @@ public class GammaDistribution extends ProbabilityDistribution {
     @Override
     public double nextRand() {
         return clipping(this,
-                GammaGen.nextDouble(DEFAULT_RANDOM_STREAM, shape, scale),
+                GammaGen.nextDouble(getRandomStream(), shape, scale),
                 floor,
                 ceil
                 );
@@ -59,7 +59,7 @@ public class LogNormalDistribution extends ProbabilityDistribution {
     @Override
     public double nextRand() {
         return clipping(this,
-                LognormalGen.nextDouble(DEFAULT_RANDOM_STREAM, location, scale),
+                LognormalGen.nextDouble(getRandomStream(), location, scale),
                 floor,
                 ceil
                 );
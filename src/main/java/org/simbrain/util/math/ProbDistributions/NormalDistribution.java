@@ -6,8 +6,6 @@ import org.simbrain.util.math.ProbabilityDistribution;
 import umontreal.ssj.probdist.Distribution;
 import umontreal.ssj.probdist.NormalDist;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 public class NormalDistribution extends ProbabilityDistribution {
 
     @UserParameter(
@@ -63,7 +61,7 @@ public class NormalDistribution extends ProbabilityDistribution {
 
     public double nextRand() {
         return clipping(this,
-                (ThreadLocalRandom.current().nextGaussian() * standardDeviation) + mean,
+                (getRandomStream().nextGaussian() * standardDeviation) + mean,
                 floor,
                 ceil
                 );
@@ -73,6 +71,16 @@ public class NormalDistribution extends ProbabilityDistribution {
         return (int) nextRand();
     }
 
+    @Override
+    public void fill(double[] values) {
+        getRandomStream().fillGaussian(values, mean, standardDeviation);
+        if (clipping) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = clipping(this, values[i], floor, ceil);
+            }
+        }
+    }
+
     public Distribution getBestFit(double[] observations, int numObs) {
         return NormalDist.getInstanceFromMLE(observations, numObs);
     }
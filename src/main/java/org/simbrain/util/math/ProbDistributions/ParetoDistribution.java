@@ -60,7 +60,7 @@ public class ParetoDistribution extends ProbabilityDistribution{
     @Override
     public double nextRand() {
         return clipping(this,
-                ParetoGen.nextDouble(DEFAULT_RANDOM_STREAM, slope, min),
+                ParetoGen.nextDouble(getRandomStream(), slope, min),
                 floor,
                 ceil
                 );
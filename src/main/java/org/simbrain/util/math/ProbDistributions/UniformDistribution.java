@@ -5,8 +5,6 @@ import org.simbrain.util.UserParameter;
 import org.simbrain.util.math.ProbabilityDistribution;
 import umontreal.ssj.probdist.UniformDist;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 public class UniformDistribution extends ProbabilityDistribution {
 
     /**
@@ -41,13 +39,18 @@ public class UniformDistribution extends ProbabilityDistribution {
     }
 
     public double nextRand() {
-        return ThreadLocalRandom.current().nextDouble(this.floor, this.ceil);
+        return getRandomStream().nextDouble(this.floor, this.ceil);
     }
 
     public int nextRandInt() {
         return (int) nextRand();
     }
 
+    @Override
+    public void fill(double[] values) {
+        getRandomStream().fillUniform(values, floor, ceil);
+    }
+
     public UniformDist getBestFit(double[] observations, int numObs) {
         return UniformDist.getInstanceFromMLE(observations, numObs);
     }
@@ -11,10 +11,14 @@ import umontreal.ssj.rng.RandomStream;
 import java.util.Arrays;
 import java.util.List;
 
-//TODO: Allow seed to be set
-
 /**
  * Base class for all ProbabilityDistribution.
+ * <p>
+ * Each distribution draws from its own {@link RandomSource}, split from the
+ * root stream when the distribution is created (copies get streams of their
+ * own), so that distributions used by different neurons can be sampled from
+ * different threads without contention, and so that a simulation can be
+ * reproduced by seeding the root with {@link RandomSource#setSeed(long)}.
  */
 public abstract class ProbabilityDistribution implements CopyableObject {
 
@@ -33,8 +37,68 @@ public abstract class ProbabilityDistribution implements CopyableObject {
         return DIST_LIST;
     }
 
+    /**
+     * A generator shared by all code that uses it, which can't be seeded.
+     *
+     * @deprecated distributions draw from their own stream, see {@link #getRandomStream()}
+     */
+    @Deprecated
     public static final RandomStream DEFAULT_RANDOM_STREAM = new LFSR113();
 
+    /**
+     * The stream random numbers are drawn from.
+     */
+    private transient RandomSource randomStream = RandomSource.newStream();
+
+    /**
+     * Returns the stream this distribution draws from.
+     */
+    public RandomSource getRandomStream() {
+        if (randomStream == null) {
+            randomStream = RandomSource.newStream();
+        }
+        return randomStream;
+    }
+
+    /**
+     * Seed this distribution, independently of the root stream.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        randomStream = new RandomSource(seed);
+    }
+
+    /**
+     * Set the stream this distribution draws from.
+     *
+     * @param randomStream the stream
+     */
+    public void setRandomStream(RandomSource randomStream) {
+        this.randomStream = randomStream;
+    }
+
+    /**
+     * Fill an array with random numbers from this distribution, e.g. the noise
+     * for a layer of neurons for one update.
+     *
+     * @param values the array to fill
+     */
+    public void fill(double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = nextRand();
+        }
+    }
+
+    /**
+     * Give a deserialized distribution its stream while it is loaded, so that
+     * streams are created in the same order as the distributions.
+     */
+    protected Object readResolve() {
+        getRandomStream();
+        return this;
+    }
+
     /**
      * Get a random double number from a probability distribution
      *
@@ -0,0 +1,350 @@
+package org.simbrain.util.math;
+
+import umontreal.ssj.rng.RandomStream;
+
+import java.util.Random;
+
+/**
+ * A fast, splittable stream of random numbers, using the SplitMix64 algorithm of {@link java.util.SplittableRandom}.
+ * Unlike a generator shared by the whole application, each model object that draws random numbers while a network
+ * updates (a noise distribution, a stochastic neuron rule, and so on) owns its own stream. Streams are not thread
+ * safe, but since an object is updated by one thread at a time no locking is needed, and the numbers each object
+ * draws do not depend on which threads updated it or how many there were.
+ * <p>
+ * New streams are split from a root stream, which can be seeded with {@link #setSeed(long)}. Objects created in the
+ * same order after the root is seeded get the same streams, so a simulation built after setting the seed can be
+ * reproduced exactly, whether it is updated on one thread or many. By default the root is seeded from the clock.
+ * <p>
+ * Streams can also be keyed, see {@link #forKey(long, long)}, for cases where the order in which streams are
+ * created is not fixed, e.g. one stream per sequence processed in parallel. Likewise, while a thread is in a scope
+ * (see {@link #beginScope(String)}), e.g. while it opens one component of a workspace, new streams are split from a
+ * root for that scope, which depends only on the root seed and the scope's key. The streams an object gets therefore
+ * depend on the key and on the order of creation within the scope, and not on what other threads are doing.
+ * <p>
+ * A stream is also an SSJ {@link RandomStream}, so it can be passed to the SSJ random variate generators.
+ */
+public final class RandomSource implements RandomStream {
+
+    /**
+     * The odd constant that streams step by unless split off with another.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Stream from which new streams are split.
+     */
+    private static RandomSource root = new RandomSource(System.nanoTime() ^ GOLDEN_GAMMA * System.currentTimeMillis());
+
+    /**
+     * The seed the root was last reset with.
+     */
+    private static long rootSeed;
+
+    /**
+     * The root of the current thread's scope, if it is in one.
+     */
+    private static final ThreadLocal<RandomSource> scopeRoot = new ThreadLocal<>();
+
+    private final long initialSeed;
+
+    private final long gamma;
+
+    private long seed;
+
+    /**
+     * A second normally distributed value from the last pair generated.
+     */
+    private double nextGaussian;
+
+    private boolean haveNextGaussian;
+
+    /**
+     * Create a stream from a seed.
+     *
+     * @param seed the seed
+     */
+    public RandomSource(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private RandomSource(long seed, long gamma) {
+        this.initialSeed = seed;
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Create a stream determined by a seed and a key, e.g. the index of an item in a batch. Streams with different
+     * keys are independent.
+     *
+     * @param seed the seed, e.g. one drawn from another stream with {@link #nextLong()}
+     * @param key  the key
+     * @return the stream
+     */
+    public static RandomSource forKey(long seed, long key) {
+        return new RandomSource(mix64(seed + key * GOLDEN_GAMMA), mixGamma(seed ^ mix64(key)));
+    }
+
+    /**
+     * Seed the root stream. Streams created afterwards by {@link #newStream()}, and hence by new distributions and
+     * rules, depend only on the seed and the order in which they are created.
+     *
+     * @param seed the seed
+     */
+    public static synchronized void setSeed(long seed) {
+        rootSeed = seed;
+        root = new RandomSource(seed);
+    }
+
+    /**
+     * Returns the seed last passed to {@link #setSeed(long)}, or 0 if the root was seeded from the clock.
+     */
+    public static synchronized long getSeed() {
+        return rootSeed;
+    }
+
+    /**
+     * Create a new stream split from the root.
+     *
+     * @return the stream
+     */
+    public static RandomSource newStream() {
+        RandomSource scope = scopeRoot.get();
+        if (scope != null) {
+            return scope.split();
+        }
+        synchronized (RandomSource.class) {
+            return root.split();
+        }
+    }
+
+    /**
+     * Make {@link #newStream()} on the current thread split streams from a root determined by the root seed and a
+     * key, until {@link #endScope()} is called.
+     *
+     * @param key the key, e.g. the name of a component being opened
+     */
+    public static void beginScope(String key) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        long seed;
+        synchronized (RandomSource.class) {
+            seed = root.initialSeed;
+        }
+        scopeRoot.set(forKey(seed, hash));
+    }
+
+    /**
+     * Leave the current thread's scope, see {@link #beginScope(String)}.
+     */
+    public static void endScope() {
+        scopeRoot.remove();
+    }
+
+    /**
+     * Draw a uniformly distributed number in [0, 1) from the root. A replacement for {@link Math#random()} in code
+     * that runs while a simulation is built, e.g. to randomize weights, so that it can be reproduced from a seed. Code
+     * that runs on every update should use its own stream.
+     *
+     * @return the random number
+     */
+    public static synchronized double uniform() {
+        return root.nextDouble();
+    }
+
+    /**
+     * Create a new stream from this one. The two streams are statistically independent.
+     *
+     * @return the new stream
+     */
+    public RandomSource split() {
+        return new RandomSource(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    /**
+     * Returns a {@link Random} seeded from this stream, e.g. for {@link java.util.Collections#shuffle(java.util.List,
+     * Random)}.
+     */
+    public Random newRandom() {
+        return new Random(nextLong());
+    }
+
+    /**
+     * Returns a uniformly distributed long.
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    @Override
+    public double nextDouble() {
+        return (mix64(nextSeed()) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns a uniformly distributed number in [floor, ceiling).
+     *
+     * @param floor   the lower bound
+     * @param ceiling the upper bound
+     * @return the random number
+     */
+    public double nextDouble(double floor, double ceiling) {
+        return floor + nextDouble() * (ceiling - floor);
+    }
+
+    /**
+     * Returns a uniformly distributed integer in [0, bound).
+     *
+     * @param bound the upper bound, exclusive; must be positive
+     * @return the random integer
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int m = bound - 1;
+        int r = (int) (mix64(nextSeed()) >>> 32);
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        // Reject values from the incomplete last interval so all results are equally likely
+        int u = r >>> 1;
+        while (u + m - (r = u % bound) < 0) {
+            u = (int) (mix64(nextSeed()) >>> 33);
+        }
+        return r;
+    }
+
+    /**
+     * Returns a uniformly distributed integer in [i, j], as required by {@link RandomStream}.
+     */
+    @Override
+    public int nextInt(int i, int j) {
+        return i + nextInt(j - i + 1);
+    }
+
+    /**
+     * Returns true with probability one half.
+     */
+    public boolean nextBoolean() {
+        return mix64(nextSeed()) < 0;
+    }
+
+    /**
+     * Returns a normally distributed number with mean 0 and standard deviation 1.
+     */
+    public double nextGaussian() {
+        if (haveNextGaussian) {
+            haveNextGaussian = false;
+            return nextGaussian;
+        }
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        nextGaussian = v2 * multiplier;
+        haveNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * Fill an array with uniformly distributed numbers in [floor, ceiling), e.g. the noise for every neuron in a
+     * layer for one update.
+     *
+     * @param values  the array to fill
+     * @param floor   the lower bound
+     * @param ceiling the upper bound
+     */
+    public void fillUniform(double[] values, double floor, double ceiling) {
+        double range = ceiling - floor;
+        long s = seed;
+        for (int i = 0; i < values.length; i++) {
+            s += gamma;
+            values[i] = floor + ((mix64(s) >>> 11) * 0x1.0p-53) * range;
+        }
+        seed = s;
+    }
+
+    /**
+     * Fill an array with normally distributed numbers.
+     *
+     * @param values            the array to fill
+     * @param mean              the mean
+     * @param standardDeviation the standard deviation
+     */
+    public void fillGaussian(double[] values, double mean, double standardDeviation) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = mean + standardDeviation * nextGaussian();
+        }
+    }
+
+    @Override
+    public void nextArrayOfDouble(double[] u, int start, int n) {
+        for (int i = start; i < start + n; i++) {
+            u[i] = nextDouble();
+        }
+    }
+
+    @Override
+    public void nextArrayOfInt(int i, int j, int[] u, int start, int n) {
+        for (int k = start; k < start + n; k++) {
+            u[k] = nextInt(i, j);
+        }
+    }
+
+    /**
+     * Go back to the start of the stream.
+     */
+    @Override
+    public void resetStartStream() {
+        seed = initialSeed;
+        haveNextGaussian = false;
+    }
+
+    /**
+     * Streams have no substreams, so this goes back to the start of the stream.
+     */
+    @Override
+    public void resetStartSubstream() {
+        resetStartStream();
+    }
+
+    /**
+     * Streams have no substreams, so this goes back to the start of the stream.
+     */
+    @Override
+    public void resetNextSubstream() {
+        resetStartStream();
+    }
+
+    @Override
+    public String toString() {
+        return "RandomSource[seed=" + initialSeed + "]";
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * An odd gamma with enough bit transitions to give a good stream, as in SplittableRandom.
+     */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -200,7 +200,7 @@ public enum SquashingFunctionEnum {
 
         @Override
         public void valueOf(INDArray in, INDArray out, double ceil, double floor, double slope) {
-            SquashingFunctions.derivTanh(in, out, ceil, floor, slope);
+            SquashingFunctions.tanh(in, out, ceil, floor, slope);
         }
 
         @Override
@@ -0,0 +1,102 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the distances from recently used points only, so that memory is
+ * bounded however large the dataset grows. Each point i has a row of
+ * distances to the points j &lt; i, filled in as they are asked for, and only
+ * the most recently used rows are kept. Suited to methods that use the
+ * distances from a few points at a time, e.g. the last point added.
+ */
+public class CachedDistanceStorage implements DistanceStorage {
+
+    /**
+     * Default number of rows kept.
+     */
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    /**
+     * Rows in order of last use.
+     */
+    private final LinkedHashMap<Integer, double[]> rows;
+
+    /**
+     * Construct a storage which keeps {@link #DEFAULT_MAX_ROWS} rows.
+     */
+    public CachedDistanceStorage() {
+        this(DEFAULT_MAX_ROWS);
+    }
+
+    /**
+     * @param maxRows number of rows to keep
+     */
+    public CachedDistanceStorage(int maxRows) {
+        rows = new LinkedHashMap<Integer, double[]>(16, .75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, double[]> eldest) {
+                return size() > maxRows;
+            }
+        };
+    }
+
+    @Override
+    public synchronized double get(int i, int j, Calculator calculator) {
+        double[] row = rows.get(i);
+        if (row == null) {
+            row = new double[i];
+            Arrays.fill(row, Double.NaN);
+            rows.put(i, row);
+        }
+        double d = row[j];
+        if (Double.isNaN(d)) {
+            d = calculator.distance(i, j);
+            row[j] = d;
+        }
+        return d;
+    }
+
+    @Override
+    public synchronized void invalidate(int point, int numPoints) {
+        rows.remove(point);
+        for (Map.Entry<Integer, double[]> entry : rows.entrySet()) {
+            if (entry.getKey() > point) {
+                entry.getValue()[point] = Double.NaN;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        rows.clear();
+    }
+
+    @Override
+    public synchronized long getSizeInBytes() {
+        long size = 0;
+        for (double[] row : rows.values()) {
+            size += 8L * row.length;
+        }
+        return size;
+    }
+}
@@ -38,6 +38,17 @@ public class DataPoint {
      */
     private String label = "";
 
+    /**
+     * The dataset this point was last added to, which is told when the data
+     * changes so it can forget distances to this point.
+     */
+    private transient Dataset dataset;
+
+    /**
+     * Index of this point in {@link #dataset}.
+     */
+    private transient int index;
+
     /**
      * Initialize a datapoint.
      *
@@ -61,6 +72,18 @@ public class DataPoint {
     // TODO: Dangerous to have this public...?
     public void setData(double[] data) {
         this.data = data;
+        if (dataset != null) {
+            dataset.pointChanged(index);
+        }
+    }
+
+    /**
+     * Record the dataset this point belongs to and its index there, or
+     * detach the point if the dataset is null.
+     */
+    void setDataset(Dataset dataset, int index) {
+        this.dataset = dataset;
+        this.index = index;
     }
 
     public double[] getData() {
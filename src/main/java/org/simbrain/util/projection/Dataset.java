@@ -31,7 +31,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -56,9 +55,14 @@ public class Dataset {
     private int dimensions;
 
     /**
-     * Matrix of interpoint distances.
+     * Interpoint distances, computed as they are asked for.
      */
-    private transient double[] distances = new double[10240];
+    private transient DistanceStorage distanceStorage;
+
+    /**
+     * Computes distances that are not in {@link #distanceStorage}.
+     */
+    private transient DistanceStorage.Calculator distanceCalculator;
 
     /**
      * Persistent form of data, which is read back in to the dataset to recreate all necessary structures.
@@ -124,30 +128,6 @@ public class Dataset {
         return ntree.get(i);
     }
 
-    /**
-     * Returns the logical end of the distance array
-     *
-     * @return the logical end of the distance array
-     */
-    private int getDistanceEnd() {
-        int lastPoint = getNumPoints() - 1;
-        return getDistanceIndex(lastPoint) + lastPoint;
-    }
-
-    /**
-     * Makes sure there is enough space in the distances array
-     */
-    private void ensureDistances() {
-        if (getDistanceEnd() > distances.length) {
-            int newLength = distances.length * 4;
-            double[] newDistances = new double[newLength];
-            System.arraycopy(distances, 0, newDistances, 0, distances.length);
-            Arrays.fill(newDistances, distances.length, newLength, -1);
-            distances = newDistances;
-        }
-    }
-
-
     /**
      * Add a new datapoint to the dataset.
      *
@@ -176,6 +156,7 @@ public class Dataset {
      */
     private DataPoint _addPoint(DataPoint point) {
         DataPoint existingPoint = ntree.add(point);
+        point.setDataset(this, getNumPoints() - 1);
         // TODO: This is called by addPoint which already does a uniqueness
         // check, which makes this redundant. Another API oddity.  All this
         // needs a cleanup pass
@@ -183,7 +164,6 @@ public class Dataset {
             setCurrentPoint(existingPoint);
             return existingPoint;
         }
-        ensureDistances();
         lastAddedPoint = point;
         setCurrentPoint(point);
         return null;
@@ -220,8 +200,21 @@ public class Dataset {
      * @param point the new point
      */
     private void _setPoint(int index, DataPoint point) {
+        ntree.get(index).setDataset(null, 0);
         ntree.set(index, point);
-        ensureDistances();
+        point.setDataset(this, index);
+        getDistanceStorage().invalidate(index, getNumPoints());
+    }
+
+    /**
+     * Forget the distances to a point whose data has been changed in place.
+     *
+     * @param index index of the point
+     */
+    void pointChanged(int index) {
+        if (index < getNumPoints()) {
+            getDistanceStorage().invalidate(index, getNumPoints());
+        }
     }
 
     /**
@@ -256,77 +249,45 @@ public class Dataset {
         lastPoint = null;
         currentPoint = null;
         lastAddedPoint = null;
-        ntree = new NTree(dimensions);
-        if (distances == null) {
-            distances = new double[10240];
-        }
-        Arrays.fill(distances, -1);
-    }
-
-    /**
-     * calculates the index of the start index for distances from the given point
-     *
-     * @param point the point to find the start index for
-     * @return the index to the distances array for the given point
-     */
-    private int getDistanceIndex(int point) {
-        switch (point) {
-            case 0:
-                return -1; /* no start for point 0 */
-            case 1:
-                return 0;
-            default:
-                int n = point - 1;
-                return ((n * n) + n) / 2;
+        if (ntree != null) {
+            // ntree is null when the dataset has just been opened
+            for (DataPoint point : ntree) {
+                point.setDataset(null, 0);
+            }
         }
+        ntree = new NTree(dimensions);
+        getDistanceStorage().clear();
     }
 
     /**
-     * Calculates the distances between pointA and pointB. A must be greater than B
+     * Returns the storage for interpoint distances. By default distances are
+     * kept in double precision for all pairs of points.
      *
-     * @param pointA the first point
-     * @param pointB the second point
+     * @return the distance storage
      */
-    private double calculateDistance(int pointA, int pointB) {
-        if (pointA <= pointB) {
-            throw new IllegalArgumentException("pointA must be greater than pointB - A: " + pointA + " B: " + pointB);
+    public DistanceStorage getDistanceStorage() {
+        if (distanceStorage == null) {
+            distanceStorage = new PackedDistanceStorage();
         }
-
-        int start = getDistanceIndex(pointA);
-
-        double distance = getDistance(ntree.get(pointA), ntree.get(pointB));
-        distances[start + pointB] = distance;
-
-        return distance;
+        return distanceStorage;
     }
 
     /**
-     * Calculates and stores all the distances to all other points with the given point
+     * Set how interpoint distances are stored. Distances already computed are
+     * not copied to the new storage, and the old storage is closed if it holds
+     * resources such as a file.
      *
-     * @param point the point to calculate distances for
-     */
-    private void calculateDistances(int point) {
-        int start = getDistanceIndex(point);
-
-        for (int i = 0; i < point; i++) {
-            distances[start + i] = getDistance(ntree.get(point), ntree.get(i));
-        }
-
-        int numPoints = getNumPoints();
-
-        for (int i = point + 1; i < numPoints; i++) {
-            start = getDistanceIndex(i);
-            distances[start + point] = getDistance(ntree.get(point), ntree.get(i));
-        }
-    }
-
-    /**
-     * calculates all distances for the current set of points
+     * @param distanceStorage the new storage
      */
-    private void calculateDistances() {
-        for (int point = 0; point < ntree.size(); point++) {
-            calculateDistances(point);
+    public void setDistanceStorage(DistanceStorage distanceStorage) {
+        if (this.distanceStorage instanceof AutoCloseable && this.distanceStorage != distanceStorage) {
+            try {
+                ((AutoCloseable) this.distanceStorage).close();
+            } catch (Exception e) {
+                Logger.warn("Could not close distance storage: " + e.getMessage());
+            }
         }
+        this.distanceStorage = distanceStorage;
     }
 
     /**
@@ -344,9 +305,8 @@ public class Dataset {
             getPoint(i).setData(data);
         }
 
-        Arrays.fill(distances, -1);
-
-        calculateDistances();
+        ntree.reindex();
+        getDistanceStorage().clear();
     }
 
     /**
@@ -356,12 +316,12 @@ public class Dataset {
      */
     public double getMinimumDistance() {
         double l = Double.POSITIVE_INFINITY;
-        int stop = getDistanceEnd();
-
-        calculateDistances();
+        int numPoints = getNumPoints();
 
-        for (int i = 0; i < stop; i++) {
-            l = Math.min(l, distances[i]);
+        for (int i = 1; i < numPoints; i++) {
+            for (int j = 0; j < i; j++) {
+                l = Math.min(l, getDistance(i, j));
+            }
         }
 
         return l;
@@ -374,12 +334,12 @@ public class Dataset {
      */
     public double getMaximumDistance() {
         double l = 0;
-        int stop = getDistanceEnd();
-
-        calculateDistances();
+        int numPoints = getNumPoints();
 
-        for (int i = 0; i < stop; i++) {
-            l = Math.max(l, distances[i]);
+        for (int i = 1; i < numPoints; i++) {
+            for (int j = 0; j < i; j++) {
+                l = Math.max(l, getDistance(i, j));
+            }
         }
 
         return l;
@@ -447,6 +407,7 @@ public class Dataset {
                     newPoint[k] = getComponent(i, k) + ((Math.random() - 0.5) * factor);
                     getPoint(i).setData(newPoint);
                 }
+                getDistanceStorage().invalidate(i, numPoints);
             } else {
                 continue;
             }
@@ -578,13 +539,10 @@ public class Dataset {
             index1 = swap;
         }
 
-        double d = distances[getDistanceIndex(index1) + index2];
-
-        if (d < 0) {
-            return calculateDistance(index1, index2);
-        } else {
-            return d;
+        if (distanceCalculator == null) {
+            distanceCalculator = (i, j) -> getDistance(ntree.get(i), ntree.get(j));
         }
+        return getDistanceStorage().get(index1, index2, distanceCalculator);
     }
 
     /**
@@ -612,8 +570,6 @@ public class Dataset {
      * @return a matrix of interpoint distances
      */
     public double[][] getDistances() {
-        calculateDistances();
-
         int numPoints = getNumPoints();
         double[][] temp = new double[numPoints][numPoints];
 
@@ -631,12 +587,12 @@ public class Dataset {
      */
     public double getSumDistances() {
         double sum = 0;
-        int stop = getDistanceEnd();
-
-        calculateDistances();
+        int numPoints = getNumPoints();
 
-        for (int i = 0; i < stop; i++) {
-            sum += distances[i];
+        for (int i = 1; i < numPoints; i++) {
+            for (int j = 0; j < i; j++) {
+                sum += getDistance(i, j);
+            }
         }
 
         return sum;
@@ -861,8 +817,18 @@ public class Dataset {
      */
     public void setData(final double[][] data) {
         clear();
+        List<DataPoint> points = new ArrayList<>(data.length);
         for (double[] row : data) {
-            this.addPoint(new DataPoint(row));
+            DataPoint point = new DataPoint(row);
+            checkDimension(point);
+            points.add(point);
+        }
+        ntree.addAll(points);
+        for (int i = 0; i < points.size(); i++) {
+            DataPoint point = points.get(i);
+            point.setDataset(this, i);
+            lastAddedPoint = point;
+            setCurrentPoint(point);
         }
     }
 
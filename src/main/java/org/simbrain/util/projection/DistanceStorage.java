@@ -0,0 +1,122 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+/**
+ * Stores the interpoint distances of a {@link Dataset}. Distances are computed
+ * on demand, when first asked for, so a dataset whose distances are never used
+ * never allocates storage for them.
+ * <p>
+ * Distances are indexed by a pair of point indices i &gt; j, as in a lower
+ * triangular matrix. Implementations trade memory for precision or speed: see
+ * {@link PackedDistanceStorage}, {@link MappedDistanceStorage} and {@link
+ * CachedDistanceStorage}.
+ */
+public interface DistanceStorage {
+
+    /**
+     * The kinds of storage a projector can use for its high dimensional
+     * dataset.
+     */
+    enum Type {
+
+        DOUBLE("Double precision"),
+
+        FLOAT("Single precision (half the memory)"),
+
+        MAPPED("Memory-mapped file (for very large datasets)"),
+
+        CACHED("Recent points only (bounded memory)");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        /**
+         * @return a new, empty storage of this type
+         */
+        public DistanceStorage create() {
+            switch (this) {
+                case FLOAT:
+                    return new PackedDistanceStorage(true);
+                case MAPPED:
+                    return new MappedDistanceStorage();
+                case CACHED:
+                    return new CachedDistanceStorage();
+                default:
+                    return new PackedDistanceStorage();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Computes the distance between two points of a dataset.
+     */
+    @FunctionalInterface
+    interface Calculator {
+        double distance(int i, int j);
+    }
+
+    /**
+     * Get the distance between two points, computing and storing it if it is
+     * not stored.
+     *
+     * @param i          index of the first point
+     * @param j          index of the second point, less than i
+     * @param calculator computes distances that are not stored
+     * @return the distance
+     */
+    double get(int i, int j, Calculator calculator);
+
+    /**
+     * Forget the distances to a point, e.g. because it has moved.
+     *
+     * @param point     index of the point
+     * @param numPoints number of points in the dataset
+     */
+    void invalidate(int point, int numPoints);
+
+    /**
+     * Forget all distances.
+     */
+    void clear();
+
+    /**
+     * @return approximate number of bytes used to store distances
+     */
+    long getSizeInBytes();
+
+    /**
+     * Index of a pair of points in a packed lower triangle.
+     *
+     * @param i index of the first point
+     * @param j index of the second point, less than i
+     * @return the index
+     */
+    static long triangleIndex(int i, int j) {
+        return (long) i * (i - 1) / 2 + j;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A KD-tree. Each branch splits its points at the median of the dimension in
+ * which they are most spread out, so the tree stays balanced whatever the
+ * distribution of the data, and high-dimensional data is split on the
+ * dimensions that matter rather than one dimension after another. Points are
+ * kept in leaf buckets; a full bucket is split in place, and the whole tree is
+ * rebuilt whenever it has doubled in size since it was last built, so that a
+ * tree grown one point at a time stays balanced.
+ */
+public class KDTreeIndex implements NearestNeighborIndex {
+
+    /**
+     * The number of points a leaf holds before it is split.
+     */
+    static final int BUCKET_SIZE = 32;
+
+    private Node root = new Node(new ArrayList<>());
+
+    /**
+     * The leaf each point is in.
+     */
+    private final Map<DataPoint, Node> leaves = new IdentityHashMap<>();
+
+    private int size;
+
+    /**
+     * The size of the tree when it was last rebuilt.
+     */
+    private int builtSize;
+
+    /**
+     * A branch, or a leaf if points is non-null.
+     */
+    private static class Node {
+
+        int dimension;
+
+        double split;
+
+        Node left;
+
+        Node right;
+
+        List<DataPoint> points;
+
+        Node(List<DataPoint> points) {
+            this.points = points;
+        }
+    }
+
+    @Override
+    public void add(DataPoint point) {
+        size++;
+        if (size > 2 * builtSize && size > BUCKET_SIZE) {
+            List<DataPoint> points = new ArrayList<>(size);
+            collect(root, points);
+            points.add(point);
+            build(points);
+            return;
+        }
+        Node node = root;
+        while (node.points == null) {
+            node = point.get(node.dimension) < node.split ? node.left : node.right;
+        }
+        node.points.add(point);
+        leaves.put(point, node);
+        if (node.points.size() > BUCKET_SIZE) {
+            split(node);
+        }
+    }
+
+    @Override
+    public void addAll(List<DataPoint> points) {
+        List<DataPoint> all = new ArrayList<>(size + points.size());
+        collect(root, all);
+        all.addAll(points);
+        build(all);
+    }
+
+    @Override
+    public void replace(DataPoint old, DataPoint point) {
+        Node leaf = leaves.remove(old);
+        if (leaf != null) {
+            for (int i = 0; i < leaf.points.size(); i++) {
+                if (leaf.points.get(i) == old) {
+                    leaf.points.remove(i);
+                    break;
+                }
+            }
+            size--;
+        }
+        add(point);
+    }
+
+    @Override
+    public void clear() {
+        root = new Node(new ArrayList<>());
+        leaves.clear();
+        size = 0;
+        builtSize = 0;
+    }
+
+    /**
+     * Rebuild the tree from the given points.
+     */
+    private void build(List<DataPoint> points) {
+        leaves.clear();
+        size = points.size();
+        builtSize = size;
+        root = new Node(points);
+        build(root);
+    }
+
+    private void build(Node node) {
+        for (DataPoint p : node.points) {
+            leaves.put(p, node);
+        }
+        if (node.points.size() > BUCKET_SIZE && split(node)) {
+            build(node.left);
+            build(node.right);
+        }
+    }
+
+    /**
+     * Turn a leaf into a branch with two leaves, split at the median of the
+     * dimension with the largest spread.
+     *
+     * @return false if the points are all the same, in which case the leaf is
+     * left as it is
+     */
+    private boolean split(Node node) {
+        List<DataPoint> points = node.points;
+        int dimensions = points.get(0).getDimension();
+        int dimension = 0;
+        double maxSpread = 0;
+        for (int d = 0; d < dimensions; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (DataPoint p : points) {
+                double value = p.get(d);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > maxSpread) {
+                maxSpread = max - min;
+                dimension = d;
+            }
+        }
+        if (maxSpread == 0) {
+            return false;
+        }
+        final int dim = dimension;
+        points.sort(Comparator.comparingDouble(p -> p.get(dim)));
+        // Move the split up past points equal to the smallest value, so that
+        // neither side is empty
+        int mid = points.size() / 2;
+        double lowest = points.get(0).get(dim);
+        while (points.get(mid).get(dim) == lowest) {
+            mid++;
+        }
+        node.dimension = dim;
+        node.split = points.get(mid).get(dim);
+        node.left = new Node(new ArrayList<>(points.subList(0, mid)));
+        node.right = new Node(new ArrayList<>(points.subList(mid, points.size())));
+        node.points = null;
+        for (DataPoint p : node.left.points) {
+            leaves.put(p, node.left);
+        }
+        for (DataPoint p : node.right.points) {
+            leaves.put(p, node.right);
+        }
+        return true;
+    }
+
+    private static void collect(Node node, List<DataPoint> points) {
+        if (node.points != null) {
+            points.addAll(node.points);
+        } else {
+            collect(node.left, points);
+            collect(node.right, points);
+        }
+    }
+
+    @Override
+    public DataPoint findWithin(DataPoint point, double tolerance) {
+        return findWithin(root, point.getVector(), tolerance, tolerance * tolerance);
+    }
+
+    private static DataPoint findWithin(Node node, double[] q, double tolerance, double bound) {
+        while (node.points == null) {
+            double diff = q[node.dimension] - node.split;
+            Node near = diff < 0 ? node.left : node.right;
+            if (Math.abs(diff) < tolerance) {
+                DataPoint found = findWithin(near, q, tolerance, bound);
+                if (found != null) {
+                    return found;
+                }
+                node = near == node.left ? node.right : node.left;
+            } else {
+                node = near;
+            }
+        }
+        for (DataPoint p : node.points) {
+            if (squaredDistance(p.getVector(), q, bound) < bound) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<DataPoint> getClosestPoints(int number, DataPoint point) {
+        NeighborHeap heap = new NeighborHeap(Math.min(number, size));
+        collectClosest(root, point.getVector(), heap);
+        return heap.toList();
+    }
+
+    private static void collectClosest(Node node, double[] q, NeighborHeap heap) {
+        if (node.points != null) {
+            for (DataPoint p : node.points) {
+                double bound = heap.bound();
+                double d = squaredDistance(p.getVector(), q, bound);
+                if (d < bound) {
+                    heap.offer(p, d);
+                }
+            }
+            return;
+        }
+        double diff = q[node.dimension] - node.split;
+        Node near = diff < 0 ? node.left : node.right;
+        collectClosest(near, q, heap);
+        if (diff * diff < heap.bound()) {
+            collectClosest(near == node.left ? node.right : node.left, q, heap);
+        }
+    }
+
+    /**
+     * Squared distance between two vectors. Stops early, returning a value at
+     * least as large as the bound, once the distance reaches the bound.
+     */
+    static double squaredDistance(double[] a, double[] b, double bound) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            double diff = a[i] - b[i];
+            sum += diff * diff;
+            if (sum >= bound) {
+                return sum;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores all distances as floats in a packed lower triangle in a memory-mapped
+ * temporary file, so that datasets whose distances do not fit on the heap can
+ * still be projected; the operating system pages the triangle in and out as
+ * needed. The file is mapped in segments as the triangle grows, is reused
+ * when the storage is cleared, and is deleted on {@link #close()} or when the
+ * JVM exits.
+ * <p>
+ * New parts of the file read as zero, so zero bits mean "not computed" and a
+ * distance of zero is stored as negative zero.
+ */
+public class MappedDistanceStorage implements DistanceStorage, AutoCloseable {
+
+    /**
+     * Number of floats in each mapped segment (64 MB).
+     */
+    private static final int SEGMENT_SIZE = 1 << 24;
+
+    /**
+     * Directory for the file, or null for the default temporary directory.
+     */
+    private final File directory;
+
+    private File file;
+
+    private FileChannel channel;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * Construct a storage with a file in the default temporary directory.
+     */
+    public MappedDistanceStorage() {
+        this(null);
+    }
+
+    /**
+     * @param directory directory in which to create the file
+     */
+    public MappedDistanceStorage(File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized double get(int i, int j, Calculator calculator) {
+        long index = DistanceStorage.triangleIndex(i, j);
+        MappedByteBuffer segment = getSegment(index);
+        int offset = (int) (index % SEGMENT_SIZE) * Float.BYTES;
+        if (segment.getInt(offset) != 0) {
+            return Math.abs(segment.getFloat(offset));
+        }
+        double d = calculator.distance(i, j);
+        segment.putFloat(offset, d == 0 ? -0f : (float) d);
+        return d;
+    }
+
+    /**
+     * Get the segment holding an index, mapping segments up to it if needed.
+     */
+    private MappedByteBuffer getSegment(long index) {
+        int segment = (int) (index / SEGMENT_SIZE);
+        try {
+            if (channel == null) {
+                file = File.createTempFile("distances", ".bin", directory);
+                file.deleteOnExit();
+                channel = new RandomAccessFile(file, "rw").getChannel();
+            }
+            while (segments.size() <= segment) {
+                long position = (long) segments.size() * SEGMENT_SIZE * Float.BYTES;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) SEGMENT_SIZE * Float.BYTES));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segments.get(segment);
+    }
+
+    @Override
+    public synchronized void invalidate(int point, int numPoints) {
+        for (int j = 0; j < point; j++) {
+            invalidate(DistanceStorage.triangleIndex(point, j));
+        }
+        for (int i = point + 1; i < numPoints; i++) {
+            invalidate(DistanceStorage.triangleIndex(i, point));
+        }
+    }
+
+    private void invalidate(long index) {
+        int segment = (int) (index / SEGMENT_SIZE);
+        if (segment < segments.size()) {
+            segments.get(segment).putInt((int) (index % SEGMENT_SIZE) * Float.BYTES, 0);
+        }
+    }
+
+    /**
+     * Forget all distances by zeroing the mapped segments. The file is kept,
+     * so clearing repeatedly does not create new files.
+     */
+    @Override
+    public synchronized void clear() {
+        for (MappedByteBuffer segment : segments) {
+            for (int offset = 0, end = segment.capacity(); offset < end; offset += Long.BYTES) {
+                segment.putLong(offset, 0L);
+            }
+        }
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return (long) segments.size() * SEGMENT_SIZE * Float.BYTES;
+    }
+
+    /**
+     * Delete the file. The storage can still be used, and will create a new
+     * file.
+     */
+    @Override
+    public synchronized void close() {
+        segments.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            channel = null;
+            file.delete();
+            file = null;
+        }
+    }
+}
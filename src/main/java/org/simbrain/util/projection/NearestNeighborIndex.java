@@ -0,0 +1,79 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.List;
+
+/**
+ * A spatial index over the points of an {@link NTree}, used to check whether a
+ * point is new and to find nearest neighbors without comparing against every
+ * point. Distances are Euclidean.
+ * <p>
+ * Points are identified by reference. An index does not notice changes to a
+ * point's data; such a point should be replaced by a new one.
+ */
+public interface NearestNeighborIndex {
+
+    /**
+     * Add a point.
+     *
+     * @param point the point to add
+     */
+    void add(DataPoint point);
+
+    /**
+     * Add many points at once. Implementations rebuild the index from scratch,
+     * which is faster and gives a better balanced index than adding the points
+     * one at a time.
+     *
+     * @param points the points to add
+     */
+    void addAll(List<DataPoint> points);
+
+    /**
+     * Replace a point in the index.
+     *
+     * @param old   a point in the index
+     * @param point the point to put in its place
+     */
+    void replace(DataPoint old, DataPoint point);
+
+    /**
+     * Remove all points.
+     */
+    void clear();
+
+    /**
+     * Find a point closer to the given point than a tolerance.
+     *
+     * @param point     the point to search around
+     * @param tolerance the distance within which points are returned
+     * @return some point within the tolerance, or null if there is none
+     */
+    DataPoint findWithin(DataPoint point, double tolerance);
+
+    /**
+     * Find the points closest to a given point.
+     *
+     * @param number the number of points to find
+     * @param point  the point to search around
+     * @return up to number points, closest first
+     */
+    List<DataPoint> getClosestPoints(int number, DataPoint point);
+}
@@ -0,0 +1,110 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects the k points closest to a query point, as a binary max-heap on
+ * distance so the farthest of the current candidates can be replaced cheaply.
+ */
+class NeighborHeap {
+
+    private final int capacity;
+
+    private final double[] distances;
+
+    private final DataPoint[] points;
+
+    private int size;
+
+    NeighborHeap(int capacity) {
+        this.capacity = capacity;
+        distances = new double[capacity];
+        points = new DataPoint[capacity];
+    }
+
+    /**
+     * The distance a point must be closer than to be collected: infinite until
+     * the heap is full, then the distance of the farthest candidate.
+     */
+    double bound() {
+        return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+    }
+
+    /**
+     * Collect a point if it is closer than {@link #bound()}.
+     */
+    void offer(DataPoint point, double distance) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distance) {
+                    break;
+                }
+                distances[i] = distances[parent];
+                points[i] = points[parent];
+                i = parent;
+            }
+            distances[i] = distance;
+            points[i] = point;
+        } else if (distance < distances[0]) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                distances[i] = distances[child];
+                points[i] = points[child];
+                i = child;
+            }
+            distances[i] = distance;
+            points[i] = point;
+        }
+    }
+
+    /**
+     * @return the collected points, closest first
+     */
+    List<DataPoint> toList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+        List<DataPoint> result = new ArrayList<>(size);
+        for (Integer i : order) {
+            result.add(points[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.Arrays;
+
+/**
+ * Stores all distances in a packed lower triangle in memory, in double or, to
+ * halve the memory used, single precision. Distances not yet computed are NaN.
+ * The triangle grows to cover the largest point index asked for, so it is only
+ * allocated once distances are used. Limited to about 65,000 points.
+ */
+public class PackedDistanceStorage implements DistanceStorage {
+
+    /**
+     * Initial number of distances stored.
+     */
+    private static final int INITIAL_SIZE = 10240;
+
+    /**
+     * If true distances are stored as floats.
+     */
+    private final boolean singlePrecision;
+
+    private double[] doubles = new double[0];
+
+    private float[] floats = new float[0];
+
+    /**
+     * Construct a double precision storage.
+     */
+    public PackedDistanceStorage() {
+        this(false);
+    }
+
+    /**
+     * @param singlePrecision true to store distances as floats
+     */
+    public PackedDistanceStorage(boolean singlePrecision) {
+        this.singlePrecision = singlePrecision;
+    }
+
+    @Override
+    public double get(int i, int j, Calculator calculator) {
+        int index = (int) DistanceStorage.triangleIndex(i, j);
+        ensureCapacity(index + 1);
+        double d = singlePrecision ? floats[index] : doubles[index];
+        if (Double.isNaN(d)) {
+            d = calculator.distance(i, j);
+            if (singlePrecision) {
+                floats[index] = (float) d;
+            } else {
+                doubles[index] = d;
+            }
+        }
+        return d;
+    }
+
+    private void ensureCapacity(int size) {
+        int length = singlePrecision ? floats.length : doubles.length;
+        if (size <= length) {
+            return;
+        }
+        long newLength = Math.max(INITIAL_SIZE, length);
+        while (newLength < size) {
+            newLength *= 2;
+        }
+        if (newLength > Integer.MAX_VALUE - 8) {
+            newLength = Integer.MAX_VALUE - 8;
+        }
+        if (singlePrecision) {
+            floats = Arrays.copyOf(floats, (int) newLength);
+            Arrays.fill(floats, length, floats.length, Float.NaN);
+        } else {
+            doubles = Arrays.copyOf(doubles, (int) newLength);
+            Arrays.fill(doubles, length, doubles.length, Double.NaN);
+        }
+    }
+
+    @Override
+    public void invalidate(int point, int numPoints) {
+        int length = singlePrecision ? floats.length : doubles.length;
+        for (int j = 0; j < point; j++) {
+            clear((int) DistanceStorage.triangleIndex(point, j), length);
+        }
+        for (int i = point + 1; i < numPoints; i++) {
+            clear((int) DistanceStorage.triangleIndex(i, point), length);
+        }
+    }
+
+    private void clear(int index, int length) {
+        if (index >= length) {
+            return;
+        }
+        if (singlePrecision) {
+            floats[index] = Float.NaN;
+        } else {
+            doubles[index] = Double.NaN;
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(floats, Float.NaN);
+        Arrays.fill(doubles, Double.NaN);
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return singlePrecision ? 4L * floats.length : 8L * doubles.length;
+    }
+}
@@ -1,203 +1,328 @@
-/*
- * Part of Simbrain--a java-based neural network kit
- * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
- *
- * This program is free software; you can redistribute it and/or modify
- * it under the terms of the GNU General Public License as published by
- * the Free Software Foundation; either version 2 of the License, or
- * (at your option) any later version.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU General Public License for more details.
- *
- * You should have received a copy of the GNU General Public License
- * along with this program; if not, write to the Free Software
- * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
- */
-package org.simbrain.util.projection;
-
-import org.simbrain.util.SimbrainPreferences;
-
-import java.util.ArrayList;
-
-/**
- * <B>ProjectSammon.java</B> implements gradient descent to compute image of
- * Sammon projection.
- * <p>
- * TODO: Possibly convert all arrays to datapoints.
- */
-public class ProjectSammon extends IterableProjectionMethod {
-
-    /**
-     * Array of datasets.
-     */
-    private ArrayList<DataPoint> yArray;
-
-    /**
-     * Amount by which to perturb overlapping points.
-     */
-    protected double perturbationAmount;
-
-    /**
-     * Sammon Map Settings. epsilon or "magic factor".
-     */
-    private double epsilon;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] xI;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] xJ;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] yI;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] yJ;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] yM;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] yN;
-
-    /**
-     * Temporary variables.
-     */
-    private double[] yNew;
-
-    /**
-     * Matrix of "upstairs" interpoint distances.
-     */
-    private double[][] dstar;
-
-    /**
-     * Matrix of "downstairs" interpoint distances.
-     */
-    private double[][] d;
-
-    /**
-     * Sum distances.
-     */
-    private double dstarSum;
-
-    /**
-     * Parital sum.
-     */
-    private double partialSum;
-
-    /**
-     * Current closeness of datapoints.
-     */
-    private double currentCloseness;
-
-    /**
-     * Temporary variable.
-     */
-    private double e;
-
-    /**
-     * Default sammon projector constructor.
-     *
-     * @param projector
-     */
-    public ProjectSammon(Projector projector) {
-        super(projector);
-    }
-
-    @Override
-    public void init() {
-        perturbationAmount = SimbrainPreferences.getDouble("projectorSammonPerturbationAmount");
-        epsilon = SimbrainPreferences.getDouble("projectorSammonEpsilon");
-        dstar = projector.getUpstairs().getDistances();
-        dstarSum = projector.getUpstairs().getSumDistances();
-        projector.getDownstairs().perturbOverlappingPoints(perturbationAmount);
-        setNeedsReInit(false);
-    }
-
-    @Override
-    public void project() {
-    }
-
-    @Override
-    public void iterate() {
-
-        if (projector.getUpstairs().getNumPoints() < 2) {
-            return;
-        }
-
-        // If new points were added re-initialize
-        if (needsReInit()) {
-            init();
-        }
-
-        yArray = projector.getDownstairs().getDatasetCopy();
-        d = projector.getDownstairs().getDistances();
-
-        // Computes partials
-        for (int m = 0; m < projector.getNumPoints(); m++) {
-            yM = yArray.get(m).getVector();
-            yNew = new double[projector.getDownstairs().getDimensions()];
-
-            for (int n = 0; n < projector.getDownstairs().getDimensions(); n++) {
-                partialSum = 0;
-
-                for (int i = 0; i < projector.getNumPoints(); i++) {
-                    if (i == m) {
-                        continue;
-                    }
-
-                    yI = yArray.get(i).getVector();
-                    partialSum += (((dstar[i][m] - d[i][m]) * (yI[n] - yM[n])) / dstar[i][m] / d[i][m]);
-                }
-
-                yNew[n] = yM[n] - ((epsilon * 2 * partialSum) / dstarSum);
-            }
-
-            projector.getDownstairs().getPoint(m).setData(yNew);
-        }
-
-        // Computes Closeness
-        e = 0;
-        for (int i = 0; i < projector.getNumPoints(); i++) {
-            for (int j = i + 1; j < projector.getNumPoints(); j++) {
-                e += ((dstar[i][j] - d[i][j]) * (dstar[i][j] - d[i][j])) / dstar[i][j];
-            }
-        }
-
-        currentCloseness = e / dstarSum;
-        setError(currentCloseness);
-        projector.getEvents().fireDatasetInitialized();
-        // System.out.println("currentCloseness = " + currentCloseness);
-    }
-
-    /**
-     * @return the epsilon
-     */
-    public double getEpsilon() {
-        return epsilon;
-    }
-
-    /**
-     * @param epsilon the epsilon to set
-     */
-    public void setEpsilon(double epsilon) {
-        SimbrainPreferences.putDouble("projectorSammonEpsilon", epsilon);
-        this.epsilon = epsilon;
-    }
-
-}
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import org.simbrain.util.SimbrainPreferences;
+import org.simbrain.util.math.RandomSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * <B>ProjectSammon.java</B> implements gradient descent to compute image of
+ * Sammon projection.
+ * <p>
+ * The "upstairs" interpoint distances are read from the upstairs dataset, so
+ * they are kept in whatever {@link DistanceStorage} the projector uses and are
+ * extended, not recomputed, when points are added. They are all computed when
+ * the method is initialized, and then only read while the gradient for each
+ * point is computed in parallel from the positions at the start of the
+ * iteration. For large datasets a stochastic mode is available (see {@link
+ * #setPairsPerPoint(int)}) in which each point is moved using a random sample
+ * of the other points on each iteration, so an iteration costs O(N) rather
+ * than O(N&sup2;) and no upstairs distances are stored. The samples are drawn
+ * from a {@link RandomSource} stream, so runs can be reproduced from a seed.
+ */
+public class ProjectSammon extends IterableProjectionMethod {
+
+    /**
+     * Amount by which to perturb overlapping points.
+     */
+    protected double perturbationAmount;
+
+    /**
+     * Sammon Map Settings. epsilon or "magic factor".
+     */
+    private double epsilon;
+
+    /**
+     * Number of other points each point is compared to per iteration in the
+     * stochastic mode, or 0 to compare every pair of points.
+     */
+    private int pairsPerPoint;
+
+    /**
+     * The upstairs dataset.
+     */
+    private Dataset upstairs;
+
+    /**
+     * Sum distances. Estimated from a sample in the stochastic mode.
+     */
+    private double dstarSum;
+
+    /**
+     * Current "downstairs" positions, dimensions values per point.
+     */
+    private double[] y = new double[0];
+
+    /**
+     * Positions computed by the current iteration.
+     */
+    private double[] yNew = new double[0];
+
+    /**
+     * Contribution of each point to the closeness.
+     */
+    private double[] pointError = new double[0];
+
+    /**
+     * Stream of random numbers for sampling pairs and perturbing points.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
+    /**
+     * Number of pairs sampled to estimate the sum of distances in the
+     * stochastic mode.
+     */
+    private static final int SUM_SAMPLE_SIZE = 100_000;
+
+    /**
+     * Default sammon projector constructor.
+     *
+     * @param projector
+     */
+    public ProjectSammon(Projector projector) {
+        super(projector);
+    }
+
+    @Override
+    public void init() {
+        perturbationAmount = SimbrainPreferences.getDouble("projectorSammonPerturbationAmount");
+        epsilon = SimbrainPreferences.getDouble("projectorSammonEpsilon");
+        upstairs = projector.getUpstairs();
+        if (isStochastic(upstairs.getNumPoints())) {
+            dstarSum = estimateSumDistances();
+        } else {
+            // This also fills the distance storage, so it is only read while iterating
+            dstarSum = upstairs.getSumDistances();
+        }
+        perturbOverlappingPoints();
+        setNeedsReInit(false);
+    }
+
+    /**
+     * Returns true if pairs are sampled rather than all compared.
+     */
+    private boolean isStochastic(int numPoints) {
+        return pairsPerPoint > 0 && pairsPerPoint < numPoints - 1;
+    }
+
+    private RandomSource getRandom() {
+        if (random == null) {
+            random = RandomSource.newStream();
+        }
+        return random;
+    }
+
+    /**
+     * Estimate the sum of all upstairs distances from a random sample of pairs.
+     */
+    private double estimateSumDistances() {
+        int numPoints = upstairs.getNumPoints();
+        if (numPoints < 2) {
+            return 0;
+        }
+        double numPairs = numPoints * (numPoints - 1) / 2.0;
+        if (numPairs <= SUM_SAMPLE_SIZE) {
+            double sum = 0;
+            for (int i = 1; i < numPoints; i++) {
+                for (int j = 0; j < i; j++) {
+                    sum += computeDstar(i, j);
+                }
+            }
+            return sum;
+        }
+        RandomSource random = getRandom();
+        double sum = 0;
+        for (int k = 0; k < SUM_SAMPLE_SIZE; k++) {
+            int i = random.nextInt(numPoints);
+            int j = random.nextInt(numPoints - 1);
+            sum += computeDstar(i, j < i ? j : j + 1);
+        }
+        return sum / SUM_SAMPLE_SIZE * numPairs;
+    }
+
+    /**
+     * The upstairs distance between two points, computed without storing it.
+     */
+    private double computeDstar(int i, int j) {
+        return NTree.getDistance(upstairs.getPoint(i), upstairs.getPoint(j));
+    }
+
+    /**
+     * Perturb downstairs points which overlap another point, since the
+     * gradient is undefined for them.
+     */
+    private void perturbOverlappingPoints() {
+        Dataset downstairs = projector.getDownstairs();
+        Set<DataPoint> seen = new HashSet<>();
+        for (int i = 0; i < downstairs.getNumPoints(); i++) {
+            DataPoint point = downstairs.getPoint(i);
+            if (!seen.add(point)) {
+                double[] yi = point.getVector();
+                double[] newPoint = new double[yi.length];
+                for (int k = 0; k < yi.length; k++) {
+                    newPoint[k] = yi[k] + ((getRandom().nextDouble() - 0.5) * perturbationAmount);
+                }
+                point.setData(newPoint);
+                seen.add(point);
+            }
+        }
+    }
+
+    @Override
+    public void project() {
+    }
+
+    @Override
+    public void iterate() {
+
+        if (projector.getUpstairs().getNumPoints() < 2) {
+            return;
+        }
+
+        // If new points were added re-initialize
+        if (needsReInit() || projector.getUpstairs() != upstairs) {
+            init();
+        }
+
+        Dataset downstairs = projector.getDownstairs();
+        int numPoints = Math.min(upstairs.getNumPoints(), downstairs.getNumPoints());
+        int dims = downstairs.getDimensions();
+        if (y.length < numPoints * dims) {
+            y = new double[numPoints * dims];
+            yNew = new double[numPoints * dims];
+            pointError = new double[numPoints];
+        }
+        for (int m = 0; m < numPoints; m++) {
+            System.arraycopy(downstairs.getPoint(m).getVector(), 0, y, m * dims, dims);
+        }
+
+        // Computes partials and the closeness. In the stochastic mode each point samples from its own stream, derived
+        // from one seed per iteration, so the result does not depend on which thread handles the point.
+        long seed = getRandom().nextLong();
+        IntStream.range(0, numPoints).parallel().forEach(m -> updatePoint(m, numPoints, dims, seed));
+
+        double e = 0;
+        for (int m = 0; m < numPoints; m++) {
+            downstairs.getPoint(m).setData(Arrays.copyOfRange(yNew, m * dims, (m + 1) * dims));
+            e += pointError[m];
+        }
+
+        // Each pair was counted twice
+        setError(e / 2 / dstarSum);
+        projector.getEvents().fireDatasetInitialized();
+    }
+
+    /**
+     * Compute the new position of a point and its contribution to the
+     * closeness.
+     */
+    private void updatePoint(int m, int numPoints, int dims, long seed) {
+        double[] partials = new double[dims];
+        double error = 0;
+        int offsetM = m * dims;
+        if (isStochastic(numPoints)) {
+            RandomSource random = RandomSource.forKey(seed, m);
+            for (int k = 0; k < pairsPerPoint; k++) {
+                int i = random.nextInt(numPoints - 1);
+                error += addPartials(i < m ? i : i + 1, m, dims, partials, true);
+            }
+            // Scale the sample up to all pairs
+            double scale = (numPoints - 1.0) / pairsPerPoint;
+            for (int n = 0; n < dims; n++) {
+                partials[n] *= scale;
+            }
+            error *= scale;
+        } else {
+            for (int i = 0; i < numPoints; i++) {
+                if (i != m) {
+                    error += addPartials(i, m, dims, partials, false);
+                }
+            }
+        }
+        for (int n = 0; n < dims; n++) {
+            yNew[offsetM + n] = y[offsetM + n] - ((epsilon * 2 * partials[n]) / dstarSum);
+        }
+        pointError[m] = error;
+    }
+
+    /**
+     * Add the partials for the pair i, m to the partials for m.
+     *
+     * @param sampled true if the pair was sampled, in which case the upstairs
+     *                distance is computed rather than stored
+     * @return the pair's contribution to the closeness
+     */
+    private double addPartials(int i, int m, int dims, double[] partials, boolean sampled) {
+        int offsetI = i * dims;
+        int offsetM = m * dims;
+        double dsq = 0;
+        for (int n = 0; n < dims; n++) {
+            double diff = y[offsetI + n] - y[offsetM + n];
+            dsq += diff * diff;
+        }
+        double d = Math.sqrt(dsq);
+        double ds = sampled ? computeDstar(i, m) : upstairs.getDistance(i, m);
+        if (d == 0 || ds == 0) {
+            return 0;
+        }
+        double factor = (ds - d) / ds / d;
+        for (int n = 0; n < dims; n++) {
+            partials[n] += factor * (y[offsetI + n] - y[offsetM + n]);
+        }
+        return (ds - d) * (ds - d) / ds;
+    }
+
+    /**
+     * @return the epsilon
+     */
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * @param epsilon the epsilon to set
+     */
+    public void setEpsilon(double epsilon) {
+        SimbrainPreferences.putDouble("projectorSammonEpsilon", epsilon);
+        this.epsilon = epsilon;
+    }
+
+    public int getPairsPerPoint() {
+        return pairsPerPoint;
+    }
+
+    /**
+     * Set the number of other points each point is compared to on each
+     * iteration. If 0, or at least the number of other points, every pair is
+     * compared. Otherwise the partners are sampled anew on each iteration, and
+     * the error is an estimate.
+     *
+     * @param pairsPerPoint the number of pairs per point, or 0 for all pairs
+     */
+    public void setPairsPerPoint(int pairsPerPoint) {
+        this.pairsPerPoint = Math.max(0, pairsPerPoint);
+        setNeedsReInit(true);
+    }
+
+}
@@ -76,6 +76,11 @@ public class Projector implements AttributeContainer {
      */
     private ProjectionMethod projectionMethod;
 
+    /**
+     * How the interpoint distances of the high dimensional dataset are stored.
+     */
+    private DistanceStorage.Type distanceStorageType = DistanceStorage.Type.DOUBLE;
+
     /**
      * Set to false to turn off color manager and use custom point coloring, as in, e.g., the use of the {@link Halo}
      * tool.
@@ -145,6 +150,7 @@ public class Projector implements AttributeContainer {
     public void init(final int dims) {
         // TODO: This seems to be called twice when adding a projection component.
         upstairs = new Dataset(dims);
+        upstairs.setDistanceStorage(getDistanceStorageType().create());
         downstairs = new Dataset(2);
         events.fireDatasetInitialized();
     }
@@ -154,6 +160,7 @@ public class Projector implements AttributeContainer {
      */
     public void postOpenInit() {
         events = new ProjectorEvents(this);
+        upstairs.setDistanceStorage(getDistanceStorageType().create());
         upstairs.postOpenInit();
         downstairs.postOpenInit();
     }
@@ -385,6 +392,28 @@ public class Projector implements AttributeContainer {
         this.tolerance = tolerance;
     }
 
+    public DistanceStorage.Type getDistanceStorageType() {
+        if (distanceStorageType == null) {
+            // Projectors saved before the storage could be chosen
+            distanceStorageType = DistanceStorage.Type.DOUBLE;
+        }
+        return distanceStorageType;
+    }
+
+    /**
+     * Set how the interpoint distances of the high dimensional dataset are
+     * stored. Distances computed so far are discarded and recomputed as needed.
+     *
+     * @param type the kind of storage
+     */
+    public void setDistanceStorageType(DistanceStorage.Type type) {
+        if (type == getDistanceStorageType()) {
+            return;
+        }
+        distanceStorageType = type;
+        upstairs.setDistanceStorage(type.create());
+    }
+
     /**
      * Randomize the low-dimensional data. Used with iterative projection methods to "restart" the iteration.
      *
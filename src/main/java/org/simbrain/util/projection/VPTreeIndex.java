@@ -0,0 +1,282 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.projection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A vantage-point tree. Each branch holds one of its points as a vantage point
+ * and splits the rest at the median of their distances from it, and searches
+ * are pruned with the triangle inequality. Unlike a {@link KDTreeIndex} this
+ * never looks at individual coordinates, so it holds up better on data of high
+ * dimension with low intrinsic dimension, e.g. images. Points are kept in leaf
+ * buckets; a full bucket is turned into a subtree in place, and the whole tree
+ * is rebuilt whenever it has doubled in size since it was last built.
+ */
+public class VPTreeIndex implements NearestNeighborIndex {
+
+    /**
+     * The number of points a leaf holds before it is split.
+     */
+    static final int BUCKET_SIZE = 32;
+
+    /**
+     * Used to choose vantage points. Seeded so that trees, and so the order in
+     * which ties are found, are reproducible.
+     */
+    private final Random random = new Random(1);
+
+    private Node root = new Node(new ArrayList<>());
+
+    /**
+     * The node each point is in, as a vantage point or in a bucket.
+     */
+    private final Map<DataPoint, Node> nodes = new IdentityHashMap<>();
+
+    private int size;
+
+    /**
+     * The size of the tree when it was last rebuilt.
+     */
+    private int builtSize;
+
+    /**
+     * A branch, or a leaf if points is non-null.
+     */
+    private static class Node {
+
+        DataPoint vantagePoint;
+
+        /**
+         * Whether the vantage point has been replaced. It is still used to
+         * route searches, but is no longer returned by them.
+         */
+        boolean deleted;
+
+        /**
+         * Points in the inside subtree are at most this far from the vantage
+         * point, and points in the outside subtree at least this far.
+         */
+        double mu;
+
+        Node inside;
+
+        Node outside;
+
+        List<DataPoint> points;
+
+        Node(List<DataPoint> points) {
+            this.points = points;
+        }
+    }
+
+    @Override
+    public void add(DataPoint point) {
+        size++;
+        if (size > 2 * builtSize && size > BUCKET_SIZE) {
+            List<DataPoint> points = new ArrayList<>(size);
+            collect(root, points);
+            points.add(point);
+            build(points);
+            return;
+        }
+        double[] q = point.getVector();
+        Node node = root;
+        while (node.points == null) {
+            node = distance(node.vantagePoint.getVector(), q) < node.mu ? node.inside : node.outside;
+        }
+        node.points.add(point);
+        nodes.put(point, node);
+        if (node.points.size() > BUCKET_SIZE) {
+            build(node);
+        }
+    }
+
+    @Override
+    public void addAll(List<DataPoint> points) {
+        List<DataPoint> all = new ArrayList<>(size + points.size());
+        collect(root, all);
+        all.addAll(points);
+        build(all);
+    }
+
+    @Override
+    public void replace(DataPoint old, DataPoint point) {
+        Node node = nodes.remove(old);
+        if (node != null) {
+            if (node.points == null) {
+                node.deleted = true;
+            } else {
+                for (int i = 0; i < node.points.size(); i++) {
+                    if (node.points.get(i) == old) {
+                        node.points.remove(i);
+                        break;
+                    }
+                }
+            }
+            size--;
+        }
+        add(point);
+    }
+
+    @Override
+    public void clear() {
+        root = new Node(new ArrayList<>());
+        nodes.clear();
+        size = 0;
+        builtSize = 0;
+    }
+
+    /**
+     * Rebuild the tree from the given points.
+     */
+    private void build(List<DataPoint> points) {
+        nodes.clear();
+        size = points.size();
+        builtSize = size;
+        root = new Node(points);
+        build(root);
+    }
+
+    /**
+     * Turn a leaf into a subtree, if it has more than a bucket's worth of
+     * points.
+     */
+    private void build(Node node) {
+        List<DataPoint> points = node.points;
+        if (points.size() <= BUCKET_SIZE) {
+            for (DataPoint p : points) {
+                nodes.put(p, node);
+            }
+            return;
+        }
+        Collections.swap(points, 0, random.nextInt(points.size()));
+        DataPoint vantagePoint = points.get(0);
+        double[] v = vantagePoint.getVector();
+        int n = points.size() - 1;
+        double[] distances = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            distances[i] = distance(v, points.get(i + 1).getVector());
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+        int mid = n / 2;
+        List<DataPoint> inside = new ArrayList<>(mid);
+        List<DataPoint> outside = new ArrayList<>(n - mid);
+        for (int i = 0; i < n; i++) {
+            (i < mid ? inside : outside).add(points.get(order[i] + 1));
+        }
+        node.vantagePoint = vantagePoint;
+        node.mu = distances[order[mid]];
+        node.points = null;
+        node.inside = new Node(inside);
+        node.outside = new Node(outside);
+        nodes.put(vantagePoint, node);
+        build(node.inside);
+        build(node.outside);
+    }
+
+    private static void collect(Node node, List<DataPoint> points) {
+        if (node.points != null) {
+            points.addAll(node.points);
+        } else {
+            if (!node.deleted) {
+                points.add(node.vantagePoint);
+            }
+            collect(node.inside, points);
+            collect(node.outside, points);
+        }
+    }
+
+    @Override
+    public DataPoint findWithin(DataPoint point, double tolerance) {
+        return findWithin(root, point.getVector(), tolerance);
+    }
+
+    private static DataPoint findWithin(Node node, double[] q, double tolerance) {
+        if (node.points != null) {
+            double bound = tolerance * tolerance;
+            for (DataPoint p : node.points) {
+                if (KDTreeIndex.squaredDistance(p.getVector(), q, bound) < bound) {
+                    return p;
+                }
+            }
+            return null;
+        }
+        double d = distance(node.vantagePoint.getVector(), q);
+        if (!node.deleted && d < tolerance) {
+            return node.vantagePoint;
+        }
+        DataPoint found = null;
+        if (d - node.mu < tolerance) {
+            found = findWithin(node.inside, q, tolerance);
+        }
+        if (found == null && node.mu - d < tolerance) {
+            found = findWithin(node.outside, q, tolerance);
+        }
+        return found;
+    }
+
+    @Override
+    public List<DataPoint> getClosestPoints(int number, DataPoint point) {
+        NeighborHeap heap = new NeighborHeap(Math.min(number, size));
+        collectClosest(root, point.getVector(), heap);
+        return heap.toList();
+    }
+
+    private static void collectClosest(Node node, double[] q, NeighborHeap heap) {
+        if (node.points != null) {
+            for (DataPoint p : node.points) {
+                double bound = heap.bound();
+                double d = Math.sqrt(KDTreeIndex.squaredDistance(p.getVector(), q, bound * bound));
+                if (d < bound) {
+                    heap.offer(p, d);
+                }
+            }
+            return;
+        }
+        double d = distance(node.vantagePoint.getVector(), q);
+        if (!node.deleted) {
+            heap.offer(node.vantagePoint, d);
+        }
+        // Search the side the query is on first, to tighten the bound sooner
+        if (d < node.mu) {
+            collectClosest(node.inside, q, heap);
+            if (node.mu - d < heap.bound()) {
+                collectClosest(node.outside, q, heap);
+            }
+        } else {
+            collectClosest(node.outside, q, heap);
+            if (d - node.mu < heap.bound()) {
+                collectClosest(node.inside, q, heap);
+            }
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        return Math.sqrt(KDTreeIndex.squaredDistance(a, b, Double.POSITIVE_INFINITY));
+    }
+}
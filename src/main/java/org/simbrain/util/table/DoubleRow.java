@@ -0,0 +1,155 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.util.table;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A row of a {@link NumericTable}, stored as a primitive array of doubles rather
+ * than a list of boxed Doubles. It is still a list, so the generic table code
+ * can add, insert and remove columns, but values are only boxed when read or
+ * written through the list methods.
+ */
+final class DoubleRow extends AbstractList<Double> implements RandomAccess {
+
+    /**
+     * The values. May be longer than the row, after columns are added.
+     */
+    private double[] values;
+
+    /**
+     * Number of values in the row.
+     */
+    private int size;
+
+    /**
+     * Create a row that uses the given array, without copying it.
+     *
+     * @param values the values of the row
+     */
+    DoubleRow(double[] values) {
+        this.values = values;
+        this.size = values.length;
+    }
+
+    /**
+     * Create a row filled with one value.
+     *
+     * @param value the value
+     * @param size  the number of columns
+     */
+    DoubleRow(double value, int size) {
+        this(new double[size]);
+        if (value != 0) {
+            Arrays.fill(values, value);
+        }
+    }
+
+    /**
+     * Create a row from a list of Doubles, e.g. a row of a table saved before
+     * rows were stored as primitives. Null values become 0.
+     *
+     * @param list the values
+     */
+    DoubleRow(List<Double> list) {
+        this(new double[list.size()]);
+        for (int i = 0; i < size; i++) {
+            Double value = list.get(i);
+            values[i] = value == null ? 0 : value;
+        }
+    }
+
+    /**
+     * Returns the array backing this row, trimmed to the length of the row.
+     * Changes to the array change the row.
+     *
+     * @return the values
+     */
+    double[] values() {
+        if (values.length != size) {
+            values = Arrays.copyOf(values, size);
+        }
+        return values;
+    }
+
+    /**
+     * Returns a value without boxing it.
+     */
+    double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Sets a value without boxing it.
+     */
+    void setDouble(int index, double value) {
+        checkIndex(index);
+        values[index] = value;
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, Double value) {
+        double old = getDouble(index);
+        values[index] = value;
+        return old;
+    }
+
+    @Override
+    public void add(int index, Double value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Double remove(int index) {
+        double old = getDouble(index);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -315,10 +315,24 @@ public abstract class MutableTable<T> extends SimbrainDataTable<T> {
      * @throws TableDataException exception if data are invalid
      */
     protected void checkData(boolean allowRowChanges, boolean allowColumnChanges, Object[][] values) throws TableDataException {
-        if (!allowRowChanges && values.length != getRowCount()) {
-            throw new TableDataException("Trying to import data with " + values.length + " rows into a table with " + getRowCount() + " rows.");
-        } else if (!allowColumnChanges && values[0].length != getLogicalColumnCount()) {
-            throw new TableDataException("Trying to import data with " + values[0].length + " columns into a table with " + getLogicalColumnCount() + " columns.");
+        checkData(allowRowChanges, allowColumnChanges, values.length, values[0].length);
+    }
+
+    /**
+     * Check the size of data to be imported, for data that is not held in an
+     * array (e.g. data read a row at a time).
+     *
+     * @param allowRowChanges    whether rows should be editable
+     * @param allowColumnChanges whether columns should be editable
+     * @param numRows            number of rows in the data
+     * @param numColumns         number of columns in the data
+     * @throws TableDataException exception if data are invalid
+     */
+    protected void checkData(boolean allowRowChanges, boolean allowColumnChanges, int numRows, int numColumns) throws TableDataException {
+        if (!allowRowChanges && numRows != getRowCount()) {
+            throw new TableDataException("Trying to import data with " + numRows + " rows into a table with " + getRowCount() + " rows.");
+        } else if (!allowColumnChanges && numColumns != getLogicalColumnCount()) {
+            throw new TableDataException("Trying to import data with " + numColumns + " columns into a table with " + getLogicalColumnCount() + " columns.");
         }
     }
 
@@ -18,16 +18,33 @@
  */
 package org.simbrain.util.table;
 
-import org.simbrain.util.Utils;
+import com.Ostermiller.util.CSVParser;
 import org.simbrain.util.table.SimbrainJTable.CellIndex;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 /**
  * Default implementation of a table of numerical data. The table is mutable,
- * and the data is saved as a list of lists of Doubles.
+ * and each row is stored as a primitive array of doubles (see {@link
+ * DoubleRow}), so large tables take about eight bytes per cell and rows can be
+ * handed out without copying.
+ * <p>
+ * Besides .csv files, which are read a line at a time, tables can be saved to
+ * and loaded from a binary format that is read and written through memory
+ * mapped files; see {@link #writeBinaryData(File)}. This is much faster for
+ * large data sets.
  *
  * @author jyoshimi
  */
@@ -63,6 +80,22 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
      */
     private int lowerBound = -1;
 
+    /**
+     * First int of a binary table file ("SBTB").
+     */
+    private static final int BINARY_MAGIC = 0x53425442;
+
+    /**
+     * Version of the binary table format.
+     */
+    private static final int BINARY_VERSION = 1;
+
+    /**
+     * Size of the header of a binary table file: magic number, version, rows
+     * and columns.
+     */
+    private static final int BINARY_HEADER_SIZE = 16;
+
     /**
      * Construct a table with a specified number of rows and columns.
      *
@@ -123,19 +156,50 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
         return new Double(0);
     }
 
+    @Override
+    protected List<Double> createNewRow(final Double value) {
+        return new DoubleRow(value, getLogicalColumnCount());
+    }
+
+    @Override
+    protected List<Double> createNewRow(final Double value, final int cols) {
+        return new DoubleRow(value, cols);
+    }
+
+    /**
+     * Returns a row of the data.
+     *
+     * @param row the row index
+     * @return the row
+     */
+    private DoubleRow getRow(int row) {
+        return (DoubleRow) rowData.get(row);
+    }
+
+    /**
+     * Replace the data with the given rows.
+     */
+    private void setRows(List<DoubleRow> rows) {
+        rowData.clear();
+        rowData.addAll(rows);
+        if (currentRow >= rows.size()) {
+            currentRow = 0;
+        }
+        fireTableStructureChanged();
+    }
+
     /**
      * Reset data using a 2-d array of doubles.
      *
      * @param data the new data
      */
     public void setData(double[][] data) {
-        reset(data.length, data[0].length);
-        for (int i = 0; i < data.length; i++) {
-            for (int j = 0; j < data[0].length; j++) {
-                this.setLogicalValue(i, j, data[i][j], false);
-            }
+        int cols = data[0].length;
+        List<DoubleRow> rows = new ArrayList<>(data.length);
+        for (double[] row : data) {
+            rows.add(new DoubleRow(Arrays.copyOf(row, cols)));
         }
-        fireTableDataChanged();
+        setRows(rows);
     }
 
     /**
@@ -144,27 +208,21 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
      * @param data the values to use in setting the current row
      */
     public void setVectorCurrentRow(double[] data) {
-        int i = getCurrentRow();
-        for (int j = 0; j < data.length; j++) {
-            if (j < this.getLogicalColumnCount()) {
-                this.setLogicalValue(i, j, data[j], false);
-            }
-        }
+        double[] row = getRow(getCurrentRow()).values();
+        System.arraycopy(data, 0, row, 0, Math.min(data.length, row.length));
         fireTableDataChanged();
     }
 
     /**
-     * Return the current row of doubles as an array.
+     * Return the current row of doubles as an array. The array is the table's
+     * own storage for the row rather than a copy, so it is cheap to call on
+     * every update; callers that want to change the values should copy it
+     * first, since changes to it do not fire table events.
      *
      * @return the values of the current row
      */
     public double[] getVectorCurrentRow() {
-        double[] retVec = new double[this.getColumnCount()-1];
-        int currRow = getCurrentRow();
-        for (int i = 0; i < this.getLogicalColumnCount(); i++) {
-            retVec[i] = this.getLogicalValueAt(currRow, i);
-        }
-        return retVec;
+        return getRow(getCurrentRow()).values();
     }
 
     /**
@@ -175,12 +233,9 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
     public double[] getFlattenedData() {
         int cols = this.getLogicalColumnCount();
         int rows = this.getRowCount();
-        int totalCells = rows * cols;
-
-        double[] retVec = new double[totalCells];
-
-        for (int i = 0; i < totalCells; i++) {
-            retVec[i] = this.getLogicalValueAt(i/cols, i%cols);
+        double[] retVec = new double[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(getRow(i).values(), 0, retVec, i * cols, cols);
         }
         return retVec;
     }
@@ -202,7 +257,7 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
      * @return value of this column in current row
      */
     public double getValueCurrentRow(final int column) {
-        return getLogicalValueAt(currentRow, column);
+        return getRow(currentRow).getDouble(column);
     }
 
     @Override
@@ -234,6 +289,12 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
      * @return Initialized object.
      */
     private Object readResolve() {
+        // Tables saved before rows were stored as primitives have lists of Doubles
+        for (int i = 0; i < rowData.size(); i++) {
+            if (!(rowData.get(i) instanceof DoubleRow)) {
+                rowData.set(i, new DoubleRow(rowData.get(i)));
+            }
+        }
         return this;
     }
 
@@ -288,51 +349,150 @@ public class NumericTable extends MutableTable<Double> implements IterableRowsTa
     }
 
     /**
-     * Load a .csv file.
+     * Load a .csv file. The file is parsed a line at a time straight into
+     * rows of doubles. The number of columns is taken from the first line;
+     * missing or non-numeric values are read as 0.
      *
      * @param file               the CSV file
      * @param allowRowChanges    whether to allow data with a different number of
      *                           rows
      * @param allowColumnChanges whether to allow data with a different number
      *                           of columns
-     * @throws TableDataException
+     * @throws TableDataException if the file can't be read or has the wrong size
      */
     public void readData(final File file, final boolean allowRowChanges, final boolean allowColumnChanges) throws TableDataException {
-        String[][] values = Utils.getStringMatrix(file);
-        try {
-            checkData(allowRowChanges, allowColumnChanges, values);
-            reset(values.length, values[0].length);
-            for (int i = 0; i < values.length; i++) {
-                for (int j = 0; j < values[0].length; j++) {
-                    if ((values[i][j]).length() > 0) {
-                        Double num = new Double(0);
+        List<DoubleRow> rows = new ArrayList<>();
+        int numColumns = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            // # is a comment delimeter in net files
+            CSVParser parser = new CSVParser(in, "", "", "#");
+            String[] line;
+            while ((line = parser.getLine()) != null) {
+                if (rows.isEmpty()) {
+                    numColumns = line.length;
+                }
+                double[] values = new double[numColumns];
+                for (int j = 0; j < Math.min(line.length, numColumns); j++) {
+                    if (line[j].length() > 0) {
                         try {
-                            num = Double.valueOf(values[i][j]);
+                            values[j] = Double.parseDouble(line[j]);
                         } catch (NumberFormatException exception) {
-                        } finally {
-                            setLogicalValue(i, j, num, false);
                         }
                     }
                 }
+                rows.add(new DoubleRow(values));
+            }
+        } catch (IOException e) {
+            throw new TableDataException("There was a problem opening the file " + file + ": " + e.getMessage());
+        }
+        if (rows.isEmpty()) {
+            throw new TableDataException("The file " + file + " contains no data.");
+        }
+        checkData(allowRowChanges, allowColumnChanges, rows.size(), numColumns);
+        setRows(rows);
+    }
+
+    /**
+     * Save the table in binary form: a 16 byte header (a magic number, the
+     * format version, and the number of rows and columns as ints) followed by
+     * the values, row by row, as doubles. The file is written through memory
+     * mapped buffers.
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void writeBinaryData(final File file) throws IOException {
+        int rows = getRowCount();
+        int cols = getLogicalColumnCount();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(BINARY_HEADER_SIZE);
+            header.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(rows).putInt(cols).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            long position = BINARY_HEADER_SIZE;
+            int rowsPerMap = getRowsPerMap(cols);
+            for (int start = 0; start < rows; start += rowsPerMap) {
+                int n = Math.min(rowsPerMap, rows - start);
+                long size = (long) n * cols * Double.BYTES;
+                DoubleBuffer doubles = channel.map(FileChannel.MapMode.READ_WRITE, position, size).asDoubleBuffer();
+                for (int i = start; i < start + n; i++) {
+                    doubles.put(getRow(i).values());
+                }
+                position += size;
+            }
+        }
+    }
+
+    /**
+     * Load a table saved with {@link #writeBinaryData(File)}. The file is
+     * mapped into memory and copied into the table a row at a time.
+     *
+     * @param file               the binary file
+     * @param allowRowChanges    whether to allow data with a different number of
+     *                           rows
+     * @param allowColumnChanges whether to allow data with a different number
+     *                           of columns
+     * @throws IOException        if the file can't be read
+     * @throws TableDataException if the file is not a binary table, or has the
+     *                            wrong size
+     */
+    public void readBinaryData(final File file, final boolean allowRowChanges, final boolean allowColumnChanges) throws IOException, TableDataException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < BINARY_HEADER_SIZE) {
+                throw new TableDataException("The file " + file + " is not a binary table.");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER_SIZE);
+            if (header.getInt() != BINARY_MAGIC) {
+                throw new TableDataException("The file " + file + " is not a binary table.");
+            }
+            int version = header.getInt();
+            if (version != BINARY_VERSION) {
+                throw new TableDataException("Unsupported binary table version " + version + " in " + file);
+            }
+            int rows = header.getInt();
+            int cols = header.getInt();
+            if (rows < 1 || cols < 1 || channel.size() < BINARY_HEADER_SIZE + (long) rows * cols * Double.BYTES) {
+                throw new TableDataException("The file " + file + " is truncated or corrupt.");
+            }
+            checkData(allowRowChanges, allowColumnChanges, rows, cols);
+
+            List<DoubleRow> newRows = new ArrayList<>(rows);
+            long position = BINARY_HEADER_SIZE;
+            int rowsPerMap = getRowsPerMap(cols);
+            for (int start = 0; start < rows; start += rowsPerMap) {
+                int n = Math.min(rowsPerMap, rows - start);
+                long size = (long) n * cols * Double.BYTES;
+                DoubleBuffer doubles = channel.map(FileChannel.MapMode.READ_ONLY, position, size).asDoubleBuffer();
+                for (int i = 0; i < n; i++) {
+                    double[] values = new double[cols];
+                    doubles.get(values);
+                    newRows.add(new DoubleRow(values));
+                }
+                position += size;
             }
-            fireTableStructureChanged();
-        } catch (TableDataException tde) {
-            throw tde;
+            setRows(newRows);
         }
     }
 
+    /**
+     * Returns how many rows fit in one mapped buffer, which is limited to 2GB.
+     */
+    private static int getRowsPerMap(int cols) {
+        return (int) Math.max(1, Integer.MAX_VALUE / ((long) Math.max(cols, 1) * Double.BYTES));
+    }
+
     /**
      * Returns a double array representation of the table.
      *
      * @return representation of table as double array
      */
     public double[][] asDoubleArray() {
-
-        double returnList[][] = new double[getRowCount()][getLogicalColumnCount()];
+        int cols = getLogicalColumnCount();
+        double returnList[][] = new double[getRowCount()][];
         for (int i = 0; i < getRowCount(); i++) {
-            for (int j = 0; j < getLogicalColumnCount(); j++) {
-                returnList[i][j] = this.getLogicalValueAt(i, j);
-            }
+            returnList[i] = Arrays.copyOf(getRow(i).values(), cols);
         }
         return returnList;
     }
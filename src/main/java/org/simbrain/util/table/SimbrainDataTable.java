@@ -29,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.simbrain.util.Utils;
+import org.simbrain.util.math.RandomSource;
 
 /**
  * Superclass for tables that can be viewed by a SimbrainJTable, and saved in a
@@ -61,6 +62,11 @@ public abstract class SimbrainDataTable<T> extends AbstractTableModel {
      */
     protected final List<List<T>> rowData;
 
+    /**
+     * Stream of random numbers for shuffling rows, see {@link RandomSource}.
+     */
+    private transient RandomSource random = RandomSource.newStream();
+
     // Initialize data
     {
         rowData = new ArrayList<List<T>>();
@@ -245,7 +251,10 @@ public abstract class SimbrainDataTable<T> extends AbstractTableModel {
      * Shuffle the rows of the dataset.
      */
     public void shuffle() {
-        Collections.shuffle(rowData);
+        if (random == null) {
+            random = RandomSource.newStream();
+        }
+        Collections.shuffle(rowData, random.newRandom());
         fireTableDataChanged();
     }
 
@@ -28,6 +28,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -142,6 +143,74 @@ public class TableActionManager {
         };
     }
 
+    /**
+     * Action for opening a table saved in binary form. See {@link NumericTable#readBinaryData(File, boolean,
+     * boolean)}.
+     *
+     * @param table              table to load data in to
+     * @param allowRowChanges    whether to allow number of rows to change
+     * @param allowColumnChanges whether to allow number of columns to change
+     * @return the action
+     */
+    public static Action getOpenBinaryAction(final NumericTable table, final boolean allowRowChanges, final boolean allowColumnChanges) {
+        return new AbstractAction() {
+
+            // Initialize
+            {
+                putValue(SMALL_ICON, ResourceManager.getImageIcon("menu_icons/Open.png"));
+                putValue(NAME, "Import (.bin)");
+                putValue(SHORT_DESCRIPTION, "Import table from binary file");
+            }
+
+            @Override
+            public void actionPerformed(ActionEvent arg0) {
+                SFileChooser chooser = new SFileChooser(CSV_DIRECTORY, "binary table (bin)", "bin");
+                File theFile = chooser.showOpenDialog();
+                if (theFile != null) {
+                    try {
+                        table.readBinaryData(theFile, allowRowChanges, allowColumnChanges);
+                    } catch (TableDataException | IOException e) {
+                        JOptionPane.showOptionDialog(null, e.getMessage(), "Warning", JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, null, null);
+                    }
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Action for saving a table in binary form, which loads much faster than a .csv file. See {@link
+     * NumericTable#writeBinaryData(File)}.
+     *
+     * @param table table to save
+     * @return the action
+     */
+    public static Action getSaveBinaryAction(final NumericTable table) {
+        return new AbstractAction() {
+
+            // Initialize
+            {
+                putValue(SMALL_ICON, ResourceManager.getImageIcon("menu_icons/Save.png"));
+                putValue(NAME, "Export (.bin)");
+                putValue(SHORT_DESCRIPTION, "Save table as binary file");
+            }
+
+            @Override
+            public void actionPerformed(ActionEvent arg0) {
+                SFileChooser chooser = new SFileChooser(CSV_DIRECTORY, "binary table (bin)", "bin");
+                File theFile = chooser.showSaveDialog();
+                if (theFile != null) {
+                    try {
+                        table.writeBinaryData(theFile);
+                    } catch (IOException e) {
+                        JOptionPane.showOptionDialog(null, e.getMessage(), "Warning", JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, null, null);
+                    }
+                }
+            }
+
+        };
+    }
+
     /**
      * Action for randomizing selected parts of a table.
      *
@@ -0,0 +1,148 @@
+package org.simbrain.workspace;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compiled accessors for the getters and setters of {@link Producer}s and {@link Consumer}s, used in place of
+ * {@link Method#invoke(Object, Object...)} so that couplings are updated with direct calls and double values are
+ * not boxed.
+ * <p>
+ * Accessors are generated with {@link LambdaMetafactory} once per method and shared by every attribute with that
+ * method, so a thousand neuron couplings use a single generated class. If an accessor can't be generated (e.g. the
+ * method is not accessible) a reflective one is used instead.
+ */
+public final class AttributeAccessors {
+
+    private static final Map<Method, Function<Object, Object>> getters = new ConcurrentHashMap<>();
+    private static final Map<Method, ToDoubleFunction<Object>> doubleGetters = new ConcurrentHashMap<>();
+    private static final Map<Method, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
+    private static final Map<Method, ObjDoubleConsumer<Object>> doubleSetters = new ConcurrentHashMap<>();
+
+    private AttributeAccessors() {
+    }
+
+    /**
+     * Returns a function that calls a getter on its argument.
+     *
+     * @param method the getter
+     * @return the compiled getter
+     */
+    public static Function<Object, Object> getter(Method method) {
+        return getters.computeIfAbsent(method, m -> {
+            try {
+                MethodHandle handle = lookup(m).unreflect(m);
+                @SuppressWarnings("unchecked")
+                Function<Object, Object> getter = (Function<Object, Object>) metafactory(m, "apply",
+                        Function.class, MethodType.methodType(Object.class, Object.class), handle,
+                        handle.type().wrap());
+                return getter;
+            } catch (Throwable t) {
+                return target -> invoke(m, target);
+            }
+        });
+    }
+
+    /**
+     * Returns a function that calls a getter with a double return type on its argument.
+     *
+     * @param method the getter
+     * @return the compiled getter
+     */
+    public static ToDoubleFunction<Object> doubleGetter(Method method) {
+        if (method.getReturnType() != double.class) {
+            throw new IllegalArgumentException(method + " does not return a double");
+        }
+        return doubleGetters.computeIfAbsent(method, m -> {
+            try {
+                MethodHandle handle = lookup(m).unreflect(m);
+                @SuppressWarnings("unchecked")
+                ToDoubleFunction<Object> getter = (ToDoubleFunction<Object>) metafactory(m, "applyAsDouble",
+                        ToDoubleFunction.class, MethodType.methodType(double.class, Object.class), handle,
+                        handle.type());
+                return getter;
+            } catch (Throwable t) {
+                return target -> (Double) invoke(m, target);
+            }
+        });
+    }
+
+    /**
+     * Returns a function that calls a setter on its first argument with its second argument.
+     *
+     * @param method the setter
+     * @return the compiled setter
+     */
+    public static BiConsumer<Object, Object> setter(Method method) {
+        return setters.computeIfAbsent(method, m -> {
+            try {
+                MethodHandle handle = lookup(m).unreflect(m);
+                @SuppressWarnings("unchecked")
+                BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) metafactory(m, "accept",
+                        BiConsumer.class, MethodType.methodType(void.class, Object.class, Object.class), handle,
+                        handle.type().wrap().changeReturnType(void.class));
+                return setter;
+            } catch (Throwable t) {
+                return (target, value) -> invoke(m, target, value);
+            }
+        });
+    }
+
+    /**
+     * Returns a function that calls a setter with a double argument.
+     *
+     * @param method the setter
+     * @return the compiled setter
+     */
+    public static ObjDoubleConsumer<Object> doubleSetter(Method method) {
+        if (method.getParameterCount() != 1 || method.getParameterTypes()[0] != double.class) {
+            throw new IllegalArgumentException(method + " does not take a double");
+        }
+        return doubleSetters.computeIfAbsent(method, m -> {
+            try {
+                MethodHandle handle = lookup(m).unreflect(m);
+                @SuppressWarnings("unchecked")
+                ObjDoubleConsumer<Object> setter = (ObjDoubleConsumer<Object>) metafactory(m, "accept",
+                        ObjDoubleConsumer.class, MethodType.methodType(void.class, Object.class, double.class),
+                        handle, handle.type().changeReturnType(void.class));
+                return setter;
+            } catch (Throwable t) {
+                return (target, value) -> invoke(m, target, value);
+            }
+        });
+    }
+
+    /**
+     * A lookup in the class declaring the method, so the generated class can call it even if the class isn't public.
+     */
+    private static MethodHandles.Lookup lookup(Method method) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+    }
+
+    private static Object metafactory(Method method, String name, Class<?> functionalInterface,
+                                      MethodType samType, MethodHandle handle, MethodType instantiatedType)
+            throws Throwable {
+        CallSite site = LambdaMetafactory.metafactory(lookup(method), name,
+                MethodType.methodType(functionalInterface), samType, handle, instantiatedType);
+        return site.getTarget().invoke();
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -2,9 +2,10 @@ package org.simbrain.workspace;
 
 import org.simbrain.workspace.couplings.Coupling;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * The part of a {@link Coupling} that receives values from a {@link Producer}.
@@ -12,6 +13,16 @@ import java.lang.reflect.Type;
  */
 public class Consumer extends Attribute {
 
+    /**
+     * Compiled setter, see {@link AttributeAccessors}.
+     */
+    private transient BiConsumer<Object, Object> setter;
+
+    /**
+     * Compiled setter for double consumers.
+     */
+    private transient ObjDoubleConsumer<Object> doubleSetter;
+
     /**
      * Contruct a consumer.
      *
@@ -39,11 +50,35 @@ public class Consumer extends Attribute {
      * @param value the value to set
      */
     public void setValue(Object value) {
-        try {
-            method.invoke(baseObject, value);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-            // Should never happen
-            throw new RuntimeException(ex);
+        if (setter == null) {
+            compile();
+        }
+        setter.accept(baseObject, value);
+    }
+
+    /**
+     * Update a consumer of doubles without boxing the value.
+     *
+     * @param value the value to set
+     */
+    public void setDoubleValue(double value) {
+        if (setter == null) {
+            compile();
+        }
+        if (doubleSetter == null) {
+            setter.accept(baseObject, value);
+        } else {
+            doubleSetter.accept(baseObject, value);
+        }
+    }
+
+    /**
+     * Create the accessors used to set values. Called when a coupling is created, or else on first use.
+     */
+    public void compile() {
+        setter = AttributeAccessors.setter(method);
+        if (method.getParameterTypes()[0] == double.class) {
+            doubleSetter = AttributeAccessors.doubleSetter(method);
         }
     }
 
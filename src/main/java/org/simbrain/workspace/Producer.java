@@ -5,6 +5,8 @@ import org.simbrain.workspace.couplings.Coupling;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 /**
  * The part of a {@link Coupling} that send values to a {@link Consumable}.
@@ -19,6 +21,16 @@ public class Producer extends Attribute {
      */
     private Method arrayDescriptionMethod;
 
+    /**
+     * Compiled getter, see {@link AttributeAccessors}.
+     */
+    private transient Function<Object, Object> getter;
+
+    /**
+     * Compiled getter for double producers.
+     */
+    private transient ToDoubleFunction<Object> doubleGetter;
+
     /**
      * Contruct a producer.
      *
@@ -46,11 +58,34 @@ public class Producer extends Attribute {
      * @return current value
      */
     public Object getValue() {
-        try {
-            return method.invoke(baseObject);
-        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException ex) {
-            // Should never happen
-            throw new RuntimeException(ex);
+        if (getter == null) {
+            compile();
+        }
+        return getter.apply(baseObject);
+    }
+
+    /**
+     * Return the value of a producer of doubles without boxing it.
+     *
+     * @return current value
+     */
+    public double getDoubleValue() {
+        if (getter == null) {
+            compile();
+        }
+        if (doubleGetter == null) {
+            return ((Number) getter.apply(baseObject)).doubleValue();
+        }
+        return doubleGetter.applyAsDouble(baseObject);
+    }
+
+    /**
+     * Create the accessors used to get values. Called when a coupling is created, or else on first use.
+     */
+    public void compile() {
+        getter = AttributeAccessors.getter(method);
+        if (method.getReturnType() == double.class) {
+            doubleGetter = AttributeAccessors.doubleGetter(method);
         }
     }
 
@@ -61,6 +61,12 @@ import java.util.*;
  * String)}
  * <br>
  * For instructions on setting up serialization see {@link WorkspaceSerializer}.
+ * <p>
+ * A headless workspace, created with {@link #Workspace(boolean)}, is meant for
+ * short runs without a desktop, such as evaluating agents in an evolutionary
+ * algorithm. It is updated synchronously on the thread that calls {@link
+ * #iterate(int)}, never creates threads of its own, and can be {@link #reset()}
+ * and reused, e.g. from a {@link org.simbrain.workspace.batch.WorkspacePool}.
  *
  * @author Jeff Yoshimi
  * @author Matt Watson
@@ -75,9 +81,9 @@ public class Workspace {
 
     /**
      * Component factory should be used to create new workspace and gui
-     * components.
+     * components. Created on first use.
      */
-    private transient AbstractComponentFactory componentFactory = new AbstractComponentFactory(this);
+    private transient AbstractComponentFactory componentFactory;
 
     /**
      * Flag to indicate workspace has been changed since last save.
@@ -128,10 +134,27 @@ public class Workspace {
      */
     private transient CouplingManager couplingManager = new CouplingManager(this);
 
+    /**
+     * Whether updates run synchronously on the calling thread, without a
+     * desktop.
+     */
+    private transient boolean headless;
+
     /**
      * Construct a workspace.
      */
     public Workspace() {
+        this(false);
+    }
+
+    /**
+     * Construct a workspace.
+     *
+     * @param headless true for a workspace that is updated synchronously on the
+     *                 calling thread and is not shown in a desktop
+     */
+    public Workspace(boolean headless) {
+        this.headless = headless;
         updater = new WorkspaceUpdater(this);
     }
 
@@ -265,6 +288,26 @@ public class Workspace {
         componentList.forEach(WorkspaceComponent::update);
     }
 
+    /**
+     * Return the workspace to the state of a newly constructed one so that it
+     * can be reused. Unlike {@link #clearWorkspace()} this keeps the coupling
+     * manager, along with the producer and consumer methods it has cached, and
+     * does not fire a workspace cleared event.
+     */
+    public void reset() {
+        stop();
+        couplingManager.removeCouplings(new ArrayList<>(couplingManager.getCouplings()));
+        couplingManager.getMethodVisibilities().clear();
+        removeAllComponents();
+        componentNameIndices.clear();
+        resetTime();
+        savedTime = 0;
+        updateDelay = 0;
+        currentFile = null;
+        workspaceChanged = false;
+        updater.getUpdateManager().setDefaultUpdateActions();
+    }
+
     /**
      * Remove all components (networks, worlds, etc.) from this workspace.
      */
@@ -318,10 +361,21 @@ public class Workspace {
         }
     }
 
-    public AbstractComponentFactory getComponentFactory() {
+    public synchronized AbstractComponentFactory getComponentFactory() {
+        if (componentFactory == null) {
+            componentFactory = new AbstractComponentFactory(this);
+        }
         return componentFactory;
     }
 
+    /**
+     * Returns true if the workspace is updated synchronously on the calling
+     * thread, without a desktop.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
     /**
      * Sets whether the workspace has been changed.
      *
@@ -500,7 +554,7 @@ public class Workspace {
         try {
             if (theFile != null) {
                 clearWorkspace();
-                serializer.deserialize(new FileInputStream(theFile));
+                serializer.deserialize(theFile);
                 setCurrentFile(theFile);
                 setWorkspaceChanged(false);
                 events.fireNewWorkspaceOpened();
@@ -0,0 +1,483 @@
+package org.simbrain.workspace.batch;
+
+import org.simbrain.workspace.AttributeContainer;
+import org.simbrain.workspace.Consumer;
+import org.simbrain.workspace.Producer;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.WorkspaceComponent;
+import org.simbrain.workspace.serialization.WorkspaceSerializer;
+import org.simbrain.workspace.updater.UpdateAction;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Runs many replicas of a saved workspace without a desktop, e.g. for parameter sweeps. The workspace is loaded
+ * once; each replica is a fresh copy of it in which parameters can be overridden, and which is iterated on its own
+ * thread. Replicas are loaded into headless workspaces from a {@link WorkspacePool}, so a run creates no more
+ * workspaces than it has threads. Selected producer values are written after every iteration to one csv file per
+ * replica, with a column per value.
+ * <p>
+ * Each replica is copied by deserializing the saved workspace again rather than by copying a loaded template.
+ * Components have no general deep copy, and deserializing is the one copy that also gives each replica its own
+ * couplings, update actions, attribute ids and random streams. It is done once per replica, before the replica is
+ * iterated, so its cost does not grow with the number of iterations.
+ * <p>
+ * Output is written row by row as csv, the format the data world and other Simbrain tools read, rather than in a
+ * column-major binary format. Values are only known one iteration at a time, so writing a column at a time would
+ * mean holding the whole run in memory or keeping a file per column; each row is instead appended to a buffered
+ * writer as soon as the iteration is done.
+ * <p>
+ * Usage from the command line:
+ * <pre>
+ * BatchRunner workspace.zip iterations replicas outputDirectory
+ *     [--set component:attribute:method=value[,value...]]...
+ *     [--record component:attribute:method]...
+ * </pre>
+ * Attributes are named as in a saved workspace: the component name, the id of the attribute container (e.g.
+ * "Neuron_1") and the name of the producer or consumer method. A list of values is used one per replica, cycling
+ * if there are more replicas than values. For example
+ * <pre>
+ * BatchRunner sim.zip 1000 20 out --set Network1:Neuron_1:setInputValue=0,.5,1 --record Network1:Neuron_2:getActivation
+ * </pre>
+ */
+public class BatchRunner {
+
+    /**
+     * The workspace, serialized once and deserialized for each replica (see the class documentation for why).
+     */
+    private final byte[] zipData;
+
+    /**
+     * Number of copies of the workspace to run.
+     */
+    private int numReplicas = 1;
+
+    /**
+     * Number of iterations each replica is run for.
+     */
+    private int iterations = 100;
+
+    /**
+     * Number of replicas run at once.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Where output files are written.
+     */
+    private File outputDirectory = new File(".");
+
+    /**
+     * Output files are named prefix_replica.csv.
+     */
+    private String outputPrefix = "replica";
+
+    /**
+     * Parameters set in each replica before it is run.
+     */
+    private final List<ParameterOverride> overrides = new ArrayList<>();
+
+    /**
+     * Producers whose values are written to the output files.
+     */
+    private final List<String[]> recordedAttributes = new ArrayList<>();
+
+    /**
+     * Custom initialization of each replica, called with the replica's workspace and index after overrides are
+     * applied, e.g. to seed random number generators.
+     */
+    private ObjIntConsumer<Workspace> replicaInitializer = (workspace, replica) -> {
+    };
+
+    /**
+     * Workspaces that replicas are loaded into.
+     */
+    private final WorkspacePool pool = new WorkspacePool();
+
+    /**
+     * Load a workspace from a file.
+     *
+     * @param workspaceFile the zipped workspace
+     * @throws IOException if the file can't be read or is not a workspace
+     */
+    public BatchRunner(File workspaceFile) throws IOException {
+        Workspace workspace = new Workspace(true);
+        new WorkspaceSerializer(workspace).deserialize(workspaceFile);
+        this.zipData = workspace.getZipData();
+    }
+
+    /**
+     * Use a workspace in the form produced by {@link Workspace#getZipData()}.
+     *
+     * @param zipData the zipped workspace
+     */
+    public BatchRunner(byte[] zipData) {
+        this.zipData = zipData;
+    }
+
+    /**
+     * Override a parameter in each replica by calling a consumer.
+     *
+     * @param attribute       the consumer, as component:attribute:method
+     * @param valueForReplica the value for each replica index; must match the consumer's type
+     */
+    public void setOverride(String attribute, IntFunction<Object> valueForReplica) {
+        overrides.add(new ParameterOverride(parseAttribute(attribute), valueForReplica));
+    }
+
+    /**
+     * Record the value of a producer after each iteration. Producers of arrays are recorded to a column per element.
+     *
+     * @param attribute the producer, as component:attribute:method
+     */
+    public void record(String attribute) {
+        recordedAttributes.add(parseAttribute(attribute));
+    }
+
+    /**
+     * Run all replicas and wait for them to finish.
+     *
+     * @return the output file of each replica, or an empty list if nothing is recorded
+     * @throws IOException if a replica can't be created or its output can't be written
+     */
+    public List<File> run() throws IOException {
+        if (!recordedAttributes.isEmpty()) {
+            Files.createDirectories(outputDirectory.toPath());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, numThreads));
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+            for (int i = 0; i < numReplicas; i++) {
+                int replica = i;
+                futures.add(executor.submit(() -> runReplica(replica)));
+            }
+            List<File> files = new ArrayList<>();
+            for (Future<File> future : futures) {
+                File file = future.get();
+                if (file != null) {
+                    files.add(file);
+                }
+            }
+            return files;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running replicas", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create, initialize and iterate one replica.
+     */
+    private File runReplica(int replica) throws IOException {
+        Workspace workspace = pool.acquire();
+        try {
+            new WorkspaceSerializer(workspace).deserialize(new ByteArrayInputStream(zipData));
+            for (ParameterOverride override : overrides) {
+                Object value = override.valueForReplica.apply(replica);
+                getConsumer(workspace, override.attribute).setValue(value);
+            }
+            replicaInitializer.accept(workspace, replica);
+
+            if (recordedAttributes.isEmpty()) {
+                workspace.getUpdater().iterate(iterations);
+                return null;
+            }
+            List<Producer> producers = new ArrayList<>();
+            for (String[] attribute : recordedAttributes) {
+                producers.add(getProducer(workspace, attribute));
+            }
+            File file = new File(outputDirectory, outputPrefix + "_" + replica + ".csv");
+            try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                RecordAction recorder = new RecordAction(producers, writer);
+                workspace.addUpdateAction(recorder);
+                workspace.getUpdater().iterate(iterations);
+                if (recorder.error != null) {
+                    throw recorder.error;
+                }
+            }
+            return file;
+        } finally {
+            pool.release(workspace);
+        }
+    }
+
+    /**
+     * Split component:attribute:method. The component name may itself contain colons.
+     */
+    private static String[] parseAttribute(String attribute) {
+        int methodStart = attribute.lastIndexOf(':');
+        int attributeStart = methodStart < 1 ? -1 : attribute.lastIndexOf(':', methodStart - 1);
+        if (attributeStart < 1) {
+            throw new IllegalArgumentException("Expected component:attribute:method but got " + attribute);
+        }
+        return new String[]{attribute.substring(0, attributeStart),
+                attribute.substring(attributeStart + 1, methodStart), attribute.substring(methodStart + 1)};
+    }
+
+    /**
+     * Find the attribute container corresponding to a parsed attribute.
+     */
+    private static AttributeContainer getContainer(Workspace workspace, String[] attribute) {
+        WorkspaceComponent component = workspace.getComponent(attribute[0]);
+        if (component == null) {
+            throw new IllegalArgumentException("No component named " + attribute[0]);
+        }
+        for (AttributeContainer container : component.getAttributeContainers()) {
+            if (attribute[1].equals(container.getId())) {
+                return container;
+            }
+        }
+        throw new IllegalArgumentException("No object " + attribute[1] + " in component " + attribute[0]);
+    }
+
+    private static Producer getProducer(Workspace workspace, String[] attribute) {
+        return workspace.getCouplingManager().getProducer(getContainer(workspace, attribute), attribute[2]);
+    }
+
+    private static Consumer getConsumer(Workspace workspace, String[] attribute) {
+        return workspace.getCouplingManager().getConsumer(getContainer(workspace, attribute), attribute[2]);
+    }
+
+    /**
+     * Convert a command line value to the type of a consumer.
+     */
+    private static Object parseValue(String value, Class<?> type) {
+        if (type == double.class || type == Double.class) {
+            return Double.parseDouble(value);
+        } else if (type == int.class || type == Integer.class) {
+            return Integer.parseInt(value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return Boolean.parseBoolean(value);
+        } else if (type == String.class) {
+            return value;
+        }
+        throw new IllegalArgumentException("Can't set values of type " + type.getSimpleName());
+    }
+
+    public int getNumReplicas() {
+        return numReplicas;
+    }
+
+    public void setNumReplicas(int numReplicas) {
+        this.numReplicas = numReplicas;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public String getOutputPrefix() {
+        return outputPrefix;
+    }
+
+    public void setOutputPrefix(String outputPrefix) {
+        this.outputPrefix = outputPrefix;
+    }
+
+    public void setReplicaInitializer(ObjIntConsumer<Workspace> replicaInitializer) {
+        this.replicaInitializer = replicaInitializer;
+    }
+
+    /**
+     * A consumer to call with a value that depends on the replica.
+     */
+    private static class ParameterOverride {
+
+        private final String[] attribute;
+
+        private final IntFunction<Object> valueForReplica;
+
+        ParameterOverride(String[] attribute, IntFunction<Object> valueForReplica) {
+            this.attribute = attribute;
+            this.valueForReplica = valueForReplica;
+        }
+    }
+
+    /**
+     * Writes a row of producer values after each workspace update. Rows are written by the update thread as part of
+     * the update, so the values are those of the update just completed.
+     */
+    private static class RecordAction implements UpdateAction {
+
+        private final Producer[] producers;
+
+        private final Writer writer;
+
+        private final StringBuilder row = new StringBuilder();
+
+        private boolean headerWritten;
+
+        /**
+         * The first error writing output, rethrown once the replica has finished.
+         */
+        private IOException error;
+
+        RecordAction(List<Producer> producers, Writer writer) {
+            this.producers = producers.toArray(new Producer[0]);
+            this.writer = writer;
+        }
+
+        @Override
+        public void invoke() {
+            if (error != null) {
+                return;
+            }
+            try {
+                if (!headerWritten) {
+                    writeHeader();
+                    headerWritten = true;
+                }
+                row.setLength(0);
+                for (int i = 0; i < producers.length; i++) {
+                    if (i > 0) {
+                        row.append(',');
+                    }
+                    Producer producer = producers[i];
+                    if (producer.getType() == double.class) {
+                        row.append(producer.getDoubleValue());
+                    } else {
+                        Object value = producer.getValue();
+                        if (value instanceof double[]) {
+                            double[] values = (double[]) value;
+                            for (int j = 0; j < values.length; j++) {
+                                if (j > 0) {
+                                    row.append(',');
+                                }
+                                row.append(values[j]);
+                            }
+                        } else {
+                            row.append(value);
+                        }
+                    }
+                }
+                row.append('\n');
+                writer.append(row);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        private void writeHeader() throws IOException {
+            List<String> columns = new ArrayList<>();
+            for (Producer producer : producers) {
+                String name = producer.getId() + ":" + producer.getMethod().getName();
+                Object value = producer.getValue();
+                if (value instanceof double[]) {
+                    for (int j = 0; j < ((double[]) value).length; j++) {
+                        columns.add(name + "[" + j + "]");
+                    }
+                } else {
+                    columns.add(name);
+                }
+            }
+            writer.write(String.join(",", columns));
+            writer.write('\n');
+        }
+
+        @Override
+        public String getDescription() {
+            return "Record producer values";
+        }
+
+        @Override
+        public String getLongDescription() {
+            return getDescription();
+        }
+    }
+
+    /**
+     * Run replicas of a workspace from the command line. See the class documentation for the arguments.
+     *
+     * @param args the arguments
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 4) {
+            exitWithUsage(null);
+        }
+        BatchRunner runner = new BatchRunner(new File(args[0]));
+        runner.setIterations(Integer.parseInt(args[1]));
+        runner.setNumReplicas(Integer.parseInt(args[2]));
+        runner.setOutputDirectory(new File(args[3]));
+
+        // Check attributes against the loaded workspace before running anything
+        Workspace template = new Workspace(true);
+        new WorkspaceSerializer(template).deserialize(new ByteArrayInputStream(runner.zipData));
+        for (int i = 4; i < args.length; i++) {
+            if (args[i].equals("--set") && i + 1 < args.length) {
+                String[] assignment = args[++i].split("=", 2);
+                if (assignment.length < 2 || assignment[0].trim().isEmpty() || assignment[1].trim().isEmpty()) {
+                    exitWithUsage("Expected component:attribute:method=value[,value...] after --set, got " + args[i]);
+                }
+                Consumer consumer = getConsumer(template, parseAttribute(assignment[0]));
+                Class<?> type = (Class<?>) consumer.getType();
+                Object[] values = Arrays.stream(assignment[1].split(","))
+                        .map(v -> parseValue(v.trim(), type)).toArray();
+                runner.setOverride(assignment[0], replica -> values[replica % values.length]);
+            } else if (args[i].equals("--record") && i + 1 < args.length) {
+                getProducer(template, parseAttribute(args[++i]));
+                runner.record(args[i]);
+            } else {
+                exitWithUsage("Unexpected argument " + args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        List<File> files = runner.run();
+        System.out.printf("Ran %d replicas of %d iterations in %.1f s%n", runner.numReplicas, runner.iterations,
+                (System.nanoTime() - start) / 1e9);
+        files.forEach(f -> System.out.println(f.getPath()));
+    }
+
+    /**
+     * Print an error (if there is one) and the command line usage, and exit.
+     */
+    private static void exitWithUsage(String error) {
+        if (error != null) {
+            System.err.println(error);
+        }
+        System.err.println("Usage: BatchRunner workspace.zip iterations replicas outputDirectory "
+                + "[--set component:attribute:method=value[,value...]]... [--record component:attribute:method]...");
+        System.exit(1);
+    }
+}
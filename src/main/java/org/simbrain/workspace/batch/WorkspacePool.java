@@ -0,0 +1,104 @@
+package org.simbrain.workspace.batch;
+
+import org.simbrain.workspace.Workspace;
+
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.Function;
+
+/**
+ * A pool of headless workspaces (see {@link Workspace#Workspace(boolean)}) for running many short simulations, e.g.
+ * evaluating the agents of an evolutionary algorithm or the replicas of a {@link BatchRunner}. Each thread acquires a
+ * workspace, builds and iterates its simulation on it, and releases it; released workspaces are reset and handed out
+ * again, so the updater, coupling manager and their caches are created once per pooled workspace rather than once per
+ * simulation. The pool can be shared by any number of threads.
+ * <p>
+ * Usage:
+ * <pre>
+ * double fitness = pool.run(workspace -&gt; {
+ *     workspace.addWorkspaceComponent(new NetworkComponent("Net", network));
+ *     workspace.iterate(500);
+ *     return score(network);
+ * });
+ * </pre>
+ */
+public class WorkspacePool {
+
+    /**
+     * Released workspaces, most recently released first.
+     */
+    private final LinkedBlockingDeque<Workspace> idle;
+
+    /**
+     * Create a pool that keeps up to one idle workspace per processor.
+     */
+    public WorkspacePool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a pool.
+     *
+     * @param maxIdle the most released workspaces kept for reuse; workspaces released when this many are idle are
+     *                discarded
+     */
+    public WorkspacePool(int maxIdle) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("maxIdle must be at least 1");
+        }
+        idle = new LinkedBlockingDeque<>(maxIdle);
+    }
+
+    /**
+     * Take an empty headless workspace from the pool, creating one if none is idle. It should be returned with {@link
+     * #release(Workspace)} once the simulation on it is finished.
+     *
+     * @return an empty headless workspace
+     */
+    public Workspace acquire() {
+        Workspace workspace = idle.pollFirst();
+        return workspace != null ? workspace : new Workspace(true);
+    }
+
+    /**
+     * Reset a workspace and return it to the pool. The caller should not use the workspace afterwards.
+     *
+     * @param workspace a workspace obtained from {@link #acquire()}
+     */
+    public void release(Workspace workspace) {
+        if (!workspace.isHeadless()) {
+            throw new IllegalArgumentException("Only headless workspaces can be pooled");
+        }
+        workspace.reset();
+        idle.offerFirst(workspace);
+    }
+
+    /**
+     * Run a task on a workspace from the pool, releasing the workspace when the task is done even if it fails.
+     *
+     * @param task the simulation to run; it should not keep a reference to the workspace
+     * @param <T>  the type of result
+     * @return the result of the task
+     */
+    public <T> T run(Function<Workspace, T> task) {
+        Workspace workspace = acquire();
+        try {
+            return task.apply(workspace);
+        } finally {
+            release(workspace);
+        }
+    }
+
+    /**
+     * Returns the number of workspaces waiting to be reused.
+     */
+    public int getNumIdle() {
+        return idle.size();
+    }
+
+    /**
+     * Discard all idle workspaces.
+     */
+    public void clear() {
+        idle.clear();
+    }
+}
@@ -202,8 +202,7 @@ public abstract class DesktopComponent<E extends WorkspaceComponent> extends JPa
 
             try {
                 FileOutputStream stream = new FileOutputStream(theFile);
-                // TODO format?
-                workspaceComponent.save(stream, null);
+                workspaceComponent.save(stream, SFileChooser.getExtension(theFile));
             } catch (FileNotFoundException e) {
                 throw new RuntimeException(e);
             }
@@ -227,7 +226,7 @@ public abstract class DesktopComponent<E extends WorkspaceComponent> extends JPa
         } else {
             try {
                 FileOutputStream stream = new FileOutputStream(workspaceComponent.getCurrentFile());
-                workspaceComponent.save(stream, null);
+                workspaceComponent.save(stream, SFileChooser.getExtension(workspaceComponent.getCurrentFile()));
             } catch (FileNotFoundException e) {
                 throw new RuntimeException(e);
             }
@@ -50,7 +50,8 @@ public class WorkspaceComponentDeserializer {
 
     /**
      * Deserializes a workspace component using the information from the
-     * provided component and input stream.
+     * provided component and input stream. Components may be deserialized
+     * concurrently; see {@link #addComponent}.
      *
      * @param archivedComponent The component entry from the archive contents.
      * @param input             The input stream to read data from.
@@ -59,11 +60,21 @@ public class WorkspaceComponentDeserializer {
     WorkspaceComponent deserializeWorkspaceComponent(ArchivedWorkspaceComponent archivedComponent, InputStream input) throws ReflectiveOperationException {
         Class<?> componentClass = Class.forName(archivedComponent.getClassName());
         WorkspaceComponent wc = deserializeWorkspaceComponent(componentClass, archivedComponent.getName(), input, null);
-        componentKeys.put(archivedComponent.getUri(), wc);
         wc.setChangedSinceLastSave(false);
         return wc;
     }
 
+    /**
+     * Makes a deserialized component available by its uri, e.g. to update
+     * actions. Called on one thread, in the order the components were saved.
+     *
+     * @param archivedComponent The component entry from the archive contents.
+     * @param component         The deserialized component.
+     */
+    void addComponent(ArchivedWorkspaceComponent archivedComponent, WorkspaceComponent component) {
+        componentKeys.put(archivedComponent.getUri(), component);
+    }
+
     /**
      * Deserialized a component for the given class, input and input format.
      *
@@ -22,6 +22,7 @@ import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.xml.DomDriver;
 import org.simbrain.util.SFileChooser;
 import org.simbrain.util.SimbrainPreferences;
+import org.simbrain.util.math.RandomSource;
 import org.simbrain.workspace.*;
 import org.simbrain.workspace.couplings.Coupling;
 import org.simbrain.workspace.gui.DesktopComponent;
@@ -35,7 +36,13 @@ import java.io.*;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -68,7 +75,26 @@ public class WorkspaceSerializer {
     /**
      * The number of bytes to attempt to read at a time from an InputStream.
      */
-    private static final int BUFFER_SIZE = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The name of the entry describing the rest of a zipped workspace.
+     */
+    private static final String CONTENTS_FILE = "contents.xml";
+
+    /**
+     * Components that are opened on the calling thread rather than in parallel with the others. The 3D world starts
+     * its rendering engine when it is opened.
+     */
+    private static final Set<String> CALLING_THREAD_COMPONENTS = Set.of(
+            "org.simbrain.world.threedworld.ThreeDWorldComponent");
+
+    /**
+     * Opens an entry of a zipped workspace, returning null if there is no such entry.
+     */
+    private interface EntryOpener {
+        InputStream open(String name) throws IOException;
+    }
 
     /**
      * The current workspace.
@@ -113,28 +139,52 @@ public class WorkspaceSerializer {
         // Currently sorts components by a serialization priority
         workspace.preSerializationInit();
 
-        serializeComponents(serializer, archive, zipStream);
+        List<ArchivedWorkspaceComponent> archivedComponents = archiveComponents(archive);
         serializeCouplings(archive);
         serializeUpdateActions(archive);
 
+        // The contents go first, so that a workspace can be read from a stream one entry at a time
         ZipEntry entry = new ZipEntry("contents.xml");
         zipStream.putNextEntry(entry);
         archive.toXml(zipStream);
+
+        serializeComponents(serializer, archivedComponents, zipStream);
         zipStream.finish();
     }
 
     /**
-     * Serializes all the components to the given archive and zipstream.
+     * Adds all the components (and their desktop components) to the archive.
      *
-     * @param serializer The serializer for the components.
-     * @param archive    The archive contents to update.
-     * @param zipStream  The zipstream to write to.
-     * @throws IOException If there is an IO error.
+     * @param archive The archive contents to update.
+     * @return the archived components, in the order of the workspace's components
      */
-    private void serializeComponents(WorkspaceComponentSerializer serializer, ArchivedWorkspace archive, ZipOutputStream zipStream) throws IOException {
-        List<WorkspaceComponent> components = sortComponentsByPriority();
+    private List<ArchivedWorkspaceComponent> archiveComponents(ArchivedWorkspace archive) {
+        List<ArchivedWorkspaceComponent> archivedComponents = new ArrayList<>();
         for (WorkspaceComponent component : workspace.getComponentList()) {
-            serializeComponent(serializer, archive, component, zipStream);
+            ArchivedWorkspaceComponent archiveComp = archive.addComponent(component);
+            if (desktop != null) {
+                DesktopComponent<?> desktopComponent = desktop.getDesktopComponent(component);
+                // Makes it possible to save a non-GUI simulation
+                if (desktopComponent != null) {
+                    archiveComp.addDesktopComponent(desktopComponent);
+                }
+            }
+            archivedComponents.add(archiveComp);
+        }
+        return archivedComponents;
+    }
+
+    /**
+     * Serializes all the components to the given zipstream.
+     *
+     * @param serializer         The serializer for the components.
+     * @param archivedComponents The archived components, see {@link #archiveComponents(ArchivedWorkspace)}.
+     * @param zipStream          The zipstream to write to.
+     */
+    private void serializeComponents(WorkspaceComponentSerializer serializer, List<ArchivedWorkspaceComponent> archivedComponents, ZipOutputStream zipStream) {
+        List<? extends WorkspaceComponent> components = workspace.getComponentList();
+        for (int i = 0; i < components.size(); i++) {
+            serializeComponent(serializer, archivedComponents.get(i), components.get(i), zipStream);
         }
     }
 
@@ -152,26 +202,20 @@ public class WorkspaceSerializer {
     /**
      * Serialize one component to the zip stream
      *
-     * @param serializer The serializer for the components.
-     * @param archive    The archive contents to update.
-     * @param component  the component to serialize
-     * @param zipStream  The zipstream to write to.
+     * @param serializer  The serializer for the components.
+     * @param archiveComp The archive entry for the component.
+     * @param component   the component to serialize
+     * @param zipStream   The zipstream to write to.
      */
-    private void serializeComponent(WorkspaceComponentSerializer serializer, ArchivedWorkspace archive, WorkspaceComponent component, ZipOutputStream zipStream) {
-        ArchivedWorkspaceComponent archiveComp = archive.addComponent(component);
+    private void serializeComponent(WorkspaceComponentSerializer serializer, ArchivedWorkspaceComponent archiveComp, WorkspaceComponent component, ZipOutputStream zipStream) {
         ZipEntry entry = new ZipEntry(archiveComp.getUri());
         try {
             zipStream.putNextEntry(entry);
             serializer.serializeComponent(component, zipStream);
-            if (SimbrainDesktop.getDesktop(workspace) != null) {
-                DesktopComponent<?> desktopComponent = SimbrainDesktop.getDesktop(workspace).getDesktopComponent(component);
-                // Makes it possible to save a non-GUI simulation
-                if (desktopComponent != null) {
-                    ArchivedWorkspaceComponent.ArchivedDesktopComponent dc = archiveComp.addDesktopComponent(desktopComponent);
-                    entry = new ZipEntry(dc.getUri());
-                    zipStream.putNextEntry(entry);
-                    desktopComponent.save(zipStream);
-                }
+            if (archiveComp.getDesktopComponent() != null) {
+                entry = new ZipEntry(archiveComp.getDesktopComponent().getUri());
+                zipStream.putNextEntry(entry);
+                desktop.getDesktopComponent(component).save(zipStream);
             }
         } catch (IOException ex) {
             ex.printStackTrace();
@@ -228,18 +272,66 @@ public class WorkspaceSerializer {
     }
 
     /**
-     * Creates a workspace from a zip compressed input stream.
+     * Creates a workspace from a zip compressed input stream. The stream is read once, and entries are read from it
+     * as the components they belong to are opened, so only the entries being deserialized are held in memory.
+     * Workspaces saved before the contents were written first have every entry held until the contents are
+     * reached. When the workspace is in a file prefer {@link #deserialize(File)}, which reads the entries directly
+     * from the file.
      *
      * @param stream The stream to read from. This is expected to be zip compressed.
      * @throws IOException if an IO error occurs.
      */
-    @SuppressWarnings("unchecked")
     public void deserialize(InputStream stream) throws IOException {
-        Map<String, byte[]> byteArrays = processInputStream(stream);
-        ArchivedWorkspace archive = (ArchivedWorkspace) ArchivedWorkspace.xstream().fromXML(new ByteArrayInputStream(byteArrays.get("contents.xml")));
+        ZipStreamEntries entries = new ZipStreamEntries(stream);
+        String contentsName = entries.findContents();
+        if (contentsName == null) {
+            throw new IOException("No " + CONTENTS_FILE + " in workspace archive");
+        }
+        deserialize(contentsName, entries);
+    }
+
+    /**
+     * Creates a workspace from a zip file. Entries are read on demand, so only the entries being deserialized are
+     * held in memory.
+     *
+     * @param file the zipped workspace file
+     * @throws IOException if an IO error occurs.
+     */
+    public void deserialize(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            String contentsName = CONTENTS_FILE;
+            for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(CONTENTS_FILE)) {
+                    contentsName = name;
+                }
+            }
+            deserialize(contentsName, name -> {
+                ZipEntry entry = zip.getEntry(name);
+                return entry == null ? null : new BufferedInputStream(zip.getInputStream(entry));
+            });
+        }
+    }
+
+    /**
+     * Creates a workspace given the name of the contents entry of a zipped workspace and a way to open its entries.
+     */
+    private void deserialize(String contentsName, EntryOpener entries) throws IOException {
+
+        // Entries are named relative to the location of contents.xml
+        final String prefix = contentsName.substring(0, contentsName.length() - CONTENTS_FILE.length());
+        EntryOpener relativeEntries = name -> entries.open(prefix + name);
+
+        ArchivedWorkspace archive;
+        try (InputStream contents = relativeEntries.open(CONTENTS_FILE)) {
+            if (contents == null) {
+                throw new IOException("No " + CONTENTS_FILE + " in workspace archive");
+            }
+            archive = (ArchivedWorkspace) ArchivedWorkspace.xstream().fromXML(contents);
+        }
 
         WorkspaceComponentDeserializer deserializer = new WorkspaceComponentDeserializer();
-        deserializeComponents(archive, deserializer, byteArrays);
+        deserializeComponents(archive, deserializer, relativeEntries);
 
         deserializeCouplings(archive);
         deserializeUpdateActions(archive, deserializer);
@@ -247,62 +339,106 @@ public class WorkspaceSerializer {
 
     }
 
-    private Map<String, byte[]> processInputStream(InputStream stream) throws IOException {
-        // Populate the byte stream BUFFER_SIZE at a time and create a zip input
-        // stream (currently 1 kb at a time).
-        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-        byte[] buffer = new byte[BUFFER_SIZE];
-        for (int read; (read = stream.read(buffer)) >= 0; ) {
-            bytes.write(buffer, 0, read);
-        }
-        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()));
-
-        // Populate a map from zip entries (strings containing path+file info in
-        // zip archive) to the associated data
-        Map<String, byte[]> byteArrays = new HashMap<String, byte[]>();
-        ZipEntry entry = zip.getNextEntry();
-        // Initialize byte arrays
-        for (ZipEntry next; entry != null; entry = next) {
-            next = zip.getNextEntry();
-            byteArrays.put(entry.getName(), new byte[(int) entry.getSize()]);
-        }
-        zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()));
-        // Populate byte arrays
-        while ((entry = zip.getNextEntry()) != null) {
-            byte[] data = byteArrays.get(entry.getName());
-            read(zip, data);
+    /**
+     * Opens the entries of a zip stream in a single pass. An entry is read when it is opened, and entries passed
+     * over on the way to it are held until they are opened in turn, so entries opened in the order they were saved
+     * are never held. Entries are opened from several threads, so each is read fully before it is returned.
+     */
+    private static final class ZipStreamEntries implements EntryOpener {
+
+        private final ZipInputStream zip;
+
+        /**
+         * Entries that have been read from the stream but not yet opened.
+         */
+        private final Map<String, byte[]> skipped = new HashMap<>();
+
+        ZipStreamEntries(InputStream stream) {
+            zip = new ZipInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
         }
 
-        // Find the contents.xml file and set the zip entries relative to that
-        Set<String> zipEntries = new HashSet<String>(byteArrays.keySet());
-        String contentsFile = "contents.xml";
-        String contentsPath = "";
-        for (String entryName : zipEntries) {
-            if (entryName.endsWith(contentsFile)) {
-                contentsPath = entryName.substring(0, entryName.length() - contentsFile.length());
+        /**
+         * Read up to the contents entry, holding the entries before it.
+         *
+         * @return the name of the contents entry, or null if there is none
+         */
+        synchronized String findContents() throws IOException {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                skipped.put(entry.getName(), zip.readAllBytes());
+                if (entry.getName().endsWith(CONTENTS_FILE)) {
+                    return entry.getName();
+                }
             }
+            return null;
         }
 
-        // Remove the contents path from all entries that have it
-        if (!contentsPath.isEmpty()) {
-            for (String entryName : zipEntries) {
-                if (entryName.startsWith(contentsPath)) {
-                    byteArrays.put(entryName.replace(contentsPath, ""), byteArrays.get(entryName));
-                    byteArrays.remove(entryName);
+        @Override
+        public synchronized InputStream open(String name) throws IOException {
+            byte[] bytes = skipped.remove(name);
+            for (ZipEntry entry; bytes == null && (entry = zip.getNextEntry()) != null; ) {
+                if (entry.getName().equals(name)) {
+                    bytes = zip.readAllBytes();
+                } else {
+                    skipped.put(entry.getName(), zip.readAllBytes());
                 }
             }
+            return bytes == null ? null : new ByteArrayInputStream(bytes);
         }
-        return byteArrays;
     }
 
-    private void deserializeComponents(ArchivedWorkspace archive, WorkspaceComponentDeserializer deserializer, Map<String, byte[]> byteArrays) {
-        if (archive.getArchivedComponents() != null) {
-            for (ArchivedWorkspaceComponent archivedComponent : archive.getArchivedComponents()) {
+    /**
+     * Deserialize the archived components and add them to the workspace in the order they were saved. Components
+     * are independent until couplings and update actions are restored, so they are opened in parallel. Each task
+     * only reads its entry and calls the component's open method, which parses it with its own XStream. Everything
+     * that depends on the order of the components (registering them for update actions, adding them to the
+     * workspace, which notifies the gui, and restoring their desktop bounds) happens afterwards on the calling
+     * thread, in the saved order.
+     */
+    private void deserializeComponents(ArchivedWorkspace archive, WorkspaceComponentDeserializer deserializer, EntryOpener entries) {
+        List<? extends ArchivedWorkspaceComponent> archivedComponents = archive.getArchivedComponents();
+        if (archivedComponents.isEmpty()) {
+            return;
+        }
+        int numThreads = Math.min(archivedComponents.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = numThreads > 1 ? Executors.newFixedThreadPool(numThreads, r -> {
+            Thread t = new Thread(r, "Workspace component loader");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        try {
+            List<Future<WorkspaceComponent>> futures = new ArrayList<>();
+            for (int i = 0; i < archivedComponents.size(); i++) {
+                ArchivedWorkspaceComponent archivedComponent = archivedComponents.get(i);
+                // Random streams created while the component is opened are keyed by the component, so they do not
+                // depend on the order in which the loader threads happen to run
+                String streamKey = i + ":" + archivedComponent.getName();
+                Callable<WorkspaceComponent> task = () -> {
+                    RandomSource.beginScope(streamKey);
+                    try (InputStream input = entries.open(archivedComponent.getUri())) {
+                        return deserializer.deserializeWorkspaceComponent(archivedComponent, input);
+                    } finally {
+                        RandomSource.endScope();
+                    }
+                };
+                if (executor == null || CALLING_THREAD_COMPONENTS.contains(archivedComponent.getClassName())) {
+                    FutureTask<WorkspaceComponent> future = new FutureTask<>(task);
+                    future.run();
+                    futures.add(future);
+                } else {
+                    futures.add(executor.submit(task));
+                }
+            }
+            for (int i = 0; i < archivedComponents.size(); i++) {
+                ArchivedWorkspaceComponent archivedComponent = archivedComponents.get(i);
                 try {
-                    WorkspaceComponent wc = deserializer.deserializeWorkspaceComponent(archivedComponent, new ByteArrayInputStream(byteArrays.get(archivedComponent.getUri())));
+                    WorkspaceComponent wc = futures.get(i).get();
+                    deserializer.addComponent(archivedComponent, wc);
                     workspace.addWorkspaceComponent(wc);
-                    if (archivedComponent.getDesktopComponent() != null) {
-                        Rectangle bounds = (Rectangle) new XStream(new DomDriver()).fromXML(new ByteArrayInputStream(byteArrays.get(archivedComponent.getDesktopComponent().getUri())));
+                    if (archivedComponent.getDesktopComponent() != null && desktop != null) {
+                        Rectangle bounds;
+                        try (InputStream input = entries.open(archivedComponent.getDesktopComponent().getUri())) {
+                            bounds = (Rectangle) new XStream(new DomDriver()).fromXML(input);
+                        }
                         DesktopComponent<?> desktopComponent = desktop.getDesktopComponent(wc);
                         desktopComponent.getParentFrame().setBounds(bounds);
                     }
@@ -312,6 +448,10 @@ public class WorkspaceSerializer {
                     JOptionPane.showMessageDialog(null, message);
                 }
             }
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
         }
     }
 
@@ -333,7 +473,7 @@ public class WorkspaceSerializer {
                 manager.addAction(archive.createUpdateAction(workspace, deserializer, archivedAction));
             }
         }
-        if (!manager.getActionList().contains(workspace.getUpdater().getSyncUpdateAction())) {
+        if (!workspace.isHeadless() && !manager.getActionList().contains(workspace.getUpdater().getSyncUpdateAction())) {
             manager.addAction(workspace.getUpdater().getSyncUpdateAction());
         }
     }
@@ -345,24 +485,6 @@ public class WorkspaceSerializer {
         }
     }
 
-    /**
-     * Helper method that will read the InputStream repeatedly until the given array is filled.
-     *
-     * @param istream the InputStream to read from.
-     * @param bytes   the array to write to
-     * @throws IOException if there is an IO error
-     */
-    private static void read(InputStream istream, byte[] bytes) throws IOException {
-        int pos = 0;
-        while (pos < bytes.length) {
-            int read = istream.read(bytes, pos, bytes.length - pos);
-            if (read < 0) {
-                throw new RuntimeException("premature EOF");
-            }
-            pos += read;
-        }
-    }
-
     public static <T> WorkspaceComponent showOpenComponentDialog(Class<T> type) {
         String defaultDirectory = SimbrainPreferences.getString("workspace" + type.getSimpleName() + "Directory");
         SFileChooser chooser = new SFileChooser(defaultDirectory, "XML File", "xml");
@@ -0,0 +1,83 @@
+package org.simbrain.workspace.updater;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thread pool in which update actions update components concurrently. The pool is created when first used and
+ * is resized to {@link WorkspaceUpdater#getNumThreads()} whenever a task is submitted, so changing the number of
+ * threads in the updater takes effect on the next update.
+ */
+class ComponentUpdatePool {
+
+    /**
+     * Provides the number of threads and is notified of component updates by the threads.
+     */
+    private final WorkspaceUpdater updater;
+
+    /**
+     * The underlying executor.
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * @param updater reference to parent updater
+     */
+    ComponentUpdatePool(WorkspaceUpdater updater) {
+        this.updater = updater;
+    }
+
+    /**
+     * Run a task on one of the {@link UpdateThread}s of this pool.
+     *
+     * @param task the task to run
+     */
+    void submit(Runnable task) {
+        getExecutor().execute(task);
+    }
+
+    private synchronized ThreadPoolExecutor getExecutor() {
+        int numThreads = Math.max(1, updater.getNumThreads());
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new UpdaterThreadFactory());
+        } else if (numThreads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(numThreads);
+            executor.setCorePoolSize(numThreads);
+        } else if (numThreads < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(numThreads);
+            executor.setMaximumPoolSize(numThreads);
+        }
+        return executor;
+    }
+
+    /**
+     * Creates the threads used in the ExecutorService. Used to create a custom
+     * thread class that will be generated inside the executor. This allows for
+     * a clean way to capture the events using the thread instances themselves
+     * which 'know' their thread number.
+     */
+    private class UpdaterThreadFactory implements ThreadFactory {
+
+        /**
+         * Numbers the threads sequentially.
+         */
+        private int nextThread = 1;
+
+        /**
+         * Creates a new UpdateThread with the current thread number.
+         *
+         * @param runnable The runnable this thread will execute.
+         * @return current thread number
+         */
+        public Thread newThread(final Runnable runnable) {
+            synchronized (this) {
+                UpdateThread thread = new UpdateThread(updater, runnable, nextThread++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * Part of Simbrain--a java-based neural network kit
+ * Copyright (C) 2005,2007 The Authors.  See http://www.simbrain.net/credits
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package org.simbrain.workspace.updater;
+
+import org.pmw.tinylog.Logger;
+import org.simbrain.workspace.AttributeContainer;
+import org.simbrain.workspace.WorkspaceComponent;
+import org.simbrain.workspace.couplings.Coupling;
+import org.simbrain.workspace.couplings.CouplingManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Updates components in the order given by their couplings. Each component is updated as soon as the components
+ * that produce its inputs have been updated and the couplings into it have been updated, so independent chains of
+ * components (e.g. two networks each driven by its own world) run concurrently, and values flow down a chain of
+ * components within a single workspace update rather than one component per update as with {@link
+ * UpdateAllAction}.
+ * <p>
+ * Components that are coupled in a cycle (e.g. an agent's sensors feed a network which drives the agent's effectors)
+ * are updated together: the couplings into the cycle are updated first, so within the cycle consumers see the values
+ * of the previous workspace update, and then its components are updated concurrently, as with {@link
+ * UpdateAllAction}.
+ * <p>
+ * The time taken by each component in the last update is recorded, see {@link #getComponentTimes()} and {@link
+ * #getCriticalPath()}.
+ */
+public class DependencyUpdateAction implements UpdateAction {
+
+    /**
+     * Provides access to workspace updater.
+     */
+    private transient WorkspaceUpdater updater;
+
+    /**
+     * The thread pool for doing the component updates.
+     */
+    private transient ComponentUpdatePool componentUpdatePool;
+
+    /**
+     * The dependency graph, rebuilt when components or couplings change.
+     */
+    private transient Graph graph;
+
+    /**
+     * Construct the action.
+     *
+     * @param updater reference to parent updater
+     */
+    public DependencyUpdateAction(WorkspaceUpdater updater) {
+        this.updater = updater;
+        componentUpdatePool = new ComponentUpdatePool(updater);
+    }
+
+    @Override
+    public void invoke() {
+        List<? extends WorkspaceComponent> components = updater.getComponents();
+        if (components.size() < 1) {
+            return;
+        }
+        Graph graph = getGraph(components);
+
+        Logger.trace("updating unattached couplings");
+        updateCouplings(graph.unattachedCouplings);
+
+        Logger.trace("updating components");
+        LatchCompletionSignal latch = new LatchCompletionSignal(graph.nodes.length);
+        for (Node node : graph.nodes) {
+            node.waiting.set(node.numPredecessors);
+        }
+        for (Node node : graph.nodes) {
+            if (node.numPredecessors == 0) {
+                start(graph, node, latch);
+            }
+        }
+        Logger.trace("waiting");
+        latch.await();
+        updater.notifyCouplingsUpdated();
+        Logger.trace("update complete");
+    }
+
+    /**
+     * Update the couplings into a node and then its components.
+     */
+    private void start(Graph graph, Node node, CompletionSignal latch) {
+        componentUpdatePool.submit(() -> {
+            node.start = System.nanoTime();
+            updateCouplings(node.couplings);
+            node.remaining.set(node.components.length);
+            for (int i = 1; i < node.components.length; i++) {
+                int index = i;
+                componentUpdatePool.submit(() -> updateComponent(graph, node, index, latch));
+            }
+            updateComponent(graph, node, 0, latch);
+        });
+    }
+
+    /**
+     * Update one component of a node, and when it is the last to finish start any nodes that were waiting on it.
+     */
+    private void updateComponent(Graph graph, Node node, int index, CompletionSignal latch) {
+        WorkspaceComponent component = node.components[index];
+        long start = System.nanoTime();
+        try {
+            if (component.getUpdateOn()) {
+                UpdateThread thread = (UpdateThread) Thread.currentThread();
+                thread.setCurrentTask(component);
+                component.update();
+                thread.clearCurrentTask(component);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            node.componentNanos[index] = System.nanoTime() - start;
+            if (node.remaining.decrementAndGet() == 0) {
+                node.nanos = System.nanoTime() - node.start;
+                for (int successor : node.successors) {
+                    Node next = graph.nodes[successor];
+                    if (next.waiting.decrementAndGet() == 0) {
+                        start(graph, next, latch);
+                    }
+                }
+                latch.done();
+            }
+        }
+    }
+
+    private static void updateCouplings(Coupling[] couplings) {
+        for (Coupling coupling : couplings) {
+            try {
+                coupling.update();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the dependency graph, rebuilding it if the components or couplings have changed since it was built.
+     */
+    private Graph getGraph(List<? extends WorkspaceComponent> components) {
+        CouplingManager couplingManager = updater.getWorkspace().getCouplingManager();
+        int modificationCount = couplingManager.getModificationCount();
+        if (graph == null || graph.modificationCount != modificationCount || !graph.components.equals(components)) {
+            graph = new Graph(components, couplingManager.getCouplings(), modificationCount);
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the time in milliseconds taken to update each component in the last update, in update order. Times
+     * include only the component's own update, not the couplings into it.
+     *
+     * @return the update time of each component
+     */
+    public Map<WorkspaceComponent, Double> getComponentTimes() {
+        Graph graph = this.graph;
+        Map<WorkspaceComponent, Double> ret = new LinkedHashMap<>();
+        if (graph != null) {
+            for (Node node : graph.nodes) {
+                for (int i = 0; i < node.components.length; i++) {
+                    ret.put(node.components[i], node.componentNanos[i] / 1.0e6);
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the chain of dependent components that took longest to update in the last update, which bounds how
+     * fast an update can be however many threads are used. Components coupled in a cycle are updated together and
+     * are all included.
+     *
+     * @return the components on the critical path, in update order
+     */
+    public List<WorkspaceComponent> getCriticalPath() {
+        Graph graph = this.graph;
+        if (graph == null || graph.nodes.length == 0) {
+            return Collections.emptyList();
+        }
+        // Nodes are in topological order, so the longest path to each node is known before its successors are seen
+        long[] length = new long[graph.nodes.length];
+        int[] previous = new int[graph.nodes.length];
+        Arrays.fill(previous, -1);
+        int last = 0;
+        for (int i = 0; i < graph.nodes.length; i++) {
+            Node node = graph.nodes[i];
+            length[i] += node.nanos;
+            for (int successor : node.successors) {
+                if (length[i] > length[successor]) {
+                    length[successor] = length[i];
+                    previous[successor] = i;
+                }
+            }
+            if (length[i] > length[last]) {
+                last = i;
+            }
+        }
+        Deque<WorkspaceComponent> path = new ArrayDeque<>();
+        for (int i = last; i >= 0; i = previous[i]) {
+            WorkspaceComponent[] nodeComponents = graph.nodes[i].components;
+            for (int j = nodeComponents.length - 1; j >= 0; j--) {
+                path.addFirst(nodeComponents[j]);
+            }
+        }
+        return new ArrayList<>(path);
+    }
+
+    @Override
+    public String getDescription() {
+        return "Update Components and Couplings by Dependency";
+    }
+
+    @Override
+    public String getLongDescription() {
+        return "Update each component as soon as the components coupled to it have been updated, "
+                + "so that independent components are updated in parallel";
+    }
+
+    /**
+     * A group of components that are updated together: a single component, or components that are coupled in a
+     * cycle.
+     */
+    private static class Node {
+
+        /**
+         * The components in this node.
+         */
+        private final WorkspaceComponent[] components;
+
+        /**
+         * Couplings whose consumers are in this node, in the order they were created.
+         */
+        private Coupling[] couplings;
+
+        /**
+         * Indices of nodes with a component that consumes from a component in this node.
+         */
+        private int[] successors;
+
+        /**
+         * The number of nodes this node consumes from.
+         */
+        private int numPredecessors;
+
+        /**
+         * Number of predecessors that have not finished in the current update.
+         */
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        /**
+         * Number of components that have not finished in the current update.
+         */
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        /**
+         * When the node started in the current update.
+         */
+        private volatile long start;
+
+        /**
+         * Time taken by the node, couplings included, in the last update.
+         */
+        private volatile long nanos;
+
+        /**
+         * Time taken by each component in the last update.
+         */
+        private final long[] componentNanos;
+
+        Node(List<WorkspaceComponent> components) {
+            this.components = components.toArray(new WorkspaceComponent[0]);
+            componentNanos = new long[components.size()];
+        }
+    }
+
+    /**
+     * The components grouped into nodes in topological order, with the couplings into each node.
+     */
+    private static class Graph {
+
+        /**
+         * The components the graph was built from.
+         */
+        private final List<WorkspaceComponent> components;
+
+        /**
+         * The coupling manager modification count when the graph was built.
+         */
+        private final int modificationCount;
+
+        /**
+         * The nodes, each after every node it consumes from.
+         */
+        private final Node[] nodes;
+
+        /**
+         * Couplings whose consumer is not in any component, which are updated before any component.
+         */
+        private final Coupling[] unattachedCouplings;
+
+        Graph(List<? extends WorkspaceComponent> components, Iterable<Coupling> couplings, int modificationCount) {
+            this.components = new ArrayList<>(components);
+            this.modificationCount = modificationCount;
+            int n = components.size();
+
+            // Find the component of each coupled attribute container
+            Map<AttributeContainer, Integer> coupledContainers = new HashMap<>();
+            for (Coupling coupling : couplings) {
+                coupledContainers.put(coupling.getProducer().getBaseObject(), -1);
+                coupledContainers.put(coupling.getConsumer().getBaseObject(), -1);
+            }
+            for (int i = 0; i < n; i++) {
+                for (AttributeContainer container : components.get(i).getAttributeContainers()) {
+                    coupledContainers.replace(container, -1, i);
+                }
+            }
+
+            // Component level edges
+            List<List<Integer>> edges = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                edges.add(new ArrayList<>());
+            }
+            List<Coupling> unattached = new ArrayList<>();
+            for (Coupling coupling : couplings) {
+                int source = coupledContainers.get(coupling.getProducer().getBaseObject());
+                int target = coupledContainers.get(coupling.getConsumer().getBaseObject());
+                if (target == -1) {
+                    unattached.add(coupling);
+                } else if (source != -1 && source != target && !edges.get(source).contains(target)) {
+                    edges.get(source).add(target);
+                }
+            }
+            unattachedCouplings = unattached.toArray(new Coupling[0]);
+
+            // Group components coupled in cycles. Tarjan's algorithm finds them in reverse topological order.
+            int[] nodeOf = new int[n];
+            List<List<WorkspaceComponent>> groups = new StronglyConnected(edges, components).groups;
+            Collections.reverse(groups);
+            nodes = new Node[groups.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = new Node(groups.get(i));
+                for (WorkspaceComponent component : groups.get(i)) {
+                    nodeOf[components.indexOf(component)] = i;
+                }
+            }
+
+            // Node level edges and couplings
+            List<List<Coupling>> nodeCouplings = new ArrayList<>();
+            List<List<Integer>> nodeEdges = new ArrayList<>();
+            for (int i = 0; i < nodes.length; i++) {
+                nodeCouplings.add(new ArrayList<>());
+                nodeEdges.add(new ArrayList<>());
+            }
+            for (Coupling coupling : couplings) {
+                int target = coupledContainers.get(coupling.getConsumer().getBaseObject());
+                if (target != -1) {
+                    nodeCouplings.get(nodeOf[target]).add(coupling);
+                }
+            }
+            for (int source = 0; source < n; source++) {
+                for (int target : edges.get(source)) {
+                    int from = nodeOf[source];
+                    int to = nodeOf[target];
+                    if (from != to && !nodeEdges.get(from).contains(to)) {
+                        nodeEdges.get(from).add(to);
+                        nodes[to].numPredecessors++;
+                    }
+                }
+            }
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i].couplings = nodeCouplings.get(i).toArray(new Coupling[0]);
+                nodes[i].successors = nodeEdges.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * Tarjan's strongly connected components algorithm.
+     */
+    private static class StronglyConnected {
+
+        private final List<List<Integer>> edges;
+        private final List<? extends WorkspaceComponent> components;
+        private final int[] index;
+        private final int[] lowLink;
+        private final boolean[] onStack;
+        private final Deque<Integer> stack = new ArrayDeque<>();
+        private int nextIndex = 1;
+
+        /**
+         * The strongly connected components, each after every component that consumes from it.
+         */
+        private final List<List<WorkspaceComponent>> groups = new ArrayList<>();
+
+        StronglyConnected(List<List<Integer>> edges, List<? extends WorkspaceComponent> components) {
+            this.edges = edges;
+            this.components = components;
+            index = new int[components.size()];
+            lowLink = new int[components.size()];
+            onStack = new boolean[components.size()];
+            // Visit in reverse so that unrelated components keep their workspace order once the result is reversed
+            for (int v = components.size() - 1; v >= 0; v--) {
+                if (index[v] == 0) {
+                    visit(v);
+                }
+            }
+        }
+
+        private void visit(int v) {
+            index[v] = nextIndex;
+            lowLink[v] = nextIndex;
+            nextIndex++;
+            stack.push(v);
+            onStack[v] = true;
+            for (int w : edges.get(v)) {
+                if (index[w] == 0) {
+                    visit(w);
+                    lowLink[v] = Math.min(lowLink[v], lowLink[w]);
+                } else if (onStack[w]) {
+                    lowLink[v] = Math.min(lowLink[v], index[w]);
+                }
+            }
+            if (lowLink[v] == index[v]) {
+                List<WorkspaceComponent> group = new ArrayList<>();
+                int w;
+                do {
+                    w = stack.pop();
+                    onStack[w] = false;
+                    group.add(components.get(w));
+                } while (w != v);
+                group.sort((a, b) -> Integer.compare(components.indexOf(a), components.indexOf(b)));
+                groups.add(group);
+            }
+        }
+    }
+}
@@ -225,12 +225,15 @@ public class UpdateActionManager {
 
     /**
      * Puts the update in its default configuration, with Buffered update as the
-     * default action.
+     * default action. Headless workspaces have no gui tasks to synchronize
+     * with, so they get no synchronization action.
      */
     public void setDefaultUpdateActions() {
         clear();
         addAction(new UpdateAllAction(workspaceUpdater));
-        addAction(workspaceUpdater.getSyncUpdateAction());
+        if (!workspaceUpdater.isHeadless()) {
+            addAction(workspaceUpdater.getSyncUpdateAction());
+        }
     }
 
     /**
@@ -280,6 +283,7 @@ public class UpdateActionManager {
 
         // Default updater
         availableActionList.add(new UpdateAllAction(workspaceUpdater));
+        availableActionList.add(new DependencyUpdateAction(workspaceUpdater));
         availableActionList.add(new WorkspaceDelayAction(workspaceUpdater.getWorkspace()));
 
         // Add update actions for all components available
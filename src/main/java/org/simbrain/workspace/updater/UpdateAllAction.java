@@ -22,13 +22,12 @@ import org.pmw.tinylog.Logger;
 import org.simbrain.workspace.WorkspaceComponent;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 /**
  * This is the default action for all workspace updates.
- * First update couplings then update all the components.
+ * First update couplings then update all the components. Components are updated
+ * in parallel, except in a headless workspace where they are updated in turn on
+ * the calling thread.
  *
  * @author jyoshimi
  */
@@ -41,9 +40,9 @@ public class UpdateAllAction implements UpdateAction {
 
 
     /**
-     * The executor service for doing the component updates.
+     * The thread pool for doing the component updates.
      */
-    private transient ExecutorService componentUpdateExecutor;
+    private transient ComponentUpdatePool componentUpdatePool;
 
     /**
      * Construct the action.
@@ -55,12 +54,7 @@ public class UpdateAllAction implements UpdateAction {
 
         // In some cases components can be updated in parallel. So
         // a thread pool with a configurable number of threads is used
-        componentUpdateExecutor = Executors.newFixedThreadPool(updater.getNumThreads(), new UpdaterThreadFactory());
-
-        // TODO: the executor needs to be reinitialized when
-        // updater.setNumThreads is called
-        //this.componentUpdates = Executors.newFixedThreadPool(numThreads,
-        //        new UpdaterThreadFactory());
+        componentUpdatePool = new ComponentUpdatePool(updater);
     }
 
     @Override
@@ -76,6 +70,15 @@ public class UpdateAllAction implements UpdateAction {
         Logger.trace("updating couplings");
         updateCouplings();
 
+        if (updater.isHeadless()) {
+            for (WorkspaceComponent component : components) {
+                if (component.getUpdateOn()) {
+                    component.update();
+                }
+            }
+            return;
+        }
+
         Logger.trace("creating latch");
         LatchCompletionSignal latch = new LatchCompletionSignal(componentCount);
 
@@ -102,7 +105,7 @@ public class UpdateAllAction implements UpdateAction {
             return;
         }
 
-        componentUpdateExecutor.submit(() -> {
+        componentUpdatePool.submit(() -> {
             try {
                 UpdateThread thread = (UpdateThread) Thread.currentThread();
                 thread.setCurrentTask(component);
@@ -135,30 +138,4 @@ public class UpdateAllAction implements UpdateAction {
     public String getLongDescription() {
         return getDescription();
     }
-
-    /**
-     * Creates the threads used in the ExecutorService. Used to create a custom
-     * thread class that will be generated inside the executor. This allows for
-     * a clean way to capture the events using the thread instances themselves
-     * which 'know' their thread number.
-     */
-    private class UpdaterThreadFactory implements ThreadFactory {
-
-        /**
-         * Numbers the threads sequentially.
-         */
-        private int nextThread = 1;
-
-        /**
-         * Creates a new UpdateThread with the current thread number.
-         *
-         * @param runnable The runnable this thread will execute.
-         * @return current thread number
-         */
-        public Thread newThread(final Runnable runnable) {
-            synchronized (this) {
-                return new UpdateThread(updater, runnable, nextThread++);
-            }
-        }
-    }
 }
\ No newline at end of file
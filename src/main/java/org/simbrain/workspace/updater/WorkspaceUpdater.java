@@ -40,7 +40,11 @@ import java.util.function.Consumer;
  * for workspace updates (a single thread), one for event notification updates
  * (a single thread), and one for component updates (a thread pool with multiple
  * threads that can be configured), for cases when component updating happens
- * concurrently.
+ * concurrently. The executors are only created once they are needed.
+ * <p>
+ * The updater of a headless workspace (see {@link Workspace#isHeadless()})
+ * creates no executors at all: iterations run on the calling thread, components
+ * are updated one after another and listeners are notified synchronously.
  *
  * @author Matt Watson
  * @author Jeff Yoshimi
@@ -53,14 +57,20 @@ public class WorkspaceUpdater {
     private final Workspace workspace;
 
     /**
-     * The executor service for managing workspace updates.
+     * The executor service for managing workspace updates. Created on first
+     * use.
      */
-    private final ExecutorService workspaceUpdateExecutor;
+    private ExecutorService workspaceUpdateExecutor;
 
     /**
-     * The executor service for notifying listeners.
+     * The executor service for notifying listeners. Created on first use.
      */
-    private final ExecutorService notificationEvents;
+    private ExecutorService notificationEvents;
+
+    /**
+     * Whether updates run synchronously on the calling thread.
+     */
+    private final boolean headless;
 
     /**
      * Component listeners.
@@ -112,10 +122,7 @@ public class WorkspaceUpdater {
     public WorkspaceUpdater(Workspace workspace, int threads) {
         this.workspace = workspace;
         this.numThreads = threads;
-        // A single thread updates the workspace
-        workspaceUpdateExecutor = Executors.newSingleThreadExecutor();
-        // A single thread to fire notification events
-        notificationEvents = Executors.newSingleThreadExecutor();
+        this.headless = workspace.isHeadless();
         // Instantiate the update action manager
         updateActionManager = new UpdateActionManager(this);
     }
@@ -184,6 +191,50 @@ public class WorkspaceUpdater {
         run = false;
     }
 
+    /**
+     * Stops updates and shuts down the threads used for updates and notifications, e.g. when a workspace that was
+     * run without a desktop is discarded. The updater can't be used afterwards.
+     */
+    public synchronized void shutdown() {
+        stop();
+        if (workspaceUpdateExecutor != null) {
+            workspaceUpdateExecutor.shutdown();
+        }
+        if (notificationEvents != null) {
+            notificationEvents.shutdown();
+        }
+    }
+
+    /**
+     * Returns whether this updater runs updates synchronously on the calling
+     * thread.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Returns the single thread that updates the workspace, creating it if
+     * needed.
+     */
+    private synchronized ExecutorService getUpdateExecutor() {
+        if (workspaceUpdateExecutor == null) {
+            workspaceUpdateExecutor = Executors.newSingleThreadExecutor();
+        }
+        return workspaceUpdateExecutor;
+    }
+
+    /**
+     * Returns the single thread that fires notification events, creating it if
+     * needed.
+     */
+    private synchronized ExecutorService getNotificationExecutor() {
+        if (notificationEvents == null) {
+            notificationEvents = Executors.newSingleThreadExecutor();
+        }
+        return notificationEvents;
+    }
+
     /**
      * Returns whether the updater is set to run.
      */
@@ -200,7 +251,7 @@ public class WorkspaceUpdater {
         for (WorkspaceComponent wc : workspace.getComponentList()) {
             wc.setRunning(true);
         }
-        workspaceUpdateExecutor.submit(() -> {
+        getUpdateExecutor().submit(() -> {
             notifyWorkspaceUpdateStarted();
             syncManager.queueTasks();
             try {
@@ -221,10 +272,15 @@ public class WorkspaceUpdater {
     }
 
     /**
-     * Submits a single task to the queue.
+     * Submits a single task to the queue. A headless updater runs the update
+     * before returning.
      */
     public void runOnce() {
-        workspaceUpdateExecutor.submit(() -> {
+        if (headless) {
+            iterate(1);
+            return;
+        }
+        getUpdateExecutor().submit(() -> {
             notifyWorkspaceUpdateStarted();
             syncManager.queueTasks();
             try {
@@ -246,7 +302,15 @@ public class WorkspaceUpdater {
      * @param numIterations the number of iterations to update
      */
     public void iterate(int numIterations) {
-        Future<?> wait = workspaceUpdateExecutor.submit(() -> {
+        if (headless) {
+            notifyWorkspaceUpdateStarted();
+            for (int i = 0; i < numIterations; i++) {
+                doUpdate();
+            }
+            notifyWorkspaceUpdateCompleted();
+            return;
+        }
+        Future<?> wait = getUpdateExecutor().submit(() -> {
             notifyWorkspaceUpdateStarted();
             try {
                 syncManager.queueTasks();
@@ -324,8 +388,11 @@ public class WorkspaceUpdater {
      * @param action The action to be invoked.
      */
     void notifyBeforeUpdateAction(UpdateAction action) {
+        if (componentListeners.isEmpty()) {
+            return;
+        }
         final long nanoTime = System.nanoTime();
-        notificationEvents.submit(() -> {
+        fire(() -> {
             componentListeners.forEach(l -> l.beforeUpdateAction(action, nanoTime));
         });
     }
@@ -336,8 +403,11 @@ public class WorkspaceUpdater {
      * @param action The action that was invoked.
      */
     void notifyAfterUpdateAction(UpdateAction action) {
+        if (componentListeners.isEmpty()) {
+            return;
+        }
         final long nanoTime = System.nanoTime();
-        notificationEvents.submit(() -> {
+        fire(() -> {
             componentListeners.forEach(l -> l.afterUpdateAction(action, nanoTime));
         });
     }
@@ -349,9 +419,12 @@ public class WorkspaceUpdater {
      * @param thread    The number of the thread doing the update.
      */
     void notifyComponentUpdateStarted(WorkspaceComponent component, int thread) {
+        if (componentListeners.isEmpty()) {
+            return;
+        }
         final int simTime = this.time;
         final long nanoTime = System.nanoTime();
-        notificationEvents.submit(() -> {
+        fire(() -> {
             componentListeners.forEach(l -> l.beforeComponentUpdate(component, simTime, thread, nanoTime));
         });
     }
@@ -363,9 +436,12 @@ public class WorkspaceUpdater {
      * @param thread    The number of the thread doing the update.
      */
     void notifyComponentUpdateFinished(WorkspaceComponent component, int thread) {
+        if (componentListeners.isEmpty()) {
+            return;
+        }
         final int simTime = this.time;
         final long nanoTime = System.nanoTime();
-        notificationEvents.submit(() -> {
+        fire(() -> {
             componentListeners.forEach(l -> l.afterComponentUpdate(component, simTime, thread, nanoTime));
         });
     }
@@ -374,30 +450,51 @@ public class WorkspaceUpdater {
      * Called when the couplings are updated.
      */
     protected void notifyCouplingsUpdated() {
+        if (updaterListeners.isEmpty()) {
+            return;
+        }
         final int time = this.time;
         Consumer<WorkspaceUpdaterListener> notifier = l -> l.updatedCouplings(time);
-        notificationEvents.submit(() -> updaterListeners.forEach(notifier));
+        fire(() -> updaterListeners.forEach(notifier));
     }
 
     /**
      * Called when the workspace update begins.
      */
     private void notifyWorkspaceUpdateStarted() {
-        notificationEvents.submit(() -> updaterListeners.forEach(WorkspaceUpdaterListener::updatingStarted));
+        if (!updaterListeners.isEmpty()) {
+            fire(() -> updaterListeners.forEach(WorkspaceUpdaterListener::updatingStarted));
+        }
     }
 
     /**
      * Called when workspace update finishes.
      */
     private void notifyWorkspaceUpdateCompleted() {
-        notificationEvents.submit(() -> updaterListeners.forEach(WorkspaceUpdaterListener::updatingFinished));
+        if (!updaterListeners.isEmpty()) {
+            fire(() -> updaterListeners.forEach(WorkspaceUpdaterListener::updatingFinished));
+        }
     }
 
     /**
      * Called after every workspace update .
      */
     private void notifyWorkspaceUpdated() {
-        notificationEvents.submit(() -> updaterListeners.forEach(WorkspaceUpdaterListener::workspaceUpdated));
+        if (!updaterListeners.isEmpty()) {
+            fire(() -> updaterListeners.forEach(WorkspaceUpdaterListener::workspaceUpdated));
+        }
+    }
+
+    /**
+     * Notify listeners on the notification thread, or right away if the
+     * updater is headless.
+     */
+    private void fire(Runnable notification) {
+        if (headless) {
+            notification.run();
+        } else {
+            getNotificationExecutor().submit(notification);
+        }
     }
 
     /**
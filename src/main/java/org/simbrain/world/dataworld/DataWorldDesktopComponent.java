@@ -128,6 +128,10 @@ public class DataWorldDesktopComponent extends DesktopComponent<DataWorldCompone
         fileMenu.add(new SaveAsAction(this));
         fileMenu.addSeparator();
         fileMenu.add(table.getMenuCSV(true, true));
+        JMenu binaryMenu = new JMenu("Import / Export binary");
+        binaryMenu.add(TableActionManager.getOpenBinaryAction(component.getDataModel(), true, true));
+        binaryMenu.add(TableActionManager.getSaveBinaryAction(component.getDataModel()));
+        fileMenu.add(binaryMenu);
         fileMenu.addSeparator();
         fileMenu.add(new CloseAction(this.getWorkspaceComponent()));
 
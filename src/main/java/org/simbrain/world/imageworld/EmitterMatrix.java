@@ -3,6 +3,7 @@ package org.simbrain.world.imageworld;
 import org.simbrain.util.UserParameter;
 import org.simbrain.workspace.Consumable;
 import org.simbrain.world.imageworld.filters.Filter;
+import org.simbrain.world.imageworld.filters.FilterUtils;
 
 import java.awt.image.BufferedImage;
 import java.util.Arrays;
@@ -133,28 +134,21 @@ public class EmitterMatrix extends ImageSource {
      * to integers (0 to 255) and assigned to the corresponding pixels.
      */
     public void emitImage() {
+        BufferedImage image = getCurrentImage();
         if (usingRGBColor) {
-            BufferedImage image = getCurrentImage();
-            for (int y = 0; y < image.getHeight(); ++y) {
-                for (int x = 0; x < image.getWidth(); ++x) {
-                    int rgb = rgbColors[y * getWidth() + x];
-                    image.setRGB(x, y, rgb);
-                }
-            }
+            FilterUtils.setPixels(image, rgbColors);
         } else {
-            BufferedImage image = getCurrentImage();
-            for (int y = 0; y < image.getHeight(); ++y) {
-                for (int x = 0; x < image.getWidth(); ++x) {
-                    int red = (int) (channels[0][y * getWidth() + x] * 255.0);
-                    red = Math.max(Math.min(red, 255), 0) << 16;
-                    int blue = (int) (channels[1][y * getWidth() + x] * 255.0);
-                    blue = Math.max(Math.min(blue, 255), 0) << 8;
-                    int green = (int) (channels[2][y * getWidth() + x] * 255.0);
-                    green = Math.max(Math.min(green, 255), 0);
-                    int color = red + blue + green;
-                    image.setRGB(x, y, color);
-                }
+            int[] pixels = new int[rgbColors.length];
+            for (int i = 0; i < pixels.length; i++) {
+                int red = (int) (channels[0][i] * 255.0);
+                red = Math.max(Math.min(red, 255), 0) << 16;
+                int green = (int) (channels[1][i] * 255.0);
+                green = Math.max(Math.min(green, 255), 0) << 8;
+                int blue = (int) (channels[2][i] * 255.0);
+                blue = Math.max(Math.min(blue, 255), 0);
+                pixels[i] = red + green + blue;
             }
+            FilterUtils.setPixels(image, pixels);
         }
 
         fireImageUpdate();
@@ -13,6 +13,9 @@ import java.util.List;
 
 /**
  * ImageAlbum stores a list of static images and lets you load, advance through them etc.
+ * Images loaded from files are not held in memory but read as they are needed by an
+ * {@link ImageStream}. Only the files, the settings of the stream and the current position
+ * are saved, and the stream is reopened when the album is deserialized.
  *
  * @author Tim Shea
  */
@@ -24,10 +27,23 @@ public class ImageAlbum extends ImageSource {
     private List<BufferedImage> frames = new ArrayList<>();
 
     /**
-     * Current frame being shown.
+     * Current frame being shown, or the position of the current frame in the stream.
      */
     private int frameIndex = 0;
 
+    /**
+     * Frames read from files, used in place of the frame list when not null.
+     */
+    private transient ImageStream stream;
+
+    /**
+     * The files, shuffle seed and frame size of the stream, saved so that it can be reopened.
+     * The files are null if there is no stream.
+     */
+    private File[] streamFiles;
+    private Long streamSeed;
+    private Dimension streamFrameSize;
+
     /**
      * Construct a new StaticImageSource.
      */
@@ -47,6 +63,7 @@ public class ImageAlbum extends ImageSource {
      */
     @Consumable
     public void loadImage(String filename) throws IOException {
+        closeStream();
         frames = null;
         if (filename == null || filename.isEmpty()) {
             setCurrentImage(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB));
@@ -57,33 +74,49 @@ public class ImageAlbum extends ImageSource {
     }
 
     /**
-     * Load a set of image.
+     * Load a set of images, which are read in order as they are needed.
      *
      * @param files the images to load
      */
     public void loadImages(File[] files) {
-        List<BufferedImage> list = new ArrayList<>();
-        for (File file : files) {
-            try {
-                BufferedImage read = ImageIO.read(file);
-                if (read != null) {
-                    list.add(read);
-                } else {
-                    JOptionPane.showMessageDialog(null, String.format("Could not parse %s", file.getName()));
-                    System.err.printf("Could not parse %s", file.getName());
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        setStream(new ImageStream(files));
+    }
+
+    /**
+     * Step through the frames of a stream, starting with its first frame.
+     *
+     * @param stream the stream to read frames from
+     */
+    public void setStream(ImageStream stream) {
+        closeStream();
+        frames = null;
+        this.stream = stream;
+        streamFiles = stream.getFiles();
+        streamSeed = stream.getSeed();
+        streamFrameSize = stream.getFrameSize();
+        setCurrentImage(stream.next());
+        frameIndex = stream.getPosition();
+    }
+
+    /**
+     * Stop reading frames from files, keeping the current image.
+     */
+    public void closeStream() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
         }
-        frames = list;
-        setCurrentImage(frames.get(0));
+        streamFiles = null;
     }
 
     /**
      * Add a new image to the album and set the current frame to it.
      */
     public void addImage(BufferedImage image) {
+        if (frames == null) {
+            closeStream();
+            frames = new ArrayList<>();
+        }
         frames.add(image);
         setCurrentImage(image);
     }
@@ -94,6 +127,7 @@ public class ImageAlbum extends ImageSource {
      * @param imageIcon the image icon
      */
     public void loadImage(ImageIcon imageIcon) {
+        closeStream();
         BufferedImage image = new BufferedImage(imageIcon.getIconWidth(), imageIcon.getIconHeight(), BufferedImage.TYPE_INT_RGB);
         Graphics2D graphics = image.createGraphics();
         graphics.drawImage(imageIcon.getImage(), 0, 0, null);
@@ -106,7 +140,10 @@ public class ImageAlbum extends ImageSource {
      * Update the current image to the next image in the frame list.
      */
     public void nextFrame() {
-        if (frames != null) {
+        if (stream != null) {
+            setCurrentImage(stream.next());
+            frameIndex = stream.getPosition();
+        } else if (frames != null) {
             frameIndex = (frameIndex + 1) % frames.size();
             setCurrentImage(frames.get(frameIndex));
         }
@@ -116,7 +153,10 @@ public class ImageAlbum extends ImageSource {
      * Update the current image to the previous image in the frame list.
      */
     public void previousFrame() {
-        if (frames != null) {
+        if (stream != null) {
+            setCurrentImage(stream.previous());
+            frameIndex = stream.getPosition();
+        } else if (frames != null) {
             frameIndex = (frameIndex + frames.size() - 1) % frames.size();
             setCurrentImage(frames.get(frameIndex));
         }
@@ -126,6 +166,9 @@ public class ImageAlbum extends ImageSource {
      * Returns number of frames in the album
      */
     public int getNumFrames() {
+        if (stream != null) {
+            return stream.getNumFrames();
+        }
         if (frames == null) {
             return 0;
         }
@@ -136,9 +179,28 @@ public class ImageAlbum extends ImageSource {
      * Set album to frame aat provided index.
      */
     public void setFrame(int frameIndex) {
-        if (frameIndex >= 0 && frameIndex < frames.size()) {
+        if (stream != null) {
+            if (frameIndex >= 0 && frameIndex < stream.getNumFrames()) {
+                stream.seek(frameIndex);
+                setCurrentImage(stream.next());
+                this.frameIndex = stream.getPosition();
+            }
+        } else if (frames != null && frameIndex >= 0 && frameIndex < frames.size()) {
             setCurrentImage(frames.get(frameIndex));
         }
     }
 
+    /**
+     * Reopen the stream of a deserialized album, continuing from the saved position.
+     */
+    @Override
+    public Object readResolve() {
+        super.readResolve();
+        if (streamFiles != null) {
+            stream = new ImageStream(streamFiles, ImageStream.DEFAULT_BUFFER_SIZE, streamSeed, streamFrameSize);
+            stream.seek(Math.floorMod(frameIndex + 1, stream.getNumFrames()));
+        }
+        return this;
+    }
+
 }
@@ -0,0 +1,284 @@
+package org.simbrain.world.imageworld;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A sequence of images read from files as they are needed, so that folders of
+ * images too large to hold in memory can be stepped through. A background
+ * thread decodes the frames ahead of {@link #next()} into a bounded buffer, so
+ * only that many frames are ever in memory and stepping through the frames
+ * rarely waits on the disk.
+ * <p>
+ * Frames are converted to {@link BufferedImage#TYPE_INT_RGB}, and can also be
+ * scaled to a fixed size as they are decoded, e.g. to the size of the largest
+ * filter in an {@link ImageWorld}. They can be read in order or in a shuffled
+ * order which is fixed by a seed. Either way the sequence repeats when it
+ * reaches the end.
+ */
+public class ImageStream implements AutoCloseable {
+
+    /**
+     * Default number of frames decoded ahead.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8;
+
+    /**
+     * A decoded frame and its position in the sequence. The image is null if
+     * the file could not be read.
+     */
+    private static class Frame {
+
+        final int position;
+
+        final BufferedImage image;
+
+        final int generation;
+
+        Frame(int position, BufferedImage image, int generation) {
+            this.position = position;
+            this.image = image;
+            this.generation = generation;
+        }
+    }
+
+    private final File[] files;
+
+    /**
+     * Seed used to shuffle the files, or null if they are read in order.
+     */
+    private final Long seed;
+
+    /**
+     * Index of the file at each position in the sequence.
+     */
+    private final int[] order;
+
+    /**
+     * Size frames are scaled to, or null to keep their own sizes.
+     */
+    private final Dimension frameSize;
+
+    private final BlockingQueue<Frame> buffer;
+
+    /**
+     * Incremented each time the decoder is restarted, so that frames decoded
+     * for an earlier position can be told apart.
+     */
+    private volatile int generation;
+
+    private Thread decoder;
+
+    /**
+     * Position of the frame last returned.
+     */
+    private int position = -1;
+
+    /**
+     * Create a stream which reads the files in order at their own sizes.
+     *
+     * @param files the image files
+     */
+    public ImageStream(File[] files) {
+        this(files, DEFAULT_BUFFER_SIZE, null, null);
+    }
+
+    /**
+     * Create a stream.
+     *
+     * @param files      the image files
+     * @param bufferSize the number of frames to decode ahead
+     * @param seed       seed used to shuffle the files, or null to read them in
+     *                   order
+     * @param frameSize  size to scale frames to, or null to keep their sizes
+     */
+    public ImageStream(File[] files, int bufferSize, Long seed, Dimension frameSize) {
+        if (files.length == 0) {
+            throw new IllegalArgumentException("No image files");
+        }
+        this.files = files.clone();
+        this.seed = seed;
+        this.frameSize = frameSize;
+        buffer = new ArrayBlockingQueue<>(bufferSize);
+        order = new int[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (seed != null) {
+            Random shuffle = new Random(seed);
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = shuffle.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
+        startDecoder(0);
+    }
+
+    /**
+     * Restart the decoder at a position, discarding frames decoded so far.
+     */
+    private synchronized void startDecoder(int start) {
+        if (decoder != null) {
+            decoder.interrupt();
+        }
+        int current = ++generation;
+        buffer.clear();
+        decoder = new Thread(() -> {
+            for (int i = start; generation == current; i = (i + 1) % order.length) {
+                Frame frame = new Frame(i, decode(files[order[i]]), current);
+                try {
+                    buffer.put(frame);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "Image stream decoder");
+        decoder.setDaemon(true);
+        decoder.start();
+    }
+
+    /**
+     * Read an image from a file and convert it to the stream's format.
+     *
+     * @return the image, or null if it could not be read
+     */
+    private BufferedImage decode(File file) {
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+        } catch (IOException e) {
+            image = null;
+        }
+        if (image == null) {
+            System.err.printf("Could not parse %s%n", file.getName());
+            return null;
+        }
+        int width = frameSize == null ? image.getWidth() : frameSize.width;
+        int height = frameSize == null ? image.getHeight() : frameSize.height;
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && width == image.getWidth() && height == image.getHeight()) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = converted.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return converted;
+    }
+
+    /**
+     * Returns the next frame, waiting for it to be decoded if necessary. Files
+     * which cannot be read are skipped.
+     *
+     * @return the next frame
+     * @throws IllegalStateException if none of the files can be read
+     */
+    public BufferedImage next() {
+        for (int skipped = 0; skipped < order.length; skipped++) {
+            Frame frame;
+            try {
+                frame = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a frame", e);
+            }
+            if (frame.generation != generation) {
+                skipped--;
+                continue;
+            }
+            position = frame.position;
+            if (frame.image != null) {
+                return frame.image;
+            }
+        }
+        throw new IllegalStateException("None of the image files could be read");
+    }
+
+    /**
+     * Returns the previous frame. Frames decoded ahead are discarded.
+     *
+     * @return the previous frame
+     */
+    public BufferedImage previous() {
+        seek(Math.floorMod(position - 1, order.length));
+        return next();
+    }
+
+    /**
+     * Move to a position in the sequence, so that the next frame returned is
+     * the one at that position. Frames decoded ahead are discarded.
+     *
+     * @param position the position of the next frame
+     */
+    public void seek(int position) {
+        if (position < 0 || position >= order.length) {
+            throw new IndexOutOfBoundsException("No frame " + position);
+        }
+        this.position = position - 1;
+        startDecoder(position);
+    }
+
+    /**
+     * @return position in the sequence of the frame last returned, or -1
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the number of frames in the sequence
+     */
+    public int getNumFrames() {
+        return order.length;
+    }
+
+    /**
+     * @return the image files, in the order they were given
+     */
+    public File[] getFiles() {
+        return files.clone();
+    }
+
+    /**
+     * @return the seed used to shuffle the files, or null if they are read in
+     * order
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the size frames are scaled to, or null if they keep their sizes
+     */
+    public Dimension getFrameSize() {
+        return frameSize == null ? null : new Dimension(frameSize);
+    }
+
+    /**
+     * @return the file at a position in the sequence
+     */
+    public File getFile(int position) {
+        return files[order[position]];
+    }
+
+    /**
+     * Stop decoding frames.
+     */
+    @Override
+    public synchronized void close() {
+        generation++;
+        if (decoder != null) {
+            decoder.interrupt();
+            decoder = null;
+        }
+        buffer.clear();
+    }
+}
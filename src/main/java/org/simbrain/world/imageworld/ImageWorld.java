@@ -4,6 +4,7 @@ import org.simbrain.util.ResourceManager;
 import org.simbrain.world.imageworld.filters.Filter;
 import org.simbrain.world.imageworld.filters.FilterCollection;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -58,6 +59,35 @@ public class ImageWorld {
         imageAlbum.loadImages(files);
     }
 
+    /**
+     * Load images from an array, to be read as they are needed.
+     *
+     * @param files          array of images to load
+     * @param shuffle        whether to step through the images in a random order
+     * @param seed           seed for the random order
+     * @param scaleToFilters whether to scale images to the size of the largest
+     *                       filter as they are read, which saves scaling each
+     *                       frame in every filter when the images are large
+     */
+    public void loadImages(File[] files, boolean shuffle, long seed, boolean scaleToFilters) {
+        Dimension frameSize = null;
+        if (scaleToFilters) {
+            frameSize = new Dimension();
+            for (Filter filter : filterCollection.getFilters()) {
+                // The unfiltered filter takes its size from the image
+                if (!filter.getName().equalsIgnoreCase("Unfiltered")) {
+                    frameSize.width = Math.max(frameSize.width, filter.getWidth());
+                    frameSize.height = Math.max(frameSize.height, filter.getHeight());
+                }
+            }
+            if (frameSize.width == 0 || frameSize.height == 0) {
+                frameSize = null;
+            }
+        }
+        imageAlbum.setStream(new ImageStream(files, ImageStream.DEFAULT_BUFFER_SIZE,
+                shuffle ? seed : null, frameSize));
+    }
+
     /**
      * Returns number of frames in the "album" associated with this component.
      */
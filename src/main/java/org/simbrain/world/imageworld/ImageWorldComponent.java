@@ -87,6 +87,7 @@ public class ImageWorldComponent extends WorkspaceComponent {
 
     @Override
     protected void closing() {
+        world.getImageAlbum().closeStream();
     }
 
     /**
@@ -9,13 +9,16 @@ import org.simbrain.world.imageworld.ImageSource;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Wraps an {@link ImageOperation} in a structure that allows for coupling, event handling etc.
  *
  * Arrays tracking int rgb colors and doubles for
  * brightness, red, green, and blue separately are maintained and can serve
- * as producers for couplings.
+ * as producers for couplings. The double channels are only computed when they
+ * are read, so channels which are not coupled to anything cost nothing.
  * <br>
  * The actual filtering happens in the {@link org.simbrain.world.imageworld.filters}
  * package. Filters do the work of allowing the filtered images to
@@ -85,6 +88,11 @@ public class Filter implements AttributeContainer, EditableObject {
      */
     private transient int[] rgbColors;
 
+    /**
+     * Whether each channel is out of date with respect to the current image.
+     */
+    private transient boolean[] staleChannels;
+
     /**
      * Construct a filter attached to an ImageSource.
      *
@@ -126,22 +134,22 @@ public class Filter implements AttributeContainer, EditableObject {
 
     @Producible()
     public double[] getBrightness() {
-        return channels[0];
+        return getChannel(0);
     }
 
     @Producible( defaultVisibility = false)
     public double[] getRed() {
-        return channels[1];
+        return getChannel(1);
     }
 
     @Producible( defaultVisibility = false)
     public double[] getGreen() {
-        return channels[2];
+        return getChannel(2);
     }
 
     @Producible( defaultVisibility = false)
     public double[] getBlue() {
-        return channels[3];
+        return getChannel(3);
     }
 
     @Producible()
@@ -157,13 +165,7 @@ public class Filter implements AttributeContainer, EditableObject {
     void initChannels() {
         channels = new double[4][width * height];
         rgbColors = new int[width * height];
-    }
-
-    BufferedImage applyFilter() {
-        BufferedImage image = source.getCurrentImage();
-        image = scaleOp.filter(image, null);
-        image = imageOp.getOp().filter(image, null);
-        return image;
+        staleChannels = new boolean[4];
     }
 
     void initScaleOp() {
@@ -177,33 +179,68 @@ public class Filter implements AttributeContainer, EditableObject {
      * Update the filter.
      */
     public void updateFilter() {
+        updateFilter(FilterUtils.getPixels(source.getCurrentImage()));
+    }
 
-        filteredImage = applyFilter();
-
-        if (filteredImage.getHeight() != height || filteredImage.getWidth() != width) {
-            throw new AssertionError("Filtered image size not equal to filter size");
+    /**
+     * Update the filter from the pixels of the source's current image, as from
+     * {@link FilterUtils#getPixels(BufferedImage)}. Operations that work on
+     * single pixels are applied as the source is resampled, in a single pass.
+     *
+     * @param sourcePixels pixels of the current image
+     */
+    synchronized void updateFilter(int[] sourcePixels) {
+        if (rgbColors.length != width * height) {
+            initChannels();
         }
+        IntUnaryOperator pixelOp = imageOp.getPixelOp();
+        if (pixelOp != null) {
+            FilterUtils.resample(sourcePixels, source.getWidth(), source.getHeight(), rgbColors, width, height,
+                    imageOp.getOffsetX(), imageOp.getOffsetY(), pixelOp);
+        } else {
+            BufferedImage image = imageOp.getOp().filter(scaleOp.filter(source.getCurrentImage(), null), null);
+            if (image.getHeight() != height || image.getWidth() != width) {
+                throw new AssertionError("Filtered image size not equal to filter size");
+            }
+            System.arraycopy(FilterUtils.getPixels(image), 0, rgbColors, 0, rgbColors.length);
+        }
+        if (filteredImage == null || filteredImage.getWidth() != width || filteredImage.getHeight() != height) {
+            filteredImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        FilterUtils.setPixels(filteredImage, rgbColors);
+        Arrays.fill(staleChannels, true);
+    }
 
-        // Set values of channels
-        for (int y = 0; y < filteredImage.getHeight(); ++y) {
-            for (int x = 0; x < filteredImage.getWidth(); ++x) {
-
-                // Update rgb colors
-                int color = filteredImage.getRGB(x, y);
-                rgbColors[y * width + x] = color;
-
-                // Update other color channels
+    /**
+     * Returns a channel, computing it from the rgb colors if the image has
+     * changed since it was last read.
+     *
+     * @param channel brightness (0), red (1), green (2), or blue (3)
+     * @return the values of the channel
+     */
+    private synchronized double[] getChannel(int channel) {
+        if (staleChannels[channel]) {
+            double[] values = channels[channel];
+            for (int i = 0; i < values.length; i++) {
+                int color = rgbColors[i];
                 // Cf https://stackoverflow.com/questions/2534116/how-to-convert-get-rgbx-y-integer-pixel-to-colorr-g-b-a-in-java
-                double red = ((color >>> 16) & 0xFF) / 255.0;
-                double green = ((color >>> 8) & 0xFF) / 255.0;
-                double blue = (color & 0xFF) / 255.0;
-                // Cf. https://en.wikipedia.org/wiki/Luma_(video)
-                channels[0][y * width + x] = (red * 0.2126 + green * 0.7152 + blue * 0.0722);
-                channels[1][y * width + x] = red;
-                channels[2][y * width + x] = green;
-                channels[3][y * width + x] = blue;
+                switch (channel) {
+                    case 0:
+                        values[i] = FilterUtils.getLuminance(color);
+                        break;
+                    case 1:
+                        values[i] = ((color >>> 16) & 0xFF) / 255.0;
+                        break;
+                    case 2:
+                        values[i] = ((color >>> 8) & 0xFF) / 255.0;
+                        break;
+                    default:
+                        values[i] = (color & 0xFF) / 255.0;
+                }
             }
+            staleChannels[channel] = false;
         }
+        return channels[channel];
     }
 
     @Override
@@ -215,6 +252,14 @@ public class Filter implements AttributeContainer, EditableObject {
         return filteredImage;
     }
 
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
     public void setWidth(int width) {
         this.width = width;
     }
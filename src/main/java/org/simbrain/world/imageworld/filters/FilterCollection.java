@@ -37,9 +37,7 @@ public class FilterCollection {
         imageSource.getEvents().onResize(() -> {
             filters.forEach(Filter::initScaleOp);
         });
-        imageSource.getEvents().onImageUpdate(() -> {
-            filters.forEach(Filter::updateFilter);
-        });
+        imageSource.getEvents().onImageUpdate(this::updateFilters);
     }
 
     public Object readResolve() {
@@ -47,12 +45,19 @@ public class FilterCollection {
         imageSource.getEvents().onResize(() -> {
             filters.forEach(Filter::initScaleOp);
         });
-        imageSource.getEvents().onImageUpdate(() -> {
-            filters.forEach(Filter::updateFilter);
-        });
+        imageSource.getEvents().onImageUpdate(this::updateFilters);
         return this;
     }
 
+    /**
+     * Update all the filters from the current image, in parallel. The image's
+     * pixels are read once and shared by the filters.
+     */
+    private void updateFilters() {
+        int[] pixels = FilterUtils.getPixels(imageSource.getCurrentImage());
+        filters.parallelStream().forEach(filter -> filter.updateFilter(pixels));
+    }
+
     /**
      * Initialize some default filters on world creation. This should be called
      * on the instantiation of a child of this class after the image source is
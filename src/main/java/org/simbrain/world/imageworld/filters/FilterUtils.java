@@ -2,7 +2,10 @@ package org.simbrain.world.imageworld.filters;
 
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
+import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
 
 public class FilterUtils {
 
@@ -19,4 +22,111 @@ public class FilterUtils {
         int interpolation = smooth ? AffineTransformOp.TYPE_BILINEAR : AffineTransformOp.TYPE_NEAREST_NEIGHBOR;
         return new AffineTransformOp(transform, interpolation);
     }
+
+    /**
+     * Read all the pixels of an image at once, as from
+     * {@link BufferedImage#getRGB(int, int)}. Images with int pixels are copied
+     * directly from their rasters.
+     *
+     * @param image the image to read
+     * @return packed ARGB pixels in row-major order
+     */
+    public static int[] getPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            int[] pixels = (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+            if (type == BufferedImage.TYPE_INT_RGB) {
+                for (int i = 0; i < pixels.length; i++) {
+                    pixels[i] |= 0xFF000000;
+                }
+            }
+            return pixels;
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Write all the pixels of an image at once, as with
+     * {@link BufferedImage#setRGB(int, int, int)}.
+     *
+     * @param image  the image to write to
+     * @param pixels packed ARGB pixels in row-major order
+     */
+    public static void setPixels(BufferedImage image, int[] pixels) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int type = image.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+            image.getRaster().setDataElements(0, 0, width, height, pixels);
+        } else {
+            image.setRGB(0, 0, width, height, pixels, 0, width);
+        }
+    }
+
+    /**
+     * Resample an image with bilinear interpolation, shift it, and apply a color
+     * transformation to each pixel, in a single pass over the destination.
+     * Destination pixels shifted in from outside the image are black.
+     *
+     * @param source       source pixels, as from {@link #getPixels(BufferedImage)}
+     * @param sourceWidth  width of the source
+     * @param sourceHeight height of the source
+     * @param dest         destination pixels
+     * @param width        width of the destination
+     * @param height       height of the destination
+     * @param dx           horizontal shift in destination pixels
+     * @param dy           vertical shift in destination pixels
+     * @param pixelOp      color transformation applied to each resampled pixel
+     */
+    static void resample(int[] source, int sourceWidth, int sourceHeight, int[] dest, int width, int height,
+                         int dx, int dy, IntUnaryOperator pixelOp) {
+        double scaleX = (double) sourceWidth / width;
+        double scaleY = (double) sourceHeight / height;
+        for (int y = 0; y < height; y++) {
+            int sy = y - dy;
+            if (sy < 0 || sy >= height) {
+                Arrays.fill(dest, y * width, (y + 1) * width, 0xFF000000);
+                continue;
+            }
+            double v = Math.min(Math.max((sy + 0.5) * scaleY - 0.5, 0), sourceHeight - 1);
+            int y0 = (int) v;
+            int y1 = Math.min(y0 + 1, sourceHeight - 1);
+            double fy = v - y0;
+            for (int x = 0; x < width; x++) {
+                int sx = x - dx;
+                if (sx < 0 || sx >= width) {
+                    dest[y * width + x] = 0xFF000000;
+                    continue;
+                }
+                double u = Math.min(Math.max((sx + 0.5) * scaleX - 0.5, 0), sourceWidth - 1);
+                int x0 = (int) u;
+                int x1 = Math.min(x0 + 1, sourceWidth - 1);
+                double fx = u - x0;
+                int c00 = source[y0 * sourceWidth + x0];
+                int c10 = source[y0 * sourceWidth + x1];
+                int c01 = source[y1 * sourceWidth + x0];
+                int c11 = source[y1 * sourceWidth + x1];
+                int rgb = 0;
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    double top = ((c00 >>> shift) & 0xFF) * (1 - fx) + ((c10 >>> shift) & 0xFF) * fx;
+                    double bottom = ((c01 >>> shift) & 0xFF) * (1 - fx) + ((c11 >>> shift) & 0xFF) * fx;
+                    rgb |= ((int) (top * (1 - fy) + bottom * fy + 0.5)) << shift;
+                }
+                dest[y * width + x] = 0xFF000000 | pixelOp.applyAsInt(rgb);
+            }
+        }
+    }
+
+    /**
+     * @param color a packed RGB color
+     * @return the luminance of the color, between 0 and 1
+     */
+    static double getLuminance(int color) {
+        int red = (color >>> 16) & 0xFF;
+        int green = (color >>> 8) & 0xFF;
+        int blue = color & 0xFF;
+        return (red * 0.2126 + green * 0.7152 + blue * 0.0722) / 255;
+    }
 }
@@ -2,6 +2,7 @@ package org.simbrain.world.imageworld.filters;
 
 import java.awt.color.ColorSpace;
 import java.awt.image.ColorConvertOp;
+import java.util.function.IntUnaryOperator;
 
 public class GrayOp extends ImageOperation<ColorConvertOp> {
 
@@ -11,6 +12,17 @@ public class GrayOp extends ImageOperation<ColorConvertOp> {
         return op;
     }
 
+    /**
+     * Gray with the luminance of the original color.
+     */
+    @Override
+    IntUnaryOperator getPixelOp() {
+        return color -> {
+            int gray = (int) (FilterUtils.getLuminance(color) * 255 + 0.5);
+            return (gray << 16) | (gray << 8) | gray;
+        };
+    }
+
     @Override
     public GrayOp copy() {
         return new GrayOp();
@@ -2,6 +2,7 @@ package org.simbrain.world.imageworld.filters;
 
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Basically the color operation.
@@ -14,6 +15,11 @@ public class IdentityOp extends ImageOperation<AffineTransformOp> {
         return op;
     }
 
+    @Override
+    IntUnaryOperator getPixelOp() {
+        return IntUnaryOperator.identity();
+    }
+
     @Override
     public IdentityOp copy() {
         return new IdentityOp();
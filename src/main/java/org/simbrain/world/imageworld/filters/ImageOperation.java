@@ -6,6 +6,7 @@ import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImageOp;
 import java.util.List;
+import java.util.function.IntUnaryOperator;
 
 /**
  * An abstract image operation.
@@ -29,4 +30,30 @@ public abstract class ImageOperation<O extends BufferedImageOp> implements Copya
     }
 
     abstract O getOp();
+
+    /**
+     * Returns the operation as a transformation of each pixel's color, which
+     * lets a {@link Filter} apply it while resampling its source. Operations
+     * which cannot be expressed this way return null, and are applied with
+     * {@link #getOp()} instead.
+     *
+     * @return a function from packed RGB colors to packed RGB colors, or null
+     */
+    IntUnaryOperator getPixelOp() {
+        return null;
+    }
+
+    /**
+     * @return horizontal shift applied along with {@link #getPixelOp()}
+     */
+    int getOffsetX() {
+        return 0;
+    }
+
+    /**
+     * @return vertical shift applied along with {@link #getPixelOp()}
+     */
+    int getOffsetY() {
+        return 0;
+    }
 }
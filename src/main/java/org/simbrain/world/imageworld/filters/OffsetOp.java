@@ -10,6 +10,7 @@ import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorModel;
+import java.util.function.IntUnaryOperator;
 
 public class OffsetOp extends ImageOperation<OffsetOp> implements BufferedImageOp {
 
@@ -36,6 +37,21 @@ public class OffsetOp extends ImageOperation<OffsetOp> implements BufferedImageO
         return this;
     }
 
+    @Override
+    IntUnaryOperator getPixelOp() {
+        return IntUnaryOperator.identity();
+    }
+
+    @Override
+    int getOffsetX() {
+        return dx;
+    }
+
+    @Override
+    int getOffsetY() {
+        return dy;
+    }
+
     @Override
     public OffsetOp copy() {
         return new OffsetOp(dx, dy);
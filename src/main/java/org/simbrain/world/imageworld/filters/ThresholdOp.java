@@ -8,6 +8,7 @@ import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.awt.image.ColorModel;
+import java.util.function.IntUnaryOperator;
 
 /**
  * ThresholdOp is a BufferedImageOp for converting an RGB image to a binary
@@ -58,24 +59,18 @@ public class ThresholdOp extends ImageOperation<ThresholdOp> implements Buffered
         if (destination == null) {
             destination = createCompatibleDestImage(source, null);
         }
-        for (int y = 0; y < source.getHeight(); ++y) {
-            for (int x = 0; x < source.getWidth(); ++x) {
-                double luminance = getLuminance(source.getRGB(x, y));
-                destination.setRGB(x, y, luminance >= threshold ? white : black);
-            }
+        int[] pixels = FilterUtils.getPixels(source);
+        IntUnaryOperator pixelOp = getPixelOp();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = pixelOp.applyAsInt(pixels[i]);
         }
+        FilterUtils.setPixels(destination, pixels);
         return destination;
     }
 
-    /**
-     * @param color a 3-byte RGB color to convert
-     * @return the luminance of the color
-     */
-    private double getLuminance(int color) {
-        int red = (color >>> 16) & 0xFF;
-        int green = (color >>> 8) & 0xFF;
-        int blue = (color >>> 0) & 0xFF;
-        return (red * 0.2126 + green * 0.7152 + blue * 0.0722) / 255;
+    @Override
+    IntUnaryOperator getPixelOp() {
+        return color -> FilterUtils.getLuminance(color) >= threshold ? white : black;
     }
 
     @Override
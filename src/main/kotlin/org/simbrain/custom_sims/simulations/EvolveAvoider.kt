@@ -52,7 +52,7 @@ val evolveAvoider = newSim {
                 }
             }
 
-            val evolutionWorkspace = Workspace()
+            val evolutionWorkspace = Workspace(true)
 
             val connections = chromosome<Synapse, ConnectionGene>()
 
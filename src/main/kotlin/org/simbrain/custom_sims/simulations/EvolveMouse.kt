@@ -46,7 +46,7 @@ val evolveMouse = newSim {
 
             val connections = chromosome<Synapse, ConnectionGene>()
 
-            val evolutionWorkspace = Workspace()
+            val evolutionWorkspace = Workspace(true)
 
             val networkComponent = evolutionWorkspace { addNetworkComponent("Network") }
             val network = networkComponent.network
@@ -49,7 +49,7 @@ val evolvePursuer = newSim {
 
             val connections = chromosome<Synapse, ConnectionGene>()
 
-            val evolutionWorkspace = Workspace()
+            val evolutionWorkspace = Workspace(true)
 
             val networkComponent = evolutionWorkspace { addNetworkComponent("Network") }
             val network = networkComponent.network
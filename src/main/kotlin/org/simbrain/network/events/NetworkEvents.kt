@@ -13,7 +13,9 @@ import org.simbrain.network.groups.NeuronGroup
 import org.simbrain.network.groups.Subnetwork
 import org.simbrain.network.groups.SynapseGroup
 import org.simbrain.util.Event
+import org.simbrain.util.ListenerList
 import java.beans.PropertyChangeSupport
+import java.util.concurrent.ConcurrentHashMap
 import java.util.function.Consumer
 
 /**
@@ -24,6 +26,54 @@ class NetworkEvents(network: Network) : Event(PropertyChangeSupport(network)) {
     fun onUpdateCompleted(handler:Runnable) = "UpdateCompleted".event(handler)
     fun fireUpdateCompleted() = "UpdateCompleted"()
 
+    /**
+     * Listeners to [fireModelsChanged].
+     */
+    private val modelsChangedListeners = ListenerList<Consumer<Collection<NetworkModel>>>()
+
+    /**
+     * Models marked changed since [fireModelsChanged] was last called. A concurrent set, so models can be marked from
+     * any thread (e.g. by parallel update actions) without locking.
+     */
+    private val changedModels: MutableSet<NetworkModel> = ConcurrentHashMap.newKeySet()
+
+    /**
+     * Handle the models (neurons, synapses, neuron arrays and weight matrices) whose state changed during a network
+     * update, once per update, instead of handling each model's change events. The collection is taken out of the
+     * set of marked models before handlers are called, so handlers may mark models (which then go in the next batch)
+     * and may keep the collection.
+     */
+    fun onModelsChanged(handler: Consumer<Collection<NetworkModel>>) = modelsChangedListeners.add(handler)
+
+    /**
+     * Fire the models marked changed since the last call, if any. Called at the end of each network update, and can
+     * be called from other threads to pick up changes made between updates. Models marked while this is running are
+     * fired either now or by the next call.
+     */
+    fun fireModelsChanged() {
+        if (modelsChangedListeners.isEmpty || changedModels.isEmpty()) {
+            return
+        }
+        val changed = ArrayList<NetworkModel>(changedModels.size)
+        val iterator = changedModels.iterator()
+        while (iterator.hasNext()) {
+            changed.add(iterator.next())
+            iterator.remove()
+        }
+        if (changed.isNotEmpty()) {
+            modelsChangedListeners.forEach { it.accept(changed) }
+        }
+    }
+
+    /**
+     * Mark a model as changed, for the next [fireModelsChanged]. Does nothing if nothing is listening.
+     */
+    fun markChanged(model: NetworkModel) {
+        if (!modelsChangedListeners.isEmpty) {
+            changedModels.add(model)
+        }
+    }
+
     fun onModelAdded(handler: Consumer<NetworkModel>) = "Added".itemAddedEvent(handler)
     fun fireModelAdded(model: NetworkModel) = "Added"(new = model)
 
@@ -38,4 +88,10 @@ class NetworkEvents(network: Network) : Event(PropertyChangeSupport(network)) {
 
     fun onUpdateActionsChanged(handler: Runnable) = "UpdateActionsChanged".event(handler)
     fun fireUpdateActionsChanged() = "UpdateActionsChanged"()
+
+    /**
+     * A synapse's spike responder was replaced or its parameters were edited.
+     */
+    fun onSpikeResponderChanged(handler: Consumer<Synapse>) = "SpikeResponderChanged".itemAddedEvent(handler)
+    fun fireSpikeResponderChanged(synapse: Synapse) = "SpikeResponderChanged"(new = synapse)
 }
\ No newline at end of file
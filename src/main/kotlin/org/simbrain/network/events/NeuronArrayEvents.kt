@@ -2,6 +2,7 @@ package org.simbrain.network.events
 
 import org.simbrain.network.dl4j.NeuronArray
 import org.simbrain.util.Event
+import org.simbrain.util.ListenerList
 import java.beans.PropertyChangeSupport
 import java.util.function.BiConsumer
 import java.util.function.Consumer
@@ -17,8 +18,13 @@ class NeuronArrayEvents(val neuronArray: NeuronArray) : LocationEvents(neuronArr
     fun onLabelChange(handler: BiConsumer<String, String>) = "LabelChange".itemChangedEvent(handler)
     fun fireLabelChange(old: String, new: String) = "LabelChange"(old = old, new = new)
 
-    fun onUpdated(handler: Runnable) = "Updated".event(handler)
-    fun fireUpdated() = "Updated"()
+    private val updatedListeners = ListenerList<Runnable>()
+
+    fun onUpdated(handler: Runnable) = updatedListeners.add(handler)
+    fun fireUpdated() {
+        updatedListeners.forEach { it.run() }
+        neuronArray.network?.events?.markChanged(neuronArray)
+    }
 
 
 }
\ No newline at end of file
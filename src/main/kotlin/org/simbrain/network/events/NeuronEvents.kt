@@ -2,7 +2,10 @@ package org.simbrain.network.events
 
 import org.simbrain.network.core.Neuron
 import org.simbrain.network.core.NeuronUpdateRule
+import org.simbrain.util.BooleanChangeListener
+import org.simbrain.util.DoubleChangeListener
 import org.simbrain.util.Event
+import org.simbrain.util.ListenerList
 import java.beans.PropertyChangeSupport
 import java.util.function.BiConsumer
 import java.util.function.Consumer
@@ -12,11 +15,28 @@ import java.util.function.Consumer
  */
 class NeuronEvents(val neuron: Neuron) : LocationEvents(neuron) {
 
-    fun onActivationChange(handler: BiConsumer<Double, Double>) = "ActivationChange".itemChangedEvent(handler)
-    fun fireActivationChange(old: Double, new: Double) = "ActivationChange"(old = old, new = new)
-
-    fun onSpiked(handler: BiConsumer<Boolean, Boolean>) = "Spiked".itemChangedEvent(handler)
-    fun fireSpiked(old: Boolean, new: Boolean) = "Spiked"(old = old, new = new)
+    /**
+     * Activation and spike events fire for every neuron on every update, so they use [ListenerList]s rather than
+     * property change support.
+     */
+    private val activationListeners = ListenerList<DoubleChangeListener>()
+    private val spikeListeners = ListenerList<BooleanChangeListener>()
+
+    fun onActivationChange(handler: DoubleChangeListener) = activationListeners.add(handler)
+    fun fireActivationChange(old: Double, new: Double) {
+        if (old != new) {
+            activationListeners.forEach { it.changed(old, new) }
+            neuron.network?.events?.markChanged(neuron)
+        }
+    }
+
+    fun onSpiked(handler: BooleanChangeListener) = spikeListeners.add(handler)
+    fun fireSpiked(old: Boolean, new: Boolean) {
+        if (old != new) {
+            spikeListeners.forEach { it.changed(old, new) }
+            neuron.network?.events?.markChanged(neuron)
+        }
+    }
 
     override fun onLocationChange(handler: Runnable) = "LocationChange".event(handler)
     override fun fireLocationChange() = "LocationChange"()
@@ -3,6 +3,7 @@ package org.simbrain.network.events
 import org.simbrain.network.core.Synapse
 import org.simbrain.network.core.SynapseUpdateRule
 import org.simbrain.util.Event
+import org.simbrain.util.ListenerList
 import java.beans.PropertyChangeSupport
 import java.util.function.BiConsumer
 import java.util.function.Consumer
@@ -12,12 +13,27 @@ import java.util.function.Consumer
  */
 class SynapseEvents(val synapse: Synapse) : NetworkModelEvents(synapse) {
 
-    fun onStrengthUpdate(handler: Runnable) = "StrengthUpdate".event(handler)
-    fun fireStrengthUpdate() = "StrengthUpdate"()
+    private val strengthListeners = ListenerList<Runnable>()
+
+    fun onStrengthUpdate(handler: Runnable) = strengthListeners.add(handler)
+    fun fireStrengthUpdate() {
+        strengthListeners.forEach { it.run() }
+        synapse.source?.network?.events?.markChanged(synapse)
+    }
 
     fun onLearningRuleUpdate(handler: BiConsumer<SynapseUpdateRule, SynapseUpdateRule>)
             = "LearningRuleUpdate".itemChangedEvent(handler)
     fun fireLearningRuleUpdate(old: SynapseUpdateRule, new: SynapseUpdateRule)
             = "LearningRuleUpdate"(old = old, new = new)
 
+    /**
+     * Fired when the spike responder is replaced or its parameters are edited. Also forwarded to the network (see
+     * [NetworkEvents.onSpikeResponderChanged]), so update actions need not listen to every synapse.
+     */
+    fun onSpikeResponderUpdate(handler: Runnable) = "SpikeResponderUpdate".event(handler)
+    fun fireSpikeResponderUpdate() {
+        "SpikeResponderUpdate"()
+        synapse.source?.network?.events?.fireSpikeResponderChanged(synapse)
+    }
+
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package org.simbrain.network.events
 
 import org.simbrain.network.dl4j.WeightMatrix
 import org.simbrain.util.Event
+import org.simbrain.util.ListenerList
 import java.awt.geom.Point2D
 import java.beans.PropertyChangeSupport
 import java.util.function.BiConsumer
@@ -18,8 +19,13 @@ class WeightMatrixEvents(val wm: WeightMatrix) : NetworkModelEvents(wm) {
     fun onLabelChange(handler: BiConsumer<String, String>) = "LabelChange".itemChangedEvent(handler)
     fun fireLabelChange(old: String, new: String) = "LabelChange"(old = old, new = new)
 
-    fun onUpdated(handler: Runnable) = "Updated".event(handler)
-    fun fireUpdated() = "Updated"()
+    private val updatedListeners = ListenerList<Runnable>()
+
+    fun onUpdated(handler: Runnable) = updatedListeners.add(handler)
+    fun fireUpdated() {
+        updatedListeners.forEach { it.run() }
+        wm.network.events.markChanged(wm)
+    }
 
     fun onLineUpdated(handler: Runnable) = "LineUpdated".event(handler)
     fun fireLineUpdated() = "LineUpdated"()
@@ -84,6 +84,11 @@ class NetworkPanel(val networkComponent: NetworkComponent) : JPanel() {
 
     val timeLabel = TimeLabel(this).apply { update() }
 
+    /**
+     * Draws changes to the network at a limited frame rate.
+     */
+    val renderer = NetworkRenderer(this)
+
     var autoZoom = true
         set(value) {
             field = value
@@ -709,8 +714,16 @@ class NetworkPanel(val networkComponent: NetworkComponent) : JPanel() {
         val event = network.events
         event.onModelAdded { createNode(it) }
         event.onModelRemoved { it.events.fireDeleted() }
-        event.onUpdateTimeDisplay { timeLabel.update() }
-        event.onUpdateCompleted { repaint() }
+    }
+
+    override fun addNotify() {
+        super.addNotify()
+        renderer.start()
+    }
+
+    override fun removeNotify() {
+        renderer.stop()
+        super.removeNotify()
     }
 
     private fun NetworkSelectionManager.setUpSelectionEvents() {
@@ -0,0 +1,85 @@
+package org.simbrain.network.gui
+
+import org.simbrain.network.NetworkModel
+import org.simbrain.network.gui.nodes.ScreenElement
+import java.util.concurrent.ConcurrentHashMap
+import javax.swing.Timer
+
+/**
+ * Draws changes to the models of a [NetworkPanel] at a limited frame rate, so that a running network is not slowed
+ * down by redrawing nodes after every update, and the scene graph is only touched from the Swing thread.
+ *
+ * Models that change during an update are collected from [org.simbrain.network.events.NetworkEvents.onModelsChanged]
+ * into a concurrent set. On each frame the set is drained, and the node of each model that changed since the last
+ * frame is redrawn once from the model's state at that time, see [ScreenElement.updateFromModel]. Nothing is drawn
+ * while the panel is not showing, e.g. when its frame is minimized; changes accumulate and are drawn when it is shown
+ * again.
+ */
+class NetworkRenderer(private val networkPanel: NetworkPanel) {
+
+    /**
+     * Models changed since the last frame.
+     */
+    private val changedModels: MutableSet<NetworkModel> = ConcurrentHashMap.newKeySet()
+
+    /**
+     * The node that draws each model.
+     */
+    private val nodes = ConcurrentHashMap<NetworkModel, ScreenElement>()
+
+    /**
+     * Frames drawn per second.
+     */
+    var framesPerSecond = DEFAULT_FRAMES_PER_SECOND
+        set(value) {
+            field = value.coerceAtLeast(1)
+            timer.delay = 1000 / field
+        }
+
+    private val timer = Timer(1000 / framesPerSecond) { render() }.apply { isCoalesce = true }
+
+    init {
+        networkPanel.network.events.onModelsChanged { changedModels.addAll(it) }
+    }
+
+    /**
+     * Redraw a node when its model changes.
+     */
+    fun register(node: ScreenElement) {
+        val model = node.model ?: return
+        nodes[model] = node
+        model.events.onDeleted { nodes.remove(it, node) }
+    }
+
+    /**
+     * Start drawing frames.
+     */
+    fun start() = timer.start()
+
+    /**
+     * Stop drawing frames.
+     */
+    fun stop() = timer.stop()
+
+    /**
+     * Draw the models that changed since the last frame. Called on the Swing thread.
+     */
+    fun render() {
+        if (!networkPanel.isShowing || !networkPanel.guiOn) {
+            return
+        }
+        // Pick up changes made outside of network updates, e.g. by editing a model
+        networkPanel.network.events.fireModelsChanged()
+        val iterator = changedModels.iterator()
+        while (iterator.hasNext()) {
+            val model = iterator.next()
+            iterator.remove()
+            nodes[model]?.updateFromModel()
+        }
+        networkPanel.timeLabel.update()
+    }
+
+    companion object {
+        const val DEFAULT_FRAMES_PER_SECOND = 30
+    }
+}
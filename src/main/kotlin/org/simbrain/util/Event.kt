@@ -1,5 +1,6 @@
 package org.simbrain.util
 
+import org.pmw.tinylog.Level
 import org.pmw.tinylog.Logger
 import java.beans.PropertyChangeSupport
 import java.util.function.BiConsumer
@@ -34,6 +35,9 @@ import java.util.function.Consumer
  *
  *  They can be used just like other intellij built-in shortcuts, e.g `sout`.
  *
+ *  Events that fire for every model on every update, like neuron activation changes, use a [ListenerList] instead,
+ *  which avoids the overhead of property change support.
+ *
  *  @author Yulin Li
  */
 open class Event(private val changeSupport: PropertyChangeSupport) {
@@ -43,7 +47,7 @@ open class Event(private val changeSupport: PropertyChangeSupport) {
      */
     protected operator fun <T> String.invoke(old: T? = null, new: T? = null) {
         changeSupport.firePropertyChange(this, old, new)
-        Logger.debug("${this}Event")
+        logEvent(this)
     }
 
     /**
@@ -51,7 +55,16 @@ open class Event(private val changeSupport: PropertyChangeSupport) {
      */
     protected operator fun String.invoke() {
         changeSupport.firePropertyChange(this, null, null)
-        Logger.debug("${this}Event")
+        logEvent(this)
+    }
+
+    /**
+     * Log an event if debug logging is on, without building the message otherwise.
+     */
+    private fun logEvent(name: String) {
+        if (Logger.getLevel(javaClass) <= Level.DEBUG) {
+            Logger.debug("${name}Event")
+        }
     }
 
     /**
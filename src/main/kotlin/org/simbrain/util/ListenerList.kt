@@ -0,0 +1,56 @@
+package org.simbrain.util
+
+/**
+ * Listeners for events that fire on every update of every model, like neuron activation changes, where the
+ * [PropertyChangeSupport][java.beans.PropertyChangeSupport] used by [Event] is too slow: it looks up listeners by
+ * name, allocates an event object and boxes primitive values on every call, even if nothing is listening.
+ *
+ * Firing through a listener list costs a single check when it is empty and allocates nothing otherwise, as long as
+ * the listener type takes primitives, e.g. [DoubleChangeListener]. Listeners are kept in a copy-on-write array, so
+ * adding and removing them is relatively slow but firing needs no locking.
+ */
+class ListenerList<L : Any> {
+
+    @Volatile
+    @PublishedApi
+    internal var listeners: Array<Any> = emptyArray()
+
+    /**
+     * True if nothing is listening, in which case nothing need be computed for the listeners.
+     */
+    val isEmpty get() = listeners.isEmpty()
+
+    @Synchronized
+    fun add(listener: L) {
+        listeners = listeners + listener
+    }
+
+    @Synchronized
+    fun remove(listener: L) {
+        val index = listeners.indexOf(listener)
+        if (index >= 0) {
+            listeners = listeners.filterIndexed { i, _ -> i != index }.toTypedArray()
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    inline fun forEach(action: (L) -> Unit) {
+        for (listener in listeners) {
+            action(listener as L)
+        }
+    }
+}
+
+/**
+ * Handles a change from one double value to another without boxing them.
+ */
+fun interface DoubleChangeListener {
+    fun changed(old: Double, new: Double)
+}
+
+/**
+ * Handles a change from one boolean value to another without boxing them.
+ */
+fun interface BooleanChangeListener {
+    fun changed(old: Boolean, new: Boolean)
+}
@@ -2,9 +2,14 @@ package org.simbrain.util.geneticalgorithms
 
 import org.simbrain.util.propertyeditor.CopyableObject
 import java.util.*
+import java.util.concurrent.Callable
 import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 import kotlin.random.Random
-import kotlin.streams.toList
 
 /**
  * Describes how to make a gene product, or "express a phenotype". Extend this class with your own gene type, and
@@ -307,6 +312,58 @@ class Evaluator(environmentBuilder: EnvironmentBuilder) {
      */
     private val population = generateSequence(environmentBuilder.copy()) { it.copy() }.take(populationSize).toList()
 
+    /**
+     * Whether agents which survive a generation unchanged keep their fitness rather than being built and
+     * evaluated again. Turn off if fitness is noisy and survivors should have to prove themselves again.
+     */
+    var cacheFitness: Boolean = true
+
+    /**
+     * How many times each agent is evaluated. The fitness of an agent is the mean over its trials. The environment
+     * is built once and its eval function run once per trial, so eval functions which randomize their starting
+     * conditions, e.g. using evalRand, are averaged over several starts.
+     */
+    var numTrials: Int = 1
+
+    /**
+     * Whether to stop running trials for an agent once its mean fitness is worse than the worst survivor of the
+     * previous generation. Saves time on hopeless agents when [numTrials] is more than 1.
+     */
+    var earlyTermination: Boolean = false
+
+    /**
+     * Number of threads used to evaluate agents, if no [executor] is set.
+     */
+    var evaluationThreads: Int = Runtime.getRuntime().availableProcessors()
+
+    /**
+     * Executor used to evaluate agents. By default a pool of [evaluationThreads] daemon threads is created, so that
+     * evaluations do not compete with other work on the common fork join pool. An executor set here is not shut down
+     * by the evaluator.
+     */
+    var executor: ExecutorService? = null
+
+    /**
+     * The pool created when no [executor] is set. It is shut down when a run finishes, and its threads also stop
+     * when idle, in case a run is abandoned before it finishes.
+     */
+    private var ownExecutor: ThreadPoolExecutor? = null
+
+    private val evaluationExecutor: ExecutorService
+        get() = executor ?: ownExecutor ?: ThreadPoolExecutor(
+            evaluationThreads, evaluationThreads, 10, TimeUnit.SECONDS, LinkedBlockingQueue()
+        ) { runnable ->
+            Thread(runnable, "Evaluator").apply { isDaemon = true }
+        }.apply { allowCoreThreadTimeOut(true) }.also { ownExecutor = it }
+
+    /**
+     * Shut down the pool created by the evaluator, if there is one.
+     */
+    private fun shutdownOwnExecutor() {
+        ownExecutor?.shutdown()
+        ownExecutor = null
+    }
+
     /**
      * Condition in which to stop the evolution.
      */
@@ -328,6 +385,64 @@ class Evaluator(environmentBuilder: EnvironmentBuilder) {
      */
     class RunUntilContext(val generation: Int, val fitness: Double)
 
+    /**
+     * Statistics about the evaluation of one generation.
+     *
+     * @param generation the generation number
+     * @param evaluated number of agents built and evaluated
+     * @param reused number of agents whose fitness was reused from the previous generation
+     * @param trials total number of trials run
+     * @param terminatedEarly number of agents whose trials were stopped early
+     * @param evaluationMillis wall clock time spent evaluating the generation
+     * @param bestFitness the fitness of the best agent
+     */
+    data class GenerationStats(
+        val generation: Int,
+        val evaluated: Int,
+        val reused: Int,
+        val trials: Int,
+        val terminatedEarly: Int,
+        val evaluationMillis: Double,
+        val bestFitness: Double
+    )
+
+    /**
+     * The fitness of one agent and the number of trials it took.
+     */
+    private class Evaluation(val fitness: Double, val trials: Int)
+
+    private fun isWorse(fitness: Double, than: Double) =
+        if (optimizationMethod == OptimizationMethod.MAXIMIZE_FITNESS) fitness < than else fitness > than
+
+    /**
+     * Build an agent and evaluate it [numTrials] times, stopping early if its mean fitness is worse than the cutoff.
+     */
+    private fun evaluate(builder: EnvironmentBuilder, cutoff: Double?): Evaluation {
+        val environment = builder.build()
+        var total = 0.0
+        for (trial in 1..numTrials) {
+            total += environment.eval()
+            if (cutoff != null && trial < numTrials && isWorse(total / trial, cutoff)) {
+                return Evaluation(total / trial, trial)
+            }
+        }
+        return Evaluation(total / numTrials, numTrials)
+    }
+
+    /**
+     * Evaluate agents on the [evaluationExecutor].
+     */
+    private fun evaluateAll(builders: List<EnvironmentBuilder>, cutoff: Double?): List<Evaluation> {
+        val tasks = builders.map { Callable { evaluate(it, cutoff) } }
+        return evaluationExecutor.invokeAll(tasks).map {
+            try {
+                it.get()
+            } catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+        }
+    }
+
     /**
      * Packages the result of a run of [Evaluator].
      */
@@ -335,22 +450,44 @@ class Evaluator(environmentBuilder: EnvironmentBuilder) {
 
         private var generation = 0
 
+        private val generationStats = mutableListOf<GenerationStats>()
+
         private var generations = sequence {
+            generationStats.clear()
             var next = population
+            var cache = IdentityHashMap<EnvironmentBuilder, Double>()
+            var cutoff: Double? = null
             do {
-                val current = next.parallelStream().map {
-                    val build = it.build()
-                    val score = build.eval()
-                    BuilderFitnessPair(it, score)
-                }.toList()
+                val start = System.nanoTime()
+                val toEvaluate = next.filter { !cacheFitness || it !in cache }
+                val evaluations = IdentityHashMap<EnvironmentBuilder, Evaluation>()
+                (toEvaluate zip evaluateAll(toEvaluate, if (earlyTermination) cutoff else null)).forEach { (builder, evaluation) ->
+                    evaluations[builder] = evaluation
+                }
+                val current = next.map { BuilderFitnessPair(it, evaluations[it]?.fitness ?: cache.getValue(it)) }
                     .sortedBy { if (optimizationMethod == OptimizationMethod.MAXIMIZE_FITNESS) -it.fitness else it.fitness }
 
                 val currentFitness = current[0].fitness
 
                 val survivors = current.take((eliminationRatio * current.size).toInt())
 
+                generationStats.add(GenerationStats(
+                    generation,
+                    evaluations.size,
+                    next.size - evaluations.size,
+                    evaluations.values.sumBy { it.trials },
+                    evaluations.values.count { it.trials < numTrials },
+                    (System.nanoTime() - start) / 1e6,
+                    currentFitness
+                ))
+
                 yield(current)
 
+                cache = IdentityHashMap<EnvironmentBuilder, Double>().apply {
+                    survivors.forEach { put(it.environmentBuilder, it.fitness) }
+                }
+                cutoff = survivors.lastOrNull()?.fitness
+
                 next = survivors.map { it.environmentBuilder } + survivors.uniformSample()
                     .take(populationSize - survivors.size)
                     .map { it.environmentBuilder.copy().apply { mutate() } }
@@ -358,8 +495,14 @@ class Evaluator(environmentBuilder: EnvironmentBuilder) {
 
                 generation++
             } while (!stoppingCondition(RunUntilContext(generation, currentFitness)))
+            shutdownOwnExecutor()
         }
 
+        /**
+         * Statistics for each generation evaluated so far.
+         */
+        val stats: List<GenerationStats> get() = generationStats
+
         /**
          * Returns the wining agent builder and its fitness.
          */
@@ -388,6 +531,14 @@ class Evaluator(environmentBuilder: EnvironmentBuilder) {
                 generations = generations.onEachIndexed { index, list -> block(list.first(), index) }
             }
 
+        /**
+         * Run the provided block at each generation with statistics about how the generation was evaluated.
+         */
+        fun onEachGenerationStats(block: (stats: GenerationStats) -> Unit): Result = this
+            .apply {
+                generations = generations.onEachIndexed { index, _ -> block(generationStats[index]) }
+            }
+
     }
 
     /**
@@ -20,6 +20,11 @@ import java.lang.reflect.Type
  */
 class Coupling private constructor(val producer: Producer, val consumer: Consumer) {
 
+    /**
+     * Double couplings are updated without boxing.
+     */
+    val isDouble = producer.type == Double::class.javaPrimitiveType
+
     /**
      * This is the main action!  Set the value of the consumer based on the
      * value of the producer.
@@ -29,7 +34,11 @@ class Coupling private constructor(val producer: Producer, val consumer: Consume
      * (cf http://www.javapractices.com/topic/TopicAction.do?Id=15)).
      */
     fun update() {
-        consumer.setValue(producer.value)
+        if (isDouble) {
+            consumer.setDoubleValue(producer.doubleValue)
+        } else {
+            consumer.setValue(producer.value)
+        }
     }
 
     val type: Type
@@ -0,0 +1,63 @@
+package org.simbrain.workspace.couplings
+
+import org.simbrain.workspace.AttributeAccessors
+import org.simbrain.workspace.AttributeContainer
+
+/**
+ * A run of consecutive couplings whose producers share a getter and whose consumers share a setter, e.g. the
+ * couplings from the neurons of one network to the neurons of another. The couplings are still updated one at a
+ * time and in order, but through a single pair of compiled accessors (see [AttributeAccessors]) over arrays of base
+ * objects, and double values are never boxed.
+ */
+internal class CouplingBatch private constructor(couplings: List<Coupling>) {
+
+    private val producers: Array<AttributeContainer> = Array(couplings.size) { couplings[it].producer.baseObject }
+
+    private val consumers: Array<AttributeContainer> = Array(couplings.size) { couplings[it].consumer.baseObject }
+
+    private val isDouble = couplings[0].isDouble
+
+    private val getter = AttributeAccessors.getter(couplings[0].producer.method)
+
+    private val setter = AttributeAccessors.setter(couplings[0].consumer.method)
+
+    private val doubleGetter = if (isDouble) AttributeAccessors.doubleGetter(couplings[0].producer.method) else null
+
+    private val doubleSetter = if (isDouble) AttributeAccessors.doubleSetter(couplings[0].consumer.method) else null
+
+    fun update() {
+        if (doubleGetter != null && doubleSetter != null) {
+            for (i in producers.indices) {
+                doubleSetter.accept(consumers[i], doubleGetter.applyAsDouble(producers[i]))
+            }
+        } else {
+            for (i in producers.indices) {
+                setter.accept(consumers[i], getter.apply(producers[i]))
+            }
+        }
+    }
+
+    companion object {
+
+        /**
+         * Split couplings, in update order, into runs with the same producer and consumer methods.
+         */
+        fun createBatches(couplings: Collection<Coupling>): List<CouplingBatch> {
+            val batches = ArrayList<CouplingBatch>()
+            var run = ArrayList<Coupling>()
+            for (coupling in couplings) {
+                val first = run.firstOrNull()
+                if (first != null && (first.producer.method != coupling.producer.method
+                                || first.consumer.method != coupling.consumer.method)) {
+                    batches.add(CouplingBatch(run))
+                    run = ArrayList()
+                }
+                run.add(coupling)
+            }
+            if (run.isNotEmpty()) {
+                batches.add(CouplingBatch(run))
+            }
+            return batches
+        }
+    }
+}
@@ -44,6 +44,21 @@ class CouplingManager(val workspace: Workspace) {
 
     val methodVisibilities = HashMap<Method, Boolean>()
 
+    /**
+     * The couplings in runs that are updated together, see [CouplingBatch]. Rebuilt when couplings are added or
+     * removed.
+     */
+    private var batches: List<CouplingBatch>? = null
+
+    /**
+     * Incremented whenever couplings are added or removed, so that structures derived from the couplings, like the
+     * batches or the dependency graph of a [org.simbrain.workspace.updater.DependencyUpdateAction], can tell when
+     * they are stale.
+     */
+    @Volatile
+    var modificationCount = 0
+        private set
+
     /**
      * List of listeners to fire updates when couplings are changed.
      */
@@ -193,7 +208,10 @@ class CouplingManager(val workspace: Workspace) {
      * @return the newly creating coupling
      */
     fun createCoupling(producer: Producer?, consumer: Consumer?) = Coupling.create(producer, consumer).also {
+        it.producer.compile()
+        it.consumer.compile()
         _couplings.add(it)
+        couplingsChanged()
         attributeContainerCouplings.getOrPut(it.producer.baseObject) { LinkedHashSet() }.add(it)
         attributeContainerCouplings.getOrPut(it.consumer.baseObject) { LinkedHashSet() }.add(it)
         events.fireCouplingAdded(it)
@@ -292,8 +310,9 @@ class CouplingManager(val workspace: Workspace) {
      * Update all couplings by setting the consumers to take the values of their producers.
      */
     fun updateCouplings() {
-        for (coupling in couplings) {
-            coupling.update()
+        val batches = batches ?: CouplingBatch.createBatches(couplings).also { batches = it }
+        for (batch in batches) {
+            batch.update()
         }
     }
 
@@ -309,6 +328,7 @@ class CouplingManager(val workspace: Workspace) {
 
     private fun removeCouplingWithoutFiringEvent(coupling: Coupling) {
         _couplings.remove(coupling)
+        couplingsChanged()
         attributeContainerCouplings[coupling.producer.baseObject]?.let {
             it.remove(coupling)
             if (it.isEmpty()) {
@@ -323,8 +343,14 @@ class CouplingManager(val workspace: Workspace) {
         }
     }
 
+    private fun couplingsChanged() {
+        batches = null
+        modificationCount++
+    }
+
     fun removeAttributeContainer(attributeContainer: AttributeContainer) {
         attributeContainerCouplings[attributeContainer]?.let {
+            couplingsChanged()
             it.forEach { coupling ->
                 _couplings.remove(coupling)
                 if (coupling.consumer.baseObject !== attributeContainer) {
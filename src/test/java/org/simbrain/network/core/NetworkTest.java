@@ -2,10 +2,18 @@ package org.simbrain.network.core;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.simbrain.network.NetworkModel;
 import org.simbrain.network.groups.NeuronGroup;
 import org.simbrain.util.Utils;
 import org.simbrain.workspace.WorkspaceComponent;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 public class NetworkTest {
@@ -53,4 +61,67 @@ public class NetworkTest {
         assertNotNull(fromXml.getNeuronGroupByLabel("ng2") );
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testModelsChangedOncePerUpdate() {
+        List<List<NetworkModel>> batches = new ArrayList<>();
+        net.getEvents().onModelsChanged(models -> batches.add(new ArrayList<>(models)));
+        n1.setClamped(true);
+        n1.forceSetActivation(.25);
+        n1.forceSetActivation(.5);
+        net.update();
+        assertEquals(List.of(List.of(n1)), batches);
+        net.update();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    public void testModelsChangedDrained() {
+        List<List<NetworkModel>> batches = new ArrayList<>();
+        net.getEvents().onModelsChanged(models -> {
+            batches.add(new ArrayList<>(models));
+            // Marked models go in the next batch
+            if (batches.size() == 1) {
+                net.getEvents().markChanged(n2);
+            }
+        });
+        net.getEvents().markChanged(n1);
+        net.getEvents().markChanged(n1);
+        net.getEvents().fireModelsChanged();
+        net.getEvents().fireModelsChanged();
+        net.getEvents().fireModelsChanged();
+        assertEquals(List.of(List.of(n1), List.of(n2)), batches);
+    }
+
+    @Test
+    public void testModelsChangedFromManyThreads() throws InterruptedException {
+        int numThreads = 4;
+        int perThread = 2000;
+        Set<NetworkModel> fired = Collections.newSetFromMap(new IdentityHashMap<>());
+        AtomicInteger count = new AtomicInteger();
+        net.getEvents().onModelsChanged(models -> {
+            fired.addAll(models);
+            count.addAndGet(models.size());
+        });
+        List<Neuron> neurons = new ArrayList<>();
+        for (int i = 0; i < numThreads * perThread; i++) {
+            neurons.add(new Neuron(net));
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < numThreads; t++) {
+            List<Neuron> part = neurons.subList(t * perThread, (t + 1) * perThread);
+            threads.add(new Thread(() -> part.forEach(net.getEvents()::markChanged)));
+        }
+        threads.forEach(Thread::start);
+        // Fire while the other threads are marking
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            net.getEvents().fireModelsChanged();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        net.getEvents().fireModelsChanged();
+        assertEquals(neurons.size(), fired.size());
+        assertEquals(neurons.size(), count.get());
+    }
+}
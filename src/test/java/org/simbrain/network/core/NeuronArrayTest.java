@@ -6,18 +6,23 @@ import org.nd4j.linalg.api.buffer.FloatBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.simbrain.network.dl4j.NeuronArray;
+import org.simbrain.network.dl4j.WeightMatrix;
+import org.simbrain.util.math.SquashingFunctionEnum;
 
 import java.awt.geom.Point2D;
+import java.lang.reflect.Field;
 
 import static org.junit.Assert.*;
 
 public class NeuronArrayTest {
 
+    private Network network;
+
     private NeuronArray neuronArray;
 
     @Before
     public void setUp() {
-        Network network = new Network();
+        network = new Network();
         neuronArray = new NeuronArray(network, 10);
     }
 
@@ -60,4 +65,83 @@ public class NeuronArrayTest {
         assertEquals(location.getX(), neuronArray.getLocation().getX(), 0.001);
         assertEquals(location.getY(), neuronArray.getLocation().getY(), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSetValuesInPlace() {
+        INDArray before = neuronArray.getNeuronArray();
+        neuronArray.setValues(new double[10]);
+        assertSame(before, neuronArray.getNeuronArray());
+    }
+
+    @Test
+    public void testUpdateSumsIncomingMatrices() {
+        NeuronArray source1 = new NeuronArray(network, 2);
+        NeuronArray source2 = new NeuronArray(network, 2);
+        NeuronArray target = new NeuronArray(network, 2);
+        source1.setValues(new double[]{1, 2});
+        source2.setValues(new double[]{.5, -1});
+        WeightMatrix wm1 = network.createWeightMatrix(source1, target);
+        WeightMatrix wm2 = network.createWeightMatrix(source2, target);
+        wm1.diagonalize();
+        wm2.diagonalize();
+        target.setBiases(new double[]{.1, .2});
+        assertEquals(2, target.getIncomingWeightMatrices().size());
+
+        double[] before = target.getValues();
+        target.update();
+        assertArrayEquals(before, target.getValues(), 0);
+        target.applyBufferValues();
+        assertArrayEquals(new double[]{1.6, 1.2}, target.getValues(), 1e-6);
+
+        target.setUseActivationFunction(true);
+        target.setActivationFunction(SquashingFunctionEnum.TANH);
+        target.update();
+        target.applyBufferValues();
+        assertArrayEquals(new double[]{Math.tanh(1.6), Math.tanh(1.2)}, target.getValues(), 1e-6);
+
+        wm2.delete();
+        assertEquals(1, target.getIncomingWeightMatrices().size());
+    }
+
+    @Test
+    public void testBufferedUpdate() {
+        NeuronArray first = new NeuronArray(network, 2);
+        NeuronArray second = new NeuronArray(network, 2);
+        network.addNeuronArray(first);
+        network.addNeuronArray(second);
+        network.createWeightMatrix(first, second).diagonalize();
+        network.createWeightMatrix(second, first).diagonalize();
+        first.setValues(new double[]{1, 2});
+        second.setValues(new double[]{3, 4});
+
+        // Each array reads the other's activations from before the update
+        network.update();
+        assertArrayEquals(new double[]{3, 4}, first.getValues(), 1e-6);
+        assertArrayEquals(new double[]{1, 2}, second.getValues(), 1e-6);
+    }
+
+    @Test
+    public void testOpenSingleIncomingMatrix() throws ReflectiveOperationException {
+        NeuronArray source = new NeuronArray(network, 2);
+        NeuronArray target = new NeuronArray(network, 2);
+        WeightMatrix wm = network.createWeightMatrix(source, target);
+        wm.diagonalize();
+        source.setValues(new double[]{1, 2});
+
+        // State of an array saved before arrays could have several incoming matrices, as read by xstream
+        Field list = NeuronArray.class.getDeclaredField("incomingWeightMatrices");
+        Field single = NeuronArray.class.getDeclaredField("incomingWeightMatrix");
+        list.setAccessible(true);
+        single.setAccessible(true);
+        list.set(target, null);
+        single.set(target, wm);
+
+        target.postUnmarshallingInit();
+        assertEquals(1, target.getIncomingWeightMatrices().size());
+        assertSame(wm, target.getIncomingWeightMatrix());
+        assertNull(single.get(target));
+        target.update();
+        target.applyBufferValues();
+        assertArrayEquals(new double[]{1, 2}, target.getValues(), 1e-6);
+    }
+}
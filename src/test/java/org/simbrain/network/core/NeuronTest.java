@@ -2,6 +2,9 @@ package org.simbrain.network.core;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class NeuronTest {
@@ -15,6 +18,17 @@ public class NeuronTest {
         assert (neuron.getActivation() == 1);
     }
 
+    @Test
+    public void testActivationEvents() {
+        Neuron neuron = new Neuron(new Network(), "LinearRule");
+        List<Double> changes = new ArrayList<>();
+        neuron.getEvents().onActivationChange((o, n) -> changes.add(n));
+        neuron.forceSetActivation(.5);
+        neuron.forceSetActivation(.5);
+        neuron.forceSetActivation(-.5);
+        assertEquals(List.of(.5, -.5), changes);
+    }
+
 
 
 }
\ No newline at end of file
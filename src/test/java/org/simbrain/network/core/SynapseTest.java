@@ -84,4 +84,106 @@ public class SynapseTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testDelayedSynapsesShareSourceHistory() {
+
+        Network net = new Network();
+        Neuron n1 = new Neuron(net);
+        n1.setClamped(true);
+        Neuron n2 = new Neuron(net);
+        Neuron n3 = new Neuron(net);
+        net.addLooseNeuron(n1);
+        net.addLooseNeuron(n2);
+        net.addLooseNeuron(n3);
+        Synapse s1 = new Synapse(n1, n2);
+        s1.setDelay(3);
+        Synapse s2 = new Synapse(n1, n3);
+        s2.setDelay(1);
+        net.addLooseSynapse(s1);
+        net.addLooseSynapse(s2);
+
+        // One line for the source, long enough for the longest delay
+        assertEquals(1, net.getDelayLines().getNumLines());
+        assertEquals(4, net.getDelayLines().getLength());
+
+        for (int t = 0; t < 10; t++) {
+            n1.forceSetActivation(t + 1);
+            net.update();
+            assertEquals(t >= 3 ? t - 2 : 0, s1.getSourceActivation(), 0.0);
+            assertEquals(t >= 1 ? t : 0, s2.getSourceActivation(), 0.0);
+        }
+
+        // Lengthening the line keeps the history it holds
+        s1.setDelay(5);
+        assertEquals(6, net.getDelayLines().getLength());
+        assertEquals(9, s2.getSourceActivation(), 0.0);
+        for (int t = 10; t < 12; t++) {
+            n1.forceSetActivation(t + 1);
+            net.update();
+        }
+        assertEquals(7, s1.getSourceActivation(), 0.0);
+
+        net.delete(n1);
+        assertEquals(0, net.getDelayLines().getNumLines());
+    }
+
+    @Test
+    public void testDelayLineRemovedWhenUnused() {
+
+        Network net = new Network();
+        Neuron n1 = new Neuron(net);
+        Neuron n2 = new Neuron(net);
+        Neuron n3 = new Neuron(net);
+        net.addLooseNeuron(n1);
+        net.addLooseNeuron(n2);
+        net.addLooseNeuron(n3);
+        Synapse s1 = new Synapse(n1, n2);
+        s1.setDelay(2);
+        Synapse s2 = new Synapse(n1, n3);
+        s2.setDelay(1);
+        net.addLooseSynapse(s1);
+        net.addLooseSynapse(s2);
+        assertEquals(1, net.getDelayLines().getNumLines());
+
+        // The line is kept while another synapse from the source is delayed
+        s1.setDelay(0);
+        assertEquals(1, net.getDelayLines().getNumLines());
+        net.delete(s2);
+        assertEquals(0, net.getDelayLines().getNumLines());
+
+        // Reading does not add a line
+        n1.forceSetActivation(4);
+        assertEquals(4, s1.getSourceActivation(), 0.0);
+        assertEquals(0, net.getDelayLines().getNumLines());
+
+        s1.setDelay(1);
+        assertEquals(1, net.getDelayLines().getNumLines());
+        s1.setDelay(0);
+        assertEquals(0, net.getDelayLines().getNumLines());
+    }
+
+    @Test
+    public void testSpikesArriveAfterDelay() {
+
+        Network net = new Network();
+        Neuron n1 = new Neuron(net, new IntegrateAndFireRule());
+        Neuron n2 = new Neuron(net, new IntegrateAndFireRule());
+        net.addLooseNeuron(n1);
+        net.addLooseNeuron(n2);
+        Synapse s = new Synapse(n1, n2);
+        s.setDelay(2);
+        net.addLooseSynapse(s);
+
+        n1.setSpike(true);
+        net.update();
+        n1.setSpike(false);
+        assertEquals(false, s.isSourceSpike());
+        net.update();
+        assertEquals(false, s.isSourceSpike());
+        net.update();
+        assertEquals(true, s.isSourceSpike());
+        net.update();
+        assertEquals(false, s.isSourceSpike());
+    }
+
+}
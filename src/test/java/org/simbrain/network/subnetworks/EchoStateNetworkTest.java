@@ -0,0 +1,205 @@
+package org.simbrain.network.subnetworks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.neuron_update_rules.SigmoidalRule;
+import org.simbrain.network.trainers.RidgeReadout;
+import org.simbrain.network.util.SimnetUtils;
+import org.simbrain.util.math.SquashingFunctionEnum;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class EchoStateNetworkTest {
+
+    private Network net;
+
+    private EchoStateNetwork esn;
+
+    @Before
+    public void setUp() {
+        net = new Network();
+        esn = new EchoStateNetwork(net, new Point2D.Double());
+        esn.setBackWeights(true);
+        esn.setDirectInOutWeights(true);
+        NeuronGroup inputs = new NeuronGroup(net, 2);
+        NeuronGroup reservoir = new NeuronGroup(net, 20);
+        for (Neuron n : reservoir.getNeuronList()) {
+            n.setUpdateRule(new SigmoidalRule(SquashingFunctionEnum.TANH));
+        }
+        NeuronGroup outputs = new NeuronGroup(net, 1);
+        SynapseGroup recurrent = SynapseGroup.createSynapseGroup(reservoir, reservoir, new AllToAll(), .5);
+        esn.initializeInputLayer(inputs);
+        esn.initializeReservoir(reservoir, recurrent, .9);
+        esn.initializeOutput(outputs);
+        esn.addSynapseGroup(SynapseGroup.createSynapseGroup(inputs, reservoir, new AllToAll(), .5));
+        esn.addSynapseGroup(SynapseGroup.createSynapseGroup(outputs, reservoir, new AllToAll(), .5));
+        esn.addSynapseGroup(SynapseGroup.createSynapseGroup(reservoir, outputs, new AllToAll(), .5));
+        esn.addSynapseGroup(SynapseGroup.createSynapseGroup(inputs, outputs, new AllToAll(), .5));
+    }
+
+    private static double[][] sequence(int length, double phase, double frequency) {
+        double[][] data = new double[length][];
+        for (int i = 0; i < length; i++) {
+            data[i] = new double[]{Math.sin(phase + i * frequency), 1};
+        }
+        return data;
+    }
+
+    /**
+     * Target is the first input delayed by one step.
+     */
+    private static double[][] delayed(double[][] inputs) {
+        double[][] targets = new double[inputs.length][1];
+        for (int i = 1; i < inputs.length; i++) {
+            targets[i][0] = inputs[i - 1][0];
+        }
+        return targets;
+    }
+
+    /**
+     * Harvests states by updating the neurons one by one.
+     */
+    private double[][] harvestWithNeurons(double[][] inputs, double[][] targets) {
+        List<Neuron> in = esn.getInputLayer().getNeuronList();
+        List<Neuron> res = esn.getReservoirLayer().getNeuronList();
+        List<Neuron> out = esn.getOutputLayer().getNeuronList();
+        double[][] states = new double[inputs.length][in.size() + res.size()];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int row = 0; row < inputs.length; row++) {
+                for (int i = 0; i < in.size(); i++) {
+                    in.get(i).forceSetActivation(inputs[row][i]);
+                    states[row][i] = inputs[row][i];
+                }
+                for (int i = 0; i < out.size(); i++) {
+                    out.get(i).forceSetActivation(row > 0 ? targets[row - 1][i] : .5);
+                }
+                for (Neuron n : res) {
+                    n.update();
+                }
+                for (int i = 0; i < res.size(); i++) {
+                    res.get(i).forceSetActivation(res.get(i).getBuffer());
+                    states[row][in.size() + i] = res.get(i).getActivation();
+                }
+            }
+        }
+        return states;
+    }
+
+    @Test
+    public void testEngineMatchesNeuronUpdates() {
+        double[][] inputs = sequence(300, 0, .2);
+        double[][] targets = delayed(inputs);
+        double[][] fromEngine = new ReservoirEngine(esn).harvest(inputs, targets);
+        double[][] fromNeurons = harvestWithNeurons(inputs, targets);
+        assertEquals(fromNeurons.length, fromEngine.length);
+        for (int i = 0; i < fromNeurons.length; i++) {
+            assertArrayEquals(fromNeurons[i], fromEngine[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void testParallelHarvestMatchesSequential() {
+        List<double[][]> inputs = List.of(sequence(500, 0, .2), sequence(400, 1, .3), sequence(300, 2, .1));
+        List<double[][]> targets = List.of(delayed(inputs.get(0)), delayed(inputs.get(1)), delayed(inputs.get(2)));
+        ReservoirEngine engine = new ReservoirEngine(esn);
+        RidgeReadout sequential = new RidgeReadout(engine.getNumStates(), 1);
+        for (int i = 0; i < inputs.size(); i++) {
+            engine.harvest(inputs.get(i), targets.get(i), sequential);
+        }
+        RidgeReadout parallel = engine.harvest(inputs, targets);
+        assertEquals(1200, parallel.getNumSamples());
+        double[][] expected = sequential.solve(1e-6);
+        double[][] actual = parallel.solve(1e-6);
+        for (int i = 0; i < expected.length; i++) {
+            assertArrayEquals(expected[i], actual[i], 1e-8);
+        }
+    }
+
+    @Test
+    public void testParallelHarvestIndependentOfThreads() throws Exception {
+        List<double[][]> inputs = new ArrayList<>();
+        List<double[][]> targets = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            inputs.add(sequence(50, i, .1 + i / 100.0));
+            targets.add(delayed(inputs.get(i)));
+        }
+        double[][][] solutions = new double[2][][];
+        int[] threads = {1, 4};
+        for (int t = 0; t < threads.length; t++) {
+            ForkJoinPool pool = new ForkJoinPool(threads[t]);
+            try {
+                ReservoirEngine engine = new ReservoirEngine(esn);
+                solutions[t] = pool.submit(() -> engine.harvest(inputs, targets).solve(1e-6)).get();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (int i = 0; i < solutions[0].length; i++) {
+            assertArrayEquals(solutions[0][i], solutions[1][i], 0);
+        }
+    }
+
+    @Test
+    public void testClampedReservoirRejected() {
+        esn.getReservoirLayer().getNeuron(0).setClamped(true);
+        assertFalse(ReservoirEngine.supports(esn));
+        try {
+            new ReservoirEngine(esn);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("clamped"));
+        }
+    }
+
+    @Test
+    public void testTrainLearnsDelay() {
+        double[][] inputs = sequence(1000, 0, .3);
+        double[][] targets = delayed(inputs);
+        esn.setInputData(inputs);
+        esn.setTargetData(targets);
+        esn.train();
+
+        // Readout error on the harvested states
+        double[][] states = new ReservoirEngine(esn).harvest(inputs, targets);
+        List<Neuron> sources = new ArrayList<>(esn.getInputLayer().getNeuronList());
+        sources.addAll(esn.getReservoirLayer().getNeuronList());
+        double[][] w = SimnetUtils.getWeights(sources, esn.getOutputLayer().getNeuronList());
+        double error = 0;
+        for (int t = 100; t < inputs.length; t++) {
+            double y = 0;
+            for (int i = 0; i < states[t].length; i++) {
+                y += states[t][i] * w[i][0];
+            }
+            error += Math.abs(y - targets[t][0]);
+        }
+        assertTrue(error / (inputs.length - 100) < .05);
+        // Targets are not modified
+        assertEquals(inputs[0][0], targets[1][0], 0);
+    }
+
+    @Test
+    public void testRidgeReadoutRecoversLinearMap() {
+        double[][] states = new double[50][];
+        double[][] targets = new double[50][];
+        for (int i = 0; i < states.length; i++) {
+            states[i] = new double[]{Math.sin(i), Math.cos(i * .7), 1};
+            targets[i] = new double[]{2 * states[i][0] - states[i][1] + .5, states[i][1]};
+        }
+        RidgeReadout readout = new RidgeReadout(3, 2);
+        readout.accumulate(states, targets);
+        double[][] w = readout.solve(0);
+        assertArrayEquals(new double[]{2, 0}, w[0], 1e-9);
+        assertArrayEquals(new double[]{-1, 1}, w[1], 1e-9);
+        assertArrayEquals(new double[]{.5, 0}, w[2], 1e-9);
+    }
+}
@@ -0,0 +1,99 @@
+package org.simbrain.network.subnetworks;
+
+import org.junit.Test;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SOMGroupTest {
+
+    /**
+     * Create an SOM network with weights that depend only on the neurons' positions in their lists.
+     */
+    private static SOMNetwork createSom(int numSom, int numInputs) {
+        SOMNetwork som = new SOMNetwork(new Network(), numSom, numInputs);
+        List<Neuron> inputs = som.getInputLayer().getNeuronList();
+        for (int i = 0; i < numSom; i++) {
+            for (Synapse s : som.getSom().getNeuronList().get(i).getFanIn()) {
+                int j = inputs.indexOf(s.getSource());
+                s.setStrength(((i * 7 + j * 3) % 10) / 10.0);
+            }
+        }
+        return som;
+    }
+
+    private static double[][] data(int rows, int cols) {
+        double[][] data = new double[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                data[r][c] = (Math.sin(r * 1.3 + c) + 1) / 2;
+            }
+        }
+        return data;
+    }
+
+    private static double strength(SOMNetwork som, int unit, int input) {
+        Neuron source = som.getInputLayer().getNeuronList().get(input);
+        for (Synapse s : som.getSom().getNeuronList().get(unit).getFanIn()) {
+            if (s.getSource() == source) {
+                return s.getStrength();
+            }
+        }
+        throw new AssertionError("Missing synapse");
+    }
+
+    @Test
+    public void testOnlineTrainingMatchesUpdate() {
+        SOMNetwork expected = createSom(25, 6);
+        SOMNetwork actual = createSom(25, 6);
+        expected.getSom().setInitNeighborhoodSize(60);
+        actual.getSom().setInitNeighborhoodSize(60);
+        double[][] data = data(200, 6);
+
+        for (double[] row : data) {
+            expected.getInputLayer().forceSetActivations(row);
+            expected.getSom().update();
+        }
+        actual.getSom().train(actual.getInputLayer().getNeuronList(), data, false);
+
+        for (int i = 0; i < 25; i++) {
+            for (int j = 0; j < 6; j++) {
+                assertEquals(strength(expected, i, j), strength(actual, i, j), 1e-12);
+            }
+        }
+        assertEquals(expected.getSom().getAlpha(), actual.getSom().getAlpha(), 0);
+        assertEquals(expected.getSom().getNeighborhoodSize(), actual.getSom().getNeighborhoodSize(), 0);
+        int winner = expected.getSom().getNeuronList().indexOf(expected.getSom().getWinner());
+        assertEquals(winner, actual.getSom().getNeuronList().indexOf(actual.getSom().getWinner()));
+        assertEquals(1, actual.getSom().getWinner().getActivation(), 0);
+    }
+
+    @Test
+    public void testBatchTrainingMovesUnitsToMeans() {
+        SOMNetwork som = createSom(2, 2);
+        som.getSom().setInitNeighborhoodSize(0);
+        // Unit 0 starts at (0, .3) and unit 1 at (.7, 0)
+        double[][] data = {{0, 0}, {.2, .4}, {1, 0}, {.8, .2}, {.9, .1}};
+        som.getSom().train(som.getInputLayer().getNeuronList(), data, true);
+        assertEquals(.1, strength(som, 0, 0), 1e-12);
+        assertEquals(.2, strength(som, 0, 1), 1e-12);
+        assertEquals(.9, strength(som, 1, 0), 1e-12);
+        assertEquals(.1, strength(som, 1, 1), 1e-12);
+        assertSame(som.getSom().getNeuronList().get(1), som.getSom().getWinner());
+    }
+
+    @Test
+    public void testBatchWinnersMatchSequentialSearch() {
+        SOMNetwork som = createSom(30, 8);
+        double[][] data = data(500, 8);
+        SOMCodebook codebook = new SOMCodebook(som.getInputLayer().getNeuronList(), som.getSom().getNeuronList());
+        int[] winners = codebook.findWinners(data);
+        for (int r = 0; r < data.length; r++) {
+            assertEquals(codebook.findWinner(data[r]), winners[r]);
+        }
+    }
+}
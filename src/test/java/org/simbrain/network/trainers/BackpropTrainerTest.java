@@ -6,9 +6,12 @@ import org.nd4j.linalg.factory.Nd4j;
 import org.simbrain.network.core.Network;
 import org.simbrain.network.subnetworks.BackpropNetwork;
 import org.simbrain.network.trainers.BackpropTrainer.UpdateMethod;
+import org.simbrain.util.math.RandomSource;
 
 import java.util.stream.IntStream;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class BackpropTrainerTest {
@@ -64,6 +67,80 @@ public class BackpropTrainerTest {
         //TODO: Other activation rules
     }
 
+    /**
+     * A linear array-based network trained on the identity map.
+     */
+    private BackpropTrainer getArrayBackprop() {
+        BackpropNetwork network = new BackpropNetwork(new Network(), new int[]{2, 4, 2});
+        network.getTrainingSet().setInputData(new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}});
+        network.getTrainingSet().setTargetData(new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}});
+        BackpropTrainer trainer = new BackpropTrainer(network);
+        trainer.initData();
+        return trainer;
+    }
+
+    @Test
+    public void testMiniBatchConvergence() throws Exception {
+        BackpropTrainer trainer = getArrayBackprop();
+        trainer.setUpdateMethod(UpdateMethod.MINI_BATCH);
+        trainer.setBatchSize(2);
+        trainer.setLearningRate(.05);
+        for (int i = 0; i < 2000; i++) {
+            trainer.apply();
+        }
+        assertTrue(trainer.getError() < .01);
+    }
+
+    @Test
+    public void testThreadsGiveSameResult() throws Exception {
+        BackpropTrainer serial = getArrayBackprop();
+        BackpropTrainer parallel = getArrayBackprop();
+        for (int i = 0; i < 2; i++) {
+            parallel.getNetwork().getWeightMatrixList().get(i)
+                    .setWeights(serial.getNetwork().getWeightMatrixList().get(i).getWeights());
+        }
+        serial.setUpdateMethod(UpdateMethod.EPOCH);
+        parallel.setUpdateMethod(UpdateMethod.EPOCH);
+        parallel.setNumThreads(2);
+        for (int i = 0; i < 10; i++) {
+            serial.apply();
+            parallel.apply();
+        }
+        for (int i = 0; i < 2; i++) {
+            assertArrayEquals(serial.getNetwork().getWeightMatrixList().get(i).getWeights(),
+                    parallel.getNetwork().getWeightMatrixList().get(i).getWeights(), 1e-5);
+        }
+        assertEquals(serial.getError(), parallel.getError(), 1e-5);
+    }
+
+    @Test
+    public void testShuffledBatchesReproducedFromRootSeed() throws Exception {
+        RandomSource.setSeed(3);
+        BackpropTrainer first = getArrayBackprop();
+        RandomSource.setSeed(3);
+        BackpropTrainer second = getArrayBackprop();
+        for (int i = 0; i < 2; i++) {
+            second.getNetwork().getWeightMatrixList().get(i)
+                    .setWeights(first.getNetwork().getWeightMatrixList().get(i).getWeights());
+        }
+        for (BackpropTrainer trainer : new BackpropTrainer[]{first, second}) {
+            trainer.setUpdateMethod(UpdateMethod.MINI_BATCH);
+            trainer.setBatchSize(3);
+        }
+        for (int i = 0; i < 10; i++) {
+            first.apply();
+            second.apply();
+            assertEquals(first.getError(), second.getError(), 0);
+        }
+        first.setUpdateMethod(UpdateMethod.STOCHASTIC);
+        second.setUpdateMethod(UpdateMethod.STOCHASTIC);
+        for (int i = 0; i < 10; i++) {
+            first.apply();
+            second.apply();
+            assertEquals(first.getError(), second.getError(), 0);
+        }
+    }
+
     // @Test
     public void nd4JScratch() {
         INDArray input = Nd4j.ones(1,2);
@@ -0,0 +1,141 @@
+package org.simbrain.network.update_actions;
+
+import org.junit.Test;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.neuron_update_rules.BinaryRule;
+import org.simbrain.network.neuron_update_rules.IzhikevichRule;
+
+import static org.junit.Assert.*;
+
+public class CompiledGroupUpdateTest {
+
+    @Test
+    public void testLinearGroup() {
+        Network net = new Network();
+        NeuronGroup source = new NeuronGroup(net, 2);
+        NeuronGroup target = new NeuronGroup(net, 3);
+        net.addNeuronGroup(source);
+        net.addNeuronGroup(target);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(source, target, new AllToAll());
+        net.addSynapseGroup(sg);
+        for (Synapse s : sg.getAllSynapses()) {
+            s.forceSetStrength(.25);
+        }
+        source.forceSetActivations(new double[]{1, .5});
+        target.getNeuron(0).setInputValue(.1);
+
+        net.getUpdateManager().clear();
+        CompiledGroupUpdate cgu = new CompiledGroupUpdate(net, target);
+        net.getUpdateManager().addAction(cgu);
+        net.update();
+
+        assertTrue(cgu.isCompiled());
+        assertEquals(.475, target.getNeuron(0).getActivation(), 1e-10);
+        assertEquals(.375, target.getNeuron(1).getActivation(), 1e-10);
+        assertEquals(0, target.getNeuron(0).getInputValue(), 0);
+    }
+
+    @Test
+    public void testSyncOnDemand() {
+        Network net = new Network();
+        NeuronGroup source = new NeuronGroup(net, 1);
+        NeuronGroup target = new NeuronGroup(net, 1);
+        net.addNeuronGroup(source);
+        net.addNeuronGroup(target);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(source, target, new AllToAll());
+        net.addSynapseGroup(sg);
+        sg.getAllSynapses().forEach(s -> s.forceSetStrength(.5));
+        source.forceSetActivations(new double[]{1});
+
+        net.getUpdateManager().clear();
+        CompiledGroupUpdate cgu = new CompiledGroupUpdate(net, target);
+        cgu.setSyncInterval(0);
+        net.getUpdateManager().addAction(cgu);
+        net.update();
+        assertEquals(0, target.getNeuron(0).getActivation(), 0);
+        cgu.syncToNeurons();
+        assertEquals(.5, target.getNeuron(0).getActivation(), 1e-10);
+    }
+
+    @Test
+    public void testFallback() {
+        Network net = new Network();
+        NeuronGroup target = new NeuronGroup(net, 2);
+        target.setNeuronType(new BinaryRule());
+        net.addNeuronGroup(target);
+        CompiledGroupUpdate cgu = new CompiledGroupUpdate(net, target);
+        assertFalse(cgu.isCompiled());
+    }
+
+    /**
+     * Build a recurrent group of Izhikevich neurons with a refractory period.
+     */
+    private static NeuronGroup createIzhikevichGroup(Network net) {
+        net.setTimeStep(.5);
+        NeuronGroup group = new NeuronGroup(net, 4);
+        IzhikevichRule rule = new IzhikevichRule();
+        rule.setRefractoryPeriod(2);
+        group.setNeuronType(rule);
+        net.addNeuronGroup(group);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(group, group, new AllToAll());
+        net.addSynapseGroup(sg);
+        for (Synapse s : sg.getAllSynapses()) {
+            int from = group.getNeuronList().indexOf(s.getSource());
+            int to = group.getNeuronList().indexOf(s.getTarget());
+            s.forceSetStrength(((from + 2 * to) % 5) - 2);
+        }
+        for (int j = 0; j < 4; j++) {
+            group.getNeuron(j).forceSetActivation(-70 + 5 * j);
+        }
+        return group;
+    }
+
+    @Test
+    public void testIzhikevichMatchesObjectModel() {
+        Network objectNet = new Network();
+        NeuronGroup expected = createIzhikevichGroup(objectNet);
+        Network compiledNet = new Network();
+        NeuronGroup actual = createIzhikevichGroup(compiledNet);
+        compiledNet.getUpdateManager().clear();
+        CompiledGroupUpdate cgu = new CompiledGroupUpdate(compiledNet, actual);
+        cgu.setSyncInterval(3);
+        compiledNet.getUpdateManager().addAction(cgu);
+
+        int spikes = 0;
+        for (int t = 1; t <= 60; t++) {
+            // Edits made between write backs must not be overwritten
+            if (t == 8) {
+                expected.getNeuron(1).setClamped(true);
+                actual.getNeuron(1).setClamped(true);
+            } else if (t == 20) {
+                expected.getNeuron(2).forceSetActivation(10);
+                actual.getNeuron(2).forceSetActivation(10);
+            } else if (t == 35) {
+                expected.getNeuron(1).setClamped(false);
+                actual.getNeuron(1).setClamped(false);
+            }
+            objectNet.update();
+            compiledNet.update();
+            for (Neuron n : expected.getNeuronList()) {
+                spikes += n.isSpike() ? 1 : 0;
+            }
+            if (t % 3 == 0) {
+                for (int i = 0; i < 4; i++) {
+                    Neuron e = expected.getNeuron(i);
+                    Neuron a = actual.getNeuron(i);
+                    assertEquals("tick " + t, e.getActivation(), a.getActivation(), 1e-9);
+                    assertEquals(e.isSpike(), a.isSpike());
+                    assertEquals(((IzhikevichRule) e.getUpdateRule()).getRecovery(),
+                            ((IzhikevichRule) a.getUpdateRule()).getRecovery(), 1e-9);
+                }
+            }
+        }
+        assertTrue(cgu.isCompiled());
+        assertTrue(spikes > 0);
+    }
+}
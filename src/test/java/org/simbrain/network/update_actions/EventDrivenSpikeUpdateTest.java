@@ -0,0 +1,106 @@
+package org.simbrain.network.update_actions;
+
+import org.junit.Test;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.neuron_update_rules.SpikingThresholdRule;
+import org.simbrain.network.synapse_update_rules.spikeresponders.ConvolvedJumpAndDecay;
+import org.simbrain.network.synapse_update_rules.spikeresponders.JumpAndDecay;
+import org.simbrain.network.synapse_update_rules.spikeresponders.RiseAndDecay;
+
+import static org.junit.Assert.*;
+
+public class EventDrivenSpikeUpdateTest {
+
+    /**
+     * Create a recurrent spiking network with a mix of spike responders and delays.
+     */
+    private static Network createNetwork() {
+        Network net = new Network();
+        NeuronGroup ng = new NeuronGroup(net, 30);
+        ng.setNeuronType(new SpikingThresholdRule());
+        net.addNeuronGroup(ng);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(ng, ng, new AllToAll(true));
+        net.addSynapseGroup(sg);
+        for (Synapse s : sg.getAllSynapses()) {
+            int i = ng.getNeuronList().indexOf(s.getSource()) + 3 * ng.getNeuronList().indexOf(s.getTarget());
+            s.forceSetStrength(((i % 7) - 3) / 20.0);
+            switch (i % 4) {
+                case 0:
+                    s.setSpikeResponder(new JumpAndDecay());
+                    break;
+                case 1:
+                    s.setSpikeResponder(new ConvolvedJumpAndDecay(i % 2 == 0 ? 3 : 5));
+                    break;
+                case 2:
+                    s.setSpikeResponder(new RiseAndDecay());
+                    break;
+                default:
+                    s.setSpikeResponder(new ConvolvedJumpAndDecay(7));
+            }
+            s.setDelay(i % 3);
+        }
+        return net;
+    }
+
+    /**
+     * Drive the neurons with a deterministic input pattern.
+     */
+    private static void setInputs(Network net, int time) {
+        NeuronGroup ng = net.getNeuronGroups().get(0);
+        for (int j = 0; j < ng.size(); j++) {
+            ng.getNeuron(j).setInputValue(((time * 7 + j * 3) % 11) / 10.0);
+        }
+    }
+
+    @Test
+    public void testSameAsBufferedUpdate() {
+        Network buffered = createNetwork();
+        Network eventDriven = createNetwork();
+        eventDriven.getUpdateManager().clear();
+        EventDrivenSpikeUpdate edu = new EventDrivenSpikeUpdate(eventDriven);
+        eventDriven.getUpdateManager().addAction(edu);
+
+        for (int t = 0; t < 200; t++) {
+            setInputs(buffered, t);
+            setInputs(eventDriven, t);
+            buffered.update();
+            eventDriven.update();
+            double[] expected = buffered.getNeuronGroups().get(0).getActivations();
+            double[] actual = eventDriven.getNeuronGroups().get(0).getActivations();
+            assertArrayEquals("Update " + t, expected, actual, 1e-9);
+        }
+        assertTrue(edu.getNumEventSynapses() > 0);
+    }
+
+    @Test
+    public void testSpikeResponderChangedDuringRun() {
+        Network buffered = createNetwork();
+        Network eventDriven = createNetwork();
+        eventDriven.getUpdateManager().clear();
+        eventDriven.getUpdateManager().addAction(new EventDrivenSpikeUpdate(eventDriven));
+
+        for (int t = 0; t < 200; t++) {
+            if (t == 100) {
+                // New time constants, which the compiled accumulators do not have
+                for (Network net : new Network[]{buffered, eventDriven}) {
+                    for (Synapse s : net.getSynapseGroups().get(0).getAllSynapses()) {
+                        if (s.getSpikeResponder() instanceof ConvolvedJumpAndDecay) {
+                            s.setSpikeResponder(new ConvolvedJumpAndDecay(11));
+                        }
+                    }
+                }
+            }
+            setInputs(buffered, t);
+            setInputs(eventDriven, t);
+            buffered.update();
+            eventDriven.update();
+            double[] expected = buffered.getNeuronGroups().get(0).getActivations();
+            double[] actual = eventDriven.getNeuronGroups().get(0).getActivations();
+            assertArrayEquals("Update " + t, expected, actual, 1e-9);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.simbrain.network.update_actions;
+
+import org.junit.Test;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+
+import static org.junit.Assert.*;
+
+public class ForkJoinBufferedUpdateTest {
+
+    /**
+     * Create a small recurrent network with deterministic weights and activations.
+     */
+    private static Network createNetwork() {
+        Network net = new Network();
+        NeuronGroup ng = new NeuronGroup(net, 50);
+        net.addNeuronGroup(ng);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(ng, ng, new AllToAll(true));
+        net.addSynapseGroup(sg);
+        for (Synapse s : sg.getAllSynapses()) {
+            int i = ng.getNeuronList().indexOf(s.getSource()) + 3 * ng.getNeuronList().indexOf(s.getTarget());
+            s.forceSetStrength(((i % 7) - 3) / 50.0);
+        }
+        for (int j = 0; j < ng.size(); j++) {
+            ng.getNeuron(j).forceSetActivation((j % 5) / 5.0);
+        }
+        return net;
+    }
+
+    @Test
+    public void testSameAsBufferedUpdate() {
+        Network serial = createNetwork();
+        Network parallel = createNetwork();
+        parallel.getUpdateManager().clear();
+        ForkJoinBufferedUpdate fju = new ForkJoinBufferedUpdate(parallel);
+        fju.setParallelism(4);
+        parallel.getUpdateManager().addAction(fju);
+
+        for (int i = 0; i < 10; i++) {
+            serial.update();
+            parallel.update();
+        }
+        double[] expected = serial.getNeuronGroups().get(0).getActivations();
+        double[] actual = parallel.getNeuronGroups().get(0).getActivations();
+        assertArrayEquals(expected, actual, 1e-12);
+        assertTrue(fju.getNumChunks() > 0);
+        fju.shutdown();
+    }
+
+    @Test
+    public void testShutdownOnRemoval() {
+        Network net = createNetwork();
+        ForkJoinBufferedUpdate fju = new ForkJoinBufferedUpdate(net);
+        fju.setParallelism(2);
+        net.getUpdateManager().clear();
+        net.getUpdateManager().addAction(fju);
+        net.update();
+        assertTrue(fju.isRunning());
+        net.getUpdateManager().removeAction(fju);
+        assertFalse(fju.isRunning());
+
+        net.getUpdateManager().addAction(fju);
+        net.update();
+        assertTrue(fju.isRunning());
+        net.getUpdateManager().shutdown();
+        assertFalse(fju.isRunning());
+    }
+
+    @Test
+    public void testParallelismChangedBetweenTicks() {
+        long workersBefore = countWorkerThreads();
+        Network serial = createNetwork();
+        Network parallel = createNetwork();
+        parallel.getUpdateManager().clear();
+        ForkJoinBufferedUpdate fju = new ForkJoinBufferedUpdate(parallel);
+        parallel.getUpdateManager().addAction(fju);
+
+        for (int i = 0; i < 40; i++) {
+            fju.setParallelism(1 + i % 4);
+            serial.update();
+            parallel.update();
+        }
+        double[] expected = serial.getNeuronGroups().get(0).getActivations();
+        double[] actual = parallel.getNeuronGroups().get(0).getActivations();
+        assertArrayEquals(expected, actual, 1e-12);
+        fju.shutdown();
+
+        // The old workers have all exited
+        assertEquals(workersBefore, countWorkerThreads());
+    }
+
+    private static long countWorkerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("Network update worker") && t.isAlive()).count();
+    }
+}
@@ -0,0 +1,147 @@
+package org.simbrain.network.util;
+
+import org.junit.Test;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.neuron_update_rules.SpikingThresholdRule;
+import org.simbrain.network.util.io_utilities.ActivationRecordingReader;
+import org.simbrain.network.util.io_utilities.ActivationSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ActivationRecorderTest {
+
+    private static void record(NeuronGroup group, int updates) {
+        List<Neuron> neurons = group.getNeuronList();
+        for (int t = 0; t < updates; t++) {
+            for (int i = 0; i < neurons.size(); i++) {
+                neurons.get(i).forceSetActivation(t * 10 + i);
+                neurons.get(i).setSpike((t + i) % 3 == 0);
+            }
+            group.getActivationRecorder().writeActsToFile();
+        }
+    }
+
+    @Test
+    public void testActivationsRoundTrip() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            NeuronGroup group = new NeuronGroup(new Network(), 4);
+            File file = File.createTempFile("recording", ".bin");
+            ActivationRecorder recorder = group.getActivationRecorder();
+            recorder.setCompress(compress);
+            recorder.setDecimation(2);
+            recorder.startRecording(file);
+            assertFalse(recorder.isRecordAsSpikes());
+            // More updates than buffers, so buffers are reused
+            record(group, 1000);
+            recorder.stopRecording();
+
+            double[][] data = ActivationRecordingReader.read(file).getData();
+            assertEquals(500, data.length);
+            for (int r = 0; r < data.length; r++) {
+                for (int i = 0; i < 4; i++) {
+                    assertEquals((float) (r * 2 * 10 + i), data[r][i], 0);
+                }
+            }
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSpikesRoundTrip() throws IOException {
+        NeuronGroup group = new NeuronGroup(new Network(), 5);
+        group.getNeuronList().forEach(n -> n.setUpdateRule(new SpikingThresholdRule()));
+        File file = File.createTempFile("recording", ".bin");
+        ActivationRecorder recorder = group.getActivationRecorder();
+        recorder.startRecording(file);
+        assertTrue(recorder.isRecordAsSpikes());
+        record(group, 6);
+        recorder.stopRecording();
+
+        double[][] data = ActivationRecordingReader.read(file).getData();
+        // Each update, the neurons with (t + i) % 3 == 0 spike
+        assertEquals(10, data.length);
+        assertArrayEquals(new double[]{0, 0}, data[0], 0);
+        assertArrayEquals(new double[]{3, 0}, data[1], 0);
+        assertArrayEquals(new double[]{2, 0}, data[2], 0);
+        assertArrayEquals(new double[]{4, 0}, data[9], 0);
+        file.delete();
+    }
+
+    @Test
+    public void testCsvKeepsTextFormat() throws IOException {
+        NeuronGroup group = new NeuronGroup(new Network(), 3);
+        File file = File.createTempFile("recording", ".csv");
+        group.getActivationRecorder().startRecording(file);
+        record(group, 2);
+        group.getActivationRecorder().stopRecording();
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(List.of("0.0, 1.0, 2.0", "10.0, 11.0, 12.0"), lines);
+        file.delete();
+    }
+
+    /**
+     * A sink that fails on its third write.
+     */
+    private static class FailingSink implements ActivationSink {
+
+        final Throwable failure;
+
+        int writes;
+
+        boolean closed;
+
+        FailingSink(Throwable failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public void open(int numNeurons, boolean spikes, int decimation) {
+        }
+
+        @Override
+        public void writeActivations(double time, double[] activations) {
+            if (++writes == 3) {
+                if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw (RuntimeException) failure;
+            }
+        }
+
+        @Override
+        public void writeSpikes(double time, int[] indices, int count) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testFailingSinkDoesNotBlockUpdates() {
+        // An unchecked exception is handled like an IOException; an error stops the writer thread
+        for (Throwable failure : new Throwable[]{new IllegalStateException("sink"), new AssertionError("sink")}) {
+            NeuronGroup group = new NeuronGroup(new Network(), 2);
+            ActivationRecorder recorder = group.getActivationRecorder();
+            FailingSink sink = new FailingSink(failure);
+            recorder.startRecording(sink);
+            // More updates than buffers
+            record(group, 4 * ActivationRecorder.NUM_BUFFERS);
+            recorder.stopRecording();
+            assertEquals(3, sink.writes);
+            assertTrue(sink.closed);
+        }
+    }
+}
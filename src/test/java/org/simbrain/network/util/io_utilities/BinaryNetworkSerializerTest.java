@@ -0,0 +1,168 @@
+package org.simbrain.network.util.io_utilities;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.connections.AllToAll;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.network.core.Synapse;
+import org.simbrain.network.dl4j.NeuronArray;
+import org.simbrain.network.dl4j.WeightMatrix;
+import org.simbrain.network.groups.NeuronGroup;
+import org.simbrain.network.groups.SynapseGroup;
+import org.simbrain.network.util.io_utilities.GroupSerializer.Precision;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class BinaryNetworkSerializerTest {
+
+    private NetworkComponent component;
+
+    @Before
+    public void setUp() {
+        Network net = new Network();
+        Neuron n1 = new Neuron(net);
+        n1.setLabel("neuron1");
+        n1.forceSetActivation(.25);
+        net.addLooseNeuron(n1);
+        Neuron n2 = new Neuron(net);
+        n2.setLabel("neuron2");
+        net.addLooseNeuron(n2);
+        Synapse s = new Synapse(n1, n2, .7);
+        net.addLooseSynapse(s);
+
+        NeuronGroup ng1 = new NeuronGroup(net, 12);
+        ng1.setLabel("ng1");
+        net.addNeuronGroup(ng1);
+        NeuronGroup ng2 = new NeuronGroup(net, 9);
+        ng2.setLabel("ng2");
+        net.addNeuronGroup(ng2);
+        SynapseGroup sg = SynapseGroup.createSynapseGroup(ng1, ng2, new AllToAll(false));
+        net.addSynapseGroup(sg);
+        int i = 0;
+        for (Synapse syn : sg.getAllSynapses()) {
+            syn.forceSetStrength(((i++ % 13) - 6.5) / 7.0);
+        }
+        sg.revalidateSynapseSets();
+
+        NeuronArray na1 = new NeuronArray(net, 5);
+        na1.setValues(new double[]{.1, .2, .3, .4, .5});
+        net.addNeuronArray(na1);
+        NeuronArray na2 = new NeuronArray(net, 4);
+        na2.setBiases(new double[]{-1, 0, 1, 2});
+        net.addNeuronArray(na2);
+        net.addWeightMatrix(net.createWeightMatrix(na1, na2));
+
+        component = new NetworkComponent("test", net);
+    }
+
+    private static Network saveAndOpen(NetworkComponent component, String format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        component.save(out, format);
+        return NetworkComponent.open(new ByteArrayInputStream(out.toByteArray()), "copy", format).getNetwork();
+    }
+
+    /**
+     * Synapse strengths of the only synapse group, keyed by source and target index.
+     */
+    private static Map<String, Double> groupStrengths(Network net) {
+        SynapseGroup sg = net.getSynapseGroups().get(0);
+        Map<String, Double> ret = new TreeMap<>();
+        for (Synapse s : sg.getAllSynapses()) {
+            ret.put(sg.getSourceNeurons().indexOf(s.getSource()) + ","
+                    + sg.getTargetNeurons().indexOf(s.getTarget()), s.getStrength());
+        }
+        return ret;
+    }
+
+    private static void assertSameNetwork(Network expected, Network actual, double tolerance) {
+        assertEquals(expected.getLooseNeurons().size(), actual.getLooseNeurons().size());
+        assertEquals(.25, actual.getNeuronByLabel("neuron1").getActivation(), 0);
+        assertEquals(1, actual.getLooseSynapses().size());
+        assertEquals(.7, actual.getLooseSynapses().iterator().next().getStrength(), 0);
+
+        assertNotNull(actual.getNeuronGroupByLabel("ng1"));
+        Map<String, Double> expectedStrengths = groupStrengths(expected);
+        Map<String, Double> actualStrengths = groupStrengths(actual);
+        assertEquals(expectedStrengths.keySet(), actualStrengths.keySet());
+        for (String key : expectedStrengths.keySet()) {
+            assertEquals(expectedStrengths.get(key), actualStrengths.get(key), tolerance);
+        }
+
+        for (int i = 0; i < expected.getNeuronArrays().size(); i++) {
+            NeuronArray e = expected.getNeuronArrays().get(i);
+            NeuronArray a = actual.getNeuronArrays().get(i);
+            assertArrayEquals(e.getNeuronArray().toDoubleVector(), a.getNeuronArray().toDoubleVector(), tolerance);
+            assertArrayEquals(e.getBiases(), a.getBiases(), tolerance);
+        }
+        WeightMatrix e = expected.getWeightMatrices().iterator().next();
+        WeightMatrix a = actual.getWeightMatrices().iterator().next();
+        assertArrayEquals(e.getWeightMatrix().shape(), a.getWeightMatrix().shape());
+        assertArrayEquals(e.getWeights(), a.getWeights(), tolerance);
+        assertSame(a, actual.getNeuronArrays().get(1).getIncomingWeightMatrix());
+    }
+
+    @Test
+    public void testBinaryMatchesXml() {
+        Network fromXml = saveAndOpen(component, "xml");
+        Network fromBinary = saveAndOpen(component, NetworkComponent.BINARY_FORMAT);
+        assertSameNetwork(fromXml, fromBinary, 1e-6);
+        assertSameNetwork(component.getNetwork(), fromBinary, 1e-6);
+    }
+
+    @Test
+    public void testDoublePrecision() {
+        component.setBinaryPrecision(Precision.FLOAT_64);
+        Network fromBinary = saveAndOpen(component, NetworkComponent.BINARY_FORMAT);
+        Map<String, Double> expected = groupStrengths(component.getNetwork());
+        assertEquals(expected, groupStrengths(fromBinary));
+    }
+
+    @Test
+    public void testZeroWeightsKept() {
+        SynapseGroup sg = component.getNetwork().getSynapseGroups().get(0);
+        sg.getAllSynapses().forEach(s -> s.forceSetStrength(0));
+        sg.revalidateSynapseSets();
+        Network fromBinary = saveAndOpen(component, NetworkComponent.BINARY_FORMAT);
+        assertEquals(sg.size(), fromBinary.getSynapseGroups().get(0).size());
+    }
+
+    @Test
+    public void testNetworkUsableAfterSave() {
+        int size = component.getNetwork().getSynapseGroups().get(0).size();
+        saveAndOpen(component, NetworkComponent.BINARY_FORMAT);
+        assertEquals(size, component.getNetwork().getSynapseGroups().get(0).size());
+        assertFalse(component.getNetwork().getSynapseGroups().get(0).isSynapsesSavedExternally());
+        component.getNetwork().update();
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        Path file = Files.createTempFile("network", "." + NetworkComponent.BINARY_FORMAT);
+        try {
+            BinaryNetworkSerializer.write(component.getNetwork(), file, Precision.FLOAT_32);
+            Network fromFile = BinaryNetworkSerializer.read(file);
+            assertSameNetwork(component.getNetwork(), fromFile, 1e-6);
+            fromFile.update();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCompactness() {
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        component.save(xml, "xml");
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        component.save(binary, NetworkComponent.BINARY_FORMAT);
+        assertTrue(binary.size() < xml.size());
+    }
+}
@@ -0,0 +1,128 @@
+package org.simbrain.util.math;
+
+import org.junit.Test;
+import org.simbrain.util.math.ProbDistributions.NormalDistribution;
+import org.simbrain.util.math.ProbDistributions.UniformDistribution;
+
+import static org.junit.Assert.*;
+
+public class RandomSourceTest {
+
+    @Test
+    public void testSameSeedSameSequence() {
+        RandomSource a = new RandomSource(42);
+        RandomSource b = new RandomSource(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+        a.resetStartStream();
+        RandomSource c = new RandomSource(42);
+        assertEquals(c.nextDouble(), a.nextDouble(), 0);
+    }
+
+    @Test
+    public void testRootSeedReproducesStreams() {
+        RandomSource.setSeed(7);
+        RandomSource first = RandomSource.newStream();
+        double uniform = RandomSource.uniform();
+        RandomSource second = RandomSource.newStream();
+        RandomSource.setSeed(7);
+        assertEquals(first.nextLong(), RandomSource.newStream().nextLong());
+        assertEquals(uniform, RandomSource.uniform(), 0);
+        assertEquals(second.nextLong(), RandomSource.newStream().nextLong());
+        assertEquals(7, RandomSource.getSeed());
+    }
+
+    @Test
+    public void testKeyedStreamsAreIndependentOfOrder() {
+        long[] forward = new long[10];
+        for (int key = 0; key < 10; key++) {
+            forward[key] = RandomSource.forKey(99, key).nextLong();
+        }
+        for (int key = 9; key >= 0; key--) {
+            assertEquals(forward[key], RandomSource.forKey(99, key).nextLong());
+        }
+        assertNotEquals(forward[0], forward[1]);
+        assertNotEquals(forward[0], RandomSource.forKey(100, 0).nextLong());
+    }
+
+    @Test
+    public void testBounds() {
+        RandomSource random = new RandomSource(1);
+        double[] values = new double[1000];
+        random.fillUniform(values, -2, 3);
+        for (double v : values) {
+            assertTrue(v >= -2 && v < 3);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int n = random.nextInt(7);
+            assertTrue(n >= 0 && n < 7);
+            int m = random.nextInt(-3, 3);
+            assertTrue(m >= -3 && m <= 3);
+        }
+    }
+
+    @Test
+    public void testGaussianMoments() {
+        RandomSource random = new RandomSource(3);
+        double[] values = new double[20000];
+        random.fillGaussian(values, 2, .5);
+        double sum = 0;
+        double sumSq = 0;
+        for (double v : values) {
+            sum += v;
+            sumSq += v * v;
+        }
+        double mean = sum / values.length;
+        double sd = Math.sqrt(sumSq / values.length - mean * mean);
+        assertEquals(2, mean, .02);
+        assertEquals(.5, sd, .02);
+    }
+
+    @Test
+    public void testDistributionsReproducedFromRootSeed() {
+        RandomSource.setSeed(11);
+        ProbabilityDistribution normal = NormalDistribution.builder().mean(0).standardDeviation(1).build();
+        ProbabilityDistribution uniform = UniformDistribution.builder().floor(-1).ceil(1).build();
+        double[] expectedNormal = new double[50];
+        double[] expectedUniform = new double[50];
+        normal.fill(expectedNormal);
+        uniform.fill(expectedUniform);
+
+        RandomSource.setSeed(11);
+        ProbabilityDistribution normal2 = NormalDistribution.builder().mean(0).standardDeviation(1).build();
+        ProbabilityDistribution uniform2 = UniformDistribution.builder().floor(-1).ceil(1).build();
+        for (int i = 0; i < 50; i++) {
+            assertEquals(expectedNormal[i], normal2.nextRand(), 0);
+            assertEquals(expectedUniform[i], uniform2.nextRand(), 0);
+        }
+    }
+
+    @Test
+    public void testScopedStreamsIndependentOfOtherStreams() throws Exception {
+        RandomSource.setSeed(13);
+        RandomSource.beginScope("Network1");
+        long first = RandomSource.newStream().nextLong();
+        long second = RandomSource.newStream().nextLong();
+        RandomSource.endScope();
+
+        // Streams created on other threads and outside the scope do not shift the scoped streams
+        RandomSource.setSeed(13);
+        RandomSource.newStream();
+        Thread other = new Thread(() -> {
+            RandomSource.beginScope("Network2");
+            RandomSource.newStream();
+            RandomSource.endScope();
+        });
+        other.start();
+        other.join();
+        RandomSource.beginScope("Network1");
+        assertEquals(first, RandomSource.newStream().nextLong());
+        assertEquals(second, RandomSource.newStream().nextLong());
+        RandomSource.endScope();
+
+        RandomSource.beginScope("Network2");
+        assertNotEquals(first, RandomSource.newStream().nextLong());
+        RandomSource.endScope();
+    }
+}
@@ -47,5 +47,66 @@ public class DatasetTest {
         assertEquals(4, arr.rows());
     }
 
+    /**
+     * Check that all distances from a storage match those computed directly, before and after moving a point.
+     */
+    private void checkDistanceStorage(DistanceStorage storage) {
+        data = new Dataset(3);
+        data.setDistanceStorage(storage);
+        for (int i = 0; i < 30; i++) {
+            data.addPoint(new DataPoint(new double[]{Math.sin(i), Math.cos(i), i}));
+        }
+        assertEquals(0, storage.getSizeInBytes());
+        for (int rep = 0; rep < 2; rep++) {
+            for (int i = 0; i < 30; i++) {
+                for (int j = 0; j < 30; j++) {
+                    double expected = NTree.getDistance(data.getPoint(i), data.getPoint(j));
+                    assertEquals(expected, data.getDistance(i, j), 1e-5 * (1 + expected));
+                }
+            }
+            data.setPoint(5, new DataPoint(new double[]{10, 10, 10}));
+        }
+
+        // Changing a point in place also invalidates its distances
+        assertEquals(NTree.getDistance(data.getPoint(7), data.getPoint(3)), data.getDistance(7, 3), 1e-5);
+        data.getPoint(7).setData(new double[]{-20, 0, 0});
+        double expected = NTree.getDistance(data.getPoint(7), data.getPoint(3));
+        assertEquals(expected, data.getDistance(7, 3), 1e-5 * expected);
+        assertEquals(expected, data.getDistance(3, 7), 1e-5 * expected);
+        assertTrue(storage.getSizeInBytes() > 0);
+        data.clear();
+        data.addPoint(new DataPoint(new double[]{0, 0, 0}));
+        data.addPoint(new DataPoint(new double[]{0, 3, 4}));
+        assertEquals(5, data.getDistance(0, 1), 1e-6);
+        assertEquals(5, data.getSumDistances(), 1e-6);
+    }
+
+    @Test
+    public void testPackedDistanceStorage() {
+        checkDistanceStorage(new PackedDistanceStorage());
+        checkDistanceStorage(new PackedDistanceStorage(true));
+    }
+
+    @Test
+    public void testMappedDistanceStorage() {
+        MappedDistanceStorage storage = new MappedDistanceStorage();
+        checkDistanceStorage(storage);
+        storage.close();
+    }
+
+    @Test
+    public void testCachedDistanceStorage() {
+        checkDistanceStorage(new CachedDistanceStorage(4));
+        CachedDistanceStorage storage = new CachedDistanceStorage(2);
+        data = new Dataset(2);
+        data.setDistanceStorage(storage);
+        for (int i = 0; i < 10; i++) {
+            data.addPoint(new DataPoint(new double[]{i, 0}));
+        }
+        data.getMaximumDistance();
+        // Only the last two rows are kept
+        assertEquals(8 * (8 + 9), storage.getSizeInBytes());
+    }
+
     // TODO: Test isUnique
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+package org.simbrain.util.projection;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class NTreeTest {
+
+    private static List<DataPoint> randomPoints(Random random, int num, int dims) {
+        List<DataPoint> points = new ArrayList<>();
+        for (int i = 0; i < num; i++) {
+            double[] v = new double[dims];
+            for (int j = 0; j < dims; j++) {
+                v[j] = random.nextDouble();
+            }
+            points.add(new DataPoint(v));
+        }
+        return points;
+    }
+
+    private static List<DataPoint> bruteForceClosest(List<DataPoint> points, int k, DataPoint q) {
+        List<DataPoint> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingDouble(p -> NTree.getDistance(p, q)));
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    private static void checkAgainstBruteForce(Supplier<NearestNeighborIndex> index, int dims, boolean bulk) {
+        Random random = new Random(dims);
+        List<DataPoint> points = randomPoints(random, 600, dims);
+        NTree tree = new NTree(dims, index.get());
+        if (bulk) {
+            tree.addAll(points);
+        } else {
+            points.forEach(tree::add);
+        }
+        // Replace some points, including ones likely to be vantage points
+        for (int i = 0; i < 100; i++) {
+            DataPoint p = randomPoints(random, 1, dims).get(0);
+            tree.set(i * 5, p);
+            points.set(i * 5, p);
+        }
+        assertEquals(points.size(), tree.size());
+        for (DataPoint q : randomPoints(random, 50, dims)) {
+            List<DataPoint> expected = bruteForceClosest(points, 7, q);
+            List<DataPoint> actual = tree.getClosestPoints(7, q);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(NTree.getDistance(expected.get(i), q), NTree.getDistance(actual.get(i), q), 1e-12);
+            }
+            double nearest = NTree.getDistance(expected.get(0), q);
+            assertNull(tree.isUnique(q, nearest * (1 - 1e-9)));
+            DataPoint match = tree.isUnique(q, nearest * 1.5);
+            assertNotNull(match);
+            assertTrue(NTree.getDistance(match, q) < nearest * 1.5);
+        }
+        for (int i = 0; i < points.size(); i += 37) {
+            assertSame(points.get(i), tree.isUnique(points.get(i), 1e-9));
+            assertEquals(i, tree.getIndex(points.get(i)));
+        }
+    }
+
+    @Test
+    public void testKDTreeMatchesBruteForce() {
+        for (int dims : new int[]{2, 10, 50}) {
+            checkAgainstBruteForce(KDTreeIndex::new, dims, false);
+            checkAgainstBruteForce(KDTreeIndex::new, dims, true);
+        }
+    }
+
+    @Test
+    public void testVPTreeMatchesBruteForce() {
+        for (int dims : new int[]{2, 10, 50}) {
+            checkAgainstBruteForce(VPTreeIndex::new, dims, false);
+            checkAgainstBruteForce(VPTreeIndex::new, dims, true);
+        }
+    }
+
+    @Test
+    public void testDuplicatePoints() {
+        NTree tree = new NTree(3);
+        for (int i = 0; i < 100; i++) {
+            tree.add(new DataPoint(new double[3]));
+        }
+        tree.add(new DataPoint(new double[]{1, 1, 1}));
+        assertEquals(2, tree.size());
+        assertEquals(0, tree.getIndex(new DataPoint(new double[3])));
+        assertEquals(100, tree.getIndex(tree.getClosestPoint(new DataPoint(new double[]{.9, 1, 1}))));
+    }
+
+    @Test
+    public void testSetDataBuildsIndex() {
+        Dataset data = new Dataset(4);
+        double[][] rows = new double[200][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new double[]{i, i % 7, Math.sin(i), 1};
+        }
+        data.setData(rows);
+        assertEquals(200, data.getNumPoints());
+        assertEquals(123, data.getClosestIndex(new DataPoint(new double[]{123.1, 123 % 7, Math.sin(123), 1})));
+        assertNotNull(data.addPoint(new DataPoint(rows[50].clone()), .1));
+        assertNull(data.addPoint(new DataPoint(new double[]{50.5, 1, 0, 1}), .1));
+        assertEquals(201, data.getNumPoints());
+    }
+}
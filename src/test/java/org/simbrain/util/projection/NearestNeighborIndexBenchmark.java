@@ -0,0 +1,117 @@
+package org.simbrain.util.projection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the throughput of uniqueness checks, as done by
+ * {@link Dataset#addPoint(DataPoint, double)} for each new point, using a
+ * linear scan and each {@link NearestNeighborIndex}. Points are drawn from
+ * clusters, as projected data usually is. Run with an optional number of
+ * points as the argument.
+ */
+public class NearestNeighborIndexBenchmark {
+
+    private static final int NUM_CLUSTERS = 20;
+
+    private static final int NUM_QUERIES = 2000;
+
+    /**
+     * A linear scan over all points, for comparison.
+     */
+    private static class LinearScan implements NearestNeighborIndex {
+
+        private final List<DataPoint> points = new ArrayList<>();
+
+        @Override
+        public void add(DataPoint point) {
+            points.add(point);
+        }
+
+        @Override
+        public void addAll(List<DataPoint> points) {
+            this.points.addAll(points);
+        }
+
+        @Override
+        public void replace(DataPoint old, DataPoint point) {
+            points.set(points.indexOf(old), point);
+        }
+
+        @Override
+        public void clear() {
+            points.clear();
+        }
+
+        @Override
+        public DataPoint findWithin(DataPoint point, double tolerance) {
+            for (DataPoint p : points) {
+                if (NTree.getDistance(p, point) < tolerance) {
+                    return p;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<DataPoint> getClosestPoints(int number, DataPoint point) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static List<DataPoint> clusteredPoints(Random random, double[][] centers, int num) {
+        List<DataPoint> points = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            double[] center = centers[random.nextInt(centers.length)];
+            double[] v = new double[center.length];
+            for (int j = 0; j < v.length; j++) {
+                v[j] = center[j] + random.nextGaussian() * .1;
+            }
+            points.add(new DataPoint(v));
+        }
+        return points;
+    }
+
+    private static void run(String name, Supplier<NearestNeighborIndex> index, List<DataPoint> points, List<DataPoint> queries, double tolerance) {
+        long start = System.nanoTime();
+        NTree tree = new NTree(points.get(0).getDimension(), index.get());
+        for (DataPoint p : points) {
+            if (tree.isUnique(p, tolerance) == null) {
+                tree.add(p);
+            }
+        }
+        long built = System.nanoTime();
+        int found = 0;
+        for (DataPoint q : queries) {
+            if (tree.isUnique(q, tolerance) != null) {
+                found++;
+            }
+        }
+        long end = System.nanoTime();
+        System.out.printf("  %-12s incremental add %8.1f ms, %9.0f checks/s (%d not unique)%n", name,
+            (built - start) / 1e6, queries.size() / ((end - start - (built - start)) / 1e9), found);
+    }
+
+    public static void main(String[] args) {
+        int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        for (int dims : new int[]{10, 100, 784}) {
+            Random random = new Random(dims);
+            double[][] centers = new double[NUM_CLUSTERS][dims];
+            for (double[] center : centers) {
+                for (int j = 0; j < dims; j++) {
+                    center[j] = random.nextDouble();
+                }
+            }
+            List<DataPoint> points = clusteredPoints(random, centers, numPoints);
+            List<DataPoint> queries = clusteredPoints(random, centers, NUM_QUERIES);
+            // About the distance between points in the same cluster
+            double tolerance = .1 * Math.sqrt(2 * dims) * .8;
+            System.out.println(dims + " dimensions, " + numPoints + " points");
+            run("linear scan", LinearScan::new, points, queries, tolerance);
+            run("kd-tree", KDTreeIndex::new, points, queries, tolerance);
+            run("vp-tree", VPTreeIndex::new, points, queries, tolerance);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.simbrain.util.projection;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simbrain.util.math.RandomSource;
+
+import static org.junit.Assert.*;
+
+public class ProjectSammonTest {
+
+    private Projector proj;
+
+    private ProjectSammon sammon;
+
+    @Before
+    public void setUp() {
+        proj = new Projector(4);
+        proj.setUseColorManager(false);
+        proj.setProjectionMethod("Sammon Map");
+        sammon = (ProjectSammon) proj.getProjectionMethod();
+        sammon.setEpsilon(.5);
+        for (int i = 0; i < 40; i++) {
+            addPoint(i);
+        }
+    }
+
+    private void addPoint(int i) {
+        proj.addDatapoint(new DataPoint(new double[]{Math.sin(i), Math.cos(i * .5), i / 40.0, Math.sin(i * 2)}));
+    }
+
+    /**
+     * One iteration computed directly from the definition.
+     */
+    private double[][] referenceIteration() {
+        Dataset up = proj.getUpstairs();
+        Dataset down = proj.getDownstairs();
+        int numPoints = up.getNumPoints();
+        double dstarSum = 0;
+        for (int i = 0; i < numPoints; i++) {
+            for (int j = i + 1; j < numPoints; j++) {
+                dstarSum += NTree.getDistance(up.getPoint(i), up.getPoint(j));
+            }
+        }
+        double[][] result = new double[numPoints][2];
+        for (int m = 0; m < numPoints; m++) {
+            double[] yM = down.getPoint(m).getVector();
+            for (int n = 0; n < 2; n++) {
+                double partialSum = 0;
+                for (int i = 0; i < numPoints; i++) {
+                    if (i == m) {
+                        continue;
+                    }
+                    double dstar = NTree.getDistance(up.getPoint(i), up.getPoint(m));
+                    double d = NTree.getDistance(down.getPoint(i), down.getPoint(m));
+                    double[] yI = down.getPoint(i).getVector();
+                    partialSum += (((dstar - d) * (yI[n] - yM[n])) / dstar / d);
+                }
+                result[m][n] = yM[n] - ((.5 * 2 * partialSum) / dstarSum);
+            }
+        }
+        return result;
+    }
+
+    private void assertMatchesReference() {
+        double[][] expected = referenceIteration();
+        proj.iterate();
+        for (int m = 0; m < expected.length; m++) {
+            assertArrayEquals(expected[m], proj.getDownstairs().getPoint(m).getVector(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testIterationMatchesDefinition() {
+        assertMatchesReference();
+        assertMatchesReference();
+    }
+
+    @Test
+    public void testDistancesExtendedWhenPointsAdded() {
+        proj.iterate();
+        for (int i = 40; i < 50; i++) {
+            addPoint(i);
+        }
+        assertMatchesReference();
+    }
+
+    @Test
+    public void testDistancesRecomputedAfterReset() {
+        proj.iterate();
+        proj.reset();
+        for (int i = 0; i < 50; i++) {
+            proj.addDatapoint(new DataPoint(new double[]{i / 10.0, Math.cos(i), Math.sin(i * 3), 1 - i / 50.0}));
+        }
+        assertMatchesReference();
+    }
+
+    @Test
+    public void testErrorDecreases() {
+        proj.iterate();
+        double first = sammon.getError();
+        for (int i = 0; i < 50; i++) {
+            proj.iterate();
+        }
+        assertTrue(sammon.getError() < first);
+    }
+
+    @Test
+    public void testStochasticModeDecreasesError() {
+        proj.iterate();
+        double first = sammon.getError();
+        sammon.setPairsPerPoint(10);
+        for (int i = 0; i < 100; i++) {
+            proj.iterate();
+        }
+        // Measure the error over all pairs
+        sammon.setPairsPerPoint(0);
+        proj.iterate();
+        assertTrue(sammon.getError() < first);
+    }
+
+    @Test
+    public void testStochasticModeReproducedFromSeed() {
+        double[][] first = runStochastic();
+        double[][] second = runStochastic();
+        for (int m = 0; m < first.length; m++) {
+            assertArrayEquals(first[m], second[m], 0);
+        }
+    }
+
+    private double[][] runStochastic() {
+        RandomSource.setSeed(5);
+        setUp();
+        sammon.setPairsPerPoint(5);
+        for (int i = 0; i < 20; i++) {
+            proj.iterate();
+        }
+        double[][] positions = new double[proj.getDownstairs().getNumPoints()][];
+        for (int m = 0; m < positions.length; m++) {
+            positions[m] = proj.getDownstairs().getPoint(m).getVector().clone();
+        }
+        return positions;
+    }
+
+    @Test
+    public void testUsesDatasetDistanceStorage() {
+        proj.setDistanceStorageType(DistanceStorage.Type.FLOAT);
+        proj.iterate();
+        assertTrue(proj.getUpstairs().getDistanceStorage().getSizeInBytes() > 0);
+    }
+}
@@ -25,4 +25,20 @@ public class ProjectorTest {
         assertEquals(5, proj.getDimensions());
 
     }
+
+    @Test
+    public void testDistanceStorageType() {
+        Projector proj = new Projector(3);
+        proj.setUseColorManager(false);
+        assertTrue(proj.getUpstairs().getDistanceStorage() instanceof PackedDistanceStorage);
+        proj.setDistanceStorageType(DistanceStorage.Type.CACHED);
+        assertTrue(proj.getUpstairs().getDistanceStorage() instanceof CachedDistanceStorage);
+        proj.addDatapoint(new DataPoint(new double[]{0, 0, 0}));
+        proj.addDatapoint(new DataPoint(new double[]{0, 3, 4}));
+        assertEquals(5, proj.getUpstairs().getDistance(1, 0), 0);
+
+        // The storage is kept when the projector is reset
+        proj.init(3);
+        assertTrue(proj.getUpstairs().getDistanceStorage() instanceof CachedDistanceStorage);
+    }
 }
\ No newline at end of file
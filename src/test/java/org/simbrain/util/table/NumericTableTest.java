@@ -0,0 +1,133 @@
+package org.simbrain.util.table;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class NumericTableTest {
+
+    private static NumericTable createTable() {
+        return new NumericTable(new double[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 9.5}});
+    }
+
+    @Test
+    public void testCurrentRowIsAView() {
+        NumericTable table = createTable();
+        table.setCurrentRow(1);
+        double[] row = table.getVectorCurrentRow();
+        assertArrayEquals(new double[]{4, 5, 6}, row, 0);
+        assertSame(row, table.getVectorCurrentRow());
+        table.setVectorCurrentRow(new double[]{-1, -2, -3, -4});
+        assertArrayEquals(new double[]{-1, -2, -3}, row, 0);
+        assertEquals(-2, table.getLogicalValueAt(1, 1), 0);
+    }
+
+    @Test
+    public void testColumnChanges() {
+        NumericTable table = createTable();
+        table.addColumn(1.5);
+        table.addColumn(1.5);
+        table.insertColumn(0, -1.0);
+        table.removeColumn(2);
+        assertEquals(5, table.getLogicalColumnCount());
+        table.setCurrentRow(2);
+        assertArrayEquals(new double[]{-1, 7, 9.5, 1.5, 1.5}, table.getVectorCurrentRow(), 0);
+        assertArrayEquals(new double[]{-1, 1, 3, 1.5, 1.5, -1, 4, 6, 1.5, 1.5, -1, 7, 9.5, 1.5, 1.5},
+                table.getFlattenedData(), 0);
+    }
+
+    @Test
+    public void testReadCsv() throws IOException {
+        File file = File.createTempFile("table", ".csv");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "# comment\n1,2,3\n4,,x\n0.5,-1e3,7\n".getBytes());
+        NumericTable table = new NumericTable();
+        table.readData(file, true, true);
+        assertArrayEquals(new double[][]{{1, 2, 3}, {4, 0, 0}, {0.5, -1000, 7}}, table.asDoubleArray());
+
+        try {
+            new NumericTable(2, 3).readData(file, false, true);
+            fail();
+        } catch (TableDataException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        File file = File.createTempFile("table", ".bin");
+        file.deleteOnExit();
+        NumericTable table = createTable();
+        table.writeBinaryData(file);
+        assertEquals(16 + 9 * 8, file.length());
+
+        NumericTable loaded = new NumericTable(3, 3);
+        loaded.readBinaryData(file, false, false);
+        assertArrayEquals(table.asDoubleArray(), loaded.asDoubleArray());
+
+        try {
+            new NumericTable(3, 2).readBinaryData(file, true, false);
+            fail();
+        } catch (TableDataException e) {
+            // expected
+        }
+
+        Files.write(file.toPath(), "1,2,3\n".getBytes());
+        try {
+            loaded.readBinaryData(file, true, true);
+            fail();
+        } catch (TableDataException e) {
+            // expected
+        }
+    }
+
+    /**
+     * A table as saved before rows were stored as primitive arrays, with each
+     * row a list of boxed Doubles.
+     */
+    private static final String LEGACY_XML = String.join("\n",
+            "<org.simbrain.util.table.NumericTable>",
+            "  <rowData>",
+            "    <list>",
+            "      <double>1.0</double>",
+            "      <double>2.0</double>",
+            "      <double>3.0</double>",
+            "    </list>",
+            "    <list>",
+            "      <double>4.0</double>",
+            "      <double>5.0</double>",
+            "      <double>6.5</double>",
+            "    </list>",
+            "  </rowData>",
+            "  <displayColumnHeadings>true</displayColumnHeadings>",
+            "  <iterationMode>false</iterationMode>",
+            "  <currentRow>1</currentRow>",
+            "  <upperBound>1</upperBound>",
+            "  <lowerBound>-1</lowerBound>",
+            "</org.simbrain.util.table.NumericTable>");
+
+    @Test
+    public void testOpenLegacyXml() {
+        NumericTable table = (NumericTable) NumericTable.getXStream().fromXML(LEGACY_XML);
+        assertArrayEquals(new double[][]{{1, 2, 3}, {4, 5, 6.5}}, table.asDoubleArray());
+        double[] row = table.getVectorCurrentRow();
+        assertArrayEquals(new double[]{4, 5, 6.5}, row, 0);
+        assertSame(row, table.getVectorCurrentRow());
+        row[0] = -4;
+        assertEquals(-4, table.getLogicalValueAt(1, 0), 0);
+    }
+
+    @Test
+    public void testXmlRoundTrip() {
+        NumericTable table = createTable();
+        String xml = NumericTable.getXStream().toXML(table);
+        NumericTable copy = (NumericTable) NumericTable.getXStream().fromXML(xml);
+        assertArrayEquals(table.asDoubleArray(), copy.asDoubleArray());
+        copy.setCurrentRow(2);
+        assertArrayEquals(new double[]{7, 8, 9.5}, copy.getVectorCurrentRow(), 0);
+    }
+}
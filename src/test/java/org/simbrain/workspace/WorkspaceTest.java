@@ -11,9 +11,16 @@ import org.simbrain.world.odorworld.OdorWorldComponent;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class WorkspaceTest {
 
@@ -114,5 +121,59 @@ public class WorkspaceTest {
 
     }
 
+    @Test
+    public void testFileSerialization() throws IOException {
+        List<String> names = workspace.getComponentList().stream()
+                .map(WorkspaceComponent::getName).collect(Collectors.toList());
+        File file = File.createTempFile("workspace", ".zip");
+        try {
+            workspace.save(file);
+            workspace.clearWorkspace();
+            new WorkspaceSerializer(workspace).deserialize(file);
+        } finally {
+            file.delete();
+        }
+
+        // Components are opened in parallel but added in the saved order
+        assertEquals(names, workspace.getComponentList().stream()
+                .map(WorkspaceComponent::getName).collect(Collectors.toList()));
+        assertEquals(1, workspace.getCouplingManager().getCouplings().size());
+        Neuron newN1 = ((NetworkComponent)workspace.getComponent("Net1")).getNetwork().getLooseNeuron(0);
+        Neuron newN2 = ((NetworkComponent)workspace.getComponent("Net2")).getNetwork().getLooseNeuron(0);
+        newN1.forceSetActivation(.8);
+        workspace.simpleIterate();
+        assertEquals(.8, newN2.getActivation(), .0001);
+    }
+
+    @Test
+    public void testStreamWithContentsLast() throws IOException {
+        byte[] zipData = workspace.getZipData();
+
+        // Workspaces are saved with the contents first, so they can be read from a stream entry by entry. Move the
+        // contents to the end, where older versions saved them.
+        ByteArrayOutputStream reordered = new ByteArrayOutputStream();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zipData));
+             ZipOutputStream out = new ZipOutputStream(reordered)) {
+            ZipEntry first = in.getNextEntry();
+            assertTrue(first.getName().endsWith("contents.xml"));
+            byte[] contents = in.readAllBytes();
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                out.write(in.readAllBytes());
+            }
+            out.putNextEntry(new ZipEntry(first.getName()));
+            out.write(contents);
+        }
+
+        workspace.clearWorkspace();
+        new WorkspaceSerializer(workspace).deserialize(new ByteArrayInputStream(reordered.toByteArray()));
+        assertEquals(4, workspace.getComponentList().size());
+        assertEquals(1, workspace.getCouplingManager().getCouplings().size());
+        Neuron newN1 = ((NetworkComponent)workspace.getComponent("Net1")).getNetwork().getLooseNeuron(0);
+        Neuron newN2 = ((NetworkComponent)workspace.getComponent("Net2")).getNetwork().getLooseNeuron(0);
+        newN1.forceSetActivation(.8);
+        workspace.simpleIterate();
+        assertEquals(.8, newN2.getActivation(), .0001);
+    }
 
-}
\ No newline at end of file
+}
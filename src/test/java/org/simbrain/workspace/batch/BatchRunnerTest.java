@@ -0,0 +1,72 @@
+package org.simbrain.workspace.batch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.workspace.Workspace;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+
+    private Workspace workspace;
+
+    private Neuron n1, n2;
+
+    @Before
+    public void setUp() {
+        workspace = new Workspace();
+        Network net1 = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Net1", net1));
+        Network net2 = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Net2", net2));
+        n1 = new Neuron(net1);
+        n1.setClamped(true);
+        net1.addLooseNeuron(n1);
+        n2 = new Neuron(net2);
+        net2.addLooseNeuron(n2);
+        workspace.getCouplingManager().createCoupling(
+                workspace.getCouplingManager().getProducer(n1, "getActivation"),
+                workspace.getCouplingManager().getConsumer(n2, "setInputValue"));
+    }
+
+    @Test
+    public void testReplicas() throws Exception {
+        File dir = Files.createTempDirectory("batch").toFile();
+        try {
+            BatchRunner runner = new BatchRunner(workspace.getZipData());
+            runner.setNumReplicas(3);
+            runner.setIterations(5);
+            runner.setOutputDirectory(dir);
+            runner.setOverride("Net1:" + n1.getId() + ":forceSetActivation", replica -> replica * .25);
+            runner.record("Net2:" + n2.getId() + ":getActivation");
+            List<File> files = runner.run();
+
+            assertEquals(3, files.size());
+            for (int replica = 0; replica < 3; replica++) {
+                List<String> lines = Files.readAllLines(files.get(replica).toPath());
+                assertEquals(6, lines.size());
+                assertTrue(lines.get(0).endsWith("getActivation"));
+                assertEquals(replica * .25, Double.parseDouble(lines.get(5)), 0);
+            }
+            // The original workspace is not changed
+            assertEquals(0, n1.getActivation(), 0);
+        } finally {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadAttribute() {
+        new BatchRunner(workspace.getZipData()).record("Net2");
+    }
+}
@@ -0,0 +1,113 @@
+package org.simbrain.workspace.batch;
+
+import org.junit.Test;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.updater.UpdateAllAction;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class WorkspacePoolTest {
+
+    /**
+     * Add two networks with a coupling from n1 to n2 and return n2.
+     */
+    private static Neuron addCoupledNetworks(Workspace workspace, double n1Activation) {
+        Network net1 = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Net1", net1));
+        Network net2 = new Network();
+        workspace.addWorkspaceComponent(new NetworkComponent("Net2", net2));
+        Neuron n1 = new Neuron(net1);
+        n1.setClamped(true);
+        n1.forceSetActivation(n1Activation);
+        net1.addLooseNeuron(n1);
+        Neuron n2 = new Neuron(net2);
+        net2.addLooseNeuron(n2);
+        workspace.getCouplingManager().createCoupling(
+                workspace.getCouplingManager().getProducer(n1, "getActivation"),
+                workspace.getCouplingManager().getConsumer(n2, "setInputValue"));
+        return n2;
+    }
+
+    @Test
+    public void testHeadlessIterateRunsOnCallingThread() {
+        Workspace workspace = new Workspace(true);
+        assertEquals(1, workspace.getUpdater().getUpdateManager().getActionList().size());
+        assertTrue(workspace.getUpdater().getUpdateManager().getActionList().get(0) instanceof UpdateAllAction);
+
+        Neuron n2 = addCoupledNetworks(workspace, .8);
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> updatingThread = new AtomicReference<>();
+        workspace.addUpdateAction(new UpdateAllAction(workspace.getUpdater()) {
+            @Override
+            public void invoke() {
+                updatingThread.set(Thread.currentThread());
+            }
+        });
+        workspace.iterate(2);
+        assertEquals(.8, n2.getActivation(), 1e-9);
+        assertEquals(2, workspace.getTime());
+        assertSame(caller, updatingThread.get());
+    }
+
+    @Test
+    public void testReleasedWorkspacesAreResetAndReused() {
+        WorkspacePool pool = new WorkspacePool(2);
+        Workspace first = pool.acquire();
+        assertTrue(first.isHeadless());
+        addCoupledNetworks(first, .5);
+        first.iterate(3);
+        first.setUpdateDelay(10);
+        pool.release(first);
+        assertEquals(1, pool.getNumIdle());
+
+        Workspace second = pool.acquire();
+        assertSame(first, second);
+        assertEquals(0, pool.getNumIdle());
+        assertTrue(second.getComponentList().isEmpty());
+        assertTrue(second.getCouplings().isEmpty());
+        assertEquals(0, second.getTime());
+        assertEquals(0, second.getUpdateDelay());
+        assertEquals(1, second.getUpdater().getUpdateManager().getActionList().size());
+
+        // Runs the same way as a new workspace, including component naming
+        Neuron n2 = addCoupledNetworks(second, .25);
+        second.addWorkspaceComponent(new NetworkComponent(""));
+        assertEquals("Network1", second.getComponentList().get(2).getName());
+        second.iterate(1);
+        assertEquals(.25, n2.getActivation(), 1e-9);
+        pool.release(second);
+    }
+
+    @Test
+    public void testRunReleasesWorkspaceOnFailure() {
+        WorkspacePool pool = new WorkspacePool(1);
+        try {
+            pool.run(workspace -> {
+                addCoupledNetworks(workspace, 1);
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, pool.getNumIdle());
+        assertEquals(0, (int) pool.run(workspace -> workspace.getComponentList().size()));
+
+        // Only one idle workspace is kept
+        Workspace a = pool.acquire();
+        Workspace b = pool.acquire();
+        pool.release(a);
+        pool.release(b);
+        assertEquals(1, pool.getNumIdle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOnlyHeadlessWorkspacesArePooled() {
+        new WorkspacePool().release(new Workspace());
+    }
+}
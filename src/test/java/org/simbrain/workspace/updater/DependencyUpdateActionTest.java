@@ -0,0 +1,111 @@
+package org.simbrain.workspace.updater;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.simbrain.network.NetworkComponent;
+import org.simbrain.network.core.Network;
+import org.simbrain.network.core.Neuron;
+import org.simbrain.workspace.Workspace;
+import org.simbrain.workspace.couplings.CouplingManager;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DependencyUpdateActionTest {
+
+    private Workspace workspace;
+
+    private NetworkComponent nc1, nc2, nc3;
+
+    private Neuron n1, n2, n3;
+
+    private DependencyUpdateAction action;
+
+    /**
+     * Create a component with one neuron.
+     */
+    private NetworkComponent addNetwork(String name) {
+        Network net = new Network();
+        net.addLooseNeuron(new Neuron(net));
+        NetworkComponent nc = new NetworkComponent(name, net);
+        workspace.addWorkspaceComponent(nc);
+        return nc;
+    }
+
+    private static Neuron neuron(NetworkComponent nc) {
+        return nc.getNetwork().getLooseNeurons().iterator().next();
+    }
+
+    private void couple(Neuron source, Neuron target) {
+        CouplingManager cm = workspace.getCouplingManager();
+        cm.createCoupling(cm.getProducer(source, "getActivation"), cm.getConsumer(target, "setInputValue"));
+    }
+
+    @Before
+    public void setUp() {
+        // Added in the reverse of the order they must be updated in
+        workspace = new Workspace();
+        nc3 = addNetwork("net3");
+        nc2 = addNetwork("net2");
+        nc1 = addNetwork("net1");
+        n1 = neuron(nc1);
+        n2 = neuron(nc2);
+        n3 = neuron(nc3);
+        action = new DependencyUpdateAction(workspace.getUpdater());
+        workspace.getUpdater().getUpdateManager().clear();
+        workspace.getUpdater().getUpdateManager().addAction(action);
+    }
+
+    @Test
+    public void testChainUpdatedInOneIteration() {
+        couple(n1, n2);
+        couple(n2, n3);
+        n1.setClamped(true);
+        n1.forceSetActivation(.5);
+        workspace.iterate(1);
+        assertEquals(.5, n2.getActivation(), 0);
+        assertEquals(.5, n3.getActivation(), 0);
+        assertEquals(Arrays.asList(nc1, nc2, nc3), action.getCriticalPath());
+        assertEquals(3, action.getComponentTimes().size());
+    }
+
+    @Test
+    public void testCycleIsBuffered() {
+        couple(n1, n2);
+        couple(n2, n1);
+        n1.forceSetActivation(.5);
+        n2.forceSetActivation(-.25);
+        workspace.iterate(1);
+        assertEquals(-.25, n1.getActivation(), 0);
+        assertEquals(.5, n2.getActivation(), 0);
+        workspace.iterate(1);
+        assertEquals(.5, n1.getActivation(), 0);
+        assertEquals(-.25, n2.getActivation(), 0);
+    }
+
+    @Test
+    public void testCouplingsChanged() {
+        couple(n1, n2);
+        n1.setClamped(true);
+        n1.forceSetActivation(.5);
+        workspace.iterate(1);
+        assertEquals(0, n3.getActivation(), 0);
+        couple(n2, n3);
+        workspace.iterate(1);
+        assertEquals(.5, n3.getActivation(), 0);
+    }
+
+    @Test
+    public void testNumThreadsChanged() {
+        couple(n1, n2);
+        couple(n2, n3);
+        n1.setClamped(true);
+        n1.forceSetActivation(.5);
+        workspace.getUpdater().setNumThreads(1);
+        workspace.iterate(2);
+        workspace.getUpdater().setNumThreads(4);
+        workspace.iterate(2);
+        assertEquals(.5, n3.getActivation(), 0);
+    }
+}
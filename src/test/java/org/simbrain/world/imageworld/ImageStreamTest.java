@@ -0,0 +1,149 @@
+package org.simbrain.world.imageworld;
+
+import com.thoughtworks.xstream.XStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ImageStreamTest {
+
+    private File dir;
+
+    private File[] files;
+
+    /**
+     * Write images whose blue value is their index.
+     */
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("imagestream").toFile();
+        files = new File[20];
+        for (int i = 0; i < files.length; i++) {
+            BufferedImage image = new BufferedImage(6, 4, BufferedImage.TYPE_3BYTE_BGR);
+            for (int y = 0; y < 4; y++) {
+                for (int x = 0; x < 6; x++) {
+                    image.setRGB(x, y, i);
+                }
+            }
+            files[i] = new File(dir, "frame" + i + ".png");
+            ImageIO.write(image, "png", files[i]);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    private static int index(BufferedImage image) {
+        return image.getRGB(0, 0) & 0xFF;
+    }
+
+    @Test
+    public void testSequentialOrderRepeats() {
+        try (ImageStream stream = new ImageStream(files, 3, null, null)) {
+            for (int i = 0; i < 45; i++) {
+                BufferedImage image = stream.next();
+                assertEquals(i % 20, index(image));
+                assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+            }
+            assertEquals(4, stream.getPosition());
+            assertEquals(3, index(stream.previous()));
+            assertEquals(4, index(stream.next()));
+            stream.seek(17);
+            assertEquals(17, index(stream.next()));
+        }
+    }
+
+    @Test
+    public void testShuffleIsFixedBySeed() {
+        int[] first = new int[20];
+        Set<Integer> seen = new HashSet<>();
+        try (ImageStream stream = new ImageStream(files, 4, 42L, null)) {
+            for (int i = 0; i < 20; i++) {
+                first[i] = index(stream.next());
+                seen.add(first[i]);
+            }
+        }
+        assertEquals(20, seen.size());
+        try (ImageStream stream = new ImageStream(files, 4, 42L, null)) {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(first[i], index(stream.next()));
+            }
+        }
+    }
+
+    @Test
+    public void testFramesScaled() {
+        try (ImageStream stream = new ImageStream(files, 2, null, new Dimension(3, 2))) {
+            BufferedImage image = stream.next();
+            assertEquals(3, image.getWidth());
+            assertEquals(2, image.getHeight());
+            assertEquals(0, index(image));
+            assertEquals(1, index(stream.next()));
+        }
+    }
+
+    @Test
+    public void testUnreadableFilesSkipped() throws IOException {
+        Files.write(files[1].toPath(), new byte[]{1, 2, 3});
+        try (ImageStream stream = new ImageStream(files, 2, null, null)) {
+            assertEquals(0, index(stream.next()));
+            assertEquals(2, index(stream.next()));
+        }
+    }
+
+    @Test
+    public void testAlbumStepsThroughStream() {
+        ImageAlbum album = new ImageAlbum();
+        album.loadImages(files);
+        assertEquals(20, album.getNumFrames());
+        assertEquals(0, index(album.getCurrentImage()));
+        album.nextFrame();
+        assertEquals(1, index(album.getCurrentImage()));
+        album.previousFrame();
+        album.previousFrame();
+        assertEquals(19, index(album.getCurrentImage()));
+        album.setFrame(7);
+        assertEquals(7, index(album.getCurrentImage()));
+        album.closeStream();
+    }
+
+    @Test
+    public void testAlbumStreamSavedAndRestored() {
+        ImageAlbum album = new ImageAlbum();
+        album.setStream(new ImageStream(files, 4, 42L, new Dimension(3, 2)));
+        for (int i = 0; i < 5; i++) {
+            album.nextFrame();
+        }
+        XStream xstream = ImageWorldComponent.getXStream();
+        ImageAlbum copy = (ImageAlbum) xstream.fromXML(xstream.toXML(album));
+        assertEquals(20, copy.getNumFrames());
+        assertEquals(index(album.getCurrentImage()), index(copy.getCurrentImage()));
+        for (int i = 0; i < 25; i++) {
+            album.nextFrame();
+            copy.nextFrame();
+            assertEquals(index(album.getCurrentImage()), index(copy.getCurrentImage()));
+            assertEquals(3, copy.getCurrentImage().getWidth());
+        }
+        copy.previousFrame();
+        album.previousFrame();
+        assertEquals(index(album.getCurrentImage()), index(copy.getCurrentImage()));
+        album.closeStream();
+        copy.closeStream();
+    }
+}
@@ -0,0 +1,63 @@
+package org.simbrain.world.imageworld.filters;
+
+import org.junit.Test;
+import org.simbrain.world.imageworld.EmitterMatrix;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FilterTest {
+
+    /**
+     * An 8x8 image whose left half is white and right half dark blue.
+     */
+    private static EmitterMatrix createSource(int imageType) {
+        BufferedImage image = new BufferedImage(8, 8, imageType);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                image.setRGB(x, y, x < 4 ? 0xFFFFFFFF : 0xFF000040);
+            }
+        }
+        return new EmitterMatrix(image);
+    }
+
+    @Test
+    public void testIdentityMatchesImage() {
+        EmitterMatrix source = createSource(BufferedImage.TYPE_INT_RGB);
+        Filter filter = new Filter("Color", source, new IdentityOp(), 8, 8);
+        for (int i = 0; i < 64; i++) {
+            assertEquals(source.getCurrentImage().getRGB(i % 8, i / 8), filter.getRGBColor()[i]);
+            assertEquals(i % 8 < 4 ? 1 : 0x40 / 255.0, filter.getBlue()[i], 1e-12);
+            assertEquals(i % 8 < 4 ? 1 : 0.0722 * 0x40 / 255, filter.getBrightness()[i], 1e-12);
+        }
+    }
+
+    @Test
+    public void testScaledThreshold() {
+        for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR}) {
+            EmitterMatrix source = createSource(type);
+            Filter filter = new Filter("Threshold", source, new ThresholdOp(.5), 4, 2);
+            for (int i = 0; i < 8; i++) {
+                assertEquals(i % 4 < 2 ? 1 : 0, filter.getBrightness()[i], 1e-12);
+                assertEquals(i % 4 < 2 ? 0xFFFFFFFF : 0xFF000000, filter.getRGBColor()[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testOffsetAndChannelsFollowImage() {
+        EmitterMatrix source = createSource(BufferedImage.TYPE_INT_RGB);
+        Filter filter = new Filter("Offset", source, new OffsetOp(2, 0), 8, 8);
+        double[] red = filter.getRed();
+        assertArrayEquals(new double[]{0, 0, 1, 1, 1, 1, 0, 0}, Arrays.copyOf(red, 8), 0);
+
+        source.setUsingRGBColor(true);
+        source.setRGBColor(new int[64]);
+        source.emitImage();
+        filter.updateFilter();
+        assertEquals(0, filter.getRed()[3], 0);
+        assertEquals(0xFF000000, ((BufferedImage) filter.getFilteredImage()).getRGB(3, 0));
+    }
+}
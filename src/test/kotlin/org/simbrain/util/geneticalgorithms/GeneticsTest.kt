@@ -6,6 +6,9 @@ import org.simbrain.network.NetworkComponent
 import org.simbrain.network.core.Network
 import org.simbrain.network.util.activations
 import org.simbrain.workspace.Workspace
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.math.abs
 
 class GeneticsTest {
 
@@ -262,4 +265,81 @@ class GeneticsTest {
 
         build.eval()
     }
-}
\ No newline at end of file
+
+    /**
+     * Evolves a single integer towards 50, counting evaluations.
+     */
+    private fun countingEvaluator(evaluations: AtomicInteger, template: Evaluator.() -> Unit): Evaluator {
+        val builder = environmentBuilder(1) {
+            val ints = chromosome(1) { intGene { value = 0 } }
+            onMutate {
+                ints.forEach { it.mutate { value += random.nextInt(-5, 6) } }
+            }
+            onBuild {
+                +ints
+            }
+            onEval {
+                evaluations.incrementAndGet()
+                -abs(50.0 - ints.products.first()) - evalRand.nextDouble()
+            }
+        }
+        return evaluator(builder) {
+            populationSize = 100
+            eliminationRatio = 0.5
+            evaluationThreads = 2
+            runUntil { generation == 5 }
+            apply(template)
+        }
+    }
+
+    @Test
+    fun `survivors are not evaluated again`() {
+        val evaluations = AtomicInteger()
+        val result = countingEvaluator(evaluations) { }.start()
+        result.best
+        assertEquals(100 + 4 * 50, evaluations.get())
+        assertEquals(5, result.stats.size)
+        assertEquals(100, result.stats[0].evaluated)
+        result.stats.drop(1).forEach {
+            assertEquals(50, it.evaluated)
+            assertEquals(50, it.reused)
+        }
+
+        val uncached = AtomicInteger()
+        countingEvaluator(uncached) { cacheFitness = false }.start().best
+        assertEquals(500, uncached.get())
+    }
+
+    @Test
+    fun `trials are averaged and hopeless agents stopped early`() {
+        val evaluations = AtomicInteger()
+        val stats = mutableListOf<Evaluator.GenerationStats>()
+        countingEvaluator(evaluations) {
+            numTrials = 4
+            earlyTermination = true
+        }.start().onEachGenerationStats { stats.add(it) }.best
+        assertEquals(5, stats.size)
+        // No cutoff for the first generation
+        assertEquals(400, stats[0].trials)
+        assertEquals(0, stats[0].terminatedEarly)
+        assertTrue(stats.drop(1).sumBy { it.terminatedEarly } > 0)
+        assertEquals(stats.sumBy { it.trials }, evaluations.get())
+    }
+
+    @Test
+    fun `evaluation threads are stopped when a run finishes`() {
+        countingEvaluator(AtomicInteger()) { }.start().best
+        val deadline = System.currentTimeMillis() + 5000
+        while (Thread.getAllStackTraces().keys.any { it.name == "Evaluator" && it.isAlive }
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        assertFalse(Thread.getAllStackTraces().keys.any { it.name == "Evaluator" && it.isAlive })
+
+        // An executor that was provided is left running
+        val executor = Executors.newFixedThreadPool(2)
+        countingEvaluator(AtomicInteger()) { this.executor = executor }.start().best
+        assertFalse(executor.isShutdown)
+        executor.shutdown()
+    }
+}
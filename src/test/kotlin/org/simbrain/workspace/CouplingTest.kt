@@ -6,6 +6,7 @@ import org.junit.Test
 import org.simbrain.network.NetworkComponent
 import org.simbrain.network.core.Network
 import org.simbrain.network.core.Neuron
+import org.simbrain.network.groups.NeuronGroup
 import org.simbrain.util.complement
 import org.simbrain.workspace.couplings.Coupling
 
@@ -240,4 +241,36 @@ class CouplingTest {
         assertEquals(.5, neuron2.activation, 0.0001)
         assertEquals(.5, neuron3.activation, 0.0001)
     }
+
+    @Test
+    fun `test array coupling`() {
+        val ng1 = NeuronGroup(network, 3).also { network.addNeuronGroup(it) }
+        val ng2 = NeuronGroup(network, 3).also { network.addNeuronGroup(it) }
+        ng1.forceSetActivations(doubleArrayOf(.1, .2, .3))
+        with(couplingManager) {
+            ng1.getProducer("getActivations") couple ng2.getConsumer("setInputValues")
+        }
+        workspace.simpleIterate()
+        assertEquals(.3, ng2.getNeuron(2).activation, 0.0001)
+    }
+
+    @Test
+    fun `test couplings updated after removing some`() {
+        val sources = List(5) { Neuron(network).also { n -> network.addLooseNeuron(n) } }
+        val network2 = Network()
+        workspace.addWorkspaceComponent(NetworkComponent("net2", network2))
+        val targets = List(5) { Neuron(network2).also { n -> network2.addLooseNeuron(n) } }
+        sources.forEachIndexed { i, n -> n.forceSetActivation(i / 10.0) }
+        val couplings = with(couplingManager) {
+            (sources zip targets).map { (s, t) -> s.getProducer("getActivation") couple t.getConsumer("setInputValue") }
+        }
+        workspace.simpleIterate()
+        assertEquals(.4, targets[4].activation, 0.0001)
+
+        couplingManager.removeCoupling(couplings[4])
+        sources.forEach { it.forceSetActivation(-.5) }
+        workspace.simpleIterate()
+        assertEquals(-.5, targets[3].activation, 0.0001)
+        assertEquals(0.0, targets[4].activation, 0.0001)
+    }
 }